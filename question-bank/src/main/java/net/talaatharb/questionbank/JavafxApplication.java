@@ -18,13 +18,15 @@ public class JavafxApplication extends Application {
 	private static final String TITLE = "Question Bank Manager";
 	private static final int WIDTH = 800;
 
+	private MainUiController controller;
+
 	@Override
 	public void start(Stage primaryStage) throws Exception {
 		final FXMLLoader fxmlLoader = new FXMLLoader(getClass().getResource(MAIN_FXML));
 		final Parent root = fxmlLoader.load();
 
 		// Get the controller and set the primary stage
-		MainUiController controller = fxmlLoader.getController();
+		controller = fxmlLoader.getController();
 		controller.setPrimaryStage(primaryStage);
 
 		final Image icon = new Image(getClass().getResourceAsStream(ICON_FILE));
@@ -39,6 +41,10 @@ public class JavafxApplication extends Application {
 
 	@Override
 	public void stop() throws Exception {
+		// Write the edits still waiting to be saved before exiting
+		if (controller != null) {
+			controller.close();
+		}
 		Platform.exit();
 	}
 
@@ -4,9 +4,20 @@ import com.fasterxml.jackson.databind.MapperFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import net.talaatharb.questionbank.service.AsyncQuestionService;
+import net.talaatharb.questionbank.service.CachingQuestionService;
 import net.talaatharb.questionbank.service.QuestionService;
 import net.talaatharb.questionbank.service.QuestionServiceImpl;
+import net.talaatharb.questionbank.service.SaveScheduler;
+import net.talaatharb.questionbank.storage.BankDirectoryWatcher;
+import net.talaatharb.questionbank.utils.FileUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
 
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
@@ -17,7 +28,12 @@ import lombok.extern.slf4j.Slf4j;
 public class HelperBeans {
 
 	private static ObjectMapper objectMapper;
+	private static ObjectMapper smileMapper;
+	private static ObjectMapper cborMapper;
 	private static QuestionService questionService;
+	private static AsyncQuestionService asyncQuestionService;
+	private static SaveScheduler saveScheduler;
+	private static BankDirectoryWatcher bankDirectoryWatcher;
 
 	public static final ObjectMapper buildObjectMapper() {
 		if (objectMapper == null) {
@@ -33,17 +49,108 @@ public class HelperBeans {
 	}
 
 	/**
-	 * Creates a QuestionService bean instance (singleton)
+	 * Creates an ObjectMapper bean for the Smile binary encoding of JSON
+	 * (singleton), repeated string values such as categories are written once and
+	 * referenced afterwards
+	 * 
+	 * @return ObjectMapper reading and writing Smile
+	 */
+	public static final ObjectMapper buildSmileMapper() {
+		if (smileMapper == null) {
+			log.debug("Creating new Smile ObjectMapper bean");
+			smileMapper = SmileMapper.builder().enable(MapperFeature.ACCEPT_CASE_INSENSITIVE_ENUMS)
+					.enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+					.addModule(new JavaTimeModule())
+					.build();
+		} else {
+			log.debug("Reusing existing Smile ObjectMapper bean");
+		}
+		return smileMapper;
+	}
+
+	/**
+	 * Creates an ObjectMapper bean for the CBOR binary encoding (singleton)
+	 * 
+	 * @return ObjectMapper reading and writing CBOR
+	 */
+	public static final ObjectMapper buildCborMapper() {
+		if (cborMapper == null) {
+			log.debug("Creating new CBOR ObjectMapper bean");
+			cborMapper = CBORMapper.builder().enable(MapperFeature.ACCEPT_CASE_INSENSITIVE_ENUMS)
+					.addModule(new JavaTimeModule())
+					.build();
+		} else {
+			log.debug("Reusing existing CBOR ObjectMapper bean");
+		}
+		return cborMapper;
+	}
+
+	/**
+	 * Creates a QuestionService bean instance (singleton), recently loaded banks
+	 * are kept in memory
 	 * 
 	 * @return QuestionService implementation
 	 */
 	public static final QuestionService buildQuestionService() {
 		if (questionService == null) {
 			log.debug("Creating new QuestionService bean");
-			questionService = new QuestionServiceImpl();
+			questionService = new CachingQuestionService(new QuestionServiceImpl());
 		} else {
 			log.debug("Reusing existing QuestionService bean");
 		}
 		return questionService;
 	}
+
+	/**
+	 * Creates an AsyncQuestionService bean instance (singleton) running the calls
+	 * of the QuestionService bean on virtual threads
+	 * 
+	 * @return AsyncQuestionService wrapping the QuestionService bean
+	 */
+	public static final AsyncQuestionService buildAsyncQuestionService() {
+		if (asyncQuestionService == null) {
+			log.debug("Creating new AsyncQuestionService bean");
+			asyncQuestionService = new AsyncQuestionService(buildQuestionService());
+		} else {
+			log.debug("Reusing existing AsyncQuestionService bean");
+		}
+		return asyncQuestionService;
+	}
+
+	/**
+	 * Creates a SaveScheduler bean instance (singleton) debouncing the saves of
+	 * the editor
+	 * 
+	 * @return SaveScheduler starting saves on the FX thread
+	 */
+	public static final SaveScheduler buildSaveScheduler() {
+		if (saveScheduler == null) {
+			log.debug("Creating new SaveScheduler bean");
+			saveScheduler = new SaveScheduler();
+		} else {
+			log.debug("Reusing existing SaveScheduler bean");
+		}
+		return saveScheduler;
+	}
+
+	/**
+	 * Creates a started watcher of the data folder (singleton)
+	 * 
+	 * @return the watcher, or null if the data folder cannot be watched
+	 */
+	public static final BankDirectoryWatcher buildBankDirectoryWatcher() {
+		if (bankDirectoryWatcher == null) {
+			log.debug("Creating new BankDirectoryWatcher bean");
+			BankDirectoryWatcher watcher = new BankDirectoryWatcher(Path.of(FileUtils.getDataFolder()));
+			try {
+				watcher.start();
+				bankDirectoryWatcher = watcher;
+			} catch (IOException e) {
+				log.debug("Cannot watch the data folder, banks will be listed on refresh", e);
+			}
+		} else {
+			log.debug("Reusing existing BankDirectoryWatcher bean");
+		}
+		return bankDirectoryWatcher;
+	}
 }
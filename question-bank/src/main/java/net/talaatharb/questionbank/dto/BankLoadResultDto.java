@@ -0,0 +1,19 @@
+package net.talaatharb.questionbank.dto;
+
+import lombok.Data;
+
+/**
+ * Outcome of parsing a single question bank during a bulk load
+ */
+@Data
+public class BankLoadResultDto {
+    private String questionBank;
+    private int questionCount;
+    private long sizeBytes;
+    private long elapsedNanos;
+    private String error;
+
+    public boolean isSuccessful() {
+        return error == null;
+    }
+}
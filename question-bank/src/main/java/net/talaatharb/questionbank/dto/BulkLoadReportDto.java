@@ -0,0 +1,27 @@
+package net.talaatharb.questionbank.dto;
+
+import lombok.Data;
+
+/**
+ * Aggregate of a bulk load of all question banks, the throughput is measured
+ * over the wall clock time of the whole load
+ */
+@Data
+public class BulkLoadReportDto {
+    private static final double BYTES_PER_MEGABYTE = 1024.0 * 1024.0;
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+    private int bankCount;
+    private int failedBankCount;
+    private long questionCount;
+    private long sizeBytes;
+    private long elapsedNanos;
+
+    public double getMegabytesPerSecond() {
+        return elapsedNanos == 0 ? 0 : sizeBytes / BYTES_PER_MEGABYTE / (elapsedNanos / NANOS_PER_SECOND);
+    }
+
+    public double getQuestionsPerSecond() {
+        return elapsedNanos == 0 ? 0 : questionCount / (elapsedNanos / NANOS_PER_SECOND);
+    }
+}
@@ -0,0 +1,17 @@
+package net.talaatharb.questionbank.dto;
+
+import java.util.List;
+
+import lombok.Data;
+
+/**
+ * Questions that are likely duplicates of each other, possibly from different
+ * banks. Similarities are estimated Jaccard similarities of the text of the
+ * questions and their answers.
+ */
+@Data
+public class DuplicateClusterDto {
+    private List<DuplicateQuestionDto> questions;
+    private double minSimilarity;
+    private double maxSimilarity;
+}
@@ -0,0 +1,18 @@
+package net.talaatharb.questionbank.dto;
+
+import java.util.UUID;
+
+import lombok.Data;
+
+/**
+ * A question of a duplicate cluster and where it was found
+ */
+@Data
+public class DuplicateQuestionDto {
+    private String questionBank;
+    private int position;
+    private UUID id;
+    private String question;
+    private String answer;
+    private double similarity;
+}
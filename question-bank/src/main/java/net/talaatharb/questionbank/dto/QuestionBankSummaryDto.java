@@ -0,0 +1,20 @@
+package net.talaatharb.questionbank.dto;
+
+import java.util.List;
+import java.util.Map;
+
+import lombok.Data;
+
+/**
+ * Precomputed metadata of a question bank, kept in the bank manifest so that it
+ * can be shown without parsing the bank
+ */
+@Data
+public class QuestionBankSummaryDto {
+    private String name;
+    private int questionCount;
+    private long sizeBytes;
+    private long lastModified;
+    private Map<String, Integer> categories;
+    private List<String> languages;
+}
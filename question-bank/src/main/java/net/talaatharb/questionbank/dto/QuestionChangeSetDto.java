@@ -0,0 +1,43 @@
+package net.talaatharb.questionbank.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import lombok.Data;
+
+/**
+ * Changes made to the questions of a bank since it was last saved, keyed by
+ * question id. Inserted and edited questions are upserted in place, new ones at
+ * the end of the bank, unless a new order of the whole bank is given.
+ * <p>
+ * Changes with bases are only applied if nobody changed the same questions
+ * since, comparing the version of each base with the saved one, and the
+ * versions of the upserted questions are then increased.
+ */
+@Data
+public class QuestionChangeSetDto {
+    private List<QuestionDto> upserts = new ArrayList<>();
+    private List<UUID> deletions = new ArrayList<>();
+    /**
+     * The ids of all questions of the bank in their new order, null if the
+     * questions were not reordered
+     */
+    private List<UUID> order;
+    /**
+     * The upserted and deleted questions as they were loaded or last saved, keyed
+     * by id, an upserted question without a base is expected to be new. Null to
+     * apply the changes whatever was saved in the meantime.
+     */
+    private Map<UUID, QuestionDto> bases;
+    /**
+     * Merges the changes made to a question in the meantime when they touch other
+     * fields than the upsert, instead of rejecting the changes
+     */
+    private boolean mergeConflicts;
+
+    public boolean isEmpty() {
+        return upserts.isEmpty() && deletions.isEmpty() && order == null;
+    }
+}
@@ -0,0 +1,27 @@
+package net.talaatharb.questionbank.dto;
+
+import java.util.UUID;
+
+import lombok.Data;
+
+/**
+ * A question changed both by a change set and elsewhere since the base of the
+ * change set was loaded
+ */
+@Data
+public class QuestionConflictDto {
+    private UUID id;
+    /**
+     * The version the change set was based on, null for a question expected to
+     * be new
+     */
+    private String baseVersion;
+    /**
+     * The version saved in the meantime, null if the question was deleted
+     */
+    private String currentVersion;
+    /**
+     * True if the change set deletes the question, false if it upserts it
+     */
+    private boolean deletion;
+}
@@ -0,0 +1,46 @@
+package net.talaatharb.questionbank.dto;
+
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * The text fields of a {@link QuestionDto}, in a fixed order that binary
+ * formats rely on. New fields must only ever be appended.
+ */
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public enum QuestionField {
+    QUESTION("question", QuestionDto::getQuestion, QuestionDto::setQuestion),
+    ANSWER("answer", QuestionDto::getAnswer, QuestionDto::setAnswer),
+    CATEGORY("category", QuestionDto::getCategory, QuestionDto::setCategory),
+    SOURCE("source", QuestionDto::getSource, QuestionDto::setSource),
+    EXPLANATION("explanation", QuestionDto::getExplanation, QuestionDto::setExplanation),
+    TAGS("tags", QuestionDto::getTags, QuestionDto::setTags),
+    CREATED_AT("createdAt", QuestionDto::getCreatedAt, QuestionDto::setCreatedAt),
+    UPDATED_AT("updatedAt", QuestionDto::getUpdatedAt, QuestionDto::setUpdatedAt),
+    CREATED_BY("createdBy", QuestionDto::getCreatedBy, QuestionDto::setCreatedBy),
+    UPDATED_BY("updatedBy", QuestionDto::getUpdatedBy, QuestionDto::setUpdatedBy),
+    STATUS("status", QuestionDto::getStatus, QuestionDto::setStatus),
+    VERSION("version", QuestionDto::getVersion, QuestionDto::setVersion),
+    LANGUAGE("language", QuestionDto::getLanguage, QuestionDto::setLanguage),
+    QUESTION_AUDIO_FILE_NAME("questionAudioFileName", QuestionDto::getQuestionAudioFileName,
+            QuestionDto::setQuestionAudioFileName),
+    ANSWER_AUDIO_FILE_NAME("answerAudioFileName", QuestionDto::getAnswerAudioFileName,
+            QuestionDto::setAnswerAudioFileName);
+
+    @Getter
+    private final String propertyName;
+    private final Function<QuestionDto, String> getter;
+    private final BiConsumer<QuestionDto, String> setter;
+
+    public String get(QuestionDto question) {
+        return getter.apply(question);
+    }
+
+    public void set(QuestionDto question, String value) {
+        setter.accept(question, value);
+    }
+}
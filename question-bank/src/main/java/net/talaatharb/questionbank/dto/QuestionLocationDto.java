@@ -0,0 +1,13 @@
+package net.talaatharb.questionbank.dto;
+
+import lombok.Data;
+
+/**
+ * A question found by its id and where it was found
+ */
+@Data
+public class QuestionLocationDto {
+    private String questionBank;
+    private int position;
+    private QuestionDto question;
+}
@@ -0,0 +1,285 @@
+package net.talaatharb.questionbank.service;
+
+import javafx.application.Platform;
+import lombok.extern.slf4j.Slf4j;
+import net.talaatharb.questionbank.dto.DuplicateClusterDto;
+import net.talaatharb.questionbank.dto.QuestionBankSummaryDto;
+import net.talaatharb.questionbank.dto.QuestionChangeSetDto;
+import net.talaatharb.questionbank.dto.QuestionDto;
+import net.talaatharb.questionbank.dto.QuestionField;
+import net.talaatharb.questionbank.dto.QuestionLocationDto;
+import net.talaatharb.questionbank.utils.QuestionUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+/**
+ * Runs the calls of a {@link QuestionService} off the JavaFX application
+ * thread. Every call runs on its own virtual thread and the returned future is
+ * completed on the FX thread, so callbacks attached to it can update the UI
+ * directly.
+ * <p>
+ * Cancelling the future of a read interrupts the thread running it and its
+ * result is dropped. Writes are never interrupted, cancelling them only drops
+ * the notification, so a bank is never left half written. Writes of a bank run
+ * one at a time in the order they were requested, so a later save of a bank is
+ * never overwritten by an earlier one.
+ */
+@Slf4j
+public class AsyncQuestionService {
+
+    private final QuestionService delegate;
+    private final Executor executor;
+    private final Executor callbackExecutor;
+    private final Map<String, CompletableFuture<Void>> lastWrites = new ConcurrentHashMap<>();
+
+    public AsyncQuestionService(QuestionService delegate) {
+        this(delegate, Executors.newVirtualThreadPerTaskExecutor(), Platform::runLater);
+    }
+
+    /**
+     * @param delegate         the service doing the actual work
+     * @param executor         runs the calls of the delegate
+     * @param callbackExecutor completes the returned futures
+     */
+    public AsyncQuestionService(QuestionService delegate, Executor executor, Executor callbackExecutor) {
+        this.delegate = delegate;
+        this.executor = executor;
+        this.callbackExecutor = callbackExecutor;
+    }
+
+    public QuestionService getDelegate() {
+        return delegate;
+    }
+
+    public CompletableFuture<List<String>> getQuestionBanks() {
+        return submit(delegate::getQuestionBanks, true);
+    }
+
+    public CompletableFuture<List<QuestionBankSummaryDto>> getQuestionBankSummaries() {
+        return submit(delegate::getQuestionBankSummaries, true);
+    }
+
+    public CompletableFuture<List<QuestionBankSummaryDto>> getQuestionBankSummaries(List<String> questionBanks) {
+        List<String> snapshot = List.copyOf(questionBanks);
+        return submit(() -> delegate.getQuestionBankSummaries(snapshot), true);
+    }
+
+    public CompletableFuture<Optional<QuestionBankSummaryDto>> getQuestionBankSummary(String questionBank) {
+        return submit(() -> delegate.getQuestionBankSummary(questionBank), true);
+    }
+
+    public CompletableFuture<List<QuestionDto>> getQuestions(String questionBank) {
+        return submit(() -> delegate.getQuestions(questionBank), true);
+    }
+
+    public CompletableFuture<Integer> getQuestionCount(String questionBank) {
+        return submit(() -> delegate.getQuestionCount(questionBank), true);
+    }
+
+    public CompletableFuture<List<QuestionDto>> getQuestions(String questionBank, int offset, int limit) {
+        return submit(() -> delegate.getQuestions(questionBank, offset, limit), true);
+    }
+
+    public CompletableFuture<List<QuestionDto>> search(String questionBank, String query, int limit) {
+        return submit(() -> delegate.search(questionBank, query, limit), true);
+    }
+
+    public CompletableFuture<Map<QuestionField, Map<String, Integer>>> getFacetCounts(String questionBank) {
+        return submit(() -> delegate.getFacetCounts(questionBank), true);
+    }
+
+    public CompletableFuture<List<QuestionDto>> filterQuestions(String questionBank, String filter, int offset,
+            int limit) {
+        return submit(() -> delegate.filterQuestions(questionBank, filter, offset, limit), true);
+    }
+
+    public CompletableFuture<List<DuplicateClusterDto>> findDuplicates(double threshold) {
+        return submit(() -> delegate.findDuplicates(threshold), true);
+    }
+
+    public CompletableFuture<Optional<QuestionLocationDto>> findById(UUID questionId) {
+        return submit(() -> delegate.findById(questionId), true);
+    }
+
+    public CompletableFuture<Void> saveQuestions(String questionBank, List<QuestionDto> questions) {
+        // Snapshot the questions, the caller may keep editing them while they are
+        // saved
+        List<QuestionDto> snapshot = questions == null ? null
+                : questions.stream().map(QuestionUtils::copyOf).toList();
+        return submitWrite(questionBank, () -> delegate.saveQuestions(questionBank, snapshot));
+    }
+
+    public CompletableFuture<Void> saveQuestion(String questionBank, QuestionDto question) {
+        if (question != null && question.getId() == null) {
+            question.setId(UUID.randomUUID());
+        }
+        QuestionDto snapshot = question == null ? null : QuestionUtils.copyOf(question);
+        return submitWrite(questionBank, () -> delegate.saveQuestion(questionBank, snapshot));
+    }
+
+    public CompletableFuture<List<QuestionDto>> applyChanges(String questionBank, QuestionChangeSetDto changeSet) {
+        // Snapshot the changed questions, the caller may keep editing them while
+        // they are saved
+        QuestionChangeSetDto snapshot = changeSet == null ? null : copyOf(changeSet);
+        return submitWrite(questionBank, () -> delegate.applyChanges(questionBank, snapshot));
+    }
+
+    public CompletableFuture<Void> deleteQuestion(String questionBank, UUID questionId) {
+        return submitWrite(questionBank, () -> delegate.deleteQuestion(questionBank, questionId));
+    }
+
+    public CompletableFuture<Void> convertQuestionBank(String sourceBank, String targetBank) {
+        return submitWrite(targetBank, () -> delegate.convertQuestionBank(sourceBank, targetBank));
+    }
+
+    /**
+     * Waits for the requested writes to finish without relying on the callback
+     * executor, so it can be called from the FX thread while the application stops
+     *
+     * @param timeout the longest time to wait
+     * @return true if no write is running anymore, false if the timeout elapsed
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean awaitWrites(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (true) {
+            CompletableFuture<?>[] running = lastWrites.values().stream().filter(write -> !write.isDone())
+                    .toArray(CompletableFuture[]::new);
+            if (running.length == 0) {
+                return true;
+            }
+            try {
+                CompletableFuture.allOf(running).get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                return false;
+            } catch (ExecutionException e) {
+                // Writes only complete normally once finished, whatever their outcome
+            }
+        }
+    }
+
+    private static QuestionChangeSetDto copyOf(QuestionChangeSetDto changeSet) {
+        QuestionChangeSetDto copy = new QuestionChangeSetDto();
+        copy.setUpserts(changeSet.getUpserts().stream().map(QuestionUtils::copyOf).toList());
+        copy.setDeletions(List.copyOf(changeSet.getDeletions()));
+        copy.setOrder(changeSet.getOrder() == null ? null : List.copyOf(changeSet.getOrder()));
+        copy.setBases(changeSet.getBases() == null ? null : changeSet.getBases().values().stream()
+                .collect(Collectors.toMap(QuestionDto::getId, QuestionUtils::copyOf)));
+        copy.setMergeConflicts(changeSet.isMergeConflicts());
+        return copy;
+    }
+
+    private <T> CompletableFuture<T> submit(Callable<T> call, boolean interruptible) {
+        AsyncCall<T> asyncCall = new AsyncCall<>(call, interruptible);
+        executor.execute(asyncCall);
+        return asyncCall.result;
+    }
+
+    private CompletableFuture<Void> submitWrite(String questionBank, Write write) {
+        return submitWrite(questionBank, () -> {
+            write.run();
+            return null;
+        });
+    }
+
+    /**
+     * Runs a write once the previous write of the same bank has finished
+     */
+    private <T> CompletableFuture<T> submitWrite(String questionBank, Callable<T> write) {
+        AsyncCall<T> asyncCall = new AsyncCall<>(write, false);
+        String key = String.valueOf(questionBank);
+        CompletableFuture<Void> previous = lastWrites.put(key, asyncCall.finished);
+        asyncCall.finished.whenComplete((result, error) -> lastWrites.remove(key, asyncCall.finished));
+        if (previous == null) {
+            executor.execute(asyncCall);
+        } else {
+            previous.whenComplete((result, error) -> executor.execute(asyncCall));
+        }
+        return asyncCall.result;
+    }
+
+    @FunctionalInterface
+    private interface Write {
+        void run() throws Exception;
+    }
+
+    /**
+     * A call running on the executor, remembers its thread so that it can be
+     * interrupted when its result is cancelled
+     */
+    private class AsyncCall<T> implements Runnable {
+
+        private final Callable<T> call;
+        private final boolean interruptible;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        /**
+         * Completed on the executor once the call has run, before its result is
+         * delivered
+         */
+        private final CompletableFuture<Void> finished = new CompletableFuture<>();
+        private Thread runner;
+
+        AsyncCall(Callable<T> call, boolean interruptible) {
+            this.call = call;
+            this.interruptible = interruptible;
+            if (interruptible) {
+                result.whenComplete((value, error) -> {
+                    if (result.isCancelled()) {
+                        interrupt();
+                    }
+                });
+            }
+        }
+
+        @Override
+        public void run() {
+            if (!setRunner(Thread.currentThread())) {
+                finished.complete(null);
+                return;
+            }
+
+            try {
+                T value = call.call();
+                callbackExecutor.execute(() -> result.complete(value));
+            } catch (Exception e) {
+                log.debug("Asynchronous question service call failed", e);
+                callbackExecutor.execute(() -> result.completeExceptionally(e));
+            } finally {
+                setRunner(null);
+                // Do not leak an interrupt to the next task of a pooled thread
+                Thread.interrupted();
+                finished.complete(null);
+            }
+        }
+
+        /**
+         * @return false if a read was cancelled before it started
+         */
+        private synchronized boolean setRunner(Thread thread) {
+            if (thread != null && interruptible && result.isDone()) {
+                return false;
+            }
+            runner = thread;
+            return true;
+        }
+
+        private synchronized void interrupt() {
+            if (runner != null) {
+                runner.interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,360 @@
+package net.talaatharb.questionbank.service;
+
+import lombok.extern.slf4j.Slf4j;
+import net.talaatharb.questionbank.dto.BankLoadResultDto;
+import net.talaatharb.questionbank.dto.BulkLoadReportDto;
+import net.talaatharb.questionbank.dto.DuplicateClusterDto;
+import net.talaatharb.questionbank.dto.QuestionBankSummaryDto;
+import net.talaatharb.questionbank.dto.QuestionChangeSetDto;
+import net.talaatharb.questionbank.dto.QuestionDto;
+import net.talaatharb.questionbank.dto.QuestionField;
+import net.talaatharb.questionbank.dto.QuestionLocationDto;
+import net.talaatharb.questionbank.storage.QuestionTable;
+import net.talaatharb.questionbank.storage.ShardedBank;
+import net.talaatharb.questionbank.utils.FileUtils;
+import net.talaatharb.questionbank.utils.QuestionUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Keeps recently loaded question banks in memory so that switching between
+ * scenes does not parse the same bank again. Entries are evicted least recently
+ * used first once their estimated retained size exceeds the capacity, and are
+ * only served while the size and modification time of the bank file and its
+ * journals still match, so saves of other processes are seen too.
+ * <p>
+ * Callers always receive copies. {@link QuestionDto} is mutable and the editor
+ * edits the questions it loads in place, a shared instance would show unsaved
+ * edits to every other reader of the bank. The copies share the field values
+ * with the cache, so a hit costs one small object per question instead of the
+ * read and parse of a miss.
+ */
+@Slf4j
+public class CachingQuestionService implements QuestionService {
+
+    private static final long DEFAULT_CAPACITY_BYTES = 64L * 1024L * 1024L;
+
+    private final QuestionService delegate;
+    private final long capacityBytes;
+    private final Map<String, CachedBank> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private long cachedBytes = 0;
+    private long writeCount = 0;
+
+    public CachingQuestionService(QuestionService delegate) {
+        this(delegate, DEFAULT_CAPACITY_BYTES);
+    }
+
+    /**
+     * @param delegate      the service that reads and writes the bank files
+     * @param capacityBytes maximum estimated size of all cached banks
+     */
+    public CachingQuestionService(QuestionService delegate, long capacityBytes) {
+        this.delegate = delegate;
+        this.capacityBytes = capacityBytes;
+    }
+
+    @Override
+    public List<String> getQuestionBanks() {
+        return delegate.getQuestionBanks();
+    }
+
+    @Override
+    public List<QuestionBankSummaryDto> getQuestionBankSummaries() {
+        return delegate.getQuestionBankSummaries();
+    }
+
+    @Override
+    public List<QuestionBankSummaryDto> getQuestionBankSummaries(List<String> questionBanks) {
+        return delegate.getQuestionBankSummaries(questionBanks);
+    }
+
+    @Override
+    public Optional<QuestionBankSummaryDto> getQuestionBankSummary(String questionBank) {
+        return delegate.getQuestionBankSummary(questionBank);
+    }
+
+    @Override
+    public BulkLoadReportDto loadAllQuestionBanks(int parallelism, int ioConcurrency,
+            Consumer<BankLoadResultDto> resultListener) {
+        // Every bank is read once, caching them would only evict the banks in use
+        return delegate.loadAllQuestionBanks(parallelism, ioConcurrency, resultListener);
+    }
+
+    @Override
+    public List<QuestionDto> getQuestions(String questionBank) {
+        if (questionBank == null || questionBank.trim().isEmpty()) {
+            return delegate.getQuestions(questionBank);
+        }
+
+        // Read the file state before loading, a change during the load is then
+        // caught by the next lookup
+        long writesBeforeLoad = getWriteCount();
+        FileStamp stamp = readStamp(questionBank);
+        CachedBank cached = lookup(questionBank, stamp);
+        if (cached != null) {
+            return copyOf(cached.questions());
+        }
+
+        List<QuestionDto> questions = delegate.getQuestions(questionBank);
+        if (stamp != null) {
+            store(questionBank,
+                    new CachedBank(stamp, List.copyOf(questions), QuestionUtils.estimateRetainedBytes(questions)),
+                    writesBeforeLoad);
+        }
+        return copyOf(questions);
+    }
+
+    @Override
+    public int getQuestionCount(String questionBank) {
+        CachedBank cached = questionBank == null ? null : lookup(questionBank, readStamp(questionBank));
+        if (cached != null) {
+            return cached.questions().size();
+        }
+        return delegate.getQuestionCount(questionBank);
+    }
+
+    @Override
+    public List<QuestionDto> getQuestions(String questionBank, int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Offset and limit cannot be negative");
+        }
+
+        CachedBank cached = questionBank == null ? null : lookup(questionBank, readStamp(questionBank));
+        if (cached != null) {
+            List<QuestionDto> questions = cached.questions();
+            int from = Math.min(offset, questions.size());
+            int to = (int) Math.min((long) offset + limit, questions.size());
+            return copyOf(questions.subList(from, to));
+        }
+        return delegate.getQuestions(questionBank, offset, limit);
+    }
+
+    @Override
+    public QuestionTable getQuestionTable(String questionBank) {
+        // Tables are used for banks too large to be cached as question objects
+        return delegate.getQuestionTable(questionBank);
+    }
+
+    @Override
+    public List<QuestionDto> search(String questionBank, String query, int limit) {
+        return delegate.search(questionBank, query, limit);
+    }
+
+    @Override
+    public Map<QuestionField, Map<String, Integer>> getFacetCounts(String questionBank) {
+        return delegate.getFacetCounts(questionBank);
+    }
+
+    @Override
+    public int countQuestions(String questionBank, String filter) {
+        return delegate.countQuestions(questionBank, filter);
+    }
+
+    @Override
+    public List<QuestionDto> filterQuestions(String questionBank, String filter, int offset, int limit) {
+        return delegate.filterQuestions(questionBank, filter, offset, limit);
+    }
+
+    @Override
+    public List<DuplicateClusterDto> findDuplicates(double threshold) {
+        return delegate.findDuplicates(threshold);
+    }
+
+    @Override
+    public Optional<QuestionLocationDto> findById(UUID questionId) {
+        return delegate.findById(questionId);
+    }
+
+    @Override
+    public Stream<QuestionDto> streamQuestions(String questionBank) throws IOException {
+        return delegate.streamQuestions(questionBank);
+    }
+
+    @Override
+    public void saveQuestions(String questionBank, List<QuestionDto> questions) throws IOException {
+        try {
+            delegate.saveQuestions(questionBank, questions);
+        } finally {
+            invalidate(questionBank);
+        }
+    }
+
+    @Override
+    public void saveQuestion(String questionBank, QuestionDto question) throws IOException {
+        try {
+            delegate.saveQuestion(questionBank, question);
+        } finally {
+            invalidate(questionBank);
+        }
+    }
+
+    @Override
+    public void deleteQuestion(String questionBank, UUID questionId) throws IOException {
+        try {
+            delegate.deleteQuestion(questionBank, questionId);
+        } finally {
+            invalidate(questionBank);
+        }
+    }
+
+    @Override
+    public List<QuestionDto> applyChanges(String questionBank, QuestionChangeSetDto changeSet) throws IOException {
+        try {
+            return delegate.applyChanges(questionBank, changeSet);
+        } finally {
+            invalidate(questionBank);
+        }
+    }
+
+    @Override
+    public void convertQuestionBank(String sourceBank, String targetBank) throws IOException {
+        try {
+            delegate.convertQuestionBank(sourceBank, targetBank);
+        } finally {
+            invalidate(targetBank);
+        }
+    }
+
+    @Override
+    public int getCompressionLevel(String questionBank) {
+        return delegate.getCompressionLevel(questionBank);
+    }
+
+    @Override
+    public void setCompressionLevel(String questionBank, int level) throws IOException {
+        delegate.setCompressionLevel(questionBank, level);
+    }
+
+    /**
+     * Drops a bank from the cache
+     *
+     * @param questionBank the name of the question bank
+     */
+    public synchronized void invalidate(String questionBank) {
+        writeCount++;
+        CachedBank removed = cache.remove(questionBank);
+        if (removed != null) {
+            cachedBytes -= removed.retainedBytes();
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * @return estimated size in bytes of all cached banks
+     */
+    public synchronized long getCachedBytes() {
+        return cachedBytes;
+    }
+
+    private synchronized CachedBank lookup(String questionBank, FileStamp stamp) {
+        CachedBank cached = cache.get(questionBank);
+        if (cached != null && cached.stamp().equals(stamp)) {
+            hitCount.incrementAndGet();
+            return cached;
+        }
+
+        if (cached != null) {
+            log.debug("Question bank {} changed on disk, dropping cached copy", questionBank);
+            cache.remove(questionBank);
+            cachedBytes -= cached.retainedBytes();
+        }
+        missCount.incrementAndGet();
+        return null;
+    }
+
+    private synchronized void store(String questionBank, CachedBank entry, long writesBeforeLoad) {
+        // Journaled edits do not change the bank file, so a load that overlapped
+        // a write may be stale even though its stamp still matches
+        if (writeCount != writesBeforeLoad) {
+            return;
+        }
+
+        CachedBank replaced = cache.remove(questionBank);
+        if (replaced != null) {
+            cachedBytes -= replaced.retainedBytes();
+        }
+        if (entry.retainedBytes() > capacityBytes) {
+            log.debug("Question bank {} is too large to cache", questionBank);
+            return;
+        }
+
+        cache.put(questionBank, entry);
+        cachedBytes += entry.retainedBytes();
+
+        // Access order puts the least recently used banks first
+        Iterator<Map.Entry<String, CachedBank>> eldest = cache.entrySet().iterator();
+        while (cachedBytes > capacityBytes && eldest.hasNext()) {
+            Map.Entry<String, CachedBank> evicted = eldest.next();
+            cachedBytes -= evicted.getValue().retainedBytes();
+            eldest.remove();
+            log.debug("Evicted question bank {} from the cache", evicted.getKey());
+        }
+    }
+
+    private synchronized long getWriteCount() {
+        return writeCount;
+    }
+
+    private FileStamp readStamp(String questionBank) {
+        try {
+            Path bankFile = Path.of(FileUtils.getDataFolder()).resolve(questionBank);
+            if (ShardedBank.isShardedBank(bankFile)) {
+                // The manifest is replaced by every save of a sharded bank
+                bankFile = bankFile.resolve(ShardedBank.MANIFEST_FILE);
+            }
+            BasicFileAttributes attributes = Files.readAttributes(bankFile, BasicFileAttributes.class);
+
+            // Most saves only append to the journal and leave the bank file as is
+            long journalSize = 0;
+            long journalLastModified = 0;
+            for (Path journalFile : QuestionServiceImpl.getJournalFiles(questionBank)) {
+                try {
+                    BasicFileAttributes journal = Files.readAttributes(journalFile, BasicFileAttributes.class);
+                    journalSize += journal.size();
+                    journalLastModified = Math.max(journalLastModified, journal.lastModifiedTime().toMillis());
+                } catch (NoSuchFileException e) {
+                    // no pending edits
+                }
+            }
+            return new FileStamp(attributes.size(), attributes.lastModifiedTime().toMillis(), journalSize,
+                    journalLastModified);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            log.trace("Cannot read the state of question bank: {}", questionBank, e);
+            return null;
+        }
+    }
+
+    private static List<QuestionDto> copyOf(List<QuestionDto> questions) {
+        return questions.stream().map(QuestionUtils::copyOf).toList();
+    }
+
+    private record FileStamp(long size, long lastModified, long journalSize, long journalLastModified) {
+    }
+
+    private record CachedBank(FileStamp stamp, List<QuestionDto> questions, long retainedBytes) {
+    }
+}
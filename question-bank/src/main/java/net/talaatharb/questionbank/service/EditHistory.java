@@ -0,0 +1,503 @@
+package net.talaatharb.questionbank.service;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+import lombok.extern.slf4j.Slf4j;
+import net.talaatharb.questionbank.dto.QuestionDto;
+import net.talaatharb.questionbank.dto.QuestionField;
+import net.talaatharb.questionbank.utils.FileUtils;
+
+/**
+ * Undo and redo history of the edits made to the questions of a bank, kept in a
+ * ring buffer of bounded capacity that drops the oldest edits. Field edits only
+ * record the fields that changed, inserts and moves their positions, only
+ * deleted questions are kept whole so that they can be restored.
+ * <p>
+ * The history can be persisted to a sidecar file, and is only restored for the
+ * same questions it was persisted with. Versions and update times are left out
+ * of that comparison, the save running when the history is persisted bumps
+ * them.
+ */
+@Slf4j
+public class EditHistory {
+
+    /**
+     * Number of edits kept by default
+     */
+    public static final int DEFAULT_CAPACITY = 200;
+
+    private static final int MAGIC = 0x51424848; // QBHH
+    private static final int FORMAT_VERSION = 2;
+    private static final byte FIELDS = 1;
+    private static final byte INSERT = 2;
+    private static final byte DELETE = 3;
+    private static final byte MOVE = 4;
+
+    private final Edit[] edits;
+    private int start;
+    private int size;
+    private int applied;
+
+    public EditHistory() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity the number of edits kept
+     */
+    public EditHistory(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("History capacity must be at least 1");
+        }
+        this.edits = new Edit[capacity];
+    }
+
+    /**
+     * Sets fields of a question and records the ones that changed as one edit
+     *
+     * @param questions the questions of the bank
+     * @param position  the position of the question
+     * @param values    the new values of the fields
+     * @return true if any field changed
+     */
+    public boolean editFields(List<QuestionDto> questions, int position, Map<QuestionField, String> values) {
+        QuestionDto question = questions.get(position);
+        List<QuestionField> changed = new ArrayList<>();
+        for (Map.Entry<QuestionField, String> value : values.entrySet()) {
+            if (!Objects.equals(value.getKey().get(question), value.getValue())) {
+                changed.add(value.getKey());
+            }
+        }
+        if (changed.isEmpty()) {
+            return false;
+        }
+
+        QuestionField[] fields = changed.toArray(QuestionField[]::new);
+        String[] before = new String[fields.length];
+        String[] after = new String[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            before[i] = fields[i].get(question);
+            after[i] = values.get(fields[i]);
+            fields[i].set(question, after[i]);
+        }
+        record(new FieldEdit(question.getId(), position, fields, before, after));
+        return true;
+    }
+
+    /**
+     * Records a question inserted into the bank
+     *
+     * @param position the position it was inserted at
+     */
+    public void recordInsert(int position) {
+        record(new InsertEdit(position));
+    }
+
+    /**
+     * Records a question deleted from the bank
+     *
+     * @param position the position it was deleted from
+     * @param question the deleted question
+     */
+    public void recordDelete(int position, QuestionDto question) {
+        record(new DeleteEdit(position, question));
+    }
+
+    /**
+     * Records a question moved within the bank
+     *
+     * @param from the position it was moved from
+     * @param to   the position it was moved to
+     */
+    public void recordMove(int from, int to) {
+        record(new MoveEdit(from, to));
+    }
+
+    public boolean canUndo() {
+        return applied > 0;
+    }
+
+    public boolean canRedo() {
+        return applied < size;
+    }
+
+    /**
+     * @return number of edits that can be undone
+     */
+    public int getUndoCount() {
+        return applied;
+    }
+
+    /**
+     * @return number of edits that can be redone
+     */
+    public int getRedoCount() {
+        return size - applied;
+    }
+
+    /**
+     * Reverts the last applied edit
+     *
+     * @param questions the questions of the bank, changed in place
+     * @return the reverted edit, or null if there is nothing to undo
+     */
+    public Result undo(List<QuestionDto> questions) {
+        if (!canUndo()) {
+            return null;
+        }
+        applied--;
+        return edits[(start + applied) % edits.length].undo(questions);
+    }
+
+    /**
+     * Applies the last undone edit again
+     *
+     * @param questions the questions of the bank, changed in place
+     * @return the applied edit, or null if there is nothing to redo
+     */
+    public Result redo(List<QuestionDto> questions) {
+        if (!canRedo()) {
+            return null;
+        }
+        Edit edit = edits[(start + applied) % edits.length];
+        applied++;
+        return edit.redo(questions);
+    }
+
+    private void record(Edit edit) {
+        // A new edit replaces the edits that were undone
+        for (int i = applied; i < size; i++) {
+            edits[(start + i) % edits.length] = null;
+        }
+        size = applied;
+        if (size == edits.length) {
+            edits[start] = null;
+            start = (start + 1) % edits.length;
+            size--;
+        }
+        edits[(start + size) % edits.length] = edit;
+        size++;
+        applied = size;
+    }
+
+    /**
+     * Reads a persisted history
+     *
+     * @param historyFile the sidecar file holding the history
+     * @param capacity    the number of edits kept
+     * @param questions   the questions of the bank, the history is only restored
+     *                    if it was persisted with the same questions
+     * @return the history, or null if the file is missing, not a valid history or
+     *         persisted with other questions
+     * @throws IOException if there's an error reading the file
+     */
+    public static EditHistory read(Path historyFile, int capacity, List<QuestionDto> questions) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(historyFile)))) {
+            if (input.readInt() != MAGIC || input.readInt() != FORMAT_VERSION) {
+                log.debug("Ignoring invalid edit history: {}", historyFile);
+                return null;
+            }
+            if (input.readInt() != questions.size() || input.readInt() != fingerprint(questions)) {
+                log.debug("Ignoring edit history of changed questions: {}", historyFile);
+                return null;
+            }
+
+            EditHistory history = new EditHistory(capacity);
+            int count = input.readInt();
+            int undoable = input.readInt();
+            for (int i = 0; i < count; i++) {
+                Edit edit = readEdit(input);
+                // Keep the latest edits that fit
+                if (i >= count - capacity) {
+                    history.edits[history.size++] = edit;
+                }
+            }
+            history.applied = Math.max(0, history.size - (count - undoable));
+            return history;
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Persists the history to its sidecar file
+     *
+     * @param historyFile the sidecar file holding the history
+     * @param questions   the current questions of the bank
+     * @throws IOException if there's an error writing the file
+     */
+    public void write(Path historyFile, List<QuestionDto> questions) throws IOException {
+        FileUtils.writeFileAtomically(historyFile, output -> {
+            DataOutputStream data = new DataOutputStream(output);
+            data.writeInt(MAGIC);
+            data.writeInt(FORMAT_VERSION);
+            data.writeInt(questions.size());
+            data.writeInt(fingerprint(questions));
+            data.writeInt(size);
+            data.writeInt(applied);
+            for (int i = 0; i < size; i++) {
+                edits[(start + i) % edits.length].write(data);
+            }
+            data.flush();
+        });
+    }
+
+    /**
+     * Hash of the ids and the fields of the questions that only edits change
+     */
+    private static int fingerprint(List<QuestionDto> questions) {
+        int hash = 1;
+        for (QuestionDto question : questions) {
+            hash = 31 * hash + Objects.hashCode(question.getId());
+            for (QuestionField field : QuestionField.values()) {
+                if (field != QuestionField.VERSION && field != QuestionField.UPDATED_AT) {
+                    hash = 31 * hash + Objects.hashCode(field.get(question));
+                }
+            }
+        }
+        return hash;
+    }
+
+    private static Edit readEdit(DataInputStream input) throws IOException {
+        byte type = input.readByte();
+        switch (type) {
+        case FIELDS: {
+            UUID id = readId(input);
+            int position = input.readInt();
+            int count = input.readInt();
+            QuestionField[] fields = new QuestionField[count];
+            String[] before = new String[count];
+            String[] after = new String[count];
+            for (int i = 0; i < count; i++) {
+                fields[i] = QuestionField.values()[input.readUnsignedByte()];
+                before[i] = readString(input);
+                after[i] = readString(input);
+            }
+            return new FieldEdit(id, position, fields, before, after);
+        }
+        case INSERT: {
+            InsertEdit edit = new InsertEdit(input.readInt());
+            edit.removed = input.readBoolean() ? readQuestion(input) : null;
+            return edit;
+        }
+        case DELETE:
+            return new DeleteEdit(input.readInt(), readQuestion(input));
+        case MOVE:
+            return new MoveEdit(input.readInt(), input.readInt());
+        default:
+            throw new IOException("Unknown edit type " + type);
+        }
+    }
+
+    private static void writeQuestion(DataOutputStream output, QuestionDto question) throws IOException {
+        writeId(output, question.getId());
+        for (QuestionField field : QuestionField.values()) {
+            writeString(output, field.get(question));
+        }
+    }
+
+    private static QuestionDto readQuestion(DataInputStream input) throws IOException {
+        QuestionDto question = new QuestionDto();
+        question.setId(readId(input));
+        for (QuestionField field : QuestionField.values()) {
+            field.set(question, readString(input));
+        }
+        return question;
+    }
+
+    private static void writeId(DataOutputStream output, UUID id) throws IOException {
+        output.writeBoolean(id != null);
+        output.writeLong(id == null ? 0 : id.getMostSignificantBits());
+        output.writeLong(id == null ? 0 : id.getLeastSignificantBits());
+    }
+
+    private static UUID readId(DataInputStream input) throws IOException {
+        boolean hasId = input.readBoolean();
+        UUID id = new UUID(input.readLong(), input.readLong());
+        return hasId ? id : null;
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        if (value == null) {
+            output.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(DataInputStream input) throws IOException {
+        int length = input.readInt();
+        return length < 0 ? null : new String(input.readNBytes(length), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * An undone or redone edit
+     *
+     * @param position    the position of the question the edit is about, clamped
+     *                    to the questions
+     * @param edited      the question whose fields changed, null if the edit
+     *                    inserted, deleted or moved a question
+     * @param description what the edit did, e.g. "delete question 3"
+     */
+    public record Result(int position, QuestionDto edited, String description) {
+    }
+
+    private interface Edit {
+
+        Result undo(List<QuestionDto> questions);
+
+        Result redo(List<QuestionDto> questions);
+
+        void write(DataOutputStream output) throws IOException;
+    }
+
+    /**
+     * Fields of a question changed, the question is looked up by id at its
+     * recorded position first
+     */
+    private record FieldEdit(UUID id, int position, QuestionField[] fields, String[] before, String[] after)
+            implements Edit {
+
+        @Override
+        public Result undo(List<QuestionDto> questions) {
+            return apply(questions, before);
+        }
+
+        @Override
+        public Result redo(List<QuestionDto> questions) {
+            return apply(questions, after);
+        }
+
+        private Result apply(List<QuestionDto> questions, String[] values) {
+            int current = indexOf(questions);
+            QuestionDto question = questions.get(current);
+            for (int i = 0; i < fields.length; i++) {
+                fields[i].set(question, values[i]);
+            }
+            return new Result(current, question, "edit question " + (current + 1));
+        }
+
+        private int indexOf(List<QuestionDto> questions) {
+            if (position < questions.size() && Objects.equals(questions.get(position).getId(), id)) {
+                return position;
+            }
+            for (int i = 0; i < questions.size(); i++) {
+                if (Objects.equals(questions.get(i).getId(), id)) {
+                    return i;
+                }
+            }
+            throw new IllegalStateException("Edited question " + id + " is not in the bank anymore");
+        }
+
+        @Override
+        public void write(DataOutputStream output) throws IOException {
+            output.writeByte(FIELDS);
+            writeId(output, id);
+            output.writeInt(position);
+            output.writeInt(fields.length);
+            for (int i = 0; i < fields.length; i++) {
+                output.writeByte(fields[i].ordinal());
+                writeString(output, before[i]);
+                writeString(output, after[i]);
+            }
+        }
+    }
+
+    /**
+     * A question inserted, only kept whole while the insert is undone
+     */
+    private static final class InsertEdit implements Edit {
+
+        private final int position;
+        private QuestionDto removed;
+
+        InsertEdit(int position) {
+            this.position = position;
+        }
+
+        @Override
+        public Result undo(List<QuestionDto> questions) {
+            removed = questions.remove(position);
+            return new Result(clamp(position, questions), null, "add question " + (position + 1));
+        }
+
+        @Override
+        public Result redo(List<QuestionDto> questions) {
+            questions.add(position, removed);
+            removed = null;
+            return new Result(position, null, "add question " + (position + 1));
+        }
+
+        @Override
+        public void write(DataOutputStream output) throws IOException {
+            output.writeByte(INSERT);
+            output.writeInt(position);
+            output.writeBoolean(removed != null);
+            if (removed != null) {
+                writeQuestion(output, removed);
+            }
+        }
+    }
+
+    private record DeleteEdit(int position, QuestionDto question) implements Edit {
+
+        @Override
+        public Result undo(List<QuestionDto> questions) {
+            questions.add(position, question);
+            return new Result(position, null, "delete question " + (position + 1));
+        }
+
+        @Override
+        public Result redo(List<QuestionDto> questions) {
+            questions.remove(position);
+            return new Result(clamp(position, questions), null, "delete question " + (position + 1));
+        }
+
+        @Override
+        public void write(DataOutputStream output) throws IOException {
+            output.writeByte(DELETE);
+            output.writeInt(position);
+            writeQuestion(output, question);
+        }
+    }
+
+    private record MoveEdit(int from, int to) implements Edit {
+
+        @Override
+        public Result undo(List<QuestionDto> questions) {
+            questions.add(from, questions.remove(to));
+            return new Result(from, null, "move question " + (from + 1));
+        }
+
+        @Override
+        public Result redo(List<QuestionDto> questions) {
+            questions.add(to, questions.remove(from));
+            return new Result(to, null, "move question " + (from + 1));
+        }
+
+        @Override
+        public void write(DataOutputStream output) throws IOException {
+            output.writeByte(MOVE);
+            output.writeInt(from);
+            output.writeInt(to);
+        }
+    }
+
+    private static int clamp(int position, List<QuestionDto> questions) {
+        return Math.min(position, questions.size() - 1);
+    }
+}
@@ -0,0 +1,171 @@
+package net.talaatharb.questionbank.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import net.talaatharb.questionbank.dto.QuestionChangeSetDto;
+import net.talaatharb.questionbank.dto.QuestionDto;
+import net.talaatharb.questionbank.utils.QuestionUtils;
+
+/**
+ * Tracks the changes made to the loaded questions of a bank since they were
+ * last saved, keyed by question id. Edits are marked as they are made, inserts,
+ * deletions and reorders are found by comparing the ids of the questions with
+ * the saved ones, so saving costs as much as the edit rather than the bank.
+ * <p>
+ * The questions are also kept as they were saved, copies sharing the values of
+ * the questions, so that the changes are only applied to questions nobody else
+ * changed in the meantime and merged with the ones changed elsewhere.
+ */
+public class QuestionChangeTracker {
+
+    private List<UUID> savedIds = List.of();
+    private final Map<UUID, Long> edited = new HashMap<>();
+    private final Map<UUID, QuestionDto> bases = new HashMap<>();
+    private long modificationCount;
+    private boolean fullSaveRequired;
+
+    /**
+     * Starts tracking freshly loaded questions. Questions without an id are given
+     * one, and since the saved bank cannot be matched to them by id the next save
+     * has to rewrite the whole bank.
+     *
+     * @param questions the questions as saved in the bank
+     */
+    public void reset(List<QuestionDto> questions) {
+        edited.clear();
+        fullSaveRequired = false;
+        for (QuestionDto question : questions) {
+            if (question.getId() == null) {
+                question.setId(UUID.randomUUID());
+                fullSaveRequired = true;
+            }
+        }
+        savedIds = idsOf(questions);
+        bases.clear();
+        questions.forEach(question -> bases.put(question.getId(), QuestionUtils.copyOf(question)));
+    }
+
+    /**
+     * Marks a question as edited, or inserted if its id was never saved
+     *
+     * @param question the edited question, given an id if it has none
+     */
+    public void markEdited(QuestionDto question) {
+        if (question.getId() == null) {
+            question.setId(UUID.randomUUID());
+        }
+        edited.put(question.getId(), ++modificationCount);
+    }
+
+    /**
+     * @return true if the saved bank has questions without ids and has to be
+     *         rewritten as a whole
+     */
+    public boolean isFullSaveRequired() {
+        return fullSaveRequired;
+    }
+
+    /**
+     * @param questions the current questions
+     * @return true if there is anything to save
+     */
+    public boolean hasChanges(List<QuestionDto> questions) {
+        return fullSaveRequired || !collect(questions).changeSet().isEmpty();
+    }
+
+    /**
+     * Collects the changes of the current questions
+     *
+     * @param questions the current questions
+     * @return the changes to save, passed to {@link #saved(Changes)} once saved
+     */
+    public Changes collect(List<QuestionDto> questions) {
+        for (QuestionDto question : questions) {
+            if (question.getId() == null) {
+                markEdited(question);
+            }
+        }
+
+        List<UUID> ids = idsOf(questions);
+        Set<UUID> saved = new HashSet<>(savedIds);
+        Set<UUID> current = new HashSet<>(ids);
+        QuestionChangeSetDto changeSet = new QuestionChangeSetDto();
+        List<UUID> inserted = new ArrayList<>();
+        for (QuestionDto question : questions) {
+            boolean isNew = !saved.contains(question.getId());
+            if (isNew) {
+                inserted.add(question.getId());
+            }
+            if (isNew || edited.containsKey(question.getId())) {
+                // Copied as collected, the question may be edited again while saved
+                changeSet.getUpserts().add(QuestionUtils.copyOf(question));
+            }
+        }
+        savedIds.stream().filter(id -> !current.contains(id)).forEach(changeSet.getDeletions()::add);
+
+        Map<UUID, QuestionDto> changedBases = new HashMap<>();
+        changeSet.getUpserts().forEach(question -> putBase(changedBases, question.getId()));
+        changeSet.getDeletions().forEach(id -> putBase(changedBases, id));
+        changeSet.setBases(changedBases);
+        changeSet.setMergeConflicts(true);
+
+        // Upserts keep the position of existing questions and append new ones, any
+        // other order has to be given explicitly
+        List<UUID> expectedIds = new ArrayList<>(savedIds.stream().filter(current::contains).toList());
+        expectedIds.addAll(inserted);
+        if (!expectedIds.equals(ids)) {
+            changeSet.setOrder(ids);
+        }
+        return new Changes(changeSet, modificationCount, ids);
+    }
+
+    /**
+     * Records saved changes, edits made after they were collected stay pending
+     *
+     * @param changes the changes that were saved
+     */
+    public void saved(Changes changes) {
+        saved(changes, changes.changeSet().getUpserts());
+    }
+
+    /**
+     * Records saved changes, edits made after they were collected stay pending
+     *
+     * @param changes the changes that were saved
+     * @param written the questions as written, with their new versions
+     */
+    public void saved(Changes changes, List<QuestionDto> written) {
+        savedIds = changes.ids();
+        edited.values().removeIf(modification -> modification <= changes.modification());
+        fullSaveRequired = false;
+        changes.changeSet().getDeletions().forEach(bases::remove);
+        written.forEach(question -> bases.put(question.getId(), QuestionUtils.copyOf(question)));
+    }
+
+    private void putBase(Map<UUID, QuestionDto> changedBases, UUID questionId) {
+        QuestionDto base = bases.get(questionId);
+        if (base != null) {
+            changedBases.put(questionId, base);
+        }
+    }
+
+    private static List<UUID> idsOf(List<QuestionDto> questions) {
+        return questions.stream().map(QuestionDto::getId).toList();
+    }
+
+    /**
+     * Changes collected for a save
+     *
+     * @param changeSet    the changes to pass to the question service
+     * @param modification the last edit included in the changes
+     * @param ids          the ids of the questions in order once saved
+     */
+    public record Changes(QuestionChangeSetDto changeSet, long modification, List<UUID> ids) {
+    }
+}
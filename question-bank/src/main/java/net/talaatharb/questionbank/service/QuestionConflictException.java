@@ -0,0 +1,25 @@
+package net.talaatharb.questionbank.service;
+
+import java.io.IOException;
+import java.util.List;
+
+import lombok.Getter;
+import net.talaatharb.questionbank.dto.QuestionConflictDto;
+
+/**
+ * Thrown when changes are rejected because the questions they change were
+ * changed elsewhere since they were loaded, nothing of the changes is written
+ */
+@Getter
+public class QuestionConflictException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient List<QuestionConflictDto> conflicts;
+
+    public QuestionConflictException(String questionBank, List<QuestionConflictDto> conflicts) {
+        super(String.format("%d questions of question bank %s were changed elsewhere", conflicts.size(),
+                questionBank));
+        this.conflicts = List.copyOf(conflicts);
+    }
+}
@@ -2,14 +2,260 @@ package net.talaatharb.questionbank.service;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+import net.talaatharb.questionbank.dto.BankLoadResultDto;
+import net.talaatharb.questionbank.dto.BulkLoadReportDto;
+import net.talaatharb.questionbank.dto.DuplicateClusterDto;
+import net.talaatharb.questionbank.dto.QuestionBankSummaryDto;
+import net.talaatharb.questionbank.dto.QuestionChangeSetDto;
 import net.talaatharb.questionbank.dto.QuestionDto;
+import net.talaatharb.questionbank.dto.QuestionField;
+import net.talaatharb.questionbank.dto.QuestionLocationDto;
+import net.talaatharb.questionbank.storage.QuestionTable;
 
 public interface QuestionService {
     
     List<String> getQuestionBanks();
 
+    /**
+     * Returns the count, size, categories and languages of every bank from the
+     * bank manifest, only banks that changed since they were summarized are read
+     * 
+     * @return summaries of all banks sorted by name, empty if they cannot be read
+     */
+    List<QuestionBankSummaryDto> getQuestionBankSummaries();
+
+    /**
+     * Returns the summaries of known banks from the bank manifest without listing
+     * the data folder, e.g. the banks of a directory watcher. Every bank is only
+     * checked for changes the first time, later calls trust the manifest, saves
+     * of this service and {@link #getQuestionBankSummary(String)} keep it
+     * current.
+     * 
+     * @param questionBanks the names of all banks, summaries of other banks are
+     *                      dropped from the manifest
+     * @return summaries of the banks sorted by name
+     */
+    List<QuestionBankSummaryDto> getQuestionBankSummaries(List<String> questionBanks);
+
+    /**
+     * Checks the summary of a single bank, which is read again if it changed
+     * since it was summarized
+     * 
+     * @param questionBank the name of the question bank
+     * @return the summary, empty if the bank cannot be read
+     */
+    Optional<QuestionBankSummaryDto> getQuestionBankSummary(String questionBank);
+
     List<QuestionDto> getQuestions(String questionBank);
 
+    /**
+     * Counts the questions of a bank without decoding them
+     * 
+     * @param questionBank the name of the question bank
+     * @return number of questions in the bank, 0 if it cannot be read
+     */
+    int getQuestionCount(String questionBank);
+
+    /**
+     * Loads a page of questions, seeking straight to the first question of the
+     * page and decoding only the questions in it
+     * 
+     * @param questionBank the name of the question bank
+     * @param offset       position of the first question to load
+     * @param limit        maximum number of questions to load
+     * @return the questions of the page, empty if it cannot be read
+     */
+    List<QuestionDto> getQuestions(String questionBank, int offset, int limit);
+
+    /**
+     * Streams the questions of a bank one at a time without loading the whole
+     * bank, the returned stream holds the bank file open and must be closed.
+     * Saves to the bank wait until the stream is closed, which must happen on
+     * the thread that opened it.
+     * 
+     * @param questionBank the name of the question bank
+     * @return lazily parsed stream of questions
+     * @throws IOException if the bank cannot be opened or is not a valid bank
+     */
+    Stream<QuestionDto> streamQuestions(String questionBank) throws IOException;
+
+    /**
+     * Loads a bank into a column oriented table, which keeps very large banks in a
+     * fraction of the memory of their question objects and scans single fields
+     * without decoding the others
+     * 
+     * @param questionBank the name of the question bank
+     * @return the questions of the bank, empty if it cannot be read
+     */
+    QuestionTable getQuestionTable(String questionBank);
+
+    /**
+     * Searches the question, answer, explanation and tags of the questions of a
+     * bank, ranked by relevance. The search index of the bank is kept next to it
+     * and brought up to date when the bank changes.
+     * 
+     * @param questionBank the name of the question bank
+     * @param query        the words to search for
+     * @param limit        maximum number of questions to return
+     * @return the best matching questions first, empty if nothing matches or the
+     *         bank cannot be read
+     */
+    List<QuestionDto> search(String questionBank, String query, int limit);
+
+    /**
+     * Counts the questions of every category, tag, language and status of a bank
+     * from the facet index of the bank
+     * 
+     * @param questionBank the name of the question bank
+     * @return the number of questions of every value by field, values sorted, empty
+     *         if the bank cannot be read
+     */
+    Map<QuestionField, Map<String, Integer>> getFacetCounts(String questionBank);
+
+    /**
+     * Counts the questions matching a facet filter such as
+     * {@code category=Networking AND tag=tcp AND NOT status=draft}
+     * 
+     * @param questionBank the name of the question bank
+     * @param filter       the filter, combining field=value terms with AND, OR,
+     *                     NOT and parentheses
+     * @return number of matching questions, 0 if the bank cannot be read
+     * @throws IllegalArgumentException if the filter is not valid
+     */
+    int countQuestions(String questionBank, String filter);
+
+    /**
+     * Loads a page of the questions matching a facet filter
+     * 
+     * @param questionBank the name of the question bank
+     * @param filter       the filter, combining field=value terms with AND, OR,
+     *                     NOT and parentheses
+     * @param offset       position of the first matching question to load
+     * @param limit        maximum number of questions to load
+     * @return the matching questions in bank order, empty if the bank cannot be
+     *         read
+     * @throws IllegalArgumentException if the filter is not valid
+     */
+    List<QuestionDto> filterQuestions(String questionBank, String filter, int offset, int limit);
+
+    /**
+     * Finds questions that are likely duplicates of each other across all banks by
+     * their MinHash signatures, comparing only questions that share a locality
+     * sensitive hash bucket. Signatures are kept next to each bank and only
+     * recomputed for banks that changed.
+     * 
+     * @param threshold minimum estimated similarity of the text of two questions
+     *                  and their answers, greater than 0 and at most 1
+     * @return the clusters of duplicates, largest first, empty if there are none
+     */
+    List<DuplicateClusterDto> findDuplicates(double threshold);
+
+    /**
+     * Finds a question of any bank by its id through a global index of the ids of
+     * all banks, kept up to date by every save. Banks that changed since they were
+     * indexed are indexed again when a lookup misses.
+     * 
+     * @param questionId the id of the question
+     * @return the question and where it is, empty if no bank holds it
+     */
+    Optional<QuestionLocationDto> findById(UUID questionId);
+
+    /**
+     * Parses every bank of the data folder in parallel, reporting each bank as
+     * soon as it is parsed
+     * 
+     * @param parallelism    number of banks parsed at the same time
+     * @param ioConcurrency  number of bank files read from disk at the same time
+     * @param resultListener called with the result of every bank, from the
+     *                       thread that parsed it
+     * @return the aggregate counts and throughput of the load
+     */
+    BulkLoadReportDto loadAllQuestionBanks(int parallelism, int ioConcurrency,
+            Consumer<BankLoadResultDto> resultListener);
+
+    /**
+     * Parses every bank of the data folder with one thread per available core
+     * 
+     * @param resultListener called with the result of every bank
+     * @return the aggregate counts and throughput of the load
+     */
+    default BulkLoadReportDto loadAllQuestionBanks(Consumer<BankLoadResultDto> resultListener) {
+        int cores = Runtime.getRuntime().availableProcessors();
+        return loadAllQuestionBanks(cores, cores, resultListener);
+    }
+
     void saveQuestions(String questionBank, List<QuestionDto> questions) throws IOException;
+
+    /**
+     * Saves a single inserted or edited question by appending it to the journal of
+     * the bank instead of rewriting the whole bank, questions without an id are
+     * given a new random id
+     * 
+     * @param questionBank the name of the question bank
+     * @param question     the question to save
+     * @throws IOException if the question cannot be journaled
+     */
+    void saveQuestion(String questionBank, QuestionDto question) throws IOException;
+
+    /**
+     * Deletes a single question by appending the deletion to the journal of the
+     * bank
+     * 
+     * @param questionBank the name of the question bank
+     * @param questionId   the id of the question to delete
+     * @throws IOException if the bank does not exist or the deletion cannot be
+     *                     journaled
+     */
+    void deleteQuestion(String questionBank, UUID questionId) throws IOException;
+
+    /**
+     * Applies the changes made to a bank since it was loaded, only the changed
+     * questions and the deletions are appended to the journal of the bank. A new
+     * order of the questions cannot be journaled, the bank is rewritten instead.
+     * <p>
+     * Changes with bases are only applied if the changed questions still have
+     * the versions of their bases, looking up only those questions, and the
+     * upserted questions are given the next version.
+     * 
+     * @param questionBank the name of the question bank
+     * @param changeSet    the inserted, edited, deleted and reordered questions
+     * @return the upserted questions as written, with their new versions and the
+     *         changes merged from elsewhere
+     * @throws QuestionConflictException if questions were changed elsewhere since
+     *                                   their bases and could not be merged
+     * @throws IOException               if the changes cannot be written
+     */
+    List<QuestionDto> applyChanges(String questionBank, QuestionChangeSetDto changeSet) throws IOException;
+
+    /**
+     * Converts a question bank to the format of the target bank name, e.g. from
+     * "questions.json" to "questions.qbin"
+     * 
+     * @param sourceBank the name of the existing question bank
+     * @param targetBank the name of the bank to write
+     * @throws IOException if there's an error reading or writing a bank
+     */
+    void convertQuestionBank(String sourceBank, String targetBank) throws IOException;
+
+    /**
+     * @param questionBank the name of the question bank
+     * @return the level a compressed bank is written with, -1 for the default
+     */
+    int getCompressionLevel(String questionBank);
+
+    /**
+     * Sets the level a compressed bank (e.g. "questions.json.gz") is written with,
+     * the bank is recompressed on its next save
+     * 
+     * @param questionBank the name of the question bank
+     * @param level        the compression level from 0 to 9, -1 for the default
+     * @throws IOException if the setting cannot be saved
+     */
+    void setCompressionLevel(String questionBank, int level) throws IOException;
 }
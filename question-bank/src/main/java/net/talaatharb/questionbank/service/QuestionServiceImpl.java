@@ -1,16 +1,114 @@
 package net.talaatharb.questionbank.service;
 
 import lombok.extern.slf4j.Slf4j;
+import net.talaatharb.questionbank.dto.BankLoadResultDto;
+import net.talaatharb.questionbank.dto.BulkLoadReportDto;
+import net.talaatharb.questionbank.dto.DuplicateClusterDto;
+import net.talaatharb.questionbank.dto.DuplicateQuestionDto;
+import net.talaatharb.questionbank.dto.QuestionBankSummaryDto;
+import net.talaatharb.questionbank.dto.QuestionChangeSetDto;
+import net.talaatharb.questionbank.dto.QuestionConflictDto;
 import net.talaatharb.questionbank.dto.QuestionDto;
+import net.talaatharb.questionbank.dto.QuestionField;
+import net.talaatharb.questionbank.dto.QuestionLocationDto;
+import net.talaatharb.questionbank.storage.BankCompression;
+import net.talaatharb.questionbank.storage.BankDictionary;
+import net.talaatharb.questionbank.storage.BankFormat;
+import net.talaatharb.questionbank.storage.BankJournal;
+import net.talaatharb.questionbank.storage.BankLocks;
+import net.talaatharb.questionbank.storage.BankManifest;
+import net.talaatharb.questionbank.storage.BankOffsetIndex;
+import net.talaatharb.questionbank.storage.BankVersions;
+import net.talaatharb.questionbank.storage.BankSearchIndex;
+import net.talaatharb.questionbank.storage.DuplicateFinder;
+import net.talaatharb.questionbank.storage.FacetIndex;
+import net.talaatharb.questionbank.storage.MinHashSignatures;
+import net.talaatharb.questionbank.storage.PositionBitmap;
+import net.talaatharb.questionbank.storage.QbinBank;
+import net.talaatharb.questionbank.storage.QuestionIdIndex;
+import net.talaatharb.questionbank.storage.QuestionTable;
+import net.talaatharb.questionbank.storage.ShardedBank;
 import net.talaatharb.questionbank.utils.FileUtils;
 import net.talaatharb.questionbank.utils.QuestionUtils;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 public class QuestionServiceImpl implements QuestionService {
 
+    private static final String OFFSET_INDEX_SUFFIX = ".idx";
+    private static final String JOURNAL_SUFFIX = ".journal";
+    private static final String SEARCH_INDEX_SUFFIX = ".search";
+    private static final String FACET_INDEX_SUFFIX = ".facets";
+    private static final String SIGNATURES_SUFFIX = ".minhash";
+    private static final String COMPACTED_SUFFIX = ".compacted";
+    private static final String LOCK_SUFFIX = ".lock";
+    private static final long DEFAULT_JOURNAL_COMPACTION_THRESHOLD = 1024L * 1024L;
+
+    private final Map<Path, BankOffsetIndex> offsetIndexes = new ConcurrentHashMap<>();
+    private final Map<Path, BankJournal> journals = new ConcurrentHashMap<>();
+    private final Map<Path, BankSearchIndex> searchIndexes = new ConcurrentHashMap<>();
+    private final Map<Path, FacetIndex> facetIndexes = new ConcurrentHashMap<>();
+    private final Map<Path, MinHashSignatures> signatures = new ConcurrentHashMap<>();
+    private final Map<Path, BankDictionary> dictionaries = new ConcurrentHashMap<>();
+    private final Map<Path, BankVersions> versionTables = new ConcurrentHashMap<>();
+    private final Set<String> scheduledCompactions = ConcurrentHashMap.newKeySet();
+    /** Banks whose summary in the manifest was checked against the bank, by path */
+    private final Set<Path> checkedSummaries = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean idIndexWriteScheduled = new AtomicBoolean();
+    private final BankLocks bankLocks = new BankLocks();
+    private final ExecutorService compactionExecutor = Executors
+            .newSingleThreadExecutor(Thread.ofPlatform().name("bank-compaction").daemon().factory());
+    private final long journalCompactionThreshold;
+    private BankManifest manifest;
+    private volatile QuestionIdIndex idIndex;
+
+    public QuestionServiceImpl() {
+        this(DEFAULT_JOURNAL_COMPACTION_THRESHOLD);
+    }
+
+    /**
+     * @param journalCompactionThreshold size in bytes after which the journal of a
+     *                                   bank is compacted into its base file
+     */
+    public QuestionServiceImpl(long journalCompactionThreshold) {
+        this.journalCompactionThreshold = journalCompactionThreshold;
+    }
+
     @Override
     public List<String> getQuestionBanks() {
         try {
@@ -24,6 +122,96 @@ public class QuestionServiceImpl implements QuestionService {
         }
     }
 
+    @Override
+    public List<QuestionBankSummaryDto> getQuestionBankSummaries() {
+        try {
+            List<String> questionBanks = FileUtils.listJsonFilesInDataFolder();
+            BankManifest bankManifest = getManifest();
+
+            // Only banks that changed since they were summarized are read, in parallel
+            List<QuestionBankSummaryDto> rebuilt = questionBanks.stream()
+                    .filter(questionBank -> !isCurrent(bankManifest.get(questionBank), questionBank))
+                    .toList()
+                    .parallelStream()
+                    .map(this::summarize)
+                    .filter(Objects::nonNull)
+                    .toList();
+            rebuilt.forEach(bankManifest::put);
+            boolean removed = dropRemovedBanks(bankManifest, questionBanks);
+
+            if (!rebuilt.isEmpty() || removed) {
+                log.debug("Rebuilt {} question bank summaries", rebuilt.size());
+                writeManifest(bankManifest);
+            }
+            return questionBanks.stream()
+                    .map(bankManifest::get)
+                    .filter(Objects::nonNull)
+                    .sorted(Comparator.comparing(QuestionBankSummaryDto::getName))
+                    .toList();
+        } catch (IOException e) {
+            log.trace("Error retrieving question bank summaries", e);
+            return List.of();
+        }
+    }
+
+    @Override
+    public List<QuestionBankSummaryDto> getQuestionBankSummaries(List<String> questionBanks) {
+        BankManifest bankManifest = getManifest();
+
+        // Banks checked before only change through saves and watcher events,
+        // which update or check their summaries one by one
+        List<QuestionBankSummaryDto> rebuilt = questionBanks.stream()
+                .filter(questionBank -> !checkedSummaries.contains(getBankPath(questionBank)))
+                .filter(questionBank -> {
+                    boolean current = isCurrent(bankManifest.get(questionBank), questionBank);
+                    if (current) {
+                        checkedSummaries.add(getBankPath(questionBank));
+                    }
+                    return !current;
+                })
+                .toList()
+                .parallelStream()
+                .map(this::summarize)
+                .filter(Objects::nonNull)
+                .toList();
+        rebuilt.forEach(summary -> {
+            bankManifest.put(summary);
+            checkedSummaries.add(getBankPath(summary.getName()));
+        });
+        boolean removed = dropRemovedBanks(bankManifest, questionBanks);
+
+        if (!rebuilt.isEmpty() || removed) {
+            log.debug("Rebuilt {} question bank summaries", rebuilt.size());
+            writeManifest(bankManifest);
+        }
+        return questionBanks.stream()
+                .map(bankManifest::get)
+                .filter(Objects::nonNull)
+                .sorted(Comparator.comparing(QuestionBankSummaryDto::getName))
+                .toList();
+    }
+
+    @Override
+    public Optional<QuestionBankSummaryDto> getQuestionBankSummary(String questionBank) {
+        if (questionBank == null || questionBank.trim().isEmpty()) {
+            log.warn("Question bank name is null or empty");
+            return Optional.empty();
+        }
+
+        BankManifest bankManifest = getManifest();
+        QuestionBankSummaryDto summary = bankManifest.get(questionBank);
+        if (!isCurrent(summary, questionBank)) {
+            summary = summarize(questionBank);
+            if (summary == null) {
+                return Optional.empty();
+            }
+            bankManifest.put(summary);
+            writeManifest(bankManifest);
+        }
+        checkedSummaries.add(getBankPath(questionBank));
+        return Optional.of(summary);
+    }
+
     @Override
     public List<QuestionDto> getQuestions(String questionBank) {
         if (questionBank == null || questionBank.trim().isEmpty()) {
@@ -31,25 +219,332 @@ public class QuestionServiceImpl implements QuestionService {
             return List.of();
         }
 
-        try {
+        try (BankLocks.BankLock lock = bankLocks.readLock(questionBank);
+                Stream<QuestionDto> stream = openQuestions(questionBank)) {
             log.debug("Loading questions from question bank: {}", questionBank);
             
-            // Load the JSON file content using FileUtils
-            String jsonContent = FileUtils.loadJsonFileAsString(questionBank);
-            
-            // Convert JSON to QuestionDto list
-            List<QuestionDto> questions = QuestionUtils.convertToQuestionDtoList(jsonContent);
+            // Parse the questions one at a time straight from the file, sharing the
+            // values of repetitive fields through the dictionary of the bank
+            BankDictionary dictionary = getDictionary(questionBank);
+            List<QuestionDto> questions = stream.map(dictionary::intern)
+                    .collect(Collectors.toCollection(ArrayList::new));
             
             log.debug("Successfully loaded {} questions from question bank: {}", 
                     questions.size(), questionBank);
+            if (log.isDebugEnabled() && !questions.isEmpty()) {
+                logRetainedBytes(questionBank, questions);
+            }
             
             return questions;
-        } catch (IOException e) {
+        } catch (IOException | UncheckedIOException e) {
             log.trace("Error loading questions from question bank: {}", questionBank, e);
             return List.of();
         }
     }
 
+    @Override
+    public int getQuestionCount(String questionBank) {
+        if (questionBank == null || questionBank.trim().isEmpty()) {
+            log.warn("Question bank name is null or empty");
+            return 0;
+        }
+
+        try (BankLocks.BankLock lock = bankLocks.readLock(questionBank)) {
+            if (!getJournal(questionBank).isEmpty() || !isRandomAccess(questionBank)) {
+                try (Stream<QuestionDto> stream = streamQuestions(questionBank)) {
+                    return (int) stream.count();
+                }
+            }
+            if (FileUtils.isShardedBank(questionBank)) {
+                return FileUtils.openShardedBank(questionBank).size();
+            }
+            if (BankFormat.of(questionBank) == BankFormat.QBIN) {
+                try (QbinBank bank = FileUtils.openQbinBank(questionBank)) {
+                    return bank.size();
+                }
+            }
+            return getOffsetIndex(questionBank).size();
+        } catch (IOException | UncheckedIOException e) {
+            log.trace("Error counting questions of question bank: {}", questionBank, e);
+            return 0;
+        }
+    }
+
+    @Override
+    public List<QuestionDto> getQuestions(String questionBank, int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Offset and limit cannot be negative");
+        }
+
+        if (questionBank == null || questionBank.trim().isEmpty()) {
+            log.warn("Question bank name is null or empty");
+            return List.of();
+        }
+
+        try (BankLocks.BankLock lock = bankLocks.readLock(questionBank)) {
+            log.debug("Loading {} questions from offset {} of question bank: {}", limit, offset, questionBank);
+            if (!getJournal(questionBank).isEmpty() || !isRandomAccess(questionBank)) {
+                // Positions are only known after replaying the pending edits, and
+                // binary encodings of JSON and compressed JSON have no offset index
+                try (Stream<QuestionDto> stream = streamQuestions(questionBank)) {
+                    return intern(questionBank,
+                            stream.skip(offset).limit(limit).collect(Collectors.toCollection(ArrayList::new)));
+                }
+            }
+            if (FileUtils.isShardedBank(questionBank)) {
+                return intern(questionBank, FileUtils.openShardedBank(questionBank).getQuestions(offset, limit));
+            }
+            if (BankFormat.of(questionBank) == BankFormat.QBIN) {
+                try (QbinBank bank = FileUtils.openQbinBank(questionBank)) {
+                    return intern(questionBank, bank.getQuestions(offset, limit));
+                }
+            }
+            Path bankFile = FileUtils.getExistingFilePath(questionBank);
+            return intern(questionBank, getOffsetIndex(questionBank).readPage(bankFile, offset, limit));
+        } catch (IOException | UncheckedIOException e) {
+            log.trace("Error loading page of questions from question bank: {}", questionBank, e);
+            return List.of();
+        }
+    }
+
+    @Override
+    public QuestionTable getQuestionTable(String questionBank) {
+        if (questionBank == null || questionBank.trim().isEmpty()) {
+            log.warn("Question bank name is null or empty");
+            return new QuestionTable.Builder().build();
+        }
+
+        try (BankLocks.BankLock lock = bankLocks.readLock(questionBank);
+                Stream<QuestionDto> stream = streamQuestions(questionBank)) {
+            // Questions are copied into the columns as they are parsed, so only
+            // one question object is alive at a time
+            QuestionTable table = QuestionTable.of(stream.iterator());
+            log.debug("Loaded {} questions of question bank {} into a table of about {} bytes", table.size(),
+                    questionBank, table.estimateRetainedBytes());
+            return table;
+        } catch (IOException | UncheckedIOException e) {
+            log.trace("Error loading question table of question bank: {}", questionBank, e);
+            return new QuestionTable.Builder().build();
+        }
+    }
+
+    @Override
+    public List<QuestionDto> search(String questionBank, String query, int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit cannot be negative");
+        }
+
+        if (questionBank == null || questionBank.trim().isEmpty()) {
+            log.warn("Question bank name is null or empty");
+            return List.of();
+        }
+
+        if (query == null || query.isBlank()) {
+            return List.of();
+        }
+
+        try (BankLocks.BankLock lock = bankLocks.readLock(questionBank)) {
+            List<BankSearchIndex.Hit> hits = getSearchIndex(questionBank).search(query, limit);
+            log.debug("Found {} questions matching '{}' in question bank: {}", hits.size(), query, questionBank);
+            if (hits.isEmpty()) {
+                return List.of();
+            }
+            return intern(questionBank, new ArrayList<>(readQuestionsAt(questionBank,
+                    hits.stream().mapToInt(BankSearchIndex.Hit::position).toArray()).values()));
+        } catch (IOException | UncheckedIOException e) {
+            log.trace("Error searching question bank: {}", questionBank, e);
+            return List.of();
+        }
+    }
+
+    @Override
+    public Map<QuestionField, Map<String, Integer>> getFacetCounts(String questionBank) {
+        if (questionBank == null || questionBank.trim().isEmpty()) {
+            log.warn("Question bank name is null or empty");
+            return Map.of();
+        }
+
+        try (BankLocks.BankLock lock = bankLocks.readLock(questionBank)) {
+            FacetIndex index = getFacetIndex(questionBank);
+            Map<QuestionField, Map<String, Integer>> counts = new EnumMap<>(QuestionField.class);
+            for (QuestionField field : FacetIndex.FIELDS.values()) {
+                counts.put(field, index.getCounts(field));
+            }
+            return counts;
+        } catch (IOException | UncheckedIOException e) {
+            log.trace("Error counting facets of question bank: {}", questionBank, e);
+            return Map.of();
+        }
+    }
+
+    @Override
+    public int countQuestions(String questionBank, String filter) {
+        if (questionBank == null || questionBank.trim().isEmpty()) {
+            log.warn("Question bank name is null or empty");
+            return 0;
+        }
+
+        try (BankLocks.BankLock lock = bankLocks.readLock(questionBank)) {
+            return getFacetIndex(questionBank).filter(filter).cardinality();
+        } catch (IOException | UncheckedIOException e) {
+            log.trace("Error filtering question bank: {}", questionBank, e);
+            return 0;
+        }
+    }
+
+    @Override
+    public List<QuestionDto> filterQuestions(String questionBank, String filter, int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Offset and limit cannot be negative");
+        }
+
+        if (questionBank == null || questionBank.trim().isEmpty()) {
+            log.warn("Question bank name is null or empty");
+            return List.of();
+        }
+
+        try (BankLocks.BankLock lock = bankLocks.readLock(questionBank)) {
+            PositionBitmap matches = getFacetIndex(questionBank).filter(filter);
+            int[] positions = matches.toArray();
+            log.debug("Filter '{}' matches {} questions of question bank: {}", filter, positions.length,
+                    questionBank);
+            int from = Math.min(offset, positions.length);
+            int to = (int) Math.min((long) offset + limit, positions.length);
+            if (from == to) {
+                return List.of();
+            }
+            return intern(questionBank, new ArrayList<>(readQuestionsAt(questionBank,
+                    Arrays.copyOfRange(positions, from, to)).values()));
+        } catch (IOException | UncheckedIOException e) {
+            log.trace("Error filtering question bank: {}", questionBank, e);
+            return List.of();
+        }
+    }
+
+    @Override
+    public List<DuplicateClusterDto> findDuplicates(double threshold) {
+        DuplicateFinder finder = new DuplicateFinder(threshold);
+        List<String> questionBanks = getQuestionBanks();
+
+        // Only banks that changed since they were signed are read, in parallel
+        List<MinHashSignatures> bankSignatures = questionBanks.parallelStream()
+                .map(this::getSignatures)
+                .toList();
+        List<String> signedBanks = new ArrayList<>();
+        for (int i = 0; i < questionBanks.size(); i++) {
+            if (bankSignatures.get(i) != null) {
+                finder.add(bankSignatures.get(i));
+                signedBanks.add(questionBanks.get(i));
+            }
+        }
+
+        List<DuplicateFinder.Cluster> clusters = finder.findClusters();
+        log.debug("Found {} clusters of duplicate questions in {} question banks", clusters.size(),
+                signedBanks.size());
+        return toDuplicateClusters(signedBanks, clusters);
+    }
+
+    @Override
+    public Optional<QuestionLocationDto> findById(UUID questionId) {
+        if (questionId == null) {
+            log.warn("Question id is null");
+            return Optional.empty();
+        }
+
+        QuestionIdIndex index = getIdIndex();
+        Optional<QuestionLocationDto> location = findIndexed(index, questionId);
+        if (location.isEmpty() && refreshIdIndex(index)) {
+            location = findIndexed(index, questionId);
+        }
+        log.debug("Question {} {}", questionId, location.map(found -> "found in question bank: "
+                + found.getQuestionBank()).orElse("not found"));
+        return location;
+    }
+
+    @Override
+    public Stream<QuestionDto> streamQuestions(String questionBank) throws IOException {
+        if (questionBank == null || questionBank.trim().isEmpty()) {
+            throw new IllegalArgumentException("Question bank name cannot be null or empty");
+        }
+
+        log.debug("Streaming questions from question bank: {}", questionBank);
+        BankJournal journal = getJournal(questionBank);
+        // The stream is read lazily, the read lock keeps a save from replacing the
+        // files under it until it is closed
+        BankLocks.BankLock lock = bankLocks.readLock(questionBank);
+        try {
+            return openMergedStream(questionBank, journal).onClose(lock::close);
+        } catch (IOException | RuntimeException e) {
+            lock.close();
+            throw e;
+        }
+    }
+
+    private Stream<QuestionDto> openMergedStream(String questionBank, BankJournal journal) throws IOException {
+        // Opening the base file and reading the journal must not interleave with
+        // a compaction installing its new base file
+        synchronized (journal) {
+            Stream<QuestionDto> base = openBaseStream(questionBank);
+            if (journal.isEmpty()) {
+                return base;
+            }
+
+            try {
+                return journal.replay(base);
+            } catch (IOException | RuntimeException e) {
+                base.close();
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public BulkLoadReportDto loadAllQuestionBanks(int parallelism, int ioConcurrency,
+            Consumer<BankLoadResultDto> resultListener) {
+        if (parallelism < 1 || ioConcurrency < 1) {
+            throw new IllegalArgumentException("Parallelism and I/O concurrency must be positive");
+        }
+
+        List<String> questionBanks = getQuestionBanks();
+        log.debug("Loading {} question banks with parallelism {} and I/O concurrency {}", questionBanks.size(),
+                parallelism, ioConcurrency);
+
+        // Reads are limited separately so that parsing can keep every core busy
+        // without flooding the disk with concurrent reads
+        Semaphore ioPermits = new Semaphore(ioConcurrency);
+        List<Callable<BankLoadResultDto>> tasks = questionBanks.stream()
+                .map(questionBank -> (Callable<BankLoadResultDto>) () -> {
+                    BankLoadResultDto result = loadQuestionBank(questionBank, ioPermits);
+                    notifyLoaded(resultListener, result);
+                    return result;
+                })
+                .toList();
+
+        BulkLoadReportDto report = new BulkLoadReportDto();
+        long start = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            for (Future<BankLoadResultDto> future : pool.invokeAll(tasks)) {
+                BankLoadResultDto result = future.resultNow();
+                report.setBankCount(report.getBankCount() + 1);
+                report.setSizeBytes(report.getSizeBytes() + result.getSizeBytes());
+                report.setQuestionCount(report.getQuestionCount() + result.getQuestionCount());
+                if (!result.isSuccessful()) {
+                    report.setFailedBankCount(report.getFailedBankCount() + 1);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+        report.setElapsedNanos(System.nanoTime() - start);
+
+        log.info("Loaded {} questions from {} question banks ({} failed) at {} MB/s and {} questions/s",
+                report.getQuestionCount(), report.getBankCount(), report.getFailedBankCount(),
+                String.format("%.1f", report.getMegabytesPerSecond()),
+                String.format("%.0f", report.getQuestionsPerSecond()));
+        return report;
+    }
+
     @Override
     public void saveQuestions(String questionBank, List<QuestionDto> questions) throws IOException {
         if (questionBank == null || questionBank.trim().isEmpty()) {
@@ -62,18 +557,1284 @@ public class QuestionServiceImpl implements QuestionService {
             throw new IllegalArgumentException("Questions list cannot be null");
         }
 
+        BankJournal journal = getJournal(questionBank);
+        try (BankLocks.BankLock lock = lockForWrite(questionBank)) {
+            synchronized (journal) {
+                try {
+                    log.debug("Saving {} questions to question bank: {}", questions.size(), questionBank);
+                
+                    // Use FileUtils to save questions in the format of the bank, large
+                    // banks only rewrite the shards that changed
+                    if (FileUtils.shouldShard(questionBank)) {
+                        int written = FileUtils.saveQuestionsToShardedBank(questionBank, questions);
+                        log.debug("Rewrote {} shards of question bank: {}", written, questionBank);
+                    } else if (BankFormat.of(questionBank) == BankFormat.QBIN) {
+                        FileUtils.saveQuestionsToQbinFile(questionBank, questions);
+                    } else {
+                        FileUtils.saveQuestionsToJsonFile(questionBank, questions);
+                    }
+                
+                    // The base file now holds every pending edit
+                    journal.clear();
+                    updateSummary(questionBank, questions);
+                    updateSearchIndex(questionBank, questions);
+                    updateFacetIndex(questionBank, questions);
+                    updateIdIndex(questionBank, questions);
+                    updateVersions(questionBank, questions);
+                
+                    log.debug("Successfully saved {} questions to question bank: {}", 
+                            questions.size(), questionBank);
+                        
+                } catch (IOException e) {
+                    log.error("Error saving questions to question bank: {}", questionBank, e);
+                    throw new IOException("Failed to save questions to question bank: " + questionBank, e);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void saveQuestion(String questionBank, QuestionDto question) throws IOException {
+        if (questionBank == null || questionBank.trim().isEmpty()) {
+            log.error("Cannot save question: question bank name is null or empty");
+            throw new IllegalArgumentException("Question bank name cannot be null or empty");
+        }
+
+        if (question == null) {
+            log.error("Cannot save question: question is null");
+            throw new IllegalArgumentException("Question cannot be null");
+        }
+
+        if (question.getId() == null) {
+            question.setId(UUID.randomUUID());
+        }
+
+        BankJournal journal = getJournal(questionBank);
+        try (BankLocks.BankLock lock = lockForWrite(questionBank)) {
+            synchronized (journal) {
+                if (!Files.exists(Path.of(FileUtils.getDataFolder()).resolve(questionBank))) {
+                    saveQuestions(questionBank, List.of(question));
+                    return;
+                }
+
+                try {
+                    BankState previous = readStateForIndexes(questionBank);
+                    journal.appendUpsert(question);
+                    updateIdIndex(questionBank, previous, index -> index.upsert(questionBank, question.getId()));
+                    updateVersions(questionBank, previous, List.of(question), List.of());
+                    log.debug("Journaled question {} of question bank: {}", question.getId(), questionBank);
+                } catch (IOException e) {
+                    log.error("Error saving question to question bank: {}", questionBank, e);
+                    throw new IOException("Failed to save question to question bank: " + questionBank, e);
+                }
+            }
+        }
+        scheduleCompactionIfNeeded(questionBank, journal);
+    }
+
+    @Override
+    public void deleteQuestion(String questionBank, UUID questionId) throws IOException {
+        if (questionBank == null || questionBank.trim().isEmpty()) {
+            log.error("Cannot delete question: question bank name is null or empty");
+            throw new IllegalArgumentException("Question bank name cannot be null or empty");
+        }
+
+        if (questionId == null) {
+            log.error("Cannot delete question: question id is null");
+            throw new IllegalArgumentException("Question id cannot be null");
+        }
+
+        FileUtils.getExistingFilePath(questionBank);
+        BankJournal journal = getJournal(questionBank);
+        try (BankLocks.BankLock lock = lockForWrite(questionBank)) {
+            synchronized (journal) {
+                try {
+                    BankState previous = readStateForIndexes(questionBank);
+                    journal.appendDelete(questionId);
+                    updateIdIndex(questionBank, previous, index -> index.delete(questionBank, questionId));
+                    updateVersions(questionBank, previous, List.of(), List.of(questionId));
+                    log.debug("Journaled deletion of question {} from question bank: {}", questionId, questionBank);
+                } catch (IOException e) {
+                    log.error("Error deleting question from question bank: {}", questionBank, e);
+                    throw new IOException("Failed to delete question from question bank: " + questionBank, e);
+                }
+            }
+        }
+        scheduleCompactionIfNeeded(questionBank, journal);
+    }
+
+    @Override
+    public List<QuestionDto> applyChanges(String questionBank, QuestionChangeSetDto changeSet) throws IOException {
+        if (questionBank == null || questionBank.trim().isEmpty()) {
+            log.error("Cannot apply changes: question bank name is null or empty");
+            throw new IllegalArgumentException("Question bank name cannot be null or empty");
+        }
+
+        if (changeSet == null) {
+            log.error("Cannot apply changes: change set is null");
+            throw new IllegalArgumentException("Change set cannot be null");
+        }
+
+        if (changeSet.getUpserts().stream().anyMatch(question -> question.getId() == null)) {
+            log.error("Cannot apply changes: changed question without an id");
+            throw new IllegalArgumentException("Changed questions must have an id");
+        }
+
+        if (changeSet.isEmpty()) {
+            return List.of();
+        }
+
+        BankJournal journal = getJournal(questionBank);
+        List<QuestionDto> upserts;
+        try (BankLocks.BankLock lock = lockForWrite(questionBank)) {
+            synchronized (journal) {
+                boolean exists = Files.exists(Path.of(FileUtils.getDataFolder()).resolve(questionBank));
+                upserts = changeSet.getBases() == null ? changeSet.getUpserts()
+                        : checkVersions(questionBank, changeSet, exists);
+                if (changeSet.getOrder() != null || !exists) {
+                    // The journal keeps the position of every question, so a new order
+                    // is only written by rewriting the bank
+                    saveQuestions(questionBank, mergeChanges(questionBank, upserts, changeSet));
+                    return upserts;
+                }
+
+                try {
+                    BankState previous = readStateForIndexes(questionBank);
+                    for (QuestionDto question : upserts) {
+                        journal.appendUpsert(question);
+                    }
+                    for (UUID questionId : changeSet.getDeletions()) {
+                        journal.appendDelete(questionId);
+                    }
+                    updateIdIndex(questionBank, previous, index -> {
+                        upserts.forEach(question -> index.upsert(questionBank, question.getId()));
+                        index.deleteAll(questionBank, changeSet.getDeletions());
+                    });
+                    updateVersions(questionBank, previous, upserts, changeSet.getDeletions());
+                    log.debug("Journaled {} changed and {} deleted questions of question bank: {}",
+                            upserts.size(), changeSet.getDeletions().size(), questionBank);
+                } catch (IOException e) {
+                    log.error("Error applying changes to question bank: {}", questionBank, e);
+                    throw new IOException("Failed to apply changes to question bank: " + questionBank, e);
+                }
+            }
+        }
+        scheduleCompactionIfNeeded(questionBank, journal);
+        return upserts;
+    }
+
+    @Override
+    public void convertQuestionBank(String sourceBank, String targetBank) throws IOException {
+        if (targetBank == null || targetBank.trim().isEmpty()) {
+            throw new IllegalArgumentException("Question bank name cannot be null or empty");
+        }
+
+        log.debug("Converting question bank {} to {}", sourceBank, targetBank);
+        FileUtils.getExistingFilePath(sourceBank);
+        Path targetFile = Path.of(FileUtils.getDataFolder()).resolve(targetBank);
+        BankJournal targetJournal = getJournal(targetBank);
+
+        // The source is locked after the target, a write lock may be joined by a
+        // read lock of the same stripe but not the other way round
+        try (BankLocks.BankLock lock = lockForWrite(targetBank);
+                BankLocks.BankLock sourceLock = bankLocks.readLock(sourceBank)) {
+            synchronized (targetJournal) {
+                try {
+                    // Streamed with the pending edits replayed, and written in the format,
+                    // compression and compression level of the target bank
+                    try (Stream<QuestionDto> questions = streamQuestions(sourceBank)) {
+                        FileUtils.writeQuestionsToFile(targetFile, targetBank, questions.iterator());
+                    }
+                    targetJournal.clear();
+                } catch (UncheckedIOException e) {
+                    throw new IOException("Failed to convert question bank: " + sourceBank, e.getCause());
+                }
+            }
+        }
+    }
+
+    @Override
+    public int getCompressionLevel(String questionBank) {
+        if (questionBank == null || questionBank.trim().isEmpty()) {
+            throw new IllegalArgumentException("Question bank name cannot be null or empty");
+        }
+        return FileUtils.getCompressionLevel(questionBank);
+    }
+
+    @Override
+    public void setCompressionLevel(String questionBank, int level) throws IOException {
+        if (questionBank == null || questionBank.trim().isEmpty()) {
+            throw new IllegalArgumentException("Question bank name cannot be null or empty");
+        }
+
+        log.debug("Setting compression level of question bank {} to {}", questionBank, level);
+        try (BankLocks.BankLock lock = lockForWrite(questionBank)) {
+            FileUtils.setCompressionLevel(questionBank, level);
+        }
+    }
+
+    /**
+     * Compacts the journal of a bank into its base file right away
+     * 
+     * @param questionBank the name of the question bank
+     * @throws IOException if the compacted bank cannot be written
+     */
+    public void compactQuestionBank(String questionBank) throws IOException {
+        BankJournal journal = getJournal(questionBank);
+        long generation;
+        synchronized (journal) {
+            generation = journal.getGeneration();
+            if (!journal.beginCompaction()) {
+                return;
+            }
+        }
+
+        log.debug("Compacting journal of question bank: {}", questionBank);
+        Path baseFile = FileUtils.getExistingFilePath(questionBank);
+        if (FileUtils.isShardedBank(questionBank)) {
+            compactShardedBank(questionBank, journal, baseFile, generation);
+            return;
+        }
+        Path compactedFile = FileUtils.getSidecarFilePath(questionBank, COMPACTED_SUFFIX);
+        try (Stream<QuestionDto> base = openBaseStream(questionBank);
+                Stream<QuestionDto> questions = journal.replayCompacting(base)) {
+            FileUtils.writeQuestionsToFile(compactedFile, questionBank, questions.iterator());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        boolean installed;
+        try (BankLocks.BankLock lock = lockForWrite(questionBank)) {
+            installed = journal.finishCompaction(compactedFile, baseFile, generation);
+        }
+        if (installed) {
+            log.debug("Compacted journal of question bank: {}", questionBank);
+        } else {
+            log.debug("Discarded compaction of question bank {} after a full save", questionBank);
+        }
+    }
+
+    /**
+     * Writes the changed shards of a sharded bank next to the current ones and
+     * only replaces its manifest if the compaction is still current
+     */
+    private void compactShardedBank(String questionBank, BankJournal journal, Path bankFolder, long generation)
+            throws IOException {
+        ShardedBank.PendingWrite write;
+        try (Stream<QuestionDto> base = openBaseStream(questionBank);
+                Stream<QuestionDto> questions = journal.replayCompacting(base)) {
+            write = ShardedBank.prepare(bankFolder, questionBank, questions.iterator(), FileUtils.getShardSize());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        boolean installed;
         try {
-            log.debug("Saving {} questions to question bank: {}", questions.size(), questionBank);
-            
-            // Use FileUtils to save questions to JSON file
-            FileUtils.saveQuestionsToJsonFile(questionBank, questions);
-            
-            log.debug("Successfully saved {} questions to question bank: {}", 
-                    questions.size(), questionBank);
-                    
+            try (BankLocks.BankLock lock = lockForWrite(questionBank)) {
+                installed = journal.finishCompaction(generation, write::commit);
+            }
         } catch (IOException e) {
-            log.error("Error saving questions to question bank: {}", questionBank, e);
-            throw new IOException("Failed to save questions to question bank: " + questionBank, e);
+            write.discard();
+            throw e;
+        }
+        if (installed) {
+            log.debug("Compacted journal of question bank {} into {} rewritten shards", questionBank,
+                    write.getWrittenShardCount());
+        } else {
+            write.discard();
+            log.debug("Discarded compaction of question bank {} after a full save", questionBank);
+        }
+    }
+
+    /**
+     * Applies a change set to the current questions of a bank, questions missing
+     * from a new order keep their relative order after the ordered ones
+     */
+    private List<QuestionDto> mergeChanges(String questionBank, List<QuestionDto> upserted,
+            QuestionChangeSetDto changeSet) throws IOException {
+        Map<UUID, QuestionDto> upserts = new LinkedHashMap<>();
+        upserted.forEach(question -> upserts.put(question.getId(), question));
+        Set<UUID> deletions = new HashSet<>(changeSet.getDeletions());
+
+        List<QuestionDto> questions = new ArrayList<>();
+        if (Files.exists(Path.of(FileUtils.getDataFolder()).resolve(questionBank))) {
+            try (Stream<QuestionDto> stream = streamQuestions(questionBank)) {
+                stream.forEach(question -> {
+                    if (question.getId() == null || !deletions.contains(question.getId())) {
+                        QuestionDto changed = question.getId() == null ? null : upserts.remove(question.getId());
+                        questions.add(changed != null ? changed : question);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
         }
+        questions.addAll(upserts.values());
+
+        if (changeSet.getOrder() != null) {
+            Map<UUID, Integer> positions = HashMap.newHashMap(changeSet.getOrder().size());
+            for (int i = 0; i < changeSet.getOrder().size(); i++) {
+                positions.putIfAbsent(changeSet.getOrder().get(i), i);
+            }
+            // Stable, so unordered questions keep their relative order at the end
+            questions.sort(Comparator.comparingInt(
+                    question -> positions.getOrDefault(question.getId(), Integer.MAX_VALUE)));
+        }
+        return questions;
+    }
+
+    /**
+     * Checks the versions of the bases of a change set against the saved versions,
+     * looking up only the changed questions, and increases the versions of the
+     * upserted questions. The versions come from the versions of the bank kept
+     * since it was last read or saved, or else from the changed questions read
+     * through the id index. Questions changed elsewhere are only read to merge
+     * them, all in a single read.
+     * 
+     * @return the questions to write, merged with the changes made elsewhere if
+     *         the change set allows it
+     * @throws QuestionConflictException if a changed question was also changed
+     *                                   elsewhere
+     */
+    private List<QuestionDto> checkVersions(String questionBank, QuestionChangeSetDto changeSet, boolean exists)
+            throws IOException {
+        Map<UUID, QuestionDto> current = null;
+        BankVersions versions = exists ? getCurrentVersions(questionBank) : null;
+        if (versions == null && exists) {
+            Set<UUID> changedIds = new HashSet<>(changeSet.getDeletions());
+            changeSet.getUpserts().forEach(question -> changedIds.add(question.getId()));
+            current = readQuestionsById(questionBank, changedIds);
+            versions = BankVersions.of(current.values().iterator(), -1, -1);
+        } else if (versions == null) {
+            versions = BankVersions.of(Collections.emptyIterator(), 0, 0);
+        }
+
+        Map<UUID, QuestionDto> bases = changeSet.getBases();
+        if (current == null && changeSet.isMergeConflicts()) {
+            Set<UUID> changedElsewhere = new HashSet<>();
+            for (QuestionDto question : changeSet.getUpserts()) {
+                if (!isCurrent(versions, question.getId(), bases.get(question.getId()))
+                        && versions.contains(question.getId())) {
+                    changedElsewhere.add(question.getId());
+                }
+            }
+            current = changedElsewhere.isEmpty() ? Map.of() : readQuestionsById(questionBank, changedElsewhere);
+        }
+
+        List<QuestionDto> upserts = new ArrayList<>();
+        List<QuestionConflictDto> conflicts = new ArrayList<>();
+        for (QuestionDto question : changeSet.getUpserts()) {
+            QuestionDto base = bases.get(question.getId());
+            QuestionDto merged = question;
+            if (!isCurrent(versions, question.getId(), base)) {
+                QuestionDto saved = current == null ? null : current.get(question.getId());
+                merged = changeSet.isMergeConflicts() && base != null && saved != null
+                        ? QuestionUtils.merge(base, question, saved)
+                        : null;
+            }
+            if (merged == null) {
+                conflicts.add(toConflict(question.getId(), base, versions, false));
+            } else {
+                upserts.add(merged);
+            }
+        }
+        for (UUID questionId : changeSet.getDeletions()) {
+            if (versions.contains(questionId) && !isCurrent(versions, questionId, bases.get(questionId))) {
+                conflicts.add(toConflict(questionId, bases.get(questionId), versions, true));
+            }
+        }
+
+        if (!conflicts.isEmpty()) {
+            log.debug("Rejected changes to question bank {} conflicting on {} questions", questionBank,
+                    conflicts.size());
+            throw new QuestionConflictException(questionBank, conflicts);
+        }
+        BankVersions saved = versions;
+        upserts.forEach(question -> QuestionUtils.bumpVersion(question, saved.get(question.getId())));
+        return upserts;
+    }
+
+    /**
+     * @return true if the question is saved with the version of its base, or is
+     *         new and not saved yet
+     */
+    private static boolean isCurrent(BankVersions versions, UUID questionId, QuestionDto base) {
+        if (!versions.contains(questionId)) {
+            return base == null;
+        }
+        return base != null && Objects.equals(base.getVersion(), versions.get(questionId));
+    }
+
+    private static QuestionConflictDto toConflict(UUID questionId, QuestionDto base, BankVersions versions,
+            boolean deletion) {
+        QuestionConflictDto conflict = new QuestionConflictDto();
+        conflict.setId(questionId);
+        conflict.setBaseVersion(base == null ? null : base.getVersion());
+        conflict.setCurrentVersion(versions.get(questionId));
+        conflict.setDeletion(deletion);
+        return conflict;
+    }
+
+    /**
+     * Reads the saved questions with the given ids from a bank, at their positions
+     * in the id index when the index is current for the bank, and in a single pass
+     * over the bank otherwise
+     * 
+     * @return the saved questions by id, ids not in the bank are left out
+     */
+    private Map<UUID, QuestionDto> readQuestionsById(String questionBank, Set<UUID> questionIds) throws IOException {
+        Map<UUID, QuestionDto> questions = readIndexedQuestions(questionBank, questionIds);
+        if (questions != null) {
+            return questions;
+        }
+
+        questions = new HashMap<>();
+        try (Stream<QuestionDto> stream = streamQuestions(questionBank)) {
+            Iterator<QuestionDto> iterator = stream.iterator();
+            while (iterator.hasNext() && questions.size() < questionIds.size()) {
+                QuestionDto question = iterator.next();
+                if (question.getId() != null && questionIds.contains(question.getId())) {
+                    questions.putIfAbsent(question.getId(), question);
+                }
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        log.debug("Read {} changed questions of question bank {} in a single pass", questions.size(),
+                questionBank);
+        return questions;
+    }
+
+    /**
+     * @return the saved questions with the given ids read at their indexed
+     *         positions, null if the bank cannot be indexed or moved since
+     */
+    private Map<UUID, QuestionDto> readIndexedQuestions(String questionBank, Set<UUID> questionIds)
+            throws IOException {
+        QuestionIdIndex index = getIdIndex();
+        if (indexIds(index, questionBank)) {
+            scheduleIdIndexWrite(index);
+        }
+
+        BankState state = readState(questionBank);
+        Map<Integer, UUID> idsByPosition = new HashMap<>();
+        synchronized (index) {
+            if (!index.matches(questionBank, state.sizeBytes(), state.lastModified())) {
+                return null;
+            }
+            for (UUID questionId : questionIds) {
+                int position = index.positionOf(questionBank, questionId);
+                if (position >= 0) {
+                    idsByPosition.put(position, questionId);
+                }
+            }
+        }
+
+        Map<UUID, QuestionDto> questions = new HashMap<>();
+        int[] positions = idsByPosition.keySet().stream().mapToInt(Integer::intValue).toArray();
+        for (Map.Entry<Integer, QuestionDto> read : readQuestionsAt(questionBank, positions).entrySet()) {
+            UUID questionId = idsByPosition.get(read.getKey());
+            if (!questionId.equals(read.getValue().getId())) {
+                // A question restored in place by the journal, see findIndexed
+                synchronized (index) {
+                    index.invalidate(questionBank);
+                }
+                return null;
+            }
+            questions.put(questionId, read.getValue());
+        }
+        if (questions.size() != positions.length) {
+            return null;
+        }
+        return questions;
+    }
+
+    /**
+     * @return the versions of a bank kept since it was last read or saved, null if
+     *         they are missing or the bank changed since
+     */
+    private BankVersions getCurrentVersions(String questionBank) throws IOException {
+        Path bankFile = Path.of(FileUtils.getDataFolder()).resolve(questionBank);
+        BankState state = readState(questionBank);
+        BankVersions versions = versionTables.get(bankFile);
+        if (versions != null && versions.matches(state.sizeBytes(), state.lastModified())) {
+            return versions;
+        }
+        return null;
+    }
+
+    /**
+     * Replaces the versions of a saved bank with the versions of the questions
+     * written
+     */
+    private void updateVersions(String questionBank, List<QuestionDto> questions) {
+        Path bankFile = Path.of(FileUtils.getDataFolder()).resolve(questionBank);
+        try {
+            BankState state = readState(questionBank);
+            versionTables.put(bankFile, BankVersions.of(questions.iterator(), state.sizeBytes(), state.lastModified()));
+        } catch (IOException e) {
+            versionTables.remove(bankFile);
+        }
+    }
+
+    /**
+     * Applies a journaled save to the versions of a bank if they were current
+     * before the save, and drops them otherwise
+     */
+    private void updateVersions(String questionBank, BankState previous, List<QuestionDto> upserts,
+            List<UUID> deletions) {
+        Path bankFile = Path.of(FileUtils.getDataFolder()).resolve(questionBank);
+        BankVersions versions = versionTables.get(bankFile);
+        if (versions == null) {
+            return;
+        }
+        try {
+            if (previous == null || !versions.matches(previous.sizeBytes(), previous.lastModified())) {
+                versionTables.remove(bankFile);
+                return;
+            }
+            upserts.forEach(question -> versions.put(question.getId(), question.getVersion()));
+            deletions.forEach(versions::remove);
+            BankState state = readState(questionBank);
+            versions.setState(state.sizeBytes(), state.lastModified());
+        } catch (IOException e) {
+            versionTables.remove(bankFile);
+        }
+    }
+
+    private void scheduleCompactionIfNeeded(String questionBank, BankJournal journal) throws IOException {
+        if (journal.size() >= journalCompactionThreshold && scheduledCompactions.add(questionBank)) {
+            compactionExecutor.execute(() -> {
+                try {
+                    compactQuestionBank(questionBank);
+                } catch (IOException | RuntimeException e) {
+                    log.error("Error compacting journal of question bank: {}", questionBank, e);
+                } finally {
+                    scheduledCompactions.remove(questionBank);
+                }
+            });
+        }
+    }
+
+    /**
+     * @return how often the locks of the banks were acquired and waited for
+     */
+    public BankLocks.Contention getLockContention() {
+        return bankLocks.getContention();
+    }
+
+    private BankLocks.BankLock lockForWrite(String questionBank) throws IOException {
+        BankLocks.BankLock lock = bankLocks.writeLock(questionBank,
+                FileUtils.getSidecarFilePath(questionBank, LOCK_SUFFIX));
+        // Journaled saves leave the summary stale, full saves check it again
+        checkedSummaries.remove(getBankPath(questionBank));
+        return lock;
+    }
+
+    /**
+     * Drops the summaries of banks that no longer exist from the manifest and
+     * deletes their lock files
+     * 
+     * @return true if a summary was dropped
+     */
+    private boolean dropRemovedBanks(BankManifest bankManifest, List<String> questionBanks) {
+        Set<String> existing = Set.copyOf(questionBanks);
+        List<String> removedBanks = bankManifest.getSummaries().stream()
+                .map(QuestionBankSummaryDto::getName)
+                .filter(questionBank -> !existing.contains(questionBank))
+                .toList();
+        for (String questionBank : removedBanks) {
+            // Held while deleting, so no writer of this process uses the file
+            try (BankLocks.BankLock lock = lockForWrite(questionBank)) {
+                if (!Files.exists(getBankPath(questionBank))) {
+                    Files.deleteIfExists(FileUtils.getSidecarFilePath(questionBank, LOCK_SUFFIX));
+                }
+            } catch (IOException e) {
+                log.debug("Error deleting lock file of removed question bank: {}", questionBank, e);
+            }
+        }
+        return bankManifest.retainAll(questionBanks);
+    }
+
+    private static Path getBankPath(String questionBank) {
+        return Path.of(FileUtils.getDataFolder()).resolve(questionBank);
+    }
+
+    private synchronized BankManifest getManifest() {
+        if (manifest == null) {
+            manifest = BankManifest.read(FileUtils.getManifestFilePath());
+        }
+        return manifest;
+    }
+
+    private QuestionIdIndex getIdIndex() {
+        QuestionIdIndex index = idIndex;
+        if (index != null) {
+            return index;
+        }
+        synchronized (this) {
+            if (idIndex == null) {
+                try {
+                    idIndex = QuestionIdIndex.read(FileUtils.getIdIndexFilePath());
+                } catch (IOException e) {
+                    log.debug("Error reading question id index", e);
+                }
+                if (idIndex == null) {
+                    idIndex = new QuestionIdIndex();
+                }
+            }
+            return idIndex;
+        }
+    }
+
+    /**
+     * Looks a question up in the id index and reads it from its bank, as long as
+     * the bank did not change since it was indexed
+     */
+    private Optional<QuestionLocationDto> findIndexed(QuestionIdIndex index, UUID questionId) {
+        QuestionIdIndex.Location location;
+        synchronized (index) {
+            location = index.find(questionId);
+        }
+        if (location == null) {
+            return Optional.empty();
+        }
+
+        String questionBank = location.questionBank();
+        int position = location.position();
+        try {
+            BankState state = readState(questionBank);
+            synchronized (index) {
+                if (!index.matches(questionBank, state.sizeBytes(), state.lastModified())) {
+                    return Optional.empty();
+                }
+            }
+
+            QuestionDto question;
+            try (BankLocks.BankLock lock = bankLocks.readLock(questionBank)) {
+                question = readQuestionsAt(questionBank, new int[] { position }).get(position);
+            }
+            if (question == null || !questionId.equals(question.getId())) {
+                // The journal restores a deleted question of the base file in place,
+                // which an incremental update cannot tell from a new question
+                synchronized (index) {
+                    index.invalidate(questionBank);
+                }
+                return Optional.empty();
+            }
+
+            QuestionLocationDto found = new QuestionLocationDto();
+            found.setQuestionBank(questionBank);
+            found.setPosition(position);
+            found.setQuestion(question);
+            return Optional.of(found);
+        } catch (IOException | UncheckedIOException e) {
+            log.trace("Error reading question {} from question bank: {}", questionId, questionBank, e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Drops the banks that no longer exist from the id index and indexes the banks
+     * that changed since they were indexed, in parallel
+     * 
+     * @return true if the index changed
+     */
+    private boolean refreshIdIndex(QuestionIdIndex index) {
+        List<String> questionBanks = getQuestionBanks();
+        boolean removed;
+        synchronized (index) {
+            removed = index.retainAll(questionBanks);
+        }
+        boolean indexed = questionBanks.parallelStream()
+                .map(questionBank -> indexIds(index, questionBank))
+                .reduce(false, Boolean::logicalOr);
+        if (removed || indexed) {
+            scheduleIdIndexWrite(index);
+        }
+        return removed || indexed;
+    }
+
+    private boolean indexIds(QuestionIdIndex index, String questionBank) {
+        try {
+            // Read the state first, changes made while indexing are then caught on
+            // the next lookup
+            BankState state = readState(questionBank);
+            synchronized (index) {
+                if (index.matches(questionBank, state.sizeBytes(), state.lastModified())) {
+                    return false;
+                }
+            }
+
+            List<UUID> ids;
+            try (Stream<QuestionDto> questions = streamQuestions(questionBank)) {
+                ids = questions.map(QuestionDto::getId).toList();
+            }
+            synchronized (index) {
+                index.replaceBank(questionBank, ids, state.sizeBytes(), state.lastModified());
+            }
+            log.debug("Indexed {} question ids of question bank: {}", ids.size(), questionBank);
+            return true;
+        } catch (IOException | UncheckedIOException e) {
+            log.trace("Error indexing question ids of question bank: {}", questionBank, e);
+            return false;
+        }
+    }
+
+    /**
+     * Replaces the entries of a saved bank in the id index, if the index is loaded,
+     * it is loaded and completed on the first lookup otherwise
+     */
+    private void updateIdIndex(String questionBank, List<QuestionDto> questions) {
+        QuestionIdIndex index = idIndex;
+        if (index == null) {
+            return;
+        }
+        try {
+            BankState state = readState(questionBank);
+            List<UUID> ids = questions.stream().map(QuestionDto::getId).toList();
+            synchronized (index) {
+                index.replaceBank(questionBank, ids, state.sizeBytes(), state.lastModified());
+            }
+            scheduleIdIndexWrite(index);
+        } catch (IOException e) {
+            log.debug("Error updating question id index of question bank: {}", questionBank, e);
+        }
+    }
+
+    /**
+     * @return the state of a bank before a journaled save, null if neither the id
+     *         index nor the versions of the bank are loaded and need an update
+     */
+    private BankState readStateForIndexes(String questionBank) {
+        if (idIndex == null && !versionTables.containsKey(Path.of(FileUtils.getDataFolder()).resolve(questionBank))) {
+            return null;
+        }
+        try {
+            return readState(questionBank);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Applies a journaled save to the id index, only if the index was current for
+     * the bank before the save. A stale bank is indexed again on a lookup instead.
+     */
+    private void updateIdIndex(String questionBank, BankState previous, Consumer<QuestionIdIndex> update) {
+        QuestionIdIndex index = idIndex;
+        if (index == null || previous == null) {
+            return;
+        }
+        try {
+            BankState state = readState(questionBank);
+            synchronized (index) {
+                if (!index.matches(questionBank, previous.sizeBytes(), previous.lastModified())) {
+                    return;
+                }
+                update.accept(index);
+                index.setState(questionBank, state.sizeBytes(), state.lastModified());
+            }
+            scheduleIdIndexWrite(index);
+        } catch (IOException e) {
+            log.debug("Error updating question id index of question bank: {}", questionBank, e);
+        }
+    }
+
+    /**
+     * Writes the id index in the background, saves made before the write starts
+     * are written together
+     */
+    private void scheduleIdIndexWrite(QuestionIdIndex index) {
+        if (!idIndexWriteScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        Path indexFile = FileUtils.getIdIndexFilePath();
+        compactionExecutor.execute(() -> {
+            idIndexWriteScheduled.set(false);
+            try {
+                synchronized (index) {
+                    index.write(indexFile);
+                }
+            } catch (IOException e) {
+                // Banks are indexed again on the next lookup
+                log.debug("Error writing question id index", e);
+            }
+        });
+    }
+
+    private void writeManifest(BankManifest bankManifest) {
+        try {
+            bankManifest.write(FileUtils.getManifestFilePath());
+        } catch (IOException e) {
+            // The summaries are rebuilt from the banks on the next read
+            log.debug("Error writing question bank manifest", e);
+        }
+    }
+
+    private void updateSummary(String questionBank, List<QuestionDto> questions) {
+        try {
+            BankState state = readState(questionBank);
+            BankManifest bankManifest = getManifest();
+            bankManifest.put(BankManifest.summarize(questionBank, state.sizeBytes(), state.lastModified(),
+                    questions.iterator()));
+            writeManifest(bankManifest);
+            checkedSummaries.add(getBankPath(questionBank));
+        } catch (IOException e) {
+            log.debug("Error summarizing question bank: {}", questionBank, e);
+        }
+    }
+
+    /**
+     * Updates the search index of a saved bank with the saved questions, banks
+     * that were never searched are indexed on their first search instead
+     */
+    private void updateSearchIndex(String questionBank, List<QuestionDto> questions) {
+        Path bankFile = Path.of(FileUtils.getDataFolder()).resolve(questionBank);
+        Path indexFile = FileUtils.getSidecarFilePath(questionBank, SEARCH_INDEX_SUFFIX);
+        try {
+            BankSearchIndex index = searchIndexes.get(bankFile);
+            if (index == null) {
+                index = BankSearchIndex.read(indexFile);
+            }
+            if (index == null) {
+                return;
+            }
+
+            BankState state = readState(questionBank);
+            index = index.update(questions.iterator(), state.sizeBytes(), state.lastModified());
+            searchIndexes.put(bankFile, index);
+            index.write(indexFile);
+        } catch (IOException e) {
+            // The index is brought up to date on the next search
+            log.debug("Error updating search index of question bank: {}", questionBank, e);
+        }
+    }
+
+    /**
+     * Loads the search index of a bank, updating it from the bank when the bank
+     * or its journal changed since it was indexed
+     */
+    private BankSearchIndex getSearchIndex(String questionBank) throws IOException {
+        Path bankFile = FileUtils.getExistingFilePath(questionBank);
+        Path indexFile = FileUtils.getSidecarFilePath(questionBank, SEARCH_INDEX_SUFFIX);
+        BankSearchIndex index = searchIndexes.get(bankFile);
+        if (index == null) {
+            index = BankSearchIndex.read(indexFile);
+        }
+
+        // Read the state first, changes made while indexing are then caught on the
+        // next search
+        BankState state = readState(questionBank);
+        if (index != null && index.matches(state.sizeBytes(), state.lastModified())) {
+            searchIndexes.put(bankFile, index);
+            return index;
+        }
+
+        log.debug("Indexing question bank for search: {}", questionBank);
+        try (Stream<QuestionDto> questions = streamQuestions(questionBank)) {
+            index = index == null
+                    ? BankSearchIndex.build(questions.iterator(), state.sizeBytes(), state.lastModified())
+                    : index.update(questions.iterator(), state.sizeBytes(), state.lastModified());
+        }
+        searchIndexes.put(bankFile, index);
+        try {
+            index.write(indexFile);
+        } catch (IOException e) {
+            log.debug("Error writing search index of question bank: {}", questionBank, e);
+        }
+        return index;
+    }
+
+    /**
+     * Rebuilds the facet index of a saved bank from the saved questions, banks
+     * that were never filtered are indexed on their first use instead
+     */
+    private void updateFacetIndex(String questionBank, List<QuestionDto> questions) {
+        Path bankFile = Path.of(FileUtils.getDataFolder()).resolve(questionBank);
+        Path indexFile = FileUtils.getSidecarFilePath(questionBank, FACET_INDEX_SUFFIX);
+        if (!facetIndexes.containsKey(bankFile) && !Files.exists(indexFile)) {
+            return;
+        }
+
+        try {
+            BankState state = readState(questionBank);
+            FacetIndex index = FacetIndex.build(questions.iterator(), state.sizeBytes(), state.lastModified());
+            facetIndexes.put(bankFile, index);
+            index.write(indexFile);
+        } catch (IOException e) {
+            // The index is rebuilt on its next use
+            log.debug("Error updating facet index of question bank: {}", questionBank, e);
+        }
+    }
+
+    /**
+     * Loads the facet index of a bank, rebuilding it when the bank or its journal
+     * changed since it was indexed
+     */
+    private FacetIndex getFacetIndex(String questionBank) throws IOException {
+        Path bankFile = FileUtils.getExistingFilePath(questionBank);
+        Path indexFile = FileUtils.getSidecarFilePath(questionBank, FACET_INDEX_SUFFIX);
+        FacetIndex index = facetIndexes.get(bankFile);
+        if (index == null) {
+            index = FacetIndex.read(indexFile);
+        }
+
+        BankState state = readState(questionBank);
+        if (index != null && index.matches(state.sizeBytes(), state.lastModified())) {
+            facetIndexes.put(bankFile, index);
+            return index;
+        }
+
+        log.debug("Building facet index of question bank: {}", questionBank);
+        try (Stream<QuestionDto> questions = streamQuestions(questionBank)) {
+            index = FacetIndex.build(questions.iterator(), state.sizeBytes(), state.lastModified());
+        }
+        facetIndexes.put(bankFile, index);
+        try {
+            index.write(indexFile);
+        } catch (IOException e) {
+            log.debug("Error writing facet index of question bank: {}", questionBank, e);
+        }
+        return index;
+    }
+
+    /**
+     * Loads the MinHash signatures of a bank, recomputing them when the bank or
+     * its journal changed since it was signed
+     * 
+     * @return the signatures, null if the bank cannot be read
+     */
+    private MinHashSignatures getSignatures(String questionBank) {
+        try (BankLocks.BankLock lock = bankLocks.readLock(questionBank)) {
+            Path bankFile = FileUtils.getExistingFilePath(questionBank);
+            Path signatureFile = FileUtils.getSidecarFilePath(questionBank, SIGNATURES_SUFFIX);
+            MinHashSignatures bankSignatures = signatures.get(bankFile);
+            if (bankSignatures == null) {
+                bankSignatures = MinHashSignatures.read(signatureFile);
+            }
+
+            BankState state = readState(questionBank);
+            if (bankSignatures == null || !bankSignatures.matches(state.sizeBytes(), state.lastModified())) {
+                log.debug("Computing MinHash signatures of question bank: {}", questionBank);
+                try (Stream<QuestionDto> questions = streamQuestions(questionBank)) {
+                    bankSignatures = MinHashSignatures.build(questions.iterator(), state.sizeBytes(),
+                            state.lastModified());
+                }
+                try {
+                    bankSignatures.write(signatureFile);
+                } catch (IOException e) {
+                    log.debug("Error writing MinHash signatures of question bank: {}", questionBank, e);
+                }
+            }
+            signatures.put(bankFile, bankSignatures);
+            return bankSignatures;
+        } catch (IOException | UncheckedIOException e) {
+            log.trace("Error signing question bank: {}", questionBank, e);
+            return null;
+        }
+    }
+
+    /**
+     * Reads the questions of the found clusters from their banks
+     */
+    private List<DuplicateClusterDto> toDuplicateClusters(List<String> questionBanks,
+            List<DuplicateFinder.Cluster> clusters) {
+        Map<Integer, Map<Integer, QuestionDto>> questionsBySource = new HashMap<>();
+        clusters.stream()
+                .flatMap(cluster -> cluster.members().stream())
+                .collect(Collectors.groupingBy(DuplicateFinder.Member::source,
+                        Collectors.mapping(DuplicateFinder.Member::position, Collectors.toList())))
+                .forEach((source, positions) -> {
+                    String questionBank = questionBanks.get(source);
+                    try {
+                        questionsBySource.put(source, readQuestionsAt(questionBank,
+                                positions.stream().mapToInt(Integer::intValue).toArray()));
+                    } catch (IOException | UncheckedIOException e) {
+                        log.trace("Error reading duplicate questions of question bank: {}", questionBank, e);
+                    }
+                });
+
+        List<DuplicateClusterDto> duplicateClusters = new ArrayList<>(clusters.size());
+        for (DuplicateFinder.Cluster cluster : clusters) {
+            List<DuplicateQuestionDto> members = new ArrayList<>(cluster.members().size());
+            for (DuplicateFinder.Member member : cluster.members()) {
+                QuestionDto question = questionsBySource.getOrDefault(member.source(), Map.of())
+                        .get(member.position());
+                DuplicateQuestionDto duplicate = new DuplicateQuestionDto();
+                duplicate.setQuestionBank(questionBanks.get(member.source()));
+                duplicate.setPosition(member.position());
+                duplicate.setSimilarity(member.similarity());
+                if (question != null) {
+                    duplicate.setId(question.getId());
+                    duplicate.setQuestion(question.getQuestion());
+                    duplicate.setAnswer(question.getAnswer());
+                }
+                members.add(duplicate);
+            }
+
+            DuplicateClusterDto duplicateCluster = new DuplicateClusterDto();
+            duplicateCluster.setQuestions(members);
+            duplicateCluster.setMinSimilarity(cluster.minSimilarity());
+            duplicateCluster.setMaxSimilarity(cluster.maxSimilarity());
+            duplicateClusters.add(duplicateCluster);
+        }
+        return duplicateClusters;
+    }
+
+    /**
+     * Reads the questions at the given positions of a bank, seeking to each one
+     * when the bank allows it and streaming the bank once otherwise
+     * 
+     * @return the questions by position, in the order of the positions
+     */
+    private Map<Integer, QuestionDto> readQuestionsAt(String questionBank, int[] positions) throws IOException {
+        if (getJournal(questionBank).isEmpty() && FileUtils.isShardedBank(questionBank)) {
+            return FileUtils.openShardedBank(questionBank).getQuestionsAt(positions);
+        }
+
+        Map<Integer, QuestionDto> questions = new LinkedHashMap<>();
+        if (getJournal(questionBank).isEmpty() && isRandomAccess(questionBank)) {
+            for (int position : positions) {
+                getQuestions(questionBank, position, 1).forEach(question -> questions.put(position, question));
+            }
+            return questions;
+        }
+
+        Map<Integer, QuestionDto> byPosition = new HashMap<>();
+        Arrays.stream(positions).forEach(position -> byPosition.put(position, null));
+        int last = Arrays.stream(positions).max().orElse(-1);
+        try (Stream<QuestionDto> stream = streamQuestions(questionBank)) {
+            Iterator<QuestionDto> iterator = stream.limit(last + 1L).iterator();
+            for (int position = 0; iterator.hasNext(); position++) {
+                QuestionDto question = iterator.next();
+                if (byPosition.containsKey(position)) {
+                    byPosition.put(position, question);
+                }
+            }
+        }
+        for (int position : positions) {
+            if (byPosition.get(position) != null) {
+                questions.put(position, byPosition.get(position));
+            }
+        }
+        return questions;
+    }
+
+    private QuestionBankSummaryDto summarize(String questionBank) {
+        try (BankLocks.BankLock lock = bankLocks.readLock(questionBank)) {
+            // Read the state first, changes of other processes made while
+            // summarizing are then caught on the next read
+            BankState state = readState(questionBank);
+            try (Stream<QuestionDto> questions = streamQuestions(questionBank)) {
+                return BankManifest.summarize(questionBank, state.sizeBytes(), state.lastModified(),
+                        questions.iterator());
+            }
+        } catch (IOException | UncheckedIOException e) {
+            log.debug("Error summarizing question bank: {}", questionBank, e);
+            return null;
+        }
+    }
+
+    private boolean isCurrent(QuestionBankSummaryDto summary, String questionBank) {
+        if (summary == null) {
+            return false;
+        }
+        try {
+            BankState state = readState(questionBank);
+            return summary.getSizeBytes() == state.sizeBytes() && summary.getLastModified() == state.lastModified();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Reads the combined size and latest modification time of a bank file and its
+     * journal, journaled edits leave the bank file untouched. A sharded bank is
+     * as large as its shards and changes whenever its manifest is replaced.
+     */
+    private BankState readState(String questionBank) throws IOException {
+        Path bankFile = Path.of(FileUtils.getDataFolder()).resolve(questionBank);
+        long sizeBytes;
+        long lastModified;
+        if (ShardedBank.isShardedBank(bankFile)) {
+            ShardedBank bank = ShardedBank.open(bankFile);
+            sizeBytes = bank.getSizeBytes();
+            lastModified = bank.getLastModified();
+        } else {
+            BasicFileAttributes attributes = Files.readAttributes(bankFile, BasicFileAttributes.class);
+            sizeBytes = attributes.size();
+            lastModified = attributes.lastModifiedTime().toMillis();
+        }
+
+        for (Path journalFile : getJournal(questionBank).getFiles()) {
+            try {
+                BasicFileAttributes journalAttributes = Files.readAttributes(journalFile, BasicFileAttributes.class);
+                sizeBytes += journalAttributes.size();
+                lastModified = Math.max(lastModified, journalAttributes.lastModifiedTime().toMillis());
+            } catch (NoSuchFileException e) {
+                // no pending edits
+            }
+        }
+        return new BankState(sizeBytes, lastModified);
+    }
+
+    private BankLoadResultDto loadQuestionBank(String questionBank, Semaphore ioPermits) {
+        BankLoadResultDto result = new BankLoadResultDto();
+        result.setQuestionBank(questionBank);
+        long start = System.nanoTime();
+        try (Stream<QuestionDto> questions = readQuestionBank(questionBank, ioPermits, result)) {
+            // Sum instead of count, counting a sized stream skips decoding it
+            result.setQuestionCount(questions.mapToInt(question -> 1).sum());
+        } catch (IOException | RuntimeException e) {
+            log.debug("Error loading question bank: {}", questionBank, e);
+            result.setQuestionCount(0);
+            result.setError(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.setError("Interrupted");
+        }
+        result.setElapsedNanos(System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * Reads the bank file and its journal while holding an I/O permit, the
+     * returned stream parses the questions from memory
+     */
+    private Stream<QuestionDto> readQuestionBank(String questionBank, Semaphore ioPermits, BankLoadResultDto result)
+            throws IOException, InterruptedException {
+        BankJournal journal = getJournal(questionBank);
+        ioPermits.acquire();
+        try {
+            synchronized (journal) {
+                Stream<QuestionDto> base;
+                if (FileUtils.isShardedBank(questionBank)) {
+                    // Shards are read and parsed in parallel under the one permit
+                    ShardedBank bank = FileUtils.openShardedBank(questionBank);
+                    result.setSizeBytes(bank.getSizeBytes());
+                    base = bank.readAll().stream();
+                } else {
+                    byte[] content = Files.readAllBytes(FileUtils.getExistingFilePath(questionBank));
+                    result.setSizeBytes(content.length);
+                    base = parseQuestionBank(questionBank, content);
+                }
+                return journal.isEmpty() ? base : journal.replay(base);
+            }
+        } finally {
+            ioPermits.release();
+        }
+    }
+
+    /**
+     * Lazily parses a bank read into memory, decompression is left to the parse as
+     * well since it costs CPU rather than I/O
+     */
+    private static Stream<QuestionDto> parseQuestionBank(String questionBank, byte[] content) throws IOException {
+        BankFormat format = BankFormat.of(questionBank);
+        BankCompression compression = BankCompression.of(questionBank);
+        if (format != BankFormat.QBIN) {
+            return format.getCodec().openReader(compression.decompress(new ByteArrayInputStream(content))).stream();
+        }
+        if (compression == BankCompression.NONE) {
+            return QbinBank.wrap(ByteBuffer.wrap(content)).stream();
+        }
+        try (InputStream input = compression.decompress(new ByteArrayInputStream(content))) {
+            return QbinBank.wrap(ByteBuffer.wrap(input.readAllBytes())).stream();
+        }
+    }
+
+    private static void notifyLoaded(Consumer<BankLoadResultDto> resultListener, BankLoadResultDto result) {
+        if (resultListener == null) {
+            return;
+        }
+        try {
+            resultListener.accept(result);
+        } catch (RuntimeException e) {
+            log.warn("Error reporting loaded question bank: {}", result.getQuestionBank(), e);
+        }
+    }
+
+    /**
+     * @return true if a question of the bank can be read without reading the ones
+     *         before it, from the manifest of a sharded bank, the binary layout or
+     *         the offset index of plain JSON text
+     */
+    private static boolean isRandomAccess(String questionBank) {
+        BankFormat format = BankFormat.of(questionBank);
+        return FileUtils.isShardedBank(questionBank) || format == BankFormat.QBIN
+                || (format.isJsonText() && BankCompression.of(questionBank) == BankCompression.NONE);
+    }
+
+    /**
+     * Opens the questions of a bank for a full read, a sharded bank without
+     * pending edits is read with its shards in parallel
+     */
+    private Stream<QuestionDto> openQuestions(String questionBank) throws IOException {
+        if (FileUtils.isShardedBank(questionBank) && getJournal(questionBank).isEmpty()) {
+            return FileUtils.openShardedBank(questionBank).readAll().stream();
+        }
+        return streamQuestions(questionBank);
+    }
+
+    private Stream<QuestionDto> openBaseStream(String questionBank) throws IOException {
+        if (FileUtils.isShardedBank(questionBank)) {
+            return FileUtils.openShardedBank(questionBank).stream();
+        }
+        if (BankFormat.of(questionBank) == BankFormat.QBIN) {
+            return FileUtils.openQbinBank(questionBank).stream();
+        }
+        return FileUtils.openQuestionReader(questionBank).stream();
+    }
+
+    private List<QuestionDto> intern(String questionBank, List<QuestionDto> questions) {
+        questions.forEach(getDictionary(questionBank)::intern);
+        return questions;
+    }
+
+    private BankDictionary getDictionary(String questionBank) {
+        return dictionaries.computeIfAbsent(Path.of(FileUtils.getDataFolder()).resolve(questionBank),
+                bankFile -> new BankDictionary());
+    }
+
+    /**
+     * Logs the estimated heap retained by a loaded bank, and what it would retain
+     * if every question held its own Strings as decoded
+     */
+    private static void logRetainedBytes(String questionBank, List<QuestionDto> questions) {
+        long decoded = 0;
+        for (QuestionDto question : questions) {
+            decoded += QuestionUtils.estimateRetainedBytes(question);
+        }
+        long interned = QuestionUtils.estimateRetainedBytes(questions);
+        log.debug("Question bank {} retains about {} bytes per question, {} without interning ({}% saved)",
+                questionBank, interned / questions.size(), decoded / questions.size(),
+                decoded == 0 ? 0 : 100 * (decoded - interned) / decoded);
+    }
+
+    /**
+     * @param questionBank the name of the question bank
+     * @return the active and the compacting journal files of the bank, either may
+     *         not exist
+     */
+    static List<Path> getJournalFiles(String questionBank) {
+        return new BankJournal(FileUtils.getSidecarFilePath(questionBank, JOURNAL_SUFFIX)).getFiles();
+    }
+
+    private BankJournal getJournal(String questionBank) {
+        return journals.computeIfAbsent(FileUtils.getSidecarFilePath(questionBank, JOURNAL_SUFFIX), BankJournal::new);
+    }
+
+    private BankOffsetIndex getOffsetIndex(String questionBank) throws IOException {
+        Path bankFile = FileUtils.getExistingFilePath(questionBank);
+        BankOffsetIndex index = offsetIndexes.get(bankFile);
+        if (index == null || !index.matches(bankFile)) {
+            index = BankOffsetIndex.load(bankFile, FileUtils.getSidecarFilePath(questionBank, OFFSET_INDEX_SUFFIX));
+            offsetIndexes.put(bankFile, index);
+        }
+        return index;
+    }
+
+    private record BankState(long sizeBytes, long lastModified) {
     }
-} 
\ No newline at end of file
+}
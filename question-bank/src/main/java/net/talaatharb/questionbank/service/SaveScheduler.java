@@ -0,0 +1,279 @@
+package net.talaatharb.questionbank.service;
+
+import javafx.application.Platform;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Debounces and coalesces the saves of a bank. A save starts once no other save
+ * of its bank was requested for the delay, and replaces the save still waiting
+ * for it, so rapid edits are written once. A save has to write everything
+ * changed so far rather than only the last edit for that reason.
+ * <p>
+ * At most one save of a bank is written at a time, a save requested meanwhile
+ * waits for the running one to finish. Saves are started through the callback
+ * executor, the FX thread by default, so they can read the state of the UI.
+ */
+@Slf4j
+public class SaveScheduler {
+
+    /**
+     * Delay without a new save of a bank before its pending save starts
+     */
+    public static final Duration DEFAULT_DELAY = Duration.ofMillis(500);
+
+    private final Duration delay;
+    private final ScheduledExecutorService timer;
+    private final Executor callbackExecutor;
+    private final Map<String, BankSaves> banks = new HashMap<>();
+    private Duration lastLatency = Duration.ZERO;
+    private boolean closed;
+
+    public SaveScheduler() {
+        this(DEFAULT_DELAY, Executors.newSingleThreadScheduledExecutor(
+                Thread.ofVirtual().name("bank-save-timer").factory()), Platform::runLater);
+    }
+
+    /**
+     * @param delay            delay without a new save before a save starts, zero
+     *                         to start saves at once
+     * @param timer            waits for the delay
+     * @param callbackExecutor starts the saves and completes the returned futures
+     */
+    public SaveScheduler(Duration delay, ScheduledExecutorService timer, Executor callbackExecutor) {
+        if (delay.isNegative()) {
+            throw new IllegalArgumentException("Save delay cannot be negative");
+        }
+        this.delay = delay;
+        this.timer = timer;
+        this.callbackExecutor = callbackExecutor;
+    }
+
+    /**
+     * Schedules a save of a bank, replacing the save of the bank that has not
+     * started yet
+     *
+     * @param questionBank the bank to save
+     * @param save         starts writing the bank, called on the callback executor
+     * @return completed with the time the save took once it is written, or with
+     *         the error of the save
+     */
+    public CompletableFuture<Duration> schedule(String questionBank, Supplier<CompletableFuture<?>> save) {
+        if (questionBank == null || questionBank.trim().isEmpty()) {
+            throw new IllegalArgumentException("Question bank name cannot be null or empty");
+        }
+
+        CompletableFuture<Duration> result;
+        boolean startNow;
+        synchronized (this) {
+            BankSaves saves = banks.computeIfAbsent(questionBank, bank -> new BankSaves());
+            if (saves.save != null) {
+                log.debug("Coalescing pending save of question bank: {}", questionBank);
+            }
+            saves.save = save;
+            if (saves.pending == null) {
+                saves.pending = new CompletableFuture<>();
+            }
+            result = saves.pending;
+            cancelTimer(saves);
+            startNow = closed || delay.isZero();
+            if (!startNow) {
+                saves.timer = timer.schedule(() -> callbackExecutor.execute(() -> start(questionBank)),
+                        delay.toNanos(), TimeUnit.NANOSECONDS);
+            }
+        }
+
+        if (startNow) {
+            start(questionBank);
+        }
+        return result;
+    }
+
+    /**
+     * Starts the pending save of a bank without waiting for the delay, or as soon
+     * as its running save finishes
+     *
+     * @param questionBank the bank to save
+     * @return completed once everything scheduled for the bank so far is written
+     */
+    public CompletableFuture<Void> flush(String questionBank) {
+        CompletableFuture<?> written;
+        synchronized (this) {
+            BankSaves saves = banks.get(questionBank);
+            if (saves == null) {
+                return CompletableFuture.completedFuture(null);
+            }
+            cancelTimer(saves);
+            written = saves.pending != null ? saves.pending : saves.writing;
+        }
+
+        start(questionBank);
+        return written == null ? CompletableFuture.completedFuture(null)
+                : written.handle((latency, error) -> null);
+    }
+
+    /**
+     * Starts the pending saves of every bank without waiting for the delay
+     *
+     * @return completed once everything scheduled so far is written
+     */
+    public CompletableFuture<Void> flushAll() {
+        List<String> questionBanks;
+        synchronized (this) {
+            questionBanks = new ArrayList<>(banks.keySet());
+        }
+        return CompletableFuture.allOf(questionBanks.stream().map(this::flush).toArray(CompletableFuture[]::new));
+    }
+
+    /**
+     * Starts every pending save at once, even of banks being written, and saves
+     * scheduled afterwards are started without delay. Meant for the application
+     * stopping, when the callback executor no longer gets to finish the running
+     * saves, a writer keeping the saves of a bank in order is expected.
+     */
+    public void close() {
+        List<String> questionBanks;
+        synchronized (this) {
+            closed = true;
+            banks.values().forEach(SaveScheduler::cancelTimer);
+            questionBanks = new ArrayList<>(banks.keySet());
+        }
+        questionBanks.forEach(this::start);
+        timer.shutdownNow();
+    }
+
+    /**
+     * @param questionBank the bank
+     * @return true if a save of the bank is waiting to start
+     */
+    public synchronized boolean hasPendingSave(String questionBank) {
+        BankSaves saves = banks.get(questionBank);
+        return saves != null && saves.save != null;
+    }
+
+    /**
+     * @return number of saves waiting to start or being written
+     */
+    public synchronized int getQueueDepth() {
+        int depth = 0;
+        for (BankSaves saves : banks.values()) {
+            depth += (saves.save != null ? 1 : 0) + (saves.writing != null ? 1 : 0);
+        }
+        return depth;
+    }
+
+    /**
+     * @return the time the last finished save took, from its start until written
+     */
+    public synchronized Duration getLastLatency() {
+        return lastLatency;
+    }
+
+    private void start(String questionBank) {
+        Supplier<CompletableFuture<?>> save;
+        CompletableFuture<Duration> pending;
+        CompletableFuture<Duration> writing;
+        synchronized (this) {
+            BankSaves saves = banks.get(questionBank);
+            if (saves == null || saves.save == null) {
+                return;
+            }
+            cancelTimer(saves);
+            if (saves.writing != null && !closed) {
+                // Started once the running save finishes
+                saves.due = true;
+                return;
+            }
+
+            save = saves.save;
+            pending = saves.pending;
+            saves.save = null;
+            saves.pending = null;
+            saves.due = false;
+            saves.writing = pending;
+            writing = pending;
+        }
+
+        long started = System.nanoTime();
+        CompletableFuture<?> write;
+        try {
+            write = save.get();
+        } catch (RuntimeException e) {
+            write = CompletableFuture.failedFuture(e);
+        }
+        write.whenComplete((result, error) -> finish(questionBank, writing,
+                Duration.ofNanos(System.nanoTime() - started), error));
+    }
+
+    private void finish(String questionBank, CompletableFuture<Duration> written, Duration latency,
+            Throwable error) {
+        boolean startNext;
+        synchronized (this) {
+            lastLatency = latency;
+            BankSaves saves = banks.get(questionBank);
+            startNext = false;
+            if (saves != null && saves.writing == written) {
+                saves.writing = null;
+                startNext = saves.save != null && (saves.due || closed);
+                if (saves.save == null) {
+                    banks.remove(questionBank);
+                }
+            }
+        }
+
+        if (error != null) {
+            log.debug("Error saving question bank: {}", questionBank, error);
+            written.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error);
+        } else {
+            log.debug("Saved question bank: {} in {} ms", questionBank, latency.toMillis());
+            written.complete(latency);
+        }
+        if (startNext) {
+            start(questionBank);
+        }
+    }
+
+    private static void cancelTimer(BankSaves saves) {
+        if (saves.timer != null) {
+            saves.timer.cancel(false);
+            saves.timer = null;
+        }
+    }
+
+    /**
+     * The saves of a bank
+     */
+    private static final class BankSaves {
+        /**
+         * The save waiting to start, null if none
+         */
+        private Supplier<CompletableFuture<?>> save;
+        /**
+         * Completed once the waiting save is written
+         */
+        private CompletableFuture<Duration> pending;
+        /**
+         * Completed once the running save is written, null if none is running
+         */
+        private CompletableFuture<Duration> writing;
+        private ScheduledFuture<?> timer;
+        /**
+         * The delay of the waiting save elapsed while another save was running
+         */
+        private boolean due;
+    }
+}
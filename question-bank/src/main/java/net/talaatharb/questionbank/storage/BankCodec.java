@@ -0,0 +1,74 @@
+package net.talaatharb.questionbank.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+
+import net.talaatharb.questionbank.dto.QuestionDto;
+
+/**
+ * Encoding of a streamed question bank. A codec reads and writes a bank one
+ * question at a time, the {@link BankFormat} of a bank file picks its codec by
+ * the file extension.
+ */
+public interface BankCodec {
+
+    /**
+     * Opens a reader over an encoded bank, the input is closed together with the
+     * reader
+     *
+     * @param input the encoded bank
+     * @return reader positioned before the first question
+     * @throws IOException if the input is not a bank in this encoding
+     */
+    QuestionJsonReader openReader(InputStream input) throws IOException;
+
+    /**
+     * Opens a reader that reads the given file straight from a file channel,
+     * decompressing it if its name has a compression extension
+     *
+     * @param file the bank file
+     * @return reader positioned before the first question
+     * @throws IOException if the file cannot be opened or is not a bank in this
+     *                     encoding
+     */
+    default QuestionJsonReader open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            BankCompression compression = BankCompression.of(file.getFileName().toString());
+            return openReader(compression.decompress(Channels.newInputStream(channel)));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens a writer and starts the bank, the output is not closed by the writer
+     *
+     * @param output the stream to write the bank to
+     * @return writer that completes the bank when closed
+     * @throws IOException if the bank cannot be started
+     */
+    QuestionJsonWriter openWriter(OutputStream output) throws IOException;
+
+    /**
+     * Writes all the given questions as a complete bank
+     *
+     * @param output    the stream to write the bank to
+     * @param questions the questions to write
+     * @throws IOException if there's an error writing a question
+     */
+    default void writeAll(OutputStream output, Iterator<QuestionDto> questions) throws IOException {
+        try (QuestionJsonWriter writer = openWriter(output)) {
+            while (questions.hasNext()) {
+                writer.write(questions.next());
+            }
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package net.talaatharb.questionbank.storage;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Compression of a question bank file, selected by a suffix after the extension
+ * of its format, e.g. "questions.json.gz". Banks are compressed and
+ * decompressed while they are streamed, never as a whole in memory.
+ */
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public enum BankCompression {
+    NONE(""),
+    GZIP(".gz"),
+    DEFLATE(".deflate");
+
+    public static final int DEFAULT_LEVEL = Deflater.DEFAULT_COMPRESSION;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Getter
+    private final String extension;
+
+    /**
+     * Finds the compression of a bank file by its last extension, ignoring case
+     *
+     * @param filename the name of the bank file
+     * @return the compression, NONE if the file is not compressed
+     */
+    public static BankCompression of(String filename) {
+        if (filename != null) {
+            String lowerCaseName = filename.toLowerCase(Locale.ROOT);
+            for (BankCompression compression : values()) {
+                if (compression != NONE && lowerCaseName.endsWith(compression.extension)) {
+                    return compression;
+                }
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * Removes the compression extension from a file name
+     *
+     * @param filename the name of the bank file
+     * @return the name of the uncompressed bank
+     */
+    public static String stripExtension(String filename) {
+        BankCompression compression = of(filename);
+        return filename == null ? null : filename.substring(0, filename.length() - compression.extension.length());
+    }
+
+    /**
+     * Checks a compression level, -1 selects the default of the compressor
+     *
+     * @param level the level to check
+     * @throws IllegalArgumentException if the level is not between -1 and 9
+     */
+    public static void checkLevel(int level) {
+        if (level != DEFAULT_LEVEL && (level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION)) {
+            throw new IllegalArgumentException("Compression level must be between -1 and 9");
+        }
+    }
+
+    /**
+     * Wraps an input in a decompressing stream, closing it closes the input
+     *
+     * @param input the compressed content
+     * @return stream of the decompressed content
+     * @throws IOException if the content does not start with a valid header
+     */
+    public InputStream decompress(InputStream input) throws IOException {
+        return switch (this) {
+            case NONE -> input;
+            case GZIP -> new GZIPInputStream(input, BUFFER_SIZE);
+            case DEFLATE -> new InflaterInputStream(input, new Inflater(), BUFFER_SIZE) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        inf.end();
+                    }
+                }
+            };
+        };
+    }
+
+    /**
+     * Wraps an output in a compressing stream. Closing the returned stream
+     * finishes the compressed content and releases the compressor, but leaves the
+     * output open.
+     *
+     * @param output the stream to write the compressed content to
+     * @param level  the compression level, -1 for the default
+     * @return stream compressing everything written to it
+     * @throws IOException if the compressed content cannot be started
+     */
+    public OutputStream compress(OutputStream output, int level) throws IOException {
+        checkLevel(level);
+        OutputStream target = new FilterOutputStream(output) {
+            @Override
+            public void write(byte[] bytes, int offset, int length) throws IOException {
+                out.write(bytes, offset, length);
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        };
+        return switch (this) {
+            case NONE -> target;
+            case GZIP -> new GZIPOutputStream(target, BUFFER_SIZE) {
+                {
+                    def.setLevel(level);
+                }
+            };
+            case DEFLATE -> new DeflaterOutputStream(target, new Deflater(level), BUFFER_SIZE) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        def.end();
+                    }
+                }
+            };
+        };
+    }
+}
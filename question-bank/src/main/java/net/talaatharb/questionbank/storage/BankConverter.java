@@ -0,0 +1,50 @@
+package net.talaatharb.questionbank.storage;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import net.talaatharb.questionbank.utils.FileUtils;
+
+/**
+ * Converts question banks between the streamed formats (JSON, Smile, CBOR) and
+ * the binary format, questions are streamed from one file to the other in the
+ * encoding of each file extension
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class BankConverter {
+
+    /**
+     * Converts a JSON, Smile or CBOR bank into a binary bank
+     *
+     * @param jsonFile the bank to read, decoded by its extension
+     * @param qbinFile the binary bank to write
+     * @throws IOException if there's an error reading or writing a bank
+     */
+    public static void jsonToQbin(Path jsonFile, Path qbinFile) throws IOException {
+        try (QuestionJsonReader reader = codecOf(jsonFile).open(jsonFile)) {
+            QbinWriter.write(qbinFile, reader);
+        }
+    }
+
+    /**
+     * Converts a binary bank into a JSON, Smile or CBOR bank
+     *
+     * @param qbinFile the binary bank to read
+     * @param jsonFile the bank to write, encoded by its extension
+     * @throws IOException if there's an error reading or writing a bank
+     */
+    public static void qbinToJson(Path qbinFile, Path jsonFile) throws IOException {
+        try (QbinBank bank = QbinBank.open(qbinFile)) {
+            BankCodec codec = codecOf(jsonFile);
+            BankCompression compression = BankCompression.of(jsonFile.getFileName().toString());
+            FileUtils.writeFileAtomically(jsonFile, compression, BankCompression.DEFAULT_LEVEL,
+                    output -> codec.writeAll(output, bank.iterator()));
+        }
+    }
+
+    private static BankCodec codecOf(Path file) {
+        return BankFormat.of(file.getFileName().toString()).getCodec();
+    }
+}
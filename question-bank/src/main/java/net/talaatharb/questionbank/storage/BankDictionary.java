@@ -0,0 +1,96 @@
+package net.talaatharb.questionbank.storage;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.talaatharb.questionbank.dto.QuestionDto;
+import net.talaatharb.questionbank.dto.QuestionField;
+
+/**
+ * Dictionary of the values of the repetitive fields of a question bank. Every
+ * decoded question creates its own String instances, interning them through the
+ * dictionary of the bank makes equal values share one instance, so a bank with
+ * a handful of categories, statuses or authors keeps only those few Strings.
+ * <p>
+ * A field stops collecting new values once it holds the maximum number of
+ * distinct values, values that are unique to their question would only grow the
+ * dictionary without saving anything.
+ */
+public class BankDictionary {
+
+    /**
+     * Fields with only a few distinct values in a typical bank
+     */
+    public static final Set<QuestionField> FIELDS = Set.of(QuestionField.CATEGORY, QuestionField.SOURCE,
+            QuestionField.TAGS, QuestionField.CREATED_BY, QuestionField.UPDATED_BY, QuestionField.STATUS,
+            QuestionField.VERSION, QuestionField.LANGUAGE);
+
+    public static final int DEFAULT_MAX_VALUES_PER_FIELD = 1024;
+
+    private final Map<QuestionField, Map<String, String>> values = new EnumMap<>(QuestionField.class);
+    private final int maxValuesPerField;
+
+    public BankDictionary() {
+        this(DEFAULT_MAX_VALUES_PER_FIELD);
+    }
+
+    /**
+     * @param maxValuesPerField number of distinct values after which a field stops
+     *                          collecting new values
+     */
+    public BankDictionary(int maxValuesPerField) {
+        this.maxValuesPerField = maxValuesPerField;
+        for (QuestionField field : FIELDS) {
+            values.put(field, new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * Replaces the values of the repetitive fields of a question with the
+     * instances held by the dictionary
+     *
+     * @param question the question to intern, changed in place
+     * @return the given question
+     */
+    public QuestionDto intern(QuestionDto question) {
+        for (QuestionField field : FIELDS) {
+            String value = field.get(question);
+            if (value != null) {
+                field.set(question, intern(field, value));
+            }
+        }
+        return question;
+    }
+
+    /**
+     * @param field the field the value belongs to
+     * @param value the value to intern
+     * @return the instance held by the dictionary, or the value itself if the
+     *         field is not interned or full
+     */
+    public String intern(QuestionField field, String value) {
+        Map<String, String> fieldValues = values.get(field);
+        if (fieldValues == null) {
+            return value;
+        }
+
+        String interned = fieldValues.get(value);
+        if (interned != null) {
+            return interned;
+        }
+        if (fieldValues.size() >= maxValuesPerField) {
+            return value;
+        }
+        interned = fieldValues.putIfAbsent(value, value);
+        return interned != null ? interned : value;
+    }
+
+    /**
+     * @return number of distinct values held for all fields
+     */
+    public int size() {
+        return values.values().stream().mapToInt(Map::size).sum();
+    }
+}
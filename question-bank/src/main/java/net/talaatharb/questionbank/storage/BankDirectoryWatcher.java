@@ -0,0 +1,250 @@
+package net.talaatharb.questionbank.storage;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import lombok.extern.slf4j.Slf4j;
+import net.talaatharb.questionbank.utils.FileUtils;
+
+/**
+ * Keeps a live, sorted set of the question banks in a folder. The folder is
+ * listed once when the watcher starts, after that only the changes reported by
+ * the {@link WatchService} are applied and pushed to the listeners, so reading
+ * the list of banks never touches the file system. The folder is listed again
+ * only when the watch service reports lost events.
+ * <p>
+ * Saves of a sharded bank replace files inside its folder rather than the
+ * folder itself, so the folders of sharded banks are watched as well and a
+ * replaced manifest is reported as a change of the bank.
+ */
+@Slf4j
+public class BankDirectoryWatcher implements Closeable {
+
+    /**
+     * Kind of change to a question bank
+     */
+    public enum ChangeKind {
+        ADDED, REMOVED, MODIFIED
+    }
+
+    /**
+     * A change to a single question bank
+     *
+     * @param kind         what happened to the bank
+     * @param questionBank the file name of the bank
+     */
+    public record Change(ChangeKind kind, String questionBank) {
+    }
+
+    private final Path folder;
+    private final NavigableSet<String> questionBanks = new ConcurrentSkipListSet<>();
+    private final List<Consumer<Change>> listeners = new CopyOnWriteArrayList<>();
+    private final Map<WatchKey, String> shardedBanks = new ConcurrentHashMap<>();
+    private WatchService watchService;
+    private Thread watchThread;
+
+    public BankDirectoryWatcher(Path folder) {
+        this.folder = folder;
+    }
+
+    /**
+     * Lists the folder once and starts watching it on a daemon thread
+     *
+     * @throws IOException if the folder cannot be listed or watched
+     */
+    public synchronized void start() throws IOException {
+        if (watchService != null) {
+            return;
+        }
+
+        watchService = folder.getFileSystem().newWatchService();
+        try {
+            folder.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+            rescan();
+        } catch (IOException e) {
+            watchService.close();
+            watchService = null;
+            throw e;
+        }
+
+        WatchService service = watchService;
+        watchThread = Thread.ofPlatform().name("bank-directory-watcher").daemon().start(() -> watch(service));
+        log.debug("Watching question bank folder: {}", folder);
+    }
+
+    /**
+     * @return sorted snapshot of the question banks currently in the folder
+     */
+    public List<String> getQuestionBanks() {
+        return List.copyOf(questionBanks);
+    }
+
+    /**
+     * Registers a listener for changes, listeners are called on the watcher
+     * thread
+     *
+     * @param listener the listener to call for every change
+     */
+    public void addListener(Consumer<Change> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<Change> listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+            watchService = null;
+        }
+        shardedBanks.clear();
+        if (watchThread != null) {
+            watchThread.interrupt();
+            watchThread = null;
+        }
+    }
+
+    private void watch(WatchService service) {
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                String shardedBank = shardedBanks.get(key);
+                if (shardedBank != null) {
+                    handleShardedBank(key, shardedBank);
+                    continue;
+                }
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    handle(event);
+                }
+                if (!key.reset()) {
+                    log.warn("Question bank folder is no longer accessible: {}", folder);
+                    return;
+                }
+            }
+        } catch (ClosedWatchServiceException e) {
+            log.debug("Stopped watching question bank folder: {}", folder);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void handle(WatchEvent<?> event) {
+        if (event.kind() == OVERFLOW) {
+            log.debug("Watch events were lost, listing question bank folder again: {}", folder);
+            try {
+                rescan();
+            } catch (IOException e) {
+                log.warn("Error listing question bank folder: {}", folder, e);
+            }
+            return;
+        }
+
+        Path file = folder.resolve((Path) event.context());
+        String name = file.getFileName().toString();
+        if (event.kind() == ENTRY_DELETE) {
+            if (questionBanks.remove(name)) {
+                fire(new Change(ChangeKind.REMOVED, name));
+            }
+        } else if (questionBanks.contains(name)) {
+            // Atomic saves replace the file, which is reported as a create, a bank
+            // turned into a sharded bank is replaced by a folder to watch
+            watchShardedBank(file, name);
+            fire(new Change(ChangeKind.MODIFIED, name));
+        } else if (FileUtils.isQuestionBankFile(file) && questionBanks.add(name)) {
+            watchShardedBank(file, name);
+            fire(new Change(ChangeKind.ADDED, name));
+        }
+    }
+
+    /**
+     * Reports a change of a sharded bank once its manifest was replaced, the
+     * shards written before it are not part of the bank until then
+     */
+    private void handleShardedBank(WatchKey key, String questionBank) {
+        boolean modified = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            modified |= event.kind() == OVERFLOW
+                    || ShardedBank.MANIFEST_FILE.equals(((Path) event.context()).toString());
+        }
+        if (!key.reset()) {
+            // The bank was deleted or replaced, the folder level events report it
+            shardedBanks.remove(key);
+            return;
+        }
+        if (modified && questionBanks.contains(questionBank)) {
+            fire(new Change(ChangeKind.MODIFIED, questionBank));
+        }
+    }
+
+    /**
+     * Watches the folder of a sharded bank, registering a folder that is already
+     * watched has no effect
+     */
+    private synchronized void watchShardedBank(Path file, String questionBank) {
+        if (watchService == null || !ShardedBank.isShardedBank(file)) {
+            return;
+        }
+        try {
+            shardedBanks.put(file.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY), questionBank);
+        } catch (IOException e) {
+            log.warn("Error watching sharded question bank: {}", file, e);
+        }
+    }
+
+    /**
+     * Lists the folder and reports the differences with the known banks
+     */
+    private synchronized void rescan() throws IOException {
+        Set<String> found = new HashSet<>();
+        try (var list = Files.list(folder)) {
+            list.filter(FileUtils::isQuestionBankFile).forEach(file -> {
+                found.add(file.getFileName().toString());
+                watchShardedBank(file, file.getFileName().toString());
+            });
+        }
+
+        for (String name : List.copyOf(questionBanks)) {
+            if (!found.contains(name) && questionBanks.remove(name)) {
+                fire(new Change(ChangeKind.REMOVED, name));
+            }
+        }
+        for (String name : found) {
+            if (questionBanks.add(name)) {
+                fire(new Change(ChangeKind.ADDED, name));
+            }
+        }
+    }
+
+    private void fire(Change change) {
+        log.trace("Question bank change: {}", change);
+        for (Consumer<Change> listener : listeners) {
+            try {
+                listener.accept(change);
+            } catch (RuntimeException e) {
+                log.warn("Error notifying question bank change: {}", change, e);
+            }
+        }
+    }
+}
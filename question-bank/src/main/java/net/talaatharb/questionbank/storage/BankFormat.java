@@ -0,0 +1,80 @@
+package net.talaatharb.questionbank.storage;
+
+import java.util.Locale;
+import java.util.Optional;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import net.talaatharb.questionbank.config.HelperBeans;
+
+/**
+ * Storage formats of a question bank, selected by the file extension. Every
+ * format except the memory-mapped binary bank is streamed through a
+ * {@link BankCodec}.
+ */
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public enum BankFormat {
+    // Longer extensions first, "questions.min.json" must not be read as JSON
+    JSON_COMPACT(".min.json", new JacksonBankCodec(HelperBeans.buildObjectMapper(), false)),
+    JSON(".json", new JacksonBankCodec(HelperBeans.buildObjectMapper(), true)),
+    SMILE(".smile", new JacksonBankCodec(HelperBeans.buildSmileMapper(), false)),
+    CBOR(".cbor", new JacksonBankCodec(HelperBeans.buildCborMapper(), false)),
+    QBIN(".qbin", null);
+
+    @Getter
+    private final String extension;
+    private final BankCodec codec;
+
+    /**
+     * @return the codec streaming banks of this format
+     * @throws UnsupportedOperationException for binary banks, which are mapped
+     *                                       instead of streamed
+     */
+    public BankCodec getCodec() {
+        if (codec == null) {
+            throw new UnsupportedOperationException("Banks of format " + this + " are not streamed");
+        }
+        return codec;
+    }
+
+    /**
+     * @return true if the banks are JSON text, which can be indexed by byte
+     *         offset unless compressed
+     */
+    public boolean isJsonText() {
+        return this == JSON || this == JSON_COMPACT;
+    }
+
+    /**
+     * Finds the format of a bank file by its extension, ignoring case and a
+     * compression extension after it
+     *
+     * @param filename the name of the bank file
+     * @return the format, empty if the file is not a question bank
+     */
+    public static Optional<BankFormat> fromFileName(String filename) {
+        if (filename == null) {
+            return Optional.empty();
+        }
+
+        String lowerCaseName = BankCompression.stripExtension(filename).toLowerCase(Locale.ROOT);
+        for (BankFormat format : values()) {
+            if (lowerCaseName.endsWith(format.extension)) {
+                return Optional.of(format);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Finds the format of a bank file, falling back to JSON for unknown
+     * extensions
+     *
+     * @param filename the name of the bank file
+     * @return the format of the bank
+     */
+    public static BankFormat of(String filename) {
+        return fromFileName(filename).orElse(JSON);
+    }
+}
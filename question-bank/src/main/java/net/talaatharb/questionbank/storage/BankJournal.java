@@ -0,0 +1,364 @@
+package net.talaatharb.questionbank.storage;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import net.talaatharb.questionbank.config.HelperBeans;
+import net.talaatharb.questionbank.dto.QuestionDto;
+
+/**
+ * Append-only write-ahead journal of a question bank. Single question edits are
+ * recorded as upsert and delete operations keyed by {@link QuestionDto#getId()}
+ * and replayed over the base bank file on load, so saving one question costs a
+ * small append instead of rewriting the bank.
+ *
+ * <pre>
+ * entry : int payload length, int CRC32 of payload, payload
+ * payload : byte operation, long id msb, long id lsb, [compact JSON of the question for upserts]
+ * </pre>
+ *
+ * Compaction first rotates the active journal to a ".compacting" file, so new
+ * edits keep being appended while the base file is rewritten in the background.
+ * A torn or corrupted entry at the end of a journal (crash during an append)
+ * is ignored on replay and truncated before the next append, so that later
+ * entries are never written after it.
+ */
+@Slf4j
+public class BankJournal {
+
+    private static final byte UPSERT = 1;
+    private static final byte DELETE = 2;
+    private static final int ENTRY_HEADER_SIZE = 2 * Integer.BYTES;
+    private static final int MAX_ENTRY_SIZE = 64 * 1024 * 1024;
+    private static final String COMPACTING_SUFFIX = ".compacting";
+
+    @Getter
+    private final Path journalFile;
+    private final Path compactingFile;
+    private long generation = 0;
+    /** End of the last valid entry of the active journal, -1 if not scanned yet */
+    private long validSize = -1;
+
+    public BankJournal(Path journalFile) {
+        this.journalFile = journalFile;
+        this.compactingFile = journalFile.resolveSibling(journalFile.getFileName() + COMPACTING_SUFFIX);
+    }
+
+    /**
+     * Records an inserted or updated question
+     *
+     * @param question the question to record, must have an id
+     * @throws IOException if the entry cannot be appended and synced
+     */
+    public void appendUpsert(QuestionDto question) throws IOException {
+        if (question.getId() == null) {
+            throw new IllegalArgumentException("Only questions with an id can be journaled");
+        }
+        byte[] json = compactWriter().writeValueAsBytes(question);
+        append(UPSERT, question.getId(), json);
+    }
+
+    /**
+     * Records a deleted question
+     *
+     * @param id the id of the deleted question
+     * @throws IOException if the entry cannot be appended and synced
+     */
+    public void appendDelete(UUID id) throws IOException {
+        if (id == null) {
+            throw new IllegalArgumentException("Question id cannot be null");
+        }
+        append(DELETE, id, new byte[0]);
+    }
+
+    /**
+     * @return size in bytes of the active journal, which is what triggers
+     *         compaction
+     * @throws IOException if the size cannot be read
+     */
+    public synchronized long size() throws IOException {
+        return Files.exists(journalFile) ? Files.size(journalFile) : 0;
+    }
+
+    /**
+     * @return true if there are no pending operations to replay over the base file
+     */
+    public synchronized boolean isEmpty() throws IOException {
+        return size() == 0 && !Files.exists(compactingFile);
+    }
+
+    /**
+     * @return the active journal file and the one being compacted, either may not
+     *         exist
+     */
+    public List<Path> getFiles() {
+        return List.of(journalFile, compactingFile);
+    }
+
+    /**
+     * @return counter increased every time the journal is cleared by a full save
+     */
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Replays all pending operations over a stream of base questions. Replaced
+     * questions keep their position, deleted ones are skipped and inserted ones
+     * are appended at the end, only the journal is held in memory.
+     *
+     * @param base the questions of the base bank file
+     * @return the current questions of the bank
+     * @throws IOException if a journal cannot be read
+     */
+    public Stream<QuestionDto> replay(Stream<QuestionDto> base) throws IOException {
+        Map<UUID, QuestionDto> operations;
+        synchronized (this) {
+            operations = readOperations(compactingFile, new LinkedHashMap<>());
+            readOperations(journalFile, operations);
+        }
+        return replay(base, operations);
+    }
+
+    /**
+     * Rotates the active journal so that it can be compacted into the base file.
+     * If a previous compaction was interrupted its journal is compacted first.
+     *
+     * @return true if there is a journal to compact
+     * @throws IOException if the journal cannot be rotated
+     */
+    public synchronized boolean beginCompaction() throws IOException {
+        if (!Files.exists(compactingFile) && size() > 0) {
+            Files.move(journalFile, compactingFile, StandardCopyOption.ATOMIC_MOVE);
+        }
+        return Files.exists(compactingFile);
+    }
+
+    /**
+     * Replays only the journal being compacted over the base questions
+     *
+     * @param base the questions of the base bank file
+     * @return the questions to write as the new base file
+     * @throws IOException if the journal cannot be read
+     */
+    public Stream<QuestionDto> replayCompacting(Stream<QuestionDto> base) throws IOException {
+        return replay(base, readOperations(compactingFile, new LinkedHashMap<>()));
+    }
+
+    /**
+     * Installs the compacted base file, unless a full save cleared the journal
+     * while the compaction was running
+     *
+     * @param compactedFile      the new base file written from
+     *                           {@link #replayCompacting(Stream)}
+     * @param baseFile           the base bank file to replace
+     * @param expectedGeneration the generation read before the compaction started
+     * @return true if the compacted file replaced the base file
+     * @throws IOException if the base file cannot be replaced
+     */
+    public synchronized boolean finishCompaction(Path compactedFile, Path baseFile, long expectedGeneration)
+            throws IOException {
+        if (generation != expectedGeneration) {
+            Files.deleteIfExists(compactedFile);
+            return false;
+        }
+        return finishCompaction(expectedGeneration, () -> Files.move(compactedFile, baseFile,
+                StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING));
+    }
+
+    /**
+     * Installs a compacted base by other means than replacing a file, e.g. by
+     * replacing the manifest of a sharded bank, unless a full save cleared the
+     * journal while the compaction was running
+     *
+     * @param expectedGeneration the generation read before the compaction started
+     * @param installer          installs the new base, called while no edit can
+     *                           be appended
+     * @return true if the new base was installed
+     * @throws IOException if the new base cannot be installed
+     */
+    public synchronized boolean finishCompaction(long expectedGeneration, Installer installer) throws IOException {
+        if (generation != expectedGeneration) {
+            return false;
+        }
+        installer.install();
+        Files.deleteIfExists(compactingFile);
+        return true;
+    }
+
+    /**
+     * Drops all pending operations, used once the base file holds the full bank
+     *
+     * @throws IOException if the journal files cannot be deleted
+     */
+    public synchronized void clear() throws IOException {
+        generation++;
+        Files.deleteIfExists(journalFile);
+        Files.deleteIfExists(compactingFile);
+    }
+
+    /**
+     * Installs the compacted base of a bank
+     */
+    @FunctionalInterface
+    public interface Installer {
+        void install() throws IOException;
+    }
+
+    private synchronized void append(byte operation, UUID id, byte[] json) throws IOException {
+        ByteBuffer payload = ByteBuffer.allocate(1 + 2 * Long.BYTES + json.length);
+        payload.put(operation).putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits()).put(json);
+
+        CRC32 crc = new CRC32();
+        crc.update(payload.array());
+        ByteBuffer entry = ByteBuffer.allocate(ENTRY_HEADER_SIZE + payload.capacity());
+        entry.putInt(payload.capacity()).putInt((int) crc.getValue()).put(payload.array()).flip();
+
+        Files.createDirectories(journalFile.toAbsolutePath().getParent());
+        try (FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE)) {
+            // The journal is only rescanned if something else changed it since
+            // the last append of this instance, e.g. a crash of another process
+            long size = channel.size();
+            if (validSize != size) {
+                validSize = scanValidSize();
+            }
+            if (validSize < size) {
+                log.warn("Truncating {} bytes of corrupted journal entries in {}", size - validSize, journalFile);
+                channel.truncate(validSize);
+            }
+
+            channel.position(validSize);
+            while (entry.hasRemaining()) {
+                channel.write(entry);
+            }
+            channel.force(false);
+            validSize = channel.position();
+        } catch (IOException e) {
+            validSize = -1;
+            throw e;
+        }
+    }
+
+    /**
+     * @return size of the valid entries at the start of the active journal
+     */
+    private long scanValidSize() throws IOException {
+        long valid = 0;
+        try (InputStream stream = Files.newInputStream(journalFile);
+                DataInputStream input = new DataInputStream(new BufferedInputStream(stream))) {
+            byte[] payload;
+            while ((payload = readEntry(input)) != null) {
+                valid += ENTRY_HEADER_SIZE + payload.length;
+            }
+        }
+        return valid;
+    }
+
+    /**
+     * Reads the operations of a journal into a map holding the last operation
+     * for every id, deletes are recorded as null values
+     */
+    private Map<UUID, QuestionDto> readOperations(Path file, Map<UUID, QuestionDto> operations) throws IOException {
+        ObjectReader questionReader = HelperBeans.buildObjectMapper().readerFor(QuestionDto.class);
+
+        try (InputStream stream = Files.newInputStream(file);
+                DataInputStream input = new DataInputStream(new BufferedInputStream(stream))) {
+            while (true) {
+                byte[] payload = readEntry(input);
+                if (payload == null) {
+                    break;
+                }
+
+                ByteBuffer buffer = ByteBuffer.wrap(payload);
+                byte operation = buffer.get();
+                UUID id = new UUID(buffer.getLong(), buffer.getLong());
+                // Remove first so that re-inserted questions move to the end
+                operations.remove(id);
+                if (operation == UPSERT) {
+                    operations.put(id, questionReader.readValue(payload, buffer.position(), buffer.remaining()));
+                } else {
+                    operations.put(id, null);
+                }
+            }
+        } catch (NoSuchFileException e) {
+            // nothing journaled
+        }
+        return operations;
+    }
+
+    private byte[] readEntry(DataInputStream input) throws IOException {
+        try {
+            int length = input.readInt();
+            int checksum = input.readInt();
+            if (length < 0 || length > MAX_ENTRY_SIZE) {
+                log.warn("Ignoring corrupted journal entry in {}", journalFile);
+                return null;
+            }
+            byte[] payload = new byte[length];
+            input.readFully(payload);
+
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if ((int) crc.getValue() != checksum) {
+                log.warn("Ignoring corrupted journal entry in {}", journalFile);
+                return null;
+            }
+            return payload;
+        } catch (EOFException e) {
+            // torn entry at the end of the journal
+            return null;
+        }
+    }
+
+    private static Stream<QuestionDto> replay(Stream<QuestionDto> base, Map<UUID, QuestionDto> operations) {
+        if (operations.isEmpty()) {
+            return base;
+        }
+
+        Map<UUID, QuestionDto> inserted = new LinkedHashMap<>(operations);
+        Stream<QuestionDto> current = base.map(question -> {
+            UUID id = question.getId();
+            if (id == null || !operations.containsKey(id)) {
+                return question;
+            }
+            inserted.remove(id);
+            return operations.get(id);
+        }).filter(Objects::nonNull);
+
+        // Questions that were not found in the base file are new, this is only
+        // evaluated once the base stream has been fully consumed
+        Stream<QuestionDto> appended = Stream.of(inserted)
+                .flatMap(remaining -> remaining.values().stream().filter(Objects::nonNull));
+        return Stream.concat(current, appended);
+    }
+
+    private static ObjectWriter compactWriter() {
+        ObjectMapper objectMapper = HelperBeans.buildObjectMapper();
+        return objectMapper.writerFor(QuestionDto.class).without(SerializationFeature.INDENT_OUTPUT);
+    }
+}
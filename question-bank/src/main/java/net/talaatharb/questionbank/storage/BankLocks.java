@@ -0,0 +1,213 @@
+package net.talaatharb.questionbank.storage;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Read/write locks of banks, striped by bank name so that banks share a fixed
+ * number of locks. Readers never wait for each other, a writer waits for the
+ * readers and writers of the banks of its stripe. Locks are reentrant and a
+ * writer may read the bank it writes.
+ * <p>
+ * Writers also hold an exclusive lock of a lock file of the bank, so that
+ * writers in other processes wait for each other too. Readers in other
+ * processes are not locked out, banks are replaced by atomic moves and never
+ * seen half written.
+ */
+@Slf4j
+public class BankLocks {
+
+    public static final int DEFAULT_STRIPES = 64;
+
+    /**
+     * Lock files are shared by every instance of a process, file locks are held
+     * on behalf of the whole process and cannot be acquired twice by it
+     */
+    private static final Map<Path, ProcessLock> PROCESS_LOCKS = new ConcurrentHashMap<>();
+
+    private final ReentrantReadWriteLock[] stripes;
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder contentions = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+
+    public BankLocks() {
+        this(DEFAULT_STRIPES);
+    }
+
+    /**
+     * @param stripes number of locks shared by the banks
+     */
+    public BankLocks(int stripes) {
+        if (stripes < 1) {
+            throw new IllegalArgumentException("Number of lock stripes must be positive");
+        }
+        this.stripes = new ReentrantReadWriteLock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    /**
+     * Locks a bank for reading
+     *
+     * @param questionBank the bank
+     * @return the held lock, released when closed
+     */
+    public BankLock readLock(String questionBank) {
+        Lock lock = stripeOf(questionBank).readLock();
+        acquire(lock);
+        return lock::unlock;
+    }
+
+    /**
+     * Locks a bank for writing, in this process and across processes
+     *
+     * @param questionBank the bank
+     * @param lockFile     the lock file of the bank, created if missing
+     * @return the held lock, released when closed
+     * @throws IOException if the lock file cannot be opened
+     */
+    public BankLock writeLock(String questionBank, Path lockFile) throws IOException {
+        Lock lock = stripeOf(questionBank).writeLock();
+        acquire(lock);
+        ProcessLock processLock;
+        try {
+            processLock = PROCESS_LOCKS.computeIfAbsent(lockFile.toAbsolutePath().normalize(),
+                    file -> new ProcessLock());
+            acquire(processLock.lock);
+        } catch (RuntimeException e) {
+            lock.unlock();
+            throw e;
+        }
+
+        try {
+            if (processLock.lock.getHoldCount() == 1) {
+                lockFile(processLock, lockFile);
+            }
+        } catch (IOException | RuntimeException e) {
+            processLock.lock.unlock();
+            lock.unlock();
+            throw e;
+        }
+        return () -> {
+            try {
+                if (processLock.lock.getHoldCount() == 1) {
+                    unlockFile(processLock, lockFile);
+                }
+            } finally {
+                processLock.lock.unlock();
+                lock.unlock();
+            }
+        };
+    }
+
+    /**
+     * @return how often the locks were acquired and waited for so far
+     */
+    public Contention getContention() {
+        return new Contention(acquisitions.sum(), contentions.sum(), waitNanos.sum());
+    }
+
+    private ReentrantReadWriteLock stripeOf(String questionBank) {
+        return stripes[Math.floorMod(questionBank.hashCode(), stripes.length)];
+    }
+
+    private void acquire(Lock lock) {
+        acquisitions.increment();
+        if (lock.tryLock()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        lock.lock();
+        recordWait(start);
+    }
+
+    private void lockFile(ProcessLock processLock, Path lockFile) throws IOException {
+        Files.createDirectories(lockFile.getParent());
+        FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            FileLock fileLock = channel.tryLock();
+            if (fileLock == null) {
+                long start = System.nanoTime();
+                fileLock = channel.lock();
+                recordWait(start);
+            }
+            processLock.channel = channel;
+            processLock.fileLock = fileLock;
+        } catch (IOException e) {
+            // File systems without locks only get the locking within this process
+            log.debug("Cannot lock file: {}", lockFile, e);
+            channel.close();
+        }
+    }
+
+    private static void unlockFile(ProcessLock processLock, Path lockFile) {
+        try (FileChannel channel = processLock.channel) {
+            if (processLock.fileLock != null) {
+                processLock.fileLock.release();
+            }
+        } catch (IOException e) {
+            log.debug("Error unlocking file: {}", lockFile, e);
+        } finally {
+            processLock.channel = null;
+            processLock.fileLock = null;
+        }
+    }
+
+    private void recordWait(long start) {
+        long waited = System.nanoTime() - start;
+        contentions.increment();
+        waitNanos.add(waited);
+        log.trace("Waited {} µs for a bank lock", TimeUnit.NANOSECONDS.toMicros(waited));
+    }
+
+    /**
+     * A held bank lock
+     */
+    @FunctionalInterface
+    public interface BankLock extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    /**
+     * Lock statistics
+     *
+     * @param acquisitions number of times a lock was acquired
+     * @param contentions  number of times a lock was held by another thread or
+     *                     process and had to be waited for
+     * @param waitNanos    total time spent waiting for locks in nanoseconds
+     */
+    public record Contention(long acquisitions, long contentions, long waitNanos) {
+
+        /**
+         * @return share of the acquisitions that had to wait, between 0 and 1
+         */
+        public double getContentionRatio() {
+            return acquisitions == 0 ? 0 : (double) contentions / acquisitions;
+        }
+    }
+
+    /**
+     * The lock file of a bank within this process
+     */
+    private static final class ProcessLock {
+        private final ReentrantLock lock = new ReentrantLock();
+        private FileChannel channel;
+        private FileLock fileLock;
+    }
+}
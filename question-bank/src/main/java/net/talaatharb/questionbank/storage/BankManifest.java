@@ -0,0 +1,135 @@
+package net.talaatharb.questionbank.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import lombok.extern.slf4j.Slf4j;
+import net.talaatharb.questionbank.config.HelperBeans;
+import net.talaatharb.questionbank.dto.QuestionBankSummaryDto;
+import net.talaatharb.questionbank.dto.QuestionDto;
+import net.talaatharb.questionbank.utils.FileUtils;
+
+/**
+ * Summaries of all question banks of a folder, persisted in a single manifest
+ * file. A summary is only valid for the size and modification time it records,
+ * callers compare them with the bank files to find stale entries.
+ */
+@Slf4j
+public class BankManifest {
+
+    private static final int FORMAT_VERSION = 1;
+
+    private final Map<String, QuestionBankSummaryDto> summaries = new TreeMap<>();
+
+    /**
+     * Reads a persisted manifest
+     *
+     * @param manifestFile the manifest file
+     * @return the manifest, empty if the file is missing or not a valid manifest
+     */
+    public static BankManifest read(Path manifestFile) {
+        BankManifest manifest = new BankManifest();
+        try (InputStream input = Files.newInputStream(manifestFile)) {
+            ManifestContent content = HelperBeans.buildObjectMapper().readValue(input, ManifestContent.class);
+            if (content.version() == FORMAT_VERSION && content.banks() != null) {
+                content.banks().forEach(manifest::put);
+            }
+        } catch (NoSuchFileException e) {
+            // nothing summarized yet
+        } catch (IOException e) {
+            log.debug("Ignoring invalid bank manifest: {}", manifestFile, e);
+        }
+        return manifest;
+    }
+
+    /**
+     * Persists the manifest, replacing the previous file atomically
+     *
+     * @param manifestFile the manifest file
+     * @throws IOException if the file cannot be written
+     */
+    public void write(Path manifestFile) throws IOException {
+        ManifestContent content = new ManifestContent(FORMAT_VERSION, getSummaries());
+        ObjectWriter writer = HelperBeans.buildObjectMapper().writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        FileUtils.writeFileAtomically(manifestFile, output -> writer.writeValue(output, content));
+    }
+
+    public synchronized QuestionBankSummaryDto get(String questionBank) {
+        return summaries.get(questionBank);
+    }
+
+    public synchronized void put(QuestionBankSummaryDto summary) {
+        summaries.put(summary.getName(), summary);
+    }
+
+    /**
+     * Drops the summaries of banks that no longer exist
+     *
+     * @param questionBanks the names of the existing banks
+     * @return true if any summary was dropped
+     */
+    public synchronized boolean retainAll(Collection<String> questionBanks) {
+        Set<String> existing = new HashSet<>(questionBanks);
+        return summaries.keySet().retainAll(existing);
+    }
+
+    /**
+     * @return the summaries sorted by bank name
+     */
+    public synchronized List<QuestionBankSummaryDto> getSummaries() {
+        return List.copyOf(summaries.values());
+    }
+
+    /**
+     * Computes the summary of a bank in a single pass over its questions
+     *
+     * @param questionBank the name of the bank
+     * @param sizeBytes    the size of the bank on disk
+     * @param lastModified the modification time of the bank in milliseconds
+     * @param questions    the questions of the bank
+     * @return the summary of the bank
+     */
+    public static QuestionBankSummaryDto summarize(String questionBank, long sizeBytes, long lastModified,
+            Iterator<QuestionDto> questions) {
+        int count = 0;
+        Map<String, Integer> categories = new TreeMap<>();
+        Set<String> languages = new TreeSet<>();
+        while (questions.hasNext()) {
+            QuestionDto question = questions.next();
+            count++;
+            if (question.getCategory() != null && !question.getCategory().isBlank()) {
+                categories.merge(question.getCategory(), 1, Integer::sum);
+            }
+            if (question.getLanguage() != null && !question.getLanguage().isBlank()) {
+                languages.add(question.getLanguage());
+            }
+        }
+
+        QuestionBankSummaryDto summary = new QuestionBankSummaryDto();
+        summary.setName(questionBank);
+        summary.setQuestionCount(count);
+        summary.setSizeBytes(sizeBytes);
+        summary.setLastModified(lastModified);
+        summary.setCategories(categories);
+        summary.setLanguages(new ArrayList<>(languages));
+        return summary;
+    }
+
+    private record ManifestContent(int version, List<QuestionBankSummaryDto> banks) {
+    }
+}
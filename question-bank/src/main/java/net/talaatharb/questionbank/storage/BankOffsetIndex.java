@@ -0,0 +1,217 @@
+package net.talaatharb.questionbank.storage;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import net.talaatharb.questionbank.config.HelperBeans;
+import net.talaatharb.questionbank.dto.QuestionDto;
+import net.talaatharb.questionbank.utils.FileUtils;
+
+/**
+ * Byte offsets of every question object in a JSON question bank, used to seek
+ * straight to a page of questions without parsing the ones before it. The index
+ * is persisted in a sidecar file and is only valid for the exact size and
+ * modification time of the bank file it was built from.
+ */
+@Slf4j
+public class BankOffsetIndex {
+
+    private static final int MAGIC = 0x51424958; // QBIX
+    private static final int FORMAT_VERSION = 1;
+
+    @Getter
+    private final long fileSize;
+    @Getter
+    private final long lastModified;
+    private final long[] offsets;
+
+    BankOffsetIndex(long fileSize, long lastModified, long[] offsets) {
+        this.fileSize = fileSize;
+        this.lastModified = lastModified;
+        this.offsets = offsets;
+    }
+
+    /**
+     * Loads the persisted index of a bank, rebuilding and persisting it when it is
+     * missing or stale
+     *
+     * @param bankFile  the JSON question bank
+     * @param indexFile the sidecar file holding the index
+     * @return index matching the current state of the bank file
+     * @throws IOException if the bank cannot be read
+     */
+    public static BankOffsetIndex load(Path bankFile, Path indexFile) throws IOException {
+        BankOffsetIndex index = read(indexFile);
+        if (index != null && index.matches(bankFile)) {
+            return index;
+        }
+
+        log.debug("Building offset index for question bank: {}", bankFile);
+        index = build(bankFile);
+        index.write(indexFile);
+        return index;
+    }
+
+    /**
+     * Scans a JSON bank once and records where every question object starts
+     *
+     * @param bankFile the JSON question bank
+     * @return the index of the bank
+     * @throws IOException if the bank cannot be read or is not a JSON array
+     */
+    public static BankOffsetIndex build(Path bankFile) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(bankFile, BasicFileAttributes.class);
+        ObjectMapper objectMapper = HelperBeans.buildObjectMapper();
+
+        try (FileChannel channel = FileChannel.open(bankFile, StandardOpenOption.READ);
+                JsonParser parser = objectMapper.getFactory().createParser(Channels.newInputStream(channel))) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new JsonParseException(parser, "Expected a JSON array of questions");
+            }
+
+            long[] offsets = new long[64];
+            int count = 0;
+            JsonToken token;
+            while ((token = parser.nextToken()) == JsonToken.START_OBJECT) {
+                if (count == offsets.length) {
+                    offsets = Arrays.copyOf(offsets, count * 2);
+                }
+                offsets[count++] = parser.currentTokenLocation().getByteOffset();
+                parser.skipChildren();
+            }
+            if (token != JsonToken.END_ARRAY) {
+                throw new JsonParseException(parser, "Expected a question object but found " + token);
+            }
+
+            return new BankOffsetIndex(attributes.size(), attributes.lastModifiedTime().toMillis(),
+                    Arrays.copyOf(offsets, count));
+        }
+    }
+
+    /**
+     * Reads a persisted index
+     *
+     * @param indexFile the sidecar file holding the index
+     * @return the index, or null if the file is missing or not a valid index
+     * @throws IOException if there's an error reading the file
+     */
+    public static BankOffsetIndex read(Path indexFile) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+            if (input.readInt() != MAGIC || input.readInt() != FORMAT_VERSION) {
+                log.debug("Ignoring invalid offset index: {}", indexFile);
+                return null;
+            }
+
+            long fileSize = input.readLong();
+            long lastModified = input.readLong();
+            long[] offsets = new long[input.readInt()];
+            for (int i = 0; i < offsets.length; i++) {
+                offsets[i] = input.readLong();
+            }
+            return new BankOffsetIndex(fileSize, lastModified, offsets);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Persists the index to its sidecar file
+     *
+     * @param indexFile the sidecar file holding the index
+     * @throws IOException if there's an error writing the file
+     */
+    public void write(Path indexFile) throws IOException {
+        FileUtils.writeFileAtomically(indexFile, output -> {
+            DataOutputStream data = new DataOutputStream(output);
+            data.writeInt(MAGIC);
+            data.writeInt(FORMAT_VERSION);
+            data.writeLong(fileSize);
+            data.writeLong(lastModified);
+            data.writeInt(offsets.length);
+            for (long offset : offsets) {
+                data.writeLong(offset);
+            }
+            data.flush();
+        });
+    }
+
+    /**
+     * Checks that the bank file has not changed since the index was built
+     *
+     * @param bankFile the JSON question bank
+     * @return true if the size and modification time of the bank still match
+     * @throws IOException if the bank attributes cannot be read
+     */
+    public boolean matches(Path bankFile) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(bankFile, BasicFileAttributes.class);
+        return attributes.size() == fileSize && attributes.lastModifiedTime().toMillis() == lastModified;
+    }
+
+    public int size() {
+        return offsets.length;
+    }
+
+    /**
+     * Reads a page of questions by seeking to the first one and decoding only the
+     * questions of the page
+     *
+     * @param bankFile the JSON question bank the index was built from
+     * @param offset   position of the first question of the page
+     * @param limit    maximum number of questions in the page
+     * @return the questions of the page, empty if offset is past the end
+     * @throws IOException if there's an error reading the bank
+     */
+    public List<QuestionDto> readPage(Path bankFile, int offset, int limit) throws IOException {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Offset and limit cannot be negative");
+        }
+
+        int end = (int) Math.min((long) offset + limit, offsets.length);
+        if (offset >= end) {
+            return List.of();
+        }
+
+        long start = offsets[offset];
+        long stop = end < offsets.length ? offsets[end] : fileSize;
+        byte[] content = new byte[(int) (stop - start)];
+
+        try (FileChannel channel = FileChannel.open(bankFile, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.wrap(content);
+            while (buffer.hasRemaining() && channel.read(buffer, start + buffer.position()) >= 0) {
+                // keep reading until the page is complete
+            }
+        }
+
+        // Each question is decoded from its own slice, the trailing comma or
+        // closing bracket after the object is ignored by the reader
+        ObjectReader questionReader = HelperBeans.buildObjectMapper().readerFor(QuestionDto.class);
+        List<QuestionDto> page = new ArrayList<>(end - offset);
+        for (int i = offset; i < end; i++) {
+            int from = (int) (offsets[i] - start);
+            int to = i + 1 < end ? (int) (offsets[i + 1] - start) : content.length;
+            page.add(questionReader.readValue(content, from, to - from));
+        }
+        return page;
+    }
+}
@@ -0,0 +1,400 @@
+package net.talaatharb.questionbank.storage;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import net.talaatharb.questionbank.dto.QuestionDto;
+import net.talaatharb.questionbank.dto.QuestionField;
+import net.talaatharb.questionbank.utils.FileUtils;
+
+/**
+ * Inverted index over the text of the questions of a bank, ranking matches with
+ * BM25. Text is split into runs of letters and digits and folded to lower case.
+ * <p>
+ * Documents are the positions of the questions in the bank. The index is only
+ * valid for the size and modification time of the bank it records, and is
+ * updated by matching questions on their id, so questions whose text did not
+ * change keep their postings instead of being tokenized again.
+ */
+@Slf4j
+public class BankSearchIndex {
+
+    /**
+     * Fields whose text is searched
+     */
+    public static final List<QuestionField> FIELDS = List.of(QuestionField.QUESTION, QuestionField.ANSWER,
+            QuestionField.EXPLANATION, QuestionField.TAGS);
+
+    private static final int MAGIC = 0x51425358; // QBSX
+    private static final int FORMAT_VERSION = 1;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    @Getter
+    private final long sizeBytes;
+    @Getter
+    private final long lastModified;
+    private final int documentCount;
+    private final UUID[] ids;
+    private final long[] hashes;
+    private final int[] lengths;
+    private final Map<String, Postings> postings;
+    private final long totalLength;
+
+    private BankSearchIndex(long sizeBytes, long lastModified, int documentCount, UUID[] ids, long[] hashes,
+            int[] lengths, Map<String, Postings> postings) {
+        this.sizeBytes = sizeBytes;
+        this.lastModified = lastModified;
+        this.documentCount = documentCount;
+        this.ids = ids;
+        this.hashes = hashes;
+        this.lengths = lengths;
+        this.postings = postings;
+        this.totalLength = Arrays.stream(lengths).asLongStream().sum();
+    }
+
+    /**
+     * Indexes the questions of a bank
+     *
+     * @param questions    the questions of the bank, in bank order
+     * @param sizeBytes    the size of the bank the questions were read from
+     * @param lastModified the modification time of the bank in milliseconds
+     * @return the index of the bank
+     */
+    public static BankSearchIndex build(Iterator<QuestionDto> questions, long sizeBytes, long lastModified) {
+        return new BankSearchIndex(0, 0, 0, new UUID[0], new long[0], new int[0], Map.of())
+                .update(questions, sizeBytes, lastModified);
+    }
+
+    /**
+     * Indexes the new content of the bank, reusing the postings of every question
+     * that kept its id and text
+     *
+     * @param questions    the questions of the bank, in bank order
+     * @param sizeBytes    the size of the bank the questions were read from
+     * @param lastModified the modification time of the bank in milliseconds
+     * @return the index of the new content, this index is left unchanged
+     */
+    public BankSearchIndex update(Iterator<QuestionDto> questions, long sizeBytes, long lastModified) {
+        Map<UUID, Integer> previousDocuments = new HashMap<>();
+        for (int document = documentCount - 1; document >= 0; document--) {
+            if (ids[document] != null) {
+                previousDocuments.put(ids[document], document);
+            }
+        }
+
+        int[] reusedAs = new int[documentCount];
+        Arrays.fill(reusedAs, -1);
+        List<UUID> newIds = new ArrayList<>();
+        long[] newHashes = new long[Math.max(16, documentCount)];
+        int[] newLengths = new int[newHashes.length];
+        Map<String, Postings> newPostings = new HashMap<>();
+        int count = 0;
+        int tokenized = 0;
+
+        while (questions.hasNext()) {
+            QuestionDto question = questions.next();
+            if (count == newHashes.length) {
+                newHashes = Arrays.copyOf(newHashes, count * 2);
+                newLengths = Arrays.copyOf(newLengths, count * 2);
+            }
+
+            long hash = hash(question);
+            Integer previous = question.getId() == null ? null : previousDocuments.remove(question.getId());
+            if (previous != null && hashes[previous] == hash) {
+                reusedAs[previous] = count;
+                newLengths[count] = lengths[previous];
+            } else {
+                newLengths[count] = addDocument(newPostings, count, question);
+                tokenized++;
+            }
+            newIds.add(question.getId());
+            newHashes[count] = hash;
+            count++;
+        }
+
+        // Move the postings of the reused questions to their new positions
+        for (Map.Entry<String, Postings> entry : postings.entrySet()) {
+            Postings previous = entry.getValue();
+            for (int i = 0; i < previous.size; i++) {
+                int document = reusedAs[previous.documents[i]];
+                if (document >= 0) {
+                    newPostings.computeIfAbsent(entry.getKey(), term -> new Postings())
+                            .add(document, previous.frequencies[i]);
+                }
+            }
+        }
+
+        log.debug("Indexed {} questions, {} of them tokenized and {} reused", count, tokenized, count - tokenized);
+        return new BankSearchIndex(sizeBytes, lastModified, count, newIds.toArray(UUID[]::new),
+                Arrays.copyOf(newHashes, count), Arrays.copyOf(newLengths, count), newPostings);
+    }
+
+    /**
+     * Ranks the questions matching any term of a query
+     *
+     * @param query the text to search for
+     * @param limit maximum number of matches
+     * @return the best matches, best first and ties in bank order
+     */
+    public List<Hit> search(String query, int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit cannot be negative");
+        }
+
+        LinkedHashSet<String> terms = new LinkedHashSet<>(tokenize(query));
+        if (terms.isEmpty() || limit == 0 || documentCount == 0) {
+            return List.of();
+        }
+
+        double averageLength = Math.max(1.0, (double) totalLength / documentCount);
+        double[] scores = new double[documentCount];
+        for (String term : terms) {
+            Postings termPostings = postings.get(term);
+            if (termPostings == null) {
+                continue;
+            }
+            double idf = Math.log(1 + (documentCount - termPostings.size + 0.5) / (termPostings.size + 0.5));
+            for (int i = 0; i < termPostings.size; i++) {
+                int document = termPostings.documents[i];
+                int frequency = termPostings.frequencies[i];
+                double norm = K1 * (1 - B + B * lengths[document] / averageLength);
+                scores[document] += idf * frequency * (K1 + 1) / (frequency + norm);
+            }
+        }
+
+        // Keep the best matches in a min-heap of the limit
+        Comparator<Hit> ranking = Comparator.comparingDouble(Hit::score).reversed()
+                .thenComparingInt(Hit::position);
+        PriorityQueue<Hit> best = new PriorityQueue<>(ranking.reversed());
+        for (int document = 0; document < documentCount; document++) {
+            if (scores[document] > 0) {
+                best.add(new Hit(document, ids[document], scores[document]));
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+        }
+        List<Hit> hits = new ArrayList<>(best);
+        hits.sort(ranking);
+        return hits;
+    }
+
+    /**
+     * Checks that the bank has not changed since it was indexed
+     *
+     * @param bankSizeBytes    the current size of the bank
+     * @param bankLastModified the current modification time of the bank
+     * @return true if both still match
+     */
+    public boolean matches(long bankSizeBytes, long bankLastModified) {
+        return sizeBytes == bankSizeBytes && lastModified == bankLastModified;
+    }
+
+    public int size() {
+        return documentCount;
+    }
+
+    /**
+     * @return number of distinct terms in the index
+     */
+    public int getTermCount() {
+        return postings.size();
+    }
+
+    /**
+     * Splits text into lower case runs of letters and digits
+     *
+     * @param text the text to split
+     * @return the terms of the text in order, empty for null
+     */
+    public static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+
+        String folded = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i < folded.length(); i = folded.offsetByCodePoints(i, 1)) {
+            boolean wordCharacter = Character.isLetterOrDigit(folded.codePointAt(i));
+            if (wordCharacter && start < 0) {
+                start = i;
+            } else if (!wordCharacter && start >= 0) {
+                terms.add(folded.substring(start, i));
+                start = -1;
+            }
+        }
+        if (start >= 0) {
+            terms.add(folded.substring(start));
+        }
+        return terms;
+    }
+
+    /**
+     * Reads a persisted index
+     *
+     * @param indexFile the sidecar file holding the index
+     * @return the index, or null if the file is missing or not a valid index
+     * @throws IOException if there's an error reading the file
+     */
+    public static BankSearchIndex read(Path indexFile) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+            if (input.readInt() != MAGIC || input.readInt() != FORMAT_VERSION) {
+                log.debug("Ignoring invalid search index: {}", indexFile);
+                return null;
+            }
+
+            long sizeBytes = input.readLong();
+            long lastModified = input.readLong();
+            int documentCount = input.readInt();
+            UUID[] ids = new UUID[documentCount];
+            long[] hashes = new long[documentCount];
+            int[] lengths = new int[documentCount];
+            for (int document = 0; document < documentCount; document++) {
+                if (input.readBoolean()) {
+                    ids[document] = new UUID(input.readLong(), input.readLong());
+                }
+                hashes[document] = input.readLong();
+                lengths[document] = input.readInt();
+            }
+
+            int termCount = input.readInt();
+            Map<String, Postings> postings = HashMap.newHashMap(termCount);
+            for (int i = 0; i < termCount; i++) {
+                String term = input.readUTF();
+                Postings termPostings = new Postings();
+                int size = input.readInt();
+                for (int j = 0; j < size; j++) {
+                    termPostings.add(input.readInt(), input.readInt());
+                }
+                postings.put(term, termPostings);
+            }
+            return new BankSearchIndex(sizeBytes, lastModified, documentCount, ids, hashes, lengths, postings);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Persists the index to its sidecar file
+     *
+     * @param indexFile the sidecar file holding the index
+     * @throws IOException if there's an error writing the file
+     */
+    public void write(Path indexFile) throws IOException {
+        FileUtils.writeFileAtomically(indexFile, output -> {
+            DataOutputStream data = new DataOutputStream(output);
+            data.writeInt(MAGIC);
+            data.writeInt(FORMAT_VERSION);
+            data.writeLong(sizeBytes);
+            data.writeLong(lastModified);
+            data.writeInt(documentCount);
+            for (int document = 0; document < documentCount; document++) {
+                data.writeBoolean(ids[document] != null);
+                if (ids[document] != null) {
+                    data.writeLong(ids[document].getMostSignificantBits());
+                    data.writeLong(ids[document].getLeastSignificantBits());
+                }
+                data.writeLong(hashes[document]);
+                data.writeInt(lengths[document]);
+            }
+
+            data.writeInt(postings.size());
+            for (Map.Entry<String, Postings> entry : postings.entrySet()) {
+                Postings termPostings = entry.getValue();
+                data.writeUTF(entry.getKey());
+                data.writeInt(termPostings.size);
+                for (int i = 0; i < termPostings.size; i++) {
+                    data.writeInt(termPostings.documents[i]);
+                    data.writeInt(termPostings.frequencies[i]);
+                }
+            }
+            data.flush();
+        });
+    }
+
+    /**
+     * Adds the terms of a question to the postings
+     *
+     * @return number of terms of the question
+     */
+    private static int addDocument(Map<String, Postings> postings, int document, QuestionDto question) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        int length = 0;
+        for (QuestionField field : FIELDS) {
+            for (String term : tokenize(field.get(question))) {
+                frequencies.merge(term, 1, Integer::sum);
+                length++;
+            }
+        }
+        frequencies.forEach((term, frequency) -> postings.computeIfAbsent(term, key -> new Postings())
+                .add(document, frequency));
+        return length;
+    }
+
+    /**
+     * 64-bit FNV-1a hash of the searched text of a question
+     */
+    private static long hash(QuestionDto question) {
+        long hash = FNV_OFFSET_BASIS;
+        for (QuestionField field : FIELDS) {
+            String value = field.get(question);
+            // Separate the fields, and null from empty text
+            hash = (hash ^ (value == null ? 0xFFFF : 0xFFFE)) * FNV_PRIME;
+            if (value != null) {
+                for (int i = 0; i < value.length(); i++) {
+                    hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+                }
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * A question matching a query
+     *
+     * @param position the position of the question in the bank
+     * @param id       the id of the question, null if it has none
+     * @param score    the BM25 score of the question
+     */
+    public record Hit(int position, UUID id, double score) {
+    }
+
+    private static final class Postings {
+
+        private int[] documents = new int[4];
+        private int[] frequencies = new int[4];
+        private int size;
+
+        void add(int document, int frequency) {
+            if (size == documents.length) {
+                documents = Arrays.copyOf(documents, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            documents[size] = document;
+            frequencies[size] = frequency;
+            size++;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package net.talaatharb.questionbank.storage;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+
+import net.talaatharb.questionbank.dto.QuestionDto;
+
+/**
+ * The versions of the questions of a bank by id, so that the versions of the
+ * questions a save changes are checked without reading the bank. The versions
+ * are only valid for the size and modification time of the bank they were read
+ * from, and are updated along with the bank by its writer. Not thread safe, the
+ * writer of the bank holds its lock.
+ */
+public class BankVersions {
+
+    private final Map<UUID, String> versions = new HashMap<>();
+    private long sizeBytes;
+    private long lastModified;
+
+    private BankVersions(long sizeBytes, long lastModified) {
+        this.sizeBytes = sizeBytes;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * Reads the versions of the questions of a bank, questions without an id are
+     * skipped
+     *
+     * @param questions    the questions of the bank
+     * @param sizeBytes    the size of the bank the questions were read from
+     * @param lastModified the modification time of the bank in milliseconds
+     * @return the versions
+     */
+    public static BankVersions of(Iterator<QuestionDto> questions, long sizeBytes, long lastModified) {
+        BankVersions bankVersions = new BankVersions(sizeBytes, lastModified);
+        while (questions.hasNext()) {
+            QuestionDto question = questions.next();
+            if (question.getId() != null) {
+                bankVersions.put(question.getId(), question.getVersion());
+            }
+        }
+        return bankVersions;
+    }
+
+    /**
+     * Checks that the bank has not changed since the versions were read or updated
+     *
+     * @param bankSizeBytes    the current size of the bank
+     * @param bankLastModified the current modification time of the bank
+     * @return true if both still match
+     */
+    public boolean matches(long bankSizeBytes, long bankLastModified) {
+        return sizeBytes == bankSizeBytes && lastModified == bankLastModified;
+    }
+
+    /**
+     * @param questionId the id of a question
+     * @return true if the bank holds the question
+     */
+    public boolean contains(UUID questionId) {
+        return versions.containsKey(questionId);
+    }
+
+    /**
+     * @param questionId the id of a question
+     * @return the version of the question, null if it has none or is not in the
+     *         bank
+     */
+    public String get(UUID questionId) {
+        return versions.get(questionId);
+    }
+
+    public void put(UUID questionId, String version) {
+        versions.put(questionId, version);
+    }
+
+    public void remove(UUID questionId) {
+        versions.remove(questionId);
+    }
+
+    /**
+     * Records the state of the bank after the versions were updated
+     *
+     * @param bankSizeBytes    the size of the bank
+     * @param bankLastModified the modification time of the bank in milliseconds
+     */
+    public void setState(long bankSizeBytes, long bankLastModified) {
+        sizeBytes = bankSizeBytes;
+        lastModified = bankLastModified;
+    }
+
+    /**
+     * @return number of questions with an id
+     */
+    public int size() {
+        return versions.size();
+    }
+}
@@ -0,0 +1,202 @@
+package net.talaatharb.questionbank.storage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds clusters of near-duplicate questions across banks with locality
+ * sensitive hashing. The MinHash signatures are cut into bands, questions whose
+ * values are equal in any whole band land in the same bucket, and only questions
+ * sharing a bucket are compared. Questions similar enough to each other are
+ * joined into clusters, so the work grows with the number of questions rather
+ * than the number of pairs.
+ */
+public class DuplicateFinder {
+
+    /**
+     * Number of bands of a signature, with {@link #ROWS} values each
+     */
+    public static final int BANDS = 20;
+
+    /**
+     * Number of signature values per band. Two questions with similarity s share a
+     * bucket with probability 1 - (1 - s^ROWS)^BANDS, about 0.55 for s = 0.5 and
+     * above 0.99 for s = 0.75.
+     */
+    public static final int ROWS = MinHashSignatures.HASH_COUNT / BANDS;
+
+    private final double threshold;
+    private final List<MinHashSignatures> sources = new ArrayList<>();
+    private int[] sourceStarts = new int[0];
+    private int questionCount;
+
+    /**
+     * @param threshold minimum estimated similarity of two questions to be
+     *                  reported as duplicates, from 0 exclusive to 1
+     */
+    public DuplicateFinder(double threshold) {
+        if (!(threshold > 0 && threshold <= 1)) {
+            throw new IllegalArgumentException("Similarity threshold must be greater than 0 and at most 1");
+        }
+        this.threshold = threshold;
+    }
+
+    /**
+     * Adds the questions of a bank
+     *
+     * @param signatures the signatures of the questions of the bank
+     * @return the index of the bank in the found members
+     */
+    public int add(MinHashSignatures signatures) {
+        sourceStarts = Arrays.copyOf(sourceStarts, sources.size() + 1);
+        sourceStarts[sources.size()] = questionCount;
+        sources.add(signatures);
+        questionCount += signatures.size();
+        return sources.size() - 1;
+    }
+
+    /**
+     * Finds the clusters of duplicate questions of all added banks
+     *
+     * @return the clusters, largest and most similar first
+     */
+    public List<Cluster> findClusters() {
+        int[] parents = new int[questionCount];
+        double[] bestSimilarities = new double[questionCount];
+        for (int question = 0; question < questionCount; question++) {
+            parents[question] = question;
+        }
+
+        long[] buckets = new long[questionCount];
+        for (int band = 0; band < BANDS; band++) {
+            // A 32-bit band key and the question in one primitive, sorting them
+            // puts the questions of a bucket next to each other
+            int size = 0;
+            for (int question = 0; question < questionCount; question++) {
+                int source = sourceOf(question);
+                int position = question - sourceStarts[source];
+                if (!sources.get(source).isEmpty(position)) {
+                    buckets[size++] = ((long) bandKey(sources.get(source), position, band) << 32) | question;
+                }
+            }
+            Arrays.sort(buckets, 0, size);
+
+            int bucketStart = 0;
+            for (int i = 1; i <= size; i++) {
+                if (i == size || (buckets[i] >>> 32) != (buckets[bucketStart] >>> 32)) {
+                    joinBucket(buckets, bucketStart, i, parents, bestSimilarities);
+                    bucketStart = i;
+                }
+            }
+        }
+
+        Map<Integer, List<Member>> clusters = new HashMap<>();
+        for (int question = 0; question < questionCount; question++) {
+            if (bestSimilarities[question] > 0) {
+                int source = sourceOf(question);
+                clusters.computeIfAbsent(find(parents, question), root -> new ArrayList<>())
+                        .add(new Member(source, question - sourceStarts[source], bestSimilarities[question]));
+            }
+        }
+
+        return clusters.values().stream()
+                .filter(members -> members.size() > 1)
+                .map(Cluster::of)
+                .sorted(Comparator.comparingInt((Cluster cluster) -> cluster.members().size()).reversed()
+                        .thenComparing(Comparator.comparingDouble(Cluster::maxSimilarity).reversed()))
+                .toList();
+    }
+
+    /**
+     * Compares every question of a bucket with its first question, which is enough
+     * to join a bucket of copies of one question without comparing all pairs
+     */
+    private void joinBucket(long[] buckets, int from, int to, int[] parents, double[] bestSimilarities) {
+        int first = (int) buckets[from];
+        for (int i = from + 1; i < to; i++) {
+            int other = (int) buckets[i];
+            if (find(parents, first) == find(parents, other)) {
+                continue;
+            }
+
+            double similarity = similarity(first, other);
+            if (similarity >= threshold) {
+                parents[find(parents, other)] = find(parents, first);
+                bestSimilarities[first] = Math.max(bestSimilarities[first], similarity);
+                bestSimilarities[other] = Math.max(bestSimilarities[other], similarity);
+            }
+        }
+    }
+
+    private double similarity(int first, int second) {
+        int firstSource = sourceOf(first);
+        int secondSource = sourceOf(second);
+        return MinHashSignatures.similarity(sources.get(firstSource), first - sourceStarts[firstSource],
+                sources.get(secondSource), second - sourceStarts[secondSource]);
+    }
+
+    private int sourceOf(int question) {
+        int index = Arrays.binarySearch(sourceStarts, question);
+        if (index < 0) {
+            return -index - 2;
+        }
+        // Skip banks without questions starting at the same index
+        while (index + 1 < sourceStarts.length && sourceStarts[index + 1] == question) {
+            index++;
+        }
+        return index;
+    }
+
+    private static int bandKey(MinHashSignatures signatures, int position, int band) {
+        int key = band;
+        for (int row = 0; row < ROWS; row++) {
+            key = 31 * key + signatures.get(position, band * ROWS + row);
+        }
+        return key;
+    }
+
+    private static int find(int[] parents, int question) {
+        int root = question;
+        while (parents[root] != root) {
+            root = parents[root];
+        }
+        // Compress the path so that later lookups are direct
+        while (parents[question] != root) {
+            int next = parents[question];
+            parents[question] = root;
+            question = next;
+        }
+        return root;
+    }
+
+    /**
+     * A question of a cluster
+     *
+     * @param source     the index of the bank returned by {@link #add}
+     * @param position   the position of the question in the bank
+     * @param similarity the highest similarity found to another question of the
+     *                   cluster
+     */
+    public record Member(int source, int position, double similarity) {
+    }
+
+    /**
+     * Questions that are likely duplicates of each other
+     *
+     * @param members       the questions in bank and position order
+     * @param minSimilarity the lowest similarity of a member
+     * @param maxSimilarity the highest similarity of a member
+     */
+    public record Cluster(List<Member> members, double minSimilarity, double maxSimilarity) {
+
+        static Cluster of(List<Member> members) {
+            return new Cluster(List.copyOf(members),
+                    members.stream().mapToDouble(Member::similarity).min().orElse(0),
+                    members.stream().mapToDouble(Member::similarity).max().orElse(0));
+        }
+    }
+}
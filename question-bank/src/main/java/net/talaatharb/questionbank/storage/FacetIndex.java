@@ -0,0 +1,351 @@
+package net.talaatharb.questionbank.storage;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import net.talaatharb.questionbank.dto.QuestionDto;
+import net.talaatharb.questionbank.dto.QuestionField;
+import net.talaatharb.questionbank.utils.FileUtils;
+
+/**
+ * Maps every distinct category, tag, language and status of a bank to the
+ * bitmap of the positions of the questions having it, so counts and boolean
+ * filters such as {@code category=Networking AND tag=tcp AND NOT status=draft}
+ * are answered with bitmap operations instead of reading the bank. Values are
+ * matched ignoring case, tags are the comma separated parts of the tags field.
+ * <p>
+ * The index is persisted in a sidecar file and is only valid for the size and
+ * modification time of the bank it records.
+ */
+@Slf4j
+public class FacetIndex {
+
+    /**
+     * Fields with a facet, by the name used in filters
+     */
+    public static final Map<String, QuestionField> FIELDS = facetFields();
+
+    private static final int MAGIC = 0x51424658; // QBFX
+    private static final int FORMAT_VERSION = 1;
+
+    @Getter
+    private final long sizeBytes;
+    @Getter
+    private final long lastModified;
+    private final int size;
+    private final Map<QuestionField, Map<String, PositionBitmap>> facets;
+
+    private FacetIndex(long sizeBytes, long lastModified, int size,
+            Map<QuestionField, Map<String, PositionBitmap>> facets) {
+        this.sizeBytes = sizeBytes;
+        this.lastModified = lastModified;
+        this.size = size;
+        this.facets = facets;
+    }
+
+    /**
+     * Indexes the facet values of the questions of a bank
+     *
+     * @param questions    the questions of the bank, in bank order
+     * @param sizeBytes    the size of the bank the questions were read from
+     * @param lastModified the modification time of the bank in milliseconds
+     * @return the index of the bank
+     */
+    public static FacetIndex build(Iterator<QuestionDto> questions, long sizeBytes, long lastModified) {
+        Map<QuestionField, Map<String, PositionBitmap>> facets = emptyFacets();
+        int position = 0;
+        while (questions.hasNext()) {
+            QuestionDto question = questions.next();
+            for (Map.Entry<QuestionField, Map<String, PositionBitmap>> facet : facets.entrySet()) {
+                String value = facet.getKey().get(question);
+                if (value == null) {
+                    continue;
+                }
+                if (facet.getKey() == QuestionField.TAGS) {
+                    for (String tag : value.split(",")) {
+                        add(facet.getValue(), tag, position);
+                    }
+                } else {
+                    add(facet.getValue(), value, position);
+                }
+            }
+            position++;
+        }
+        return new FacetIndex(sizeBytes, lastModified, position, facets);
+    }
+
+    /**
+     * @return number of indexed questions
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param field the faceted field
+     * @param value the value, ignoring case
+     * @return the positions of the questions with the value, empty if none
+     */
+    public PositionBitmap get(QuestionField field, String value) {
+        Map<String, PositionBitmap> values = facets.get(field);
+        if (values == null) {
+            throw new IllegalArgumentException("No facet for field " + field.getPropertyName());
+        }
+        PositionBitmap positions = values.get(value.trim());
+        return positions != null ? positions : new PositionBitmap();
+    }
+
+    /**
+     * @param field the faceted field
+     * @return the number of questions of every value, sorted by value
+     */
+    public Map<String, Integer> getCounts(QuestionField field) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        facets.getOrDefault(field, Map.of()).forEach((value, positions) -> counts.put(value,
+                positions.cardinality()));
+        return counts;
+    }
+
+    /**
+     * Evaluates a filter of facet values, e.g.
+     * {@code category=Networking AND (tag=tcp OR tag=udp) AND NOT status=draft}.
+     * NOT binds tighter than AND, which binds tighter than OR, values with spaces
+     * are quoted.
+     *
+     * @param filter the filter expression
+     * @return the positions of the matching questions
+     * @throws IllegalArgumentException if the filter is not valid
+     */
+    public PositionBitmap filter(String filter) {
+        if (filter == null || filter.isBlank()) {
+            throw new IllegalArgumentException("Filter cannot be null or empty");
+        }
+        return new FilterParser(filter).parse();
+    }
+
+    /**
+     * Checks that the bank has not changed since it was indexed
+     *
+     * @param bankSizeBytes    the current size of the bank
+     * @param bankLastModified the current modification time of the bank
+     * @return true if both still match
+     */
+    public boolean matches(long bankSizeBytes, long bankLastModified) {
+        return sizeBytes == bankSizeBytes && lastModified == bankLastModified;
+    }
+
+    /**
+     * Reads a persisted index
+     *
+     * @param indexFile the sidecar file holding the index
+     * @return the index, or null if the file is missing or not a valid index
+     * @throws IOException if there's an error reading the file
+     */
+    public static FacetIndex read(Path indexFile) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+            if (input.readInt() != MAGIC || input.readInt() != FORMAT_VERSION) {
+                log.debug("Ignoring invalid facet index: {}", indexFile);
+                return null;
+            }
+
+            long sizeBytes = input.readLong();
+            long lastModified = input.readLong();
+            int size = input.readInt();
+            Map<QuestionField, Map<String, PositionBitmap>> facets = emptyFacets();
+            for (Map<String, PositionBitmap> values : facets.values()) {
+                int count = input.readInt();
+                for (int i = 0; i < count; i++) {
+                    values.put(input.readUTF(), PositionBitmap.read(input));
+                }
+            }
+            return new FacetIndex(sizeBytes, lastModified, size, facets);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Persists the index to its sidecar file
+     *
+     * @param indexFile the sidecar file holding the index
+     * @throws IOException if there's an error writing the file
+     */
+    public void write(Path indexFile) throws IOException {
+        FileUtils.writeFileAtomically(indexFile, output -> {
+            DataOutputStream data = new DataOutputStream(output);
+            data.writeInt(MAGIC);
+            data.writeInt(FORMAT_VERSION);
+            data.writeLong(sizeBytes);
+            data.writeLong(lastModified);
+            data.writeInt(size);
+            for (Map<String, PositionBitmap> values : facets.values()) {
+                data.writeInt(values.size());
+                for (Map.Entry<String, PositionBitmap> value : values.entrySet()) {
+                    data.writeUTF(value.getKey());
+                    value.getValue().write(data);
+                }
+            }
+            data.flush();
+        });
+    }
+
+    private static void add(Map<String, PositionBitmap> values, String value, int position) {
+        String trimmed = value.trim();
+        if (!trimmed.isEmpty()) {
+            values.computeIfAbsent(trimmed, key -> new PositionBitmap()).add(position);
+        }
+    }
+
+    private static Map<QuestionField, Map<String, PositionBitmap>> emptyFacets() {
+        Map<QuestionField, Map<String, PositionBitmap>> facets = new EnumMap<>(QuestionField.class);
+        for (QuestionField field : FIELDS.values()) {
+            facets.putIfAbsent(field, new TreeMap<>(String.CASE_INSENSITIVE_ORDER));
+        }
+        return facets;
+    }
+
+    private static Map<String, QuestionField> facetFields() {
+        Map<String, QuestionField> fields = new LinkedHashMap<>();
+        fields.put("category", QuestionField.CATEGORY);
+        fields.put("tag", QuestionField.TAGS);
+        fields.put("tags", QuestionField.TAGS);
+        fields.put("language", QuestionField.LANGUAGE);
+        fields.put("status", QuestionField.STATUS);
+        return Map.copyOf(fields);
+    }
+
+    /**
+     * Recursive descent parser evaluating a filter while it is parsed
+     */
+    private final class FilterParser {
+
+        private final String text;
+        private int position;
+
+        FilterParser(String text) {
+            this.text = text;
+        }
+
+        PositionBitmap parse() {
+            PositionBitmap result = parseOr();
+            skipWhitespace();
+            if (position < text.length()) {
+                throw error("Unexpected '" + text.charAt(position) + "'");
+            }
+            return result;
+        }
+
+        private PositionBitmap parseOr() {
+            PositionBitmap result = parseAnd();
+            while (acceptKeyword("OR")) {
+                result = PositionBitmap.or(result, parseAnd());
+            }
+            return result;
+        }
+
+        private PositionBitmap parseAnd() {
+            PositionBitmap result = parseNot();
+            while (acceptKeyword("AND")) {
+                result = PositionBitmap.and(result, parseNot());
+            }
+            return result;
+        }
+
+        private PositionBitmap parseNot() {
+            if (acceptKeyword("NOT")) {
+                return PositionBitmap.andNot(PositionBitmap.range(size), parseNot());
+            }
+            if (accept('(')) {
+                PositionBitmap result = parseOr();
+                if (!accept(')')) {
+                    throw error("Expected ')'");
+                }
+                return result;
+            }
+            return parseComparison();
+        }
+
+        private PositionBitmap parseComparison() {
+            skipWhitespace();
+            int start = position;
+            while (position < text.length() && Character.isLetter(text.charAt(position))) {
+                position++;
+            }
+            String name = text.substring(start, position).toLowerCase(Locale.ROOT);
+            QuestionField field = FIELDS.get(name);
+            if (field == null) {
+                throw error(name.isEmpty() ? "Expected a field" : "Unknown field '" + name + "'");
+            }
+            if (!accept('=')) {
+                throw error("Expected '=' after " + name);
+            }
+            return get(field, readValue());
+        }
+
+        private String readValue() {
+            skipWhitespace();
+            if (accept('"')) {
+                int end = text.indexOf('"', position);
+                if (end < 0) {
+                    throw error("Unterminated quoted value");
+                }
+                String value = text.substring(position, end);
+                position = end + 1;
+                return value;
+            }
+
+            int start = position;
+            while (position < text.length() && !Character.isWhitespace(text.charAt(position))
+                    && text.charAt(position) != '(' && text.charAt(position) != ')') {
+                position++;
+            }
+            if (start == position) {
+                throw error("Expected a value");
+            }
+            return text.substring(start, position);
+        }
+
+        private boolean acceptKeyword(String keyword) {
+            skipWhitespace();
+            int end = position + keyword.length();
+            if (text.regionMatches(true, position, keyword, 0, keyword.length())
+                    && (end == text.length() || Character.isWhitespace(text.charAt(end)) || text.charAt(end) == '(')) {
+                position = end;
+                return true;
+            }
+            return false;
+        }
+
+        private boolean accept(char expected) {
+            skipWhitespace();
+            if (position < text.length() && text.charAt(position) == expected) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private void skipWhitespace() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at position " + position + " of filter: " + text);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package net.talaatharb.questionbank.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import net.talaatharb.questionbank.dto.QuestionDto;
+
+/**
+ * Codec for any encoding of the JSON data model that Jackson can stream (JSON,
+ * Smile, CBOR). The reader and writer of {@link QuestionDto} are built once
+ * when the codec is created and shared by every bank it reads or writes.
+ */
+public class JacksonBankCodec implements BankCodec {
+
+    private final ObjectReader questionReader;
+    private final ObjectWriter questionWriter;
+
+    /**
+     * @param objectMapper the mapper of the encoding
+     * @param indent       whether to indent the written banks, only meaningful
+     *                     for text encodings
+     */
+    public JacksonBankCodec(ObjectMapper objectMapper, boolean indent) {
+        this.questionReader = objectMapper.readerFor(QuestionDto.class);
+        ObjectWriter writer = objectMapper.writerFor(QuestionDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.questionWriter = indent ? writer.with(SerializationFeature.INDENT_OUTPUT)
+                : writer.without(SerializationFeature.INDENT_OUTPUT);
+    }
+
+    @Override
+    public QuestionJsonReader openReader(InputStream input) throws IOException {
+        return new QuestionJsonReader(input, questionReader);
+    }
+
+    @Override
+    public QuestionJsonWriter openWriter(OutputStream output) throws IOException {
+        return new QuestionJsonWriter(output, questionWriter);
+    }
+}
@@ -0,0 +1,276 @@
+package net.talaatharb.questionbank.storage;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import net.talaatharb.questionbank.dto.QuestionDto;
+import net.talaatharb.questionbank.utils.FileUtils;
+
+/**
+ * MinHash signatures of the questions of a bank. The text of a question and its
+ * answer is folded like the search index, cut into overlapping character
+ * shingles, and summarized by the minimum of each of a fixed family of hash
+ * functions over the shingles. The share of equal minimums of two signatures
+ * estimates the Jaccard similarity of the shingles of the two questions.
+ * <p>
+ * Signatures are persisted in a sidecar file and are only valid for the size and
+ * modification time of the bank they record.
+ */
+@Slf4j
+public class MinHashSignatures {
+
+    /**
+     * Number of hash functions, and so of values in a signature
+     */
+    public static final int HASH_COUNT = 100;
+
+    /**
+     * Number of characters of a shingle
+     */
+    public static final int SHINGLE_LENGTH = 4;
+
+    private static final int MAGIC = 0x51424d48; // QBMH
+    private static final int FORMAT_VERSION = 1;
+    private static final long SEED = 0x5eed_0f_9b_a11L;
+    private static final long[] MULTIPLIERS = new long[HASH_COUNT];
+    private static final long[] INCREMENTS = new long[HASH_COUNT];
+
+    static {
+        // Fixed seed, persisted signatures must stay comparable between runs
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int i = 0; i < HASH_COUNT; i++) {
+            MULTIPLIERS[i] = random.nextLong() | 1L;
+            INCREMENTS[i] = random.nextLong();
+        }
+    }
+
+    @Getter
+    private final long sizeBytes;
+    @Getter
+    private final long lastModified;
+    private final int count;
+    private final int[] values;
+    private final BitSet empty;
+
+    private MinHashSignatures(long sizeBytes, long lastModified, int count, int[] values, BitSet empty) {
+        this.sizeBytes = sizeBytes;
+        this.lastModified = lastModified;
+        this.count = count;
+        this.values = values;
+        this.empty = empty;
+    }
+
+    /**
+     * Computes the signatures of the questions of a bank
+     *
+     * @param questions    the questions of the bank, in bank order
+     * @param sizeBytes    the size of the bank the questions were read from
+     * @param lastModified the modification time of the bank in milliseconds
+     * @return the signatures of the bank
+     */
+    public static MinHashSignatures build(Iterator<QuestionDto> questions, long sizeBytes, long lastModified) {
+        int[] values = new int[64 * HASH_COUNT];
+        BitSet empty = new BitSet();
+        int count = 0;
+        while (questions.hasNext()) {
+            if ((count + 1) * HASH_COUNT > values.length) {
+                values = Arrays.copyOf(values, values.length * 2);
+            }
+            if (!sign(questions.next(), values, count * HASH_COUNT)) {
+                empty.set(count);
+            }
+            count++;
+        }
+        return new MinHashSignatures(sizeBytes, lastModified, count, Arrays.copyOf(values, count * HASH_COUNT),
+                empty);
+    }
+
+    /**
+     * Computes the signature of a single question
+     *
+     * @param question the question to sign
+     * @return the signature, null if the question and answer have no text
+     */
+    public static int[] signature(QuestionDto question) {
+        int[] signature = new int[HASH_COUNT];
+        return sign(question, signature, 0) ? signature : null;
+    }
+
+    /**
+     * Estimates the Jaccard similarity of two signatures
+     *
+     * @param first       values holding the first signature
+     * @param firstStart  index of the first value of the first signature
+     * @param second      values holding the second signature
+     * @param secondStart index of the first value of the second signature
+     * @return share of equal values, from 0 to 1
+     */
+    public static double similarity(int[] first, int firstStart, int[] second, int secondStart) {
+        int equal = 0;
+        for (int i = 0; i < HASH_COUNT; i++) {
+            if (first[firstStart + i] == second[secondStart + i]) {
+                equal++;
+            }
+        }
+        return (double) equal / HASH_COUNT;
+    }
+
+    /**
+     * Estimates the Jaccard similarity of two questions of signature sets
+     *
+     * @return share of equal values, 0 if either question has no text
+     */
+    public static double similarity(MinHashSignatures first, int firstPosition, MinHashSignatures second,
+            int secondPosition) {
+        if (first.isEmpty(firstPosition) || second.isEmpty(secondPosition)) {
+            return 0;
+        }
+        return similarity(first.values, firstPosition * HASH_COUNT, second.values, secondPosition * HASH_COUNT);
+    }
+
+    /**
+     * @param position the position of the question in the bank
+     * @param index    the index of the hash function
+     * @return the minimum of the hash function over the shingles of the question
+     */
+    public int get(int position, int index) {
+        return values[position * HASH_COUNT + index];
+    }
+
+    /**
+     * @param position the position of the question in the bank
+     * @return true if the question and its answer have no text to compare
+     */
+    public boolean isEmpty(int position) {
+        return empty.get(position);
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Checks that the bank has not changed since it was signed
+     *
+     * @param bankSizeBytes    the current size of the bank
+     * @param bankLastModified the current modification time of the bank
+     * @return true if both still match
+     */
+    public boolean matches(long bankSizeBytes, long bankLastModified) {
+        return sizeBytes == bankSizeBytes && lastModified == bankLastModified;
+    }
+
+    /**
+     * Reads persisted signatures
+     *
+     * @param signatureFile the sidecar file holding the signatures
+     * @return the signatures, or null if the file is missing or was written with
+     *         other hash functions
+     * @throws IOException if there's an error reading the file
+     */
+    public static MinHashSignatures read(Path signatureFile) throws IOException {
+        try (DataInputStream input = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(signatureFile)))) {
+            if (input.readInt() != MAGIC || input.readInt() != FORMAT_VERSION || input.readInt() != HASH_COUNT
+                    || input.readInt() != SHINGLE_LENGTH || input.readLong() != SEED) {
+                log.debug("Ignoring invalid MinHash signatures: {}", signatureFile);
+                return null;
+            }
+
+            long sizeBytes = input.readLong();
+            long lastModified = input.readLong();
+            int count = input.readInt();
+            BitSet empty = BitSet.valueOf(input.readNBytes(input.readInt()));
+            int[] values = new int[count * HASH_COUNT];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = input.readInt();
+            }
+            return new MinHashSignatures(sizeBytes, lastModified, count, values, empty);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Persists the signatures to their sidecar file
+     *
+     * @param signatureFile the sidecar file holding the signatures
+     * @throws IOException if there's an error writing the file
+     */
+    public void write(Path signatureFile) throws IOException {
+        FileUtils.writeFileAtomically(signatureFile, output -> {
+            DataOutputStream data = new DataOutputStream(output);
+            data.writeInt(MAGIC);
+            data.writeInt(FORMAT_VERSION);
+            data.writeInt(HASH_COUNT);
+            data.writeInt(SHINGLE_LENGTH);
+            data.writeLong(SEED);
+            data.writeLong(sizeBytes);
+            data.writeLong(lastModified);
+            data.writeInt(count);
+            byte[] emptyBytes = empty.toByteArray();
+            data.writeInt(emptyBytes.length);
+            data.write(emptyBytes);
+            for (int value : values) {
+                data.writeInt(value);
+            }
+            data.flush();
+        });
+    }
+
+    /**
+     * Writes the signature of a question into the values
+     *
+     * @return false if the question and answer have no text
+     */
+    private static boolean sign(QuestionDto question, int[] values, int start) {
+        // Fold case and punctuation so that only the wording is compared
+        List<String> terms = new ArrayList<>(BankSearchIndex.tokenize(question.getQuestion()));
+        terms.addAll(BankSearchIndex.tokenize(question.getAnswer()));
+        String text = String.join(" ", terms);
+        Arrays.fill(values, start, start + HASH_COUNT, Integer.MAX_VALUE);
+        if (text.isEmpty()) {
+            return false;
+        }
+
+        int shingles = Math.max(1, text.length() - SHINGLE_LENGTH + 1);
+        for (int offset = 0; offset < shingles; offset++) {
+            long shingle = hashShingle(text, offset, Math.min(text.length(), offset + SHINGLE_LENGTH));
+            for (int i = 0; i < HASH_COUNT; i++) {
+                int value = (int) ((MULTIPLIERS[i] * shingle + INCREMENTS[i]) >>> 32);
+                if (value < values[start + i]) {
+                    values[start + i] = value;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 64-bit FNV-1a hash of a shingle, finished with a mixing step so that
+     * shingles differing in one character spread over all bits
+     */
+    private static long hashShingle(String text, int from, int to) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = from; i < to; i++) {
+            hash = (hash ^ text.charAt(i)) * 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,480 @@
+package net.talaatharb.questionbank.storage;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Compressed set of question positions in the style of a roaring bitmap. The
+ * positions are split by their upper 16 bits into chunks of 65536, a chunk
+ * holding few positions keeps them as a sorted array of their lower 16 bits and
+ * a dense chunk as a bitmap of 1024 words, so both sparse and dense sets stay
+ * small and intersect, join and subtract chunk by chunk.
+ */
+public final class PositionBitmap {
+
+    private static final int CHUNK_BITS = 16;
+    private static final int CHUNK_MASK = 0xFFFF;
+    private static final int WORD_COUNT = 1 << (CHUNK_BITS - 6);
+    // Above this cardinality a bitmap is smaller than an array of chars
+    private static final int ARRAY_LIMIT = 4096;
+
+    private char[] keys;
+    private Container[] containers;
+    private int containerCount;
+
+    public PositionBitmap() {
+        this(0);
+    }
+
+    private PositionBitmap(int capacity) {
+        this.keys = new char[Math.max(capacity, 4)];
+        this.containers = new Container[keys.length];
+    }
+
+    /**
+     * @param size number of positions
+     * @return bitmap of all positions from 0 to size exclusive
+     */
+    public static PositionBitmap range(int size) {
+        PositionBitmap bitmap = new PositionBitmap((size >>> CHUNK_BITS) + 1);
+        for (int start = 0; start < size; start += 1 << CHUNK_BITS) {
+            int count = Math.min(1 << CHUNK_BITS, size - start);
+            long[] words = new long[WORD_COUNT];
+            Arrays.fill(words, 0, count >>> 6, -1L);
+            if ((count & 63) != 0) {
+                words[count >>> 6] = (1L << (count & 63)) - 1;
+            }
+            bitmap.append((char) (start >>> CHUNK_BITS), Container.ofWords(words, count));
+        }
+        return bitmap;
+    }
+
+    /**
+     * Adds a position, adding positions in ascending order is fastest
+     *
+     * @param position the position to add, not negative
+     */
+    public void add(int position) {
+        if (position < 0) {
+            throw new IllegalArgumentException("Position cannot be negative");
+        }
+
+        char key = (char) (position >>> CHUNK_BITS);
+        int index = containerCount > 0 && keys[containerCount - 1] == key ? containerCount - 1 : findKey(key);
+        if (index < 0) {
+            index = -index - 1;
+            insert(index, key, new Container());
+        }
+        containers[index] = containers[index].add((char) (position & CHUNK_MASK));
+    }
+
+    public boolean contains(int position) {
+        if (position < 0) {
+            return false;
+        }
+        int index = findKey((char) (position >>> CHUNK_BITS));
+        return index >= 0 && containers[index].contains((char) (position & CHUNK_MASK));
+    }
+
+    /**
+     * @return number of positions in the bitmap
+     */
+    public int cardinality() {
+        int cardinality = 0;
+        for (int i = 0; i < containerCount; i++) {
+            cardinality += containers[i].cardinality;
+        }
+        return cardinality;
+    }
+
+    public boolean isEmpty() {
+        return containerCount == 0;
+    }
+
+    /**
+     * @return the positions in ascending order
+     */
+    public int[] toArray() {
+        int[] positions = new int[cardinality()];
+        int[] count = new int[1];
+        forEach(position -> positions[count[0]++] = position);
+        return positions;
+    }
+
+    /**
+     * Calls the action with every position in ascending order
+     *
+     * @param action the action to call
+     */
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < containerCount; i++) {
+            containers[i].forEach(keys[i] << CHUNK_BITS, action);
+        }
+    }
+
+    /**
+     * @return positions in both bitmaps
+     */
+    public static PositionBitmap and(PositionBitmap first, PositionBitmap second) {
+        PositionBitmap result = new PositionBitmap(Math.min(first.containerCount, second.containerCount));
+        int i = 0;
+        int j = 0;
+        while (i < first.containerCount && j < second.containerCount) {
+            int compare = Character.compare(first.keys[i], second.keys[j]);
+            if (compare == 0) {
+                result.appendIfNotEmpty(first.keys[i], Container.and(first.containers[i], second.containers[j]));
+                i++;
+                j++;
+            } else if (compare < 0) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return positions in either bitmap
+     */
+    public static PositionBitmap or(PositionBitmap first, PositionBitmap second) {
+        PositionBitmap result = new PositionBitmap(first.containerCount + second.containerCount);
+        int i = 0;
+        int j = 0;
+        while (i < first.containerCount || j < second.containerCount) {
+            int compare = i == first.containerCount ? 1
+                    : j == second.containerCount ? -1 : Character.compare(first.keys[i], second.keys[j]);
+            if (compare == 0) {
+                result.append(first.keys[i], Container.or(first.containers[i], second.containers[j]));
+                i++;
+                j++;
+            } else if (compare < 0) {
+                result.append(first.keys[i], first.containers[i].copy());
+                i++;
+            } else {
+                result.append(second.keys[j], second.containers[j].copy());
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return positions in the first bitmap but not in the second
+     */
+    public static PositionBitmap andNot(PositionBitmap first, PositionBitmap second) {
+        PositionBitmap result = new PositionBitmap(first.containerCount);
+        int j = 0;
+        for (int i = 0; i < first.containerCount; i++) {
+            while (j < second.containerCount && second.keys[j] < first.keys[i]) {
+                j++;
+            }
+            if (j < second.containerCount && second.keys[j] == first.keys[i]) {
+                result.appendIfNotEmpty(first.keys[i], Container.andNot(first.containers[i], second.containers[j]));
+            } else {
+                result.append(first.keys[i], first.containers[i].copy());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Writes the bitmap in its compressed form
+     *
+     * @param output the stream to write to
+     * @throws IOException if there's an error writing
+     */
+    public void write(DataOutputStream output) throws IOException {
+        output.writeInt(containerCount);
+        for (int i = 0; i < containerCount; i++) {
+            Container container = containers[i];
+            output.writeChar(keys[i]);
+            output.writeInt(container.cardinality);
+            if (container.words != null) {
+                for (long word : container.words) {
+                    output.writeLong(word);
+                }
+            } else {
+                for (int j = 0; j < container.cardinality; j++) {
+                    output.writeChar(container.values[j]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads a bitmap written by {@link #write}
+     *
+     * @param input the stream to read from
+     * @return the bitmap
+     * @throws IOException if there's an error reading
+     */
+    public static PositionBitmap read(DataInputStream input) throws IOException {
+        int count = input.readInt();
+        PositionBitmap bitmap = new PositionBitmap(count);
+        for (int i = 0; i < count; i++) {
+            char key = input.readChar();
+            int cardinality = input.readInt();
+            if (cardinality > ARRAY_LIMIT) {
+                long[] words = new long[WORD_COUNT];
+                for (int j = 0; j < WORD_COUNT; j++) {
+                    words[j] = input.readLong();
+                }
+                bitmap.append(key, Container.ofWords(words, cardinality));
+            } else {
+                char[] values = new char[cardinality];
+                for (int j = 0; j < cardinality; j++) {
+                    values[j] = input.readChar();
+                }
+                bitmap.append(key, Container.ofValues(values, cardinality));
+            }
+        }
+        return bitmap;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof PositionBitmap bitmap && Arrays.equals(toArray(), bitmap.toArray());
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(toArray());
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+
+    private int findKey(char key) {
+        return Arrays.binarySearch(keys, 0, containerCount, key);
+    }
+
+    private void insert(int index, char key, Container container) {
+        if (containerCount == keys.length) {
+            keys = Arrays.copyOf(keys, containerCount * 2);
+            containers = Arrays.copyOf(containers, containerCount * 2);
+        }
+        System.arraycopy(keys, index, keys, index + 1, containerCount - index);
+        System.arraycopy(containers, index, containers, index + 1, containerCount - index);
+        keys[index] = key;
+        containers[index] = container;
+        containerCount++;
+    }
+
+    private void append(char key, Container container) {
+        insert(containerCount, key, container);
+    }
+
+    private void appendIfNotEmpty(char key, Container container) {
+        if (container.cardinality > 0) {
+            append(key, container);
+        }
+    }
+
+    /**
+     * The positions of one chunk, either a sorted array or a bitmap
+     */
+    private static final class Container {
+
+        private char[] values;
+        private long[] words;
+        private int cardinality;
+
+        Container() {
+            this.values = new char[4];
+        }
+
+        static Container ofValues(char[] values, int cardinality) {
+            Container container = new Container();
+            container.values = values;
+            container.cardinality = cardinality;
+            return container;
+        }
+
+        static Container ofWords(long[] words, int cardinality) {
+            if (cardinality <= ARRAY_LIMIT) {
+                char[] values = new char[cardinality];
+                int count = 0;
+                for (int word = 0; word < WORD_COUNT; word++) {
+                    for (long bits = words[word]; bits != 0; bits &= bits - 1) {
+                        values[count++] = (char) ((word << 6) + Long.numberOfTrailingZeros(bits));
+                    }
+                }
+                return ofValues(values, cardinality);
+            }
+            Container container = new Container();
+            container.values = null;
+            container.words = words;
+            container.cardinality = cardinality;
+            return container;
+        }
+
+        Container add(char low) {
+            if (words != null) {
+                long bit = 1L << low;
+                if ((words[low >>> 6] & bit) == 0) {
+                    words[low >>> 6] |= bit;
+                    cardinality++;
+                }
+                return this;
+            }
+
+            int index = cardinality > 0 && values[cardinality - 1] < low ? -cardinality - 1
+                    : Arrays.binarySearch(values, 0, cardinality, low);
+            if (index >= 0) {
+                return this;
+            }
+            if (cardinality == ARRAY_LIMIT) {
+                long[] bitmap = toWords();
+                bitmap[low >>> 6] |= 1L << low;
+                return ofWords(bitmap, cardinality + 1);
+            }
+
+            index = -index - 1;
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.max(4, Math.min(ARRAY_LIMIT, cardinality * 2)));
+            }
+            System.arraycopy(values, index, values, index + 1, cardinality - index);
+            values[index] = low;
+            cardinality++;
+            return this;
+        }
+
+        Container copy() {
+            return words != null ? ofWords(words.clone(), cardinality)
+                    : ofValues(Arrays.copyOf(values, cardinality), cardinality);
+        }
+
+        boolean contains(char low) {
+            if (words != null) {
+                return (words[low >>> 6] & (1L << low)) != 0;
+            }
+            return Arrays.binarySearch(values, 0, cardinality, low) >= 0;
+        }
+
+        void forEach(int base, IntConsumer action) {
+            if (words != null) {
+                for (int word = 0; word < WORD_COUNT; word++) {
+                    for (long bits = words[word]; bits != 0; bits &= bits - 1) {
+                        action.accept(base + (word << 6) + Long.numberOfTrailingZeros(bits));
+                    }
+                }
+            } else {
+                for (int i = 0; i < cardinality; i++) {
+                    action.accept(base + values[i]);
+                }
+            }
+        }
+
+        long[] toWords() {
+            if (words != null) {
+                return words.clone();
+            }
+            long[] bitmap = new long[WORD_COUNT];
+            for (int i = 0; i < cardinality; i++) {
+                bitmap[values[i] >>> 6] |= 1L << values[i];
+            }
+            return bitmap;
+        }
+
+        static Container and(Container first, Container second) {
+            if (first.words == null && second.words == null) {
+                char[] values = new char[Math.min(first.cardinality, second.cardinality)];
+                int count = 0;
+                int i = 0;
+                int j = 0;
+                while (i < first.cardinality && j < second.cardinality) {
+                    if (first.values[i] == second.values[j]) {
+                        values[count++] = first.values[i];
+                        i++;
+                        j++;
+                    } else if (first.values[i] < second.values[j]) {
+                        i++;
+                    } else {
+                        j++;
+                    }
+                }
+                return ofValues(values, count);
+            }
+            if (first.words == null || second.words == null) {
+                // Probe the bitmap with every value of the array
+                Container array = first.words == null ? first : second;
+                Container bitmap = first.words == null ? second : first;
+                char[] values = new char[array.cardinality];
+                int count = 0;
+                for (int i = 0; i < array.cardinality; i++) {
+                    if (bitmap.contains(array.values[i])) {
+                        values[count++] = array.values[i];
+                    }
+                }
+                return ofValues(values, count);
+            }
+
+            long[] words = new long[WORD_COUNT];
+            int cardinality = 0;
+            for (int i = 0; i < WORD_COUNT; i++) {
+                words[i] = first.words[i] & second.words[i];
+                cardinality += Long.bitCount(words[i]);
+            }
+            return ofWords(words, cardinality);
+        }
+
+        static Container or(Container first, Container second) {
+            if (first.words == null && second.words == null
+                    && first.cardinality + second.cardinality <= ARRAY_LIMIT) {
+                char[] values = new char[first.cardinality + second.cardinality];
+                int count = 0;
+                int i = 0;
+                int j = 0;
+                while (i < first.cardinality || j < second.cardinality) {
+                    if (j == second.cardinality || (i < first.cardinality && first.values[i] < second.values[j])) {
+                        values[count++] = first.values[i++];
+                    } else if (i == first.cardinality || second.values[j] < first.values[i]) {
+                        values[count++] = second.values[j++];
+                    } else {
+                        values[count++] = first.values[i];
+                        i++;
+                        j++;
+                    }
+                }
+                return ofValues(values, count);
+            }
+
+            long[] words = first.toWords();
+            long[] other = second.toWords();
+            int cardinality = 0;
+            for (int i = 0; i < WORD_COUNT; i++) {
+                words[i] |= other[i];
+                cardinality += Long.bitCount(words[i]);
+            }
+            return ofWords(words, cardinality);
+        }
+
+        static Container andNot(Container first, Container second) {
+            if (first.words == null) {
+                char[] values = new char[first.cardinality];
+                int count = 0;
+                for (int i = 0; i < first.cardinality; i++) {
+                    if (!second.contains(first.values[i])) {
+                        values[count++] = first.values[i];
+                    }
+                }
+                return ofValues(values, count);
+            }
+
+            long[] words = first.words.clone();
+            long[] other = second.toWords();
+            int cardinality = 0;
+            for (int i = 0; i < WORD_COUNT; i++) {
+                words[i] &= ~other[i];
+                cardinality += Long.bitCount(words[i]);
+            }
+            return ofWords(words, cardinality);
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package net.talaatharb.questionbank.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import net.talaatharb.questionbank.dto.QuestionDto;
+import net.talaatharb.questionbank.dto.QuestionField;
+
+/**
+ * Read only view over a binary question bank (.qbin). Opening a bank only reads
+ * the header, questions and their fields are decoded and checked on access.
+ *
+ * <pre>
+ * header  : int magic "QBIN", int version, int count, int reserved
+ * offsets : (count + 1) longs, start of every record and end of the last one
+ * record  : byte flags, long id msb, long id lsb,
+ *           then for every {@link QuestionField}: int length (-1 for null), UTF-8 bytes
+ * </pre>
+ *
+ * All numbers are big endian. Only absolute reads are used on the buffer, so a
+ * bank can be read from several threads at once. A record outside the file or a
+ * field running past the end of its record fails the read with an
+ * {@link UncheckedIOException}.
+ */
+public class QbinBank implements Closeable, Iterable<QuestionDto> {
+
+    public static final int MAGIC = 0x5142494E; // QBIN
+    public static final int FORMAT_VERSION = 1;
+    public static final int HEADER_SIZE = 16;
+    static final byte FLAG_HAS_ID = 1;
+    static final int ID_OFFSET = 1;
+    static final int FIELDS_OFFSET = ID_OFFSET + 2 * Long.BYTES;
+
+    private static final QuestionField[] FIELDS = QuestionField.values();
+    private static final int MIN_RECORD_SIZE = FIELDS_OFFSET + FIELDS.length * Integer.BYTES;
+
+    private ByteBuffer buffer;
+    private final int count;
+    private final String source;
+
+    private QbinBank(ByteBuffer buffer, String source) throws IOException {
+        this.buffer = buffer.order(ByteOrder.BIG_ENDIAN);
+        this.source = source;
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a binary question bank: " + source);
+        }
+        if (buffer.getInt(4) != FORMAT_VERSION) {
+            throw new IOException("Unsupported binary question bank version " + buffer.getInt(4) + ": " + source);
+        }
+        this.count = buffer.getInt(8);
+        if (count < 0 || HEADER_SIZE + (count + 1L) * Long.BYTES > buffer.limit()) {
+            throw new IOException("Corrupted binary question bank header: " + source);
+        }
+        // The end of the last record is the size of the file, a truncated file
+        // fails here while the offsets of single records are checked on access
+        long end = buffer.getLong(HEADER_SIZE + count * Long.BYTES);
+        if (end < recordsStart() || end > buffer.limit()) {
+            throw new IOException("Corrupted binary question bank, records end past the file: " + source);
+        }
+    }
+
+    /**
+     * Maps a binary bank file into memory, this costs the same regardless of the
+     * size of the bank. Compressed banks (.qbin.gz) are read into memory instead.
+     *
+     * @param file the .qbin file
+     * @return the opened bank
+     * @throws IOException if the file cannot be mapped or is not a binary bank
+     */
+    public static QbinBank open(Path file) throws IOException {
+        BankCompression compression = BankCompression.of(file.getFileName().toString());
+        if (compression != BankCompression.NONE) {
+            // A compressed bank cannot be mapped, it is inflated onto the heap instead
+            try (InputStream input = compression.decompress(Files.newInputStream(file))) {
+                return new QbinBank(ByteBuffer.wrap(input.readAllBytes()).slice(), file.toString());
+            }
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Binary question bank is too large to map: " + file);
+            }
+            return new QbinBank(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), file.toString());
+        }
+    }
+
+    /**
+     * Reads a binary bank that is already in memory
+     *
+     * @param content the content of a .qbin file
+     * @return the opened bank
+     * @throws IOException if the content is not a binary bank
+     */
+    public static QbinBank wrap(ByteBuffer content) throws IOException {
+        return new QbinBank(content.slice(), "in-memory content");
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Returns a lazy view of a record, nothing is decoded until a field is read
+     *
+     * @param index position of the question in the bank
+     * @return the record view
+     */
+    public Record get(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + count);
+        }
+        ByteBuffer content = buffer();
+        long start = content.getLong(HEADER_SIZE + index * Long.BYTES);
+        long end = content.getLong(HEADER_SIZE + (index + 1) * Long.BYTES);
+        if (start < recordsStart() || end > content.limit() || end - start < MIN_RECORD_SIZE) {
+            throw new UncheckedIOException(new IOException(
+                    "Corrupted offset of record " + index + " of binary question bank: " + source));
+        }
+        return new Record((int) start, (int) end);
+    }
+
+    public QuestionDto getQuestion(int index) {
+        return get(index).toQuestionDto();
+    }
+
+    /**
+     * Decodes a page of questions
+     *
+     * @param offset position of the first question
+     * @param limit  maximum number of questions
+     * @return the decoded questions, empty if offset is past the end
+     */
+    public List<QuestionDto> getQuestions(int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Offset and limit cannot be negative");
+        }
+
+        int end = (int) Math.min((long) offset + limit, count);
+        List<QuestionDto> page = new ArrayList<>(Math.max(end - offset, 0));
+        for (int i = offset; i < end; i++) {
+            page.add(getQuestion(i));
+        }
+        return page;
+    }
+
+    @Override
+    public Iterator<QuestionDto> iterator() {
+        return new Iterator<>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < count;
+            }
+
+            @Override
+            public QuestionDto next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return getQuestion(next++);
+            }
+        };
+    }
+
+    public Stream<QuestionDto> stream() {
+        return IntStream.range(0, count).mapToObj(this::getQuestion).onClose(this::close);
+    }
+
+    /**
+     * Releases the reference to the mapped buffer, the mapping itself is released
+     * by the garbage collector
+     */
+    @Override
+    public void close() {
+        buffer = null;
+    }
+
+    private long recordsStart() {
+        return HEADER_SIZE + (count + 1L) * Long.BYTES;
+    }
+
+    private ByteBuffer buffer() {
+        if (buffer == null) {
+            throw new IllegalStateException("Binary question bank is closed");
+        }
+        return buffer;
+    }
+
+    /**
+     * Lazy view of one question in the bank
+     */
+    public class Record {
+
+        private final int start;
+        private final int end;
+
+        private Record(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        public UUID getId() {
+            ByteBuffer content = buffer();
+            if ((content.get(start) & FLAG_HAS_ID) == 0) {
+                return null;
+            }
+            return new UUID(content.getLong(start + ID_OFFSET), content.getLong(start + ID_OFFSET + Long.BYTES));
+        }
+
+        /**
+         * Decodes a single field, skipping over the fields stored before it
+         *
+         * @param field the field to decode
+         * @return the value of the field, may be null
+         */
+        public String get(QuestionField field) {
+            ByteBuffer content = buffer();
+            int position = start + FIELDS_OFFSET;
+            for (int i = 0; i < field.ordinal(); i++) {
+                position += Integer.BYTES + Math.max(readLength(content, position), 0);
+            }
+            return readString(content, position);
+        }
+
+        public QuestionDto toQuestionDto() {
+            ByteBuffer content = buffer();
+            QuestionDto question = new QuestionDto();
+            question.setId(getId());
+
+            int position = start + FIELDS_OFFSET;
+            for (QuestionField field : FIELDS) {
+                field.set(question, readString(content, position));
+                position += Integer.BYTES + Math.max(readLength(content, position), 0);
+            }
+            return question;
+        }
+
+        private String readString(ByteBuffer content, int position) {
+            int length = readLength(content, position);
+            if (length < 0) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            content.get(position + Integer.BYTES, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * @return the length of the field at the position, after checking that the
+         *         field ends within the record
+         */
+        private int readLength(ByteBuffer content, int position) {
+            int length = position <= end - Integer.BYTES ? content.getInt(position) : Integer.MAX_VALUE;
+            if (length > end - position - Integer.BYTES) {
+                throw new UncheckedIOException(new IOException(
+                        "Corrupted record at offset " + start + " of binary question bank: " + source));
+            }
+            return length;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package net.talaatharb.questionbank.storage;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.UUID;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import net.talaatharb.questionbank.dto.QuestionDto;
+import net.talaatharb.questionbank.dto.QuestionField;
+import net.talaatharb.questionbank.utils.FileUtils;
+
+/**
+ * Writes binary question banks in the layout read by {@link QbinBank}
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class QbinWriter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Writes the questions as a binary bank, compressed with the default level if
+     * the target has a compression extension
+     *
+     * @param target    the .qbin file to write, replaced atomically
+     * @param questions the questions to write
+     * @throws IOException if there's an error writing the bank or it exceeds 2 GB
+     */
+    public static void write(Path target, Iterator<QuestionDto> questions) throws IOException {
+        write(target, questions, BankCompression.of(target.getFileName().toString()), BankCompression.DEFAULT_LEVEL);
+    }
+
+    /**
+     * Writes the questions as a binary bank. Records are streamed to a temporary
+     * body file first since the offset table has to precede them, so only the
+     * offsets are held in memory.
+     *
+     * @param target      the .qbin file to write, replaced atomically
+     * @param questions   the questions to write
+     * @param compression the compression of the written file
+     * @param level       the compression level, -1 for the default
+     * @throws IOException if there's an error writing the bank or it exceeds 2 GB
+     */
+    public static void write(Path target, Iterator<QuestionDto> questions, BankCompression compression, int level)
+            throws IOException {
+        Path folder = target.toAbsolutePath().getParent();
+        Files.createDirectories(folder);
+        Path body = Files.createTempFile(folder, "." + target.getFileName(), ".body");
+
+        try {
+            long[] offsets = new long[64];
+            int count = 0;
+            long position = 0;
+            try (DataOutputStream output = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(body), BUFFER_SIZE))) {
+                while (questions.hasNext()) {
+                    if (count == offsets.length) {
+                        offsets = Arrays.copyOf(offsets, count * 2);
+                    }
+                    offsets[count++] = position;
+                    position += writeRecord(output, questions.next());
+                }
+            }
+
+            long recordsStart = QbinBank.HEADER_SIZE + (count + 1L) * Long.BYTES;
+            if (recordsStart + position > Integer.MAX_VALUE) {
+                throw new IOException("Binary question bank cannot exceed 2 GB");
+            }
+
+            final long[] recordOffsets = offsets;
+            final int recordCount = count;
+            final long end = recordsStart + position;
+            FileUtils.writeFileAtomically(target, compression, level, output -> {
+                DataOutputStream data = new DataOutputStream(output);
+                data.writeInt(QbinBank.MAGIC);
+                data.writeInt(QbinBank.FORMAT_VERSION);
+                data.writeInt(recordCount);
+                data.writeInt(0);
+                for (int i = 0; i < recordCount; i++) {
+                    data.writeLong(recordsStart + recordOffsets[i]);
+                }
+                data.writeLong(end);
+                data.flush();
+                Files.copy(body, output);
+            });
+        } finally {
+            Files.deleteIfExists(body);
+        }
+    }
+
+    private static long writeRecord(DataOutputStream output, QuestionDto question) throws IOException {
+        UUID id = question.getId();
+        output.writeByte(id == null ? 0 : QbinBank.FLAG_HAS_ID);
+        output.writeLong(id == null ? 0 : id.getMostSignificantBits());
+        output.writeLong(id == null ? 0 : id.getLeastSignificantBits());
+
+        long size = QbinBank.FIELDS_OFFSET;
+        for (QuestionField field : QuestionField.values()) {
+            String value = field.get(question);
+            if (value == null) {
+                output.writeInt(-1);
+                size += Integer.BYTES;
+            } else {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                output.writeInt(bytes.length);
+                output.write(bytes);
+                size += Integer.BYTES + bytes.length;
+            }
+        }
+        return size;
+    }
+}
@@ -0,0 +1,540 @@
+package net.talaatharb.questionbank.storage;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import lombok.extern.slf4j.Slf4j;
+import net.talaatharb.questionbank.utils.FileUtils;
+
+/**
+ * Global index of the questions of every bank by id, mapping an id to the bank
+ * holding it and its position there. Every bank keeps its ids and their
+ * positions in its own open addressing hash table of primitive arrays, the two
+ * halves of a UUID side by side, and a global table maps every id to its bank.
+ * A lookup costs a few array reads, the index holds no object per question and
+ * a save only touches the table of the saved bank. An id found in several banks
+ * is found in the bank it was saved to last while that bank holds it.
+ * <p>
+ * The entries of a bank are only valid for the size and modification time of
+ * the bank recorded with them, callers compare them with the bank to find the
+ * banks to index again. The index is persisted in a single sidecar file.
+ */
+@Slf4j
+public class QuestionIdIndex {
+
+    private static final int MAGIC = 0x51424944; // QBID
+    private static final int FORMAT_VERSION = 2;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int EMPTY = -1;
+
+    private final Map<String, Bank> banks = new HashMap<>();
+    /** Banks by ordinal, the ordinals of removed banks are null until reused */
+    private final List<Bank> banksByOrdinal = new ArrayList<>();
+    private final IdTable owners = new IdTable(1024);
+
+    /**
+     * @param questionId the id of a question
+     * @return where the question is, or null if the id is not indexed
+     */
+    public Location find(UUID questionId) {
+        long most = questionId.getMostSignificantBits();
+        long least = questionId.getLeastSignificantBits();
+        int ordinal = owners.get(most, least);
+        if (ordinal == EMPTY) {
+            return null;
+        }
+        Bank bank = banksByOrdinal.get(ordinal);
+        return new Location(bank.name, bank.ids.get(most, least));
+    }
+
+    /**
+     * @param questionBank the bank
+     * @param questionId   the id of a question
+     * @return the position of the question in the bank, -1 if the bank is not
+     *         indexed or does not hold the id
+     */
+    public int positionOf(String questionBank, UUID questionId) {
+        Bank bank = banks.get(questionBank);
+        if (bank == null) {
+            return EMPTY;
+        }
+        return bank.ids.get(questionId.getMostSignificantBits(), questionId.getLeastSignificantBits());
+    }
+
+    /**
+     * @return number of indexed ids
+     */
+    public int size() {
+        return owners.size;
+    }
+
+    /**
+     * @return the indexed banks
+     */
+    public Set<String> getQuestionBanks() {
+        return new HashSet<>(banks.keySet());
+    }
+
+    /**
+     * Checks that a bank has not changed since it was indexed
+     *
+     * @param questionBank     the bank
+     * @param bankSizeBytes    the current size of the bank
+     * @param bankLastModified the current modification time of the bank
+     * @return true if the bank is indexed and both still match
+     */
+    public boolean matches(String questionBank, long bankSizeBytes, long bankLastModified) {
+        Bank bank = banks.get(questionBank);
+        return bank != null && bank.sizeBytes == bankSizeBytes && bank.lastModified == bankLastModified;
+    }
+
+    /**
+     * Replaces the entries of a bank
+     *
+     * @param questionBank the bank
+     * @param ids          the ids of the questions of the bank in bank order, null
+     *                     for questions without an id
+     * @param sizeBytes    the size of the bank the ids were read from
+     * @param lastModified the modification time of the bank in milliseconds
+     */
+    public void replaceBank(String questionBank, List<UUID> ids, long sizeBytes, long lastModified) {
+        Bank bank = banks.get(questionBank);
+        IdTable previous = null;
+        if (bank == null) {
+            bank = addBank(questionBank);
+        } else {
+            previous = bank.ids;
+        }
+
+        IdTable table = new IdTable(capacityFor(ids.size()));
+        for (int position = 0; position < ids.size(); position++) {
+            UUID id = ids.get(position);
+            if (id != null) {
+                table.put(id.getMostSignificantBits(), id.getLeastSignificantBits(), position);
+                owners.put(id.getMostSignificantBits(), id.getLeastSignificantBits(), bank.ordinal);
+            }
+        }
+        bank.ids = table;
+        bank.count = ids.size();
+
+        if (previous != null) {
+            Bank replaced = bank;
+            previous.forEach((most, least, position) -> {
+                if (table.get(most, least) == EMPTY) {
+                    release(most, least, replaced);
+                }
+            });
+        }
+        setState(questionBank, sizeBytes, lastModified);
+    }
+
+    /**
+     * Records a question saved to a bank whose entries are current, a question
+     * not in the bank yet is appended to it
+     *
+     * @param questionBank the bank
+     * @param questionId   the id of the saved question
+     */
+    public void upsert(String questionBank, UUID questionId) {
+        Bank bank = requireBank(questionBank);
+        long most = questionId.getMostSignificantBits();
+        long least = questionId.getLeastSignificantBits();
+        if (bank.ids.get(most, least) == EMPTY) {
+            bank.ids.put(most, least, bank.count++);
+        }
+        owners.put(most, least, bank.ordinal);
+    }
+
+    /**
+     * Records a question deleted from a bank whose entries are current, the
+     * questions after it move up by one position
+     *
+     * @param questionBank the bank
+     * @param questionId   the id of the deleted question
+     */
+    public void delete(String questionBank, UUID questionId) {
+        deleteAll(questionBank, List.of(questionId));
+    }
+
+    /**
+     * Records questions deleted together from a bank whose entries are current,
+     * renumbering the questions of the bank after them in a single pass
+     *
+     * @param questionBank the bank
+     * @param questionIds  the ids of the deleted questions
+     */
+    public void deleteAll(String questionBank, Collection<UUID> questionIds) {
+        Bank bank = requireBank(questionBank);
+        int[] deletedPositions = new int[questionIds.size()];
+        int deleted = 0;
+        for (UUID questionId : questionIds) {
+            long most = questionId.getMostSignificantBits();
+            long least = questionId.getLeastSignificantBits();
+            int position = bank.ids.remove(most, least);
+            if (position != EMPTY) {
+                deletedPositions[deleted++] = position;
+                release(most, least, bank);
+            }
+        }
+        if (deleted == 0) {
+            return;
+        }
+
+        int[] sorted = Arrays.copyOf(deletedPositions, deleted);
+        Arrays.sort(sorted);
+        bank.count -= deleted;
+        bank.ids.shiftValues(sorted);
+    }
+
+    /**
+     * Records the state of a bank after its entries were updated
+     *
+     * @param questionBank the bank
+     * @param sizeBytes    the size of the bank
+     * @param lastModified the modification time of the bank in milliseconds
+     */
+    public void setState(String questionBank, long sizeBytes, long lastModified) {
+        Bank bank = requireBank(questionBank);
+        bank.sizeBytes = sizeBytes;
+        bank.lastModified = lastModified;
+    }
+
+    /**
+     * Marks the entries of a bank as stale, so that the bank is indexed again
+     *
+     * @param questionBank the bank
+     */
+    public void invalidate(String questionBank) {
+        Bank bank = banks.get(questionBank);
+        if (bank != null) {
+            bank.sizeBytes = -1;
+        }
+    }
+
+    /**
+     * Removes the entries of the banks that are not in the given list
+     *
+     * @param questionBanks the banks to keep
+     * @return true if any bank was removed
+     */
+    public boolean retainAll(Collection<String> questionBanks) {
+        Set<String> kept = new HashSet<>(questionBanks);
+        List<Bank> removed = banks.values().stream().filter(bank -> !kept.contains(bank.name)).toList();
+        for (Bank bank : removed) {
+            banks.remove(bank.name);
+            banksByOrdinal.set(bank.ordinal, null);
+            bank.ids.forEach((most, least, position) -> release(most, least, bank));
+        }
+        return !removed.isEmpty();
+    }
+
+    /**
+     * Reads a persisted index
+     *
+     * @param indexFile the sidecar file holding the index
+     * @return the index, or null if the file is missing or not a valid index
+     * @throws IOException if there's an error reading the file
+     */
+    public static QuestionIdIndex read(Path indexFile) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+            if (input.readInt() != MAGIC || input.readInt() != FORMAT_VERSION) {
+                log.debug("Ignoring invalid question id index: {}", indexFile);
+                return null;
+            }
+
+            QuestionIdIndex index = new QuestionIdIndex();
+            int bankCount = input.readInt();
+            for (int i = 0; i < bankCount; i++) {
+                Bank bank = index.addBank(input.readUTF());
+                bank.sizeBytes = input.readLong();
+                bank.lastModified = input.readLong();
+                bank.count = input.readInt();
+                int entries = input.readInt();
+                bank.ids = new IdTable(capacityFor(entries));
+                for (int entry = 0; entry < entries; entry++) {
+                    long most = input.readLong();
+                    long least = input.readLong();
+                    int position = input.readInt();
+                    if (position < 0 || position >= bank.count) {
+                        log.debug("Ignoring corrupt question id index: {}", indexFile);
+                        return null;
+                    }
+                    bank.ids.put(most, least, position);
+                    index.owners.put(most, least, bank.ordinal);
+                }
+            }
+            return index;
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Persists the index to its sidecar file
+     *
+     * @param indexFile the sidecar file holding the index
+     * @throws IOException if there's an error writing the file
+     */
+    public void write(Path indexFile) throws IOException {
+        FileUtils.writeFileAtomically(indexFile, output -> {
+            DataOutputStream data = new DataOutputStream(output);
+            data.writeInt(MAGIC);
+            data.writeInt(FORMAT_VERSION);
+            data.writeInt(banks.size());
+            for (Bank bank : banksByOrdinal) {
+                if (bank == null) {
+                    continue;
+                }
+                data.writeUTF(bank.name);
+                data.writeLong(bank.sizeBytes);
+                data.writeLong(bank.lastModified);
+                data.writeInt(bank.count);
+                data.writeInt(bank.ids.size);
+                IdTable ids = bank.ids;
+                for (int slot = 0; slot < ids.values.length; slot++) {
+                    if (ids.values[slot] != EMPTY) {
+                        data.writeLong(ids.mostSignificantBits[slot]);
+                        data.writeLong(ids.leastSignificantBits[slot]);
+                        data.writeInt(ids.values[slot]);
+                    }
+                }
+            }
+            data.flush();
+        });
+    }
+
+    private Bank requireBank(String questionBank) {
+        Bank bank = banks.get(questionBank);
+        if (bank == null) {
+            throw new IllegalArgumentException("Question bank is not indexed: " + questionBank);
+        }
+        return bank;
+    }
+
+    /**
+     * Adds an empty bank under the first free ordinal
+     */
+    private Bank addBank(String questionBank) {
+        int ordinal = banksByOrdinal.indexOf(null);
+        if (ordinal == EMPTY) {
+            ordinal = banksByOrdinal.size();
+            banksByOrdinal.add(null);
+        }
+        Bank bank = new Bank(questionBank, ordinal);
+        banksByOrdinal.set(ordinal, bank);
+        banks.put(questionBank, bank);
+        return bank;
+    }
+
+    /**
+     * Points an id that left a bank to another bank still holding it, or drops it
+     * if no bank does
+     */
+    private void release(long most, long least, Bank bank) {
+        if (owners.get(most, least) != bank.ordinal) {
+            return;
+        }
+        for (int ordinal = banksByOrdinal.size() - 1; ordinal >= 0; ordinal--) {
+            Bank other = banksByOrdinal.get(ordinal);
+            if (other != null && other != bank && other.ids.get(most, least) != EMPTY) {
+                owners.put(most, least, ordinal);
+                return;
+            }
+        }
+        owners.remove(most, least);
+    }
+
+    private static int capacityFor(int entries) {
+        int capacity = INITIAL_CAPACITY;
+        while (entries * 4L > capacity * 3L) {
+            capacity *= 2;
+        }
+        return capacity;
+    }
+
+    private static int hash(long most, long least) {
+        // Finalizer of MurmurHash3, random UUIDs are already well mixed but ids
+        // may come from anywhere
+        long hash = most ^ least;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return (int) hash;
+    }
+
+    /**
+     * Where a question is
+     *
+     * @param questionBank the bank holding the question
+     * @param position     the position of the question in the bank
+     */
+    public record Location(String questionBank, int position) {
+    }
+
+    /**
+     * An indexed bank, the positions of its ids and the state it was indexed at
+     */
+    private static final class Bank {
+        private final String name;
+        private final int ordinal;
+        private IdTable ids = new IdTable(INITIAL_CAPACITY);
+        private long sizeBytes;
+        private long lastModified;
+        private int count;
+
+        Bank(String name, int ordinal) {
+            this.name = name;
+            this.ordinal = ordinal;
+        }
+    }
+
+    /**
+     * Open addressing hash table from ids to non-negative ints, with linear
+     * probing and backward shift deletion
+     */
+    private static final class IdTable {
+        private long[] mostSignificantBits;
+        private long[] leastSignificantBits;
+        private int[] values;
+        private int size;
+
+        IdTable(int capacity) {
+            allocate(capacity);
+        }
+
+        /**
+         * @return the value of the id, EMPTY if the id is not in the table
+         */
+        int get(long most, long least) {
+            return values[slotOf(most, least)];
+        }
+
+        void put(long most, long least, int value) {
+            if ((size + 1) * 4L > values.length * 3L) {
+                resize(values.length * 2);
+            }
+            int slot = slotOf(most, least);
+            if (values[slot] == EMPTY) {
+                size++;
+            }
+            mostSignificantBits[slot] = most;
+            leastSignificantBits[slot] = least;
+            values[slot] = value;
+        }
+
+        /**
+         * @return the value the id had, EMPTY if the id was not in the table
+         */
+        int remove(long most, long least) {
+            int slot = slotOf(most, least);
+            int value = values[slot];
+            if (value != EMPTY) {
+                removeSlot(slot);
+            }
+            return value;
+        }
+
+        /**
+         * Lowers every value by the number of removed values below it
+         *
+         * @param removed the removed values in ascending order
+         */
+        void shiftValues(int[] removed) {
+            for (int slot = 0; slot < values.length; slot++) {
+                if (values[slot] != EMPTY) {
+                    int below = Arrays.binarySearch(removed, values[slot]);
+                    values[slot] -= below >= 0 ? below : -below - 1;
+                }
+            }
+        }
+
+        void forEach(EntryConsumer consumer) {
+            for (int slot = 0; slot < values.length; slot++) {
+                if (values[slot] != EMPTY) {
+                    consumer.accept(mostSignificantBits[slot], leastSignificantBits[slot], values[slot]);
+                }
+            }
+        }
+
+        /**
+         * @return the slot holding the id, or the empty slot ending its probe sequence
+         */
+        private int slotOf(long most, long least) {
+            int mask = values.length - 1;
+            int slot = hash(most, least) & mask;
+            while (values[slot] != EMPTY
+                    && (mostSignificantBits[slot] != most || leastSignificantBits[slot] != least)) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        /**
+         * Empties a slot and moves the entries after it back, so that probe
+         * sequences stay unbroken without tombstones
+         */
+        private void removeSlot(int slot) {
+            int mask = values.length - 1;
+            int empty = slot;
+            int next = slot;
+            while (true) {
+                next = (next + 1) & mask;
+                if (values[next] == EMPTY) {
+                    break;
+                }
+                int home = hash(mostSignificantBits[next], leastSignificantBits[next]) & mask;
+                // Move the entry if its home slot is not between the empty slot and it
+                boolean movable = empty <= next ? (home <= empty || home > next) : (home <= empty && home > next);
+                if (movable) {
+                    mostSignificantBits[empty] = mostSignificantBits[next];
+                    leastSignificantBits[empty] = leastSignificantBits[next];
+                    values[empty] = values[next];
+                    empty = next;
+                }
+            }
+            values[empty] = EMPTY;
+            size--;
+        }
+
+        private void resize(int capacity) {
+            long[] oldMost = mostSignificantBits;
+            long[] oldLeast = leastSignificantBits;
+            int[] oldValues = values;
+            allocate(capacity);
+            for (int slot = 0; slot < oldValues.length; slot++) {
+                if (oldValues[slot] != EMPTY) {
+                    put(oldMost[slot], oldLeast[slot], oldValues[slot]);
+                }
+            }
+        }
+
+        private void allocate(int capacity) {
+            mostSignificantBits = new long[capacity];
+            leastSignificantBits = new long[capacity];
+            values = new int[capacity];
+            Arrays.fill(values, EMPTY);
+            size = 0;
+        }
+    }
+
+    @FunctionalInterface
+    private interface EntryConsumer {
+        void accept(long most, long least, int value);
+    }
+}
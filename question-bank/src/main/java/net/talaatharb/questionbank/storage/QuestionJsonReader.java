@@ -0,0 +1,151 @@
+package net.talaatharb.questionbank.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import lombok.extern.slf4j.Slf4j;
+import net.talaatharb.questionbank.config.HelperBeans;
+import net.talaatharb.questionbank.dto.QuestionDto;
+
+/**
+ * Token level reader for a JSON question bank. The bank is expected to be a
+ * JSON array of question objects, and only one question is materialized at a
+ * time, so a bank can be consumed without ever holding it in full. Binary
+ * encodings of JSON are read the same way through the parser of their
+ * {@link BankCodec}.
+ */
+@Slf4j
+public class QuestionJsonReader implements Iterator<QuestionDto>, Closeable {
+
+    private final JsonParser parser;
+    private final ObjectReader questionReader;
+    private QuestionDto next;
+    private boolean finished;
+
+    /**
+     * Creates a reader over the given input, the stream is closed together with
+     * the reader
+     *
+     * @param input the JSON content of a question bank
+     * @throws IOException if the content does not start with a JSON array
+     */
+    public QuestionJsonReader(InputStream input) throws IOException {
+        this(input, HelperBeans.buildObjectMapper().readerFor(QuestionDto.class));
+    }
+
+    /**
+     * Creates a reader over input in the encoding of the given question reader,
+     * the stream is closed together with the reader
+     *
+     * @param input          the encoded content of a question bank
+     * @param questionReader reader of single questions, its factory parses the
+     *                       input
+     * @throws IOException if the content does not start with an array
+     */
+    public QuestionJsonReader(InputStream input, ObjectReader questionReader) throws IOException {
+        this.questionReader = questionReader;
+        this.parser = questionReader.createParser(input);
+
+        JsonToken firstToken = parser.nextToken();
+        if (firstToken != JsonToken.START_ARRAY) {
+            parser.close();
+            throw new JsonParseException(parser, "Expected a JSON array of questions but found " + firstToken);
+        }
+    }
+
+    /**
+     * Opens a reader that reads the given file straight from a file channel
+     *
+     * @param file the question bank file
+     * @return reader positioned before the first question
+     * @throws IOException if the file cannot be opened or is not a JSON array
+     */
+    public static QuestionJsonReader open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new QuestionJsonReader(Channels.newInputStream(channel));
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null && !finished) {
+            try {
+                next = readNext();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public QuestionDto next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        QuestionDto current = next;
+        next = null;
+        return current;
+    }
+
+    /**
+     * Wraps the remaining questions in a sequential stream, closing the stream
+     * closes this reader
+     *
+     * @return stream of the remaining questions
+     */
+    public Stream<QuestionDto> stream() {
+        return StreamSupport
+                .stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(this::closeQuietly);
+    }
+
+    @Override
+    public void close() throws IOException {
+        finished = true;
+        next = null;
+        parser.close();
+    }
+
+    private QuestionDto readNext() throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == JsonToken.START_OBJECT) {
+            return questionReader.readValue(parser);
+        }
+
+        finished = true;
+        if (token != JsonToken.END_ARRAY) {
+            throw new JsonParseException(parser, "Expected a question object but found " + token);
+        }
+        return null;
+    }
+
+    private void closeQuietly() {
+        try {
+            close();
+        } catch (IOException e) {
+            log.trace("Error closing question reader", e);
+        }
+    }
+}
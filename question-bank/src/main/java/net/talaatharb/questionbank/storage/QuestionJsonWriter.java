@@ -0,0 +1,82 @@
+package net.talaatharb.questionbank.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import net.talaatharb.questionbank.config.HelperBeans;
+import net.talaatharb.questionbank.dto.QuestionDto;
+
+/**
+ * Token level writer for a JSON question bank. Questions are written one at a
+ * time through a {@link JsonGenerator}, so the bank is never rendered into a
+ * single String. The underlying stream is owned by the caller and is not
+ * closed by this writer.
+ */
+public class QuestionJsonWriter implements Closeable {
+
+    private final JsonGenerator generator;
+    private final ObjectWriter questionWriter;
+
+    /**
+     * Creates a writer and opens the JSON array of questions
+     *
+     * @param output the stream to write the bank to
+     * @throws IOException if the array cannot be started
+     */
+    public QuestionJsonWriter(OutputStream output) throws IOException {
+        this(output, HelperBeans.buildObjectMapper().writerFor(QuestionDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE));
+    }
+
+    /**
+     * Creates a writer in the encoding of the given question writer and opens the
+     * array of questions, the bank is indented if the question writer indents
+     *
+     * @param output         the stream to write the bank to
+     * @param questionWriter writer of single questions, its factory generates the
+     *                       output
+     * @throws IOException if the array cannot be started
+     */
+    public QuestionJsonWriter(OutputStream output, ObjectWriter questionWriter) throws IOException {
+        this.questionWriter = questionWriter;
+        this.generator = questionWriter.createGenerator(output)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.writeStartArray();
+    }
+
+    /**
+     * Writes all the given questions as a complete JSON bank
+     *
+     * @param output    the stream to write the bank to
+     * @param questions the questions to write
+     * @throws IOException if there's an error writing a question
+     */
+    public static void writeAll(OutputStream output, Iterator<QuestionDto> questions) throws IOException {
+        try (QuestionJsonWriter writer = new QuestionJsonWriter(output)) {
+            while (questions.hasNext()) {
+                writer.write(questions.next());
+            }
+        }
+    }
+
+    public void write(QuestionDto question) throws IOException {
+        questionWriter.writeValue(generator, question);
+    }
+
+    /**
+     * Closes the JSON array and flushes the generator
+     */
+    @Override
+    public void close() throws IOException {
+        if (!generator.isClosed()) {
+            generator.writeEndArray();
+            generator.close();
+        }
+    }
+}
@@ -0,0 +1,385 @@
+package net.talaatharb.questionbank.storage;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import net.talaatharb.questionbank.dto.QuestionDto;
+import net.talaatharb.questionbank.dto.QuestionField;
+
+/**
+ * Column oriented, read only copy of a question bank. Every text field is kept
+ * as one UTF-8 byte array shared by all rows plus an offset per row, ids as two
+ * primitive longs and the creation and update times additionally as epoch
+ * milliseconds, so a bank costs a few arrays instead of an object and up to
+ * sixteen Strings per question.
+ * <p>
+ * Scans over one field, such as finding the rows of a category or ordering the
+ * rows by update time, run over the primitive arrays of that field only. Rows
+ * are turned into {@link QuestionDto} objects on access.
+ */
+public class QuestionTable implements Iterable<QuestionDto> {
+
+    /**
+     * Time of a row whose timestamp field is missing or not an ISO-8601 date
+     */
+    public static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
+    private static final QuestionField[] FIELDS = QuestionField.values();
+    private static final long ARRAY_OVERHEAD = 16L;
+
+    private final int size;
+    private final long[] idMostSignificantBits;
+    private final long[] idLeastSignificantBits;
+    private final BitSet ids;
+    private final long[] createdAt;
+    private final long[] updatedAt;
+    private final TextColumn[] columns;
+
+    private QuestionTable(Builder builder) {
+        this.size = builder.size;
+        this.idMostSignificantBits = Arrays.copyOf(builder.idMostSignificantBits, size);
+        this.idLeastSignificantBits = Arrays.copyOf(builder.idLeastSignificantBits, size);
+        this.ids = (BitSet) builder.ids.clone();
+        this.createdAt = Arrays.copyOf(builder.createdAt, size);
+        this.updatedAt = Arrays.copyOf(builder.updatedAt, size);
+        this.columns = new TextColumn[FIELDS.length];
+        for (int i = 0; i < FIELDS.length; i++) {
+            columns[i] = builder.columns[i].build(size);
+        }
+    }
+
+    /**
+     * Builds a table from questions
+     *
+     * @param questions the questions, in row order
+     * @return the table holding a copy of the questions
+     */
+    public static QuestionTable of(Iterator<QuestionDto> questions) {
+        Builder builder = new Builder();
+        questions.forEachRemaining(builder::add);
+        return builder.build();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param row the index of the row
+     * @return a view of the row
+     */
+    public Row getRow(int row) {
+        return new Row(checkRow(row));
+    }
+
+    public QuestionDto getQuestion(int row) {
+        return getRow(row).toQuestionDto();
+    }
+
+    /**
+     * Finds the rows whose field has exactly the given value, comparing the UTF-8
+     * bytes in place without decoding any row
+     *
+     * @param field the field to compare
+     * @param value the value to look for, null finds the rows without a value
+     * @return the matching rows in ascending order
+     */
+    public int[] findRows(QuestionField field, String value) {
+        TextColumn column = columns[field.ordinal()];
+        if (value == null) {
+            return column.nulls.stream().toArray();
+        }
+
+        byte[] expected = value.getBytes(StandardCharsets.UTF_8);
+        int[] matches = new int[16];
+        int count = 0;
+        for (int row = 0; row < size; row++) {
+            int start = column.offsets[row];
+            int end = column.offsets[row + 1];
+            if (end - start == expected.length
+                    && Arrays.equals(column.bytes, start, end, expected, 0, expected.length)
+                    && !column.nulls.get(row)) {
+                if (count == matches.length) {
+                    matches = Arrays.copyOf(matches, count * 2);
+                }
+                matches[count++] = row;
+            }
+        }
+        return Arrays.copyOf(matches, count);
+    }
+
+    /**
+     * Orders the rows by creation time, rows without a valid time come first
+     *
+     * @return the rows in ascending order of creation, equal times keep the row
+     *         order
+     */
+    public int[] sortByCreatedAt() {
+        return sortBy(createdAt);
+    }
+
+    /**
+     * Orders the rows by update time, rows without a valid time come first
+     *
+     * @return the rows in ascending order of update, equal times keep the row
+     *         order
+     */
+    public int[] sortByUpdatedAt() {
+        return sortBy(updatedAt);
+    }
+
+    /**
+     * Estimates the heap retained by the table, which only depends on the number
+     * of rows and the total length of the text
+     *
+     * @return estimated retained size in bytes
+     */
+    public long estimateRetainedBytes() {
+        long bytes = 4 * ARRAY_OVERHEAD + 4L * Long.BYTES * size + size / Byte.SIZE;
+        for (TextColumn column : columns) {
+            bytes += 2 * ARRAY_OVERHEAD + column.bytes.length + (long) Integer.BYTES * (size + 1) + size / Byte.SIZE;
+        }
+        return bytes;
+    }
+
+    @Override
+    public Iterator<QuestionDto> iterator() {
+        return new Iterator<>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public QuestionDto next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return getQuestion(next++);
+            }
+        };
+    }
+
+    public Stream<QuestionDto> stream() {
+        return IntStream.range(0, size).mapToObj(this::getQuestion);
+    }
+
+    /**
+     * Parses an ISO-8601 instant, date-time or date, local times are taken as UTC
+     *
+     * @param value the timestamp text
+     * @return epoch milliseconds, {@link #NO_TIMESTAMP} if the value is missing or
+     *         not a date
+     */
+    static long parseTimestamp(String value) {
+        if (value == null || value.isBlank()) {
+            return NO_TIMESTAMP;
+        }
+        String text = value.trim();
+        try {
+            if (text.length() == 10) {
+                return LocalDate.parse(text).atStartOfDay().toInstant(ZoneOffset.UTC).toEpochMilli();
+            }
+            if (text.endsWith("Z")) {
+                return Instant.parse(text).toEpochMilli();
+            }
+            if (text.lastIndexOf('+') > 0 || text.lastIndexOf('-') > text.indexOf('T')) {
+                return OffsetDateTime.parse(text).toInstant().toEpochMilli();
+            }
+            return LocalDateTime.parse(text).toInstant(ZoneOffset.UTC).toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return NO_TIMESTAMP;
+        }
+    }
+
+    private int[] sortBy(long[] keys) {
+        int[] rows = IntStream.range(0, size).toArray();
+        mergeSort(rows, new int[size], 0, size, keys);
+        return rows;
+    }
+
+    /**
+     * Stable merge sort of row indexes by a primitive key, no boxing
+     */
+    private static void mergeSort(int[] rows, int[] buffer, int from, int to, long[] keys) {
+        if (to - from < 2) {
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        mergeSort(rows, buffer, from, middle, keys);
+        mergeSort(rows, buffer, middle, to, keys);
+        if (keys[rows[middle - 1]] <= keys[rows[middle]]) {
+            return;
+        }
+
+        System.arraycopy(rows, from, buffer, from, to - from);
+        int left = from;
+        int right = middle;
+        for (int i = from; i < to; i++) {
+            if (right >= to || (left < middle && keys[buffer[left]] <= keys[buffer[right]])) {
+                rows[i] = buffer[left++];
+            } else {
+                rows[i] = buffer[right++];
+            }
+        }
+    }
+
+    private int checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " of table with " + size + " rows");
+        }
+        return row;
+    }
+
+    /**
+     * View of a single row, values are decoded on access
+     */
+    public class Row {
+
+        private final int index;
+
+        private Row(int index) {
+            this.index = index;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public UUID getId() {
+            return ids.get(index) ? new UUID(idMostSignificantBits[index], idLeastSignificantBits[index]) : null;
+        }
+
+        public String get(QuestionField field) {
+            return columns[field.ordinal()].get(index);
+        }
+
+        /**
+         * @return creation time in epoch milliseconds, {@link #NO_TIMESTAMP} if
+         *         missing
+         */
+        public long getCreatedAtMillis() {
+            return createdAt[index];
+        }
+
+        /**
+         * @return update time in epoch milliseconds, {@link #NO_TIMESTAMP} if
+         *         missing
+         */
+        public long getUpdatedAtMillis() {
+            return updatedAt[index];
+        }
+
+        public QuestionDto toQuestionDto() {
+            QuestionDto question = new QuestionDto();
+            question.setId(getId());
+            for (QuestionField field : FIELDS) {
+                field.set(question, get(field));
+            }
+            return question;
+        }
+    }
+
+    /**
+     * Accumulates rows into growing column arrays
+     */
+    public static class Builder {
+
+        private int size;
+        private long[] idMostSignificantBits = new long[64];
+        private long[] idLeastSignificantBits = new long[64];
+        private final BitSet ids = new BitSet();
+        private long[] createdAt = new long[64];
+        private long[] updatedAt = new long[64];
+        private final TextColumnBuilder[] columns = new TextColumnBuilder[FIELDS.length];
+
+        public Builder() {
+            for (int i = 0; i < FIELDS.length; i++) {
+                columns[i] = new TextColumnBuilder();
+            }
+        }
+
+        public Builder add(QuestionDto question) {
+            if (size == idMostSignificantBits.length) {
+                int capacity = size * 2;
+                idMostSignificantBits = Arrays.copyOf(idMostSignificantBits, capacity);
+                idLeastSignificantBits = Arrays.copyOf(idLeastSignificantBits, capacity);
+                createdAt = Arrays.copyOf(createdAt, capacity);
+                updatedAt = Arrays.copyOf(updatedAt, capacity);
+            }
+
+            UUID id = question.getId();
+            if (id != null) {
+                ids.set(size);
+                idMostSignificantBits[size] = id.getMostSignificantBits();
+                idLeastSignificantBits[size] = id.getLeastSignificantBits();
+            }
+            createdAt[size] = parseTimestamp(question.getCreatedAt());
+            updatedAt[size] = parseTimestamp(question.getUpdatedAt());
+            for (int i = 0; i < FIELDS.length; i++) {
+                columns[i].add(size, FIELDS[i].get(question));
+            }
+            size++;
+            return this;
+        }
+
+        public QuestionTable build() {
+            return new QuestionTable(this);
+        }
+    }
+
+    private static class TextColumnBuilder {
+
+        private byte[] bytes = new byte[1024];
+        private int length;
+        private int[] offsets = new int[65];
+        private final BitSet nulls = new BitSet();
+
+        void add(int row, String value) {
+            if (row + 1 == offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            }
+            if (value == null) {
+                nulls.set(row);
+            } else {
+                byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+                if (length + encoded.length > bytes.length) {
+                    bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + encoded.length));
+                }
+                System.arraycopy(encoded, 0, bytes, length, encoded.length);
+                length += encoded.length;
+            }
+            offsets[row + 1] = length;
+        }
+
+        TextColumn build(int size) {
+            return new TextColumn(Arrays.copyOf(bytes, length), Arrays.copyOf(offsets, size + 1),
+                    (BitSet) nulls.clone());
+        }
+    }
+
+    private record TextColumn(byte[] bytes, int[] offsets, BitSet nulls) {
+
+        String get(int row) {
+            if (nulls.get(row)) {
+                return null;
+            }
+            int start = offsets[row];
+            return new String(bytes, start, offsets[row + 1] - start, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,460 @@
+package net.talaatharb.questionbank.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import net.talaatharb.questionbank.config.HelperBeans;
+import net.talaatharb.questionbank.dto.QuestionDto;
+import net.talaatharb.questionbank.utils.FileUtils;
+
+/**
+ * A question bank split into a folder of shard files, in the format and
+ * compression of the bank name, e.g. a sharded "questions.json.gz" is a folder
+ * of ".json.gz" shards. A manifest lists the shards in bank order with their
+ * question counts and content hashes, so a page is read from the shards it spans
+ * and a save only rewrites the shards whose questions changed.
+ * <p>
+ * Shards end after the questions whose id hashes to a multiple of the shard
+ * size, so they hold the shard size of questions on average and an inserted or
+ * deleted question only changes the shard holding it, instead of moving every
+ * later question into another shard. A save still hashes all questions to find
+ * the unchanged shards, which costs no writes.
+ * <p>
+ * Rewritten shards get new file names and the manifest is replaced atomically
+ * last, so readers always see either the old or the new bank.
+ */
+@Slf4j
+public class ShardedBank {
+
+    /**
+     * Name of the manifest file inside the folder of a sharded bank
+     */
+    public static final String MANIFEST_FILE = "manifest.json";
+
+    /**
+     * Average number of questions per shard unless set otherwise
+     */
+    public static final int DEFAULT_SHARD_SIZE = 1000;
+
+    /**
+     * Shards are cut at this many times the shard size, for runs of questions
+     * none of which ends a shard
+     */
+    private static final int MAX_SHARD_SIZE_FACTOR = 4;
+    private static final int FORMAT_VERSION = 1;
+    private static final String HASH_ALGORITHM = "SHA-256";
+
+    @Getter
+    private final Path folder;
+    @Getter
+    private final int shardSize;
+    @Getter
+    private final long lastModified;
+    private final List<Shard> shards;
+    private final int[] shardStarts;
+    private final int size;
+
+    private ShardedBank(Path folder, int shardSize, long lastModified, List<Shard> shards) {
+        this.folder = folder;
+        this.shardSize = shardSize;
+        this.lastModified = lastModified;
+        this.shards = shards;
+        this.shardStarts = new int[shards.size()];
+        int start = 0;
+        for (int i = 0; i < shards.size(); i++) {
+            shardStarts[i] = start;
+            start += shards.get(i).count();
+        }
+        this.size = start;
+    }
+
+    /**
+     * @param folder a path in the data folder
+     * @return true if the path is the folder of a sharded bank
+     */
+    public static boolean isShardedBank(Path folder) {
+        return Files.isRegularFile(folder.resolve(MANIFEST_FILE));
+    }
+
+    /**
+     * Opens a sharded bank by reading its manifest, no shard is read until its
+     * questions are
+     *
+     * @param folder the folder of the bank
+     * @return the opened bank
+     * @throws IOException if the manifest is missing or invalid
+     */
+    public static ShardedBank open(Path folder) throws IOException {
+        Path manifestFile = folder.resolve(MANIFEST_FILE);
+        long lastModified = Files.getLastModifiedTime(manifestFile).toMillis();
+        try (InputStream input = Files.newInputStream(manifestFile)) {
+            ManifestContent content = HelperBeans.buildObjectMapper().readValue(input, ManifestContent.class);
+            if (content.version() != FORMAT_VERSION || content.shards() == null) {
+                throw new IOException("Unsupported sharded bank manifest: " + manifestFile);
+            }
+            return new ShardedBank(folder, content.shardSize(), lastModified, List.copyOf(content.shards()));
+        }
+    }
+
+    /**
+     * @return number of questions in the bank
+     */
+    public int size() {
+        return size;
+    }
+
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    /**
+     * @return the combined size of the shard files
+     */
+    public long getSizeBytes() {
+        return shards.stream().mapToLong(Shard::sizeBytes).sum();
+    }
+
+    /**
+     * Streams the questions one shard after the other, only one shard is open at
+     * a time
+     *
+     * @return stream of the questions in bank order
+     */
+    public Stream<QuestionDto> stream() {
+        return shards.stream().flatMap(shard -> {
+            try {
+                return openShard(shard);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Reads all the questions, with the shards read and parsed in parallel
+     *
+     * @return the questions in bank order
+     * @throws IOException if a shard cannot be read
+     */
+    public List<QuestionDto> readAll() throws IOException {
+        try {
+            return shards.parallelStream()
+                    .map(this::readShardUnchecked)
+                    .flatMap(List::stream)
+                    .collect(ArrayList::new, ArrayList::add, ArrayList::addAll);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Reads a page of questions from the shards it spans
+     *
+     * @param offset position of the first question
+     * @param limit  maximum number of questions
+     * @return the questions, empty if offset is past the end
+     * @throws IOException if a shard cannot be read
+     */
+    public List<QuestionDto> getQuestions(int offset, int limit) throws IOException {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Offset and limit cannot be negative");
+        }
+
+        int end = (int) Math.min((long) offset + limit, size);
+        List<QuestionDto> page = new ArrayList<>(Math.max(end - offset, 0));
+        for (int shard = shardOf(offset); offset < end; shard++) {
+            List<QuestionDto> questions = readShard(shards.get(shard));
+            int from = offset - shardStarts[shard];
+            int to = Math.min(questions.size(), end - shardStarts[shard]);
+            page.addAll(questions.subList(from, to));
+            offset = shardStarts[shard] + to;
+        }
+        return page;
+    }
+
+    /**
+     * Reads the questions at the given positions, every shard holding one of them
+     * is read once
+     *
+     * @param positions the positions of the questions in the bank
+     * @return the questions by position, in the order of the positions
+     * @throws IOException if a shard cannot be read
+     */
+    public Map<Integer, QuestionDto> getQuestionsAt(int[] positions) throws IOException {
+        Map<Integer, List<QuestionDto>> readShards = new HashMap<>();
+        Map<Integer, QuestionDto> questions = new LinkedHashMap<>();
+        for (int position : positions) {
+            if (position < 0 || position >= size) {
+                continue;
+            }
+            int shard = shardOf(position);
+            List<QuestionDto> shardQuestions = readShards.get(shard);
+            if (shardQuestions == null) {
+                shardQuestions = readShard(shards.get(shard));
+                readShards.put(shard, shardQuestions);
+            }
+            questions.put(position, shardQuestions.get(position - shardStarts[shard]));
+        }
+        return questions;
+    }
+
+    /**
+     * Writes the questions as a sharded bank, reusing the shards of the current
+     * manifest whose questions did not change
+     *
+     * @param folder       the folder of the bank, created if missing
+     * @param questionBank the name of the bank whose format, compression and
+     *                     compression level the shards are written in
+     * @param questions    the questions of the bank
+     * @param shardSize    the average number of questions per shard
+     * @return the number of shards written
+     * @throws IOException if a shard or the manifest cannot be written
+     */
+    public static int write(Path folder, String questionBank, Iterator<QuestionDto> questions, int shardSize)
+            throws IOException {
+        PendingWrite write = prepare(folder, questionBank, questions, shardSize);
+        try {
+            write.commit();
+        } catch (IOException | RuntimeException e) {
+            write.discard();
+            throw e;
+        }
+        return write.getWrittenShardCount();
+    }
+
+    /**
+     * Writes the changed shards of the questions without installing them, so that
+     * the manifest can be replaced later, e.g. once a compaction is known to be
+     * current. The current bank stays readable until the write is committed.
+     *
+     * @param folder       the folder of the bank, created if missing
+     * @param questionBank the name of the bank whose format, compression and
+     *                     compression level the shards are written in
+     * @param questions    the questions of the bank
+     * @param shardSize    the average number of questions per shard
+     * @return the write to commit or discard
+     * @throws IOException if a shard cannot be written
+     */
+    public static PendingWrite prepare(Path folder, String questionBank, Iterator<QuestionDto> questions,
+            int shardSize) throws IOException {
+        if (shardSize < 1) {
+            throw new IllegalArgumentException("Shard size must be positive");
+        }
+
+        Files.createDirectories(folder);
+        Map<String, Shard> current = new HashMap<>();
+        if (isShardedBank(folder)) {
+            open(folder).shards.forEach(shard -> current.put(shard.hash(), shard));
+        }
+        int maxShardSize = (int) Math.min((long) shardSize * MAX_SHARD_SIZE_FACTOR, Integer.MAX_VALUE);
+        String extension = BankFormat.of(questionBank).getExtension()
+                + BankCompression.of(questionBank).getExtension();
+        // Unique per write, a compaction and a save may prepare shards concurrently
+        String token = Long.toHexString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE);
+
+        PendingWrite write = new PendingWrite(folder, shardSize);
+        try {
+            List<QuestionDto> chunk = new ArrayList<>(shardSize);
+            while (questions.hasNext()) {
+                QuestionDto question = questions.next();
+                chunk.add(question);
+                if (endsShard(question, shardSize) || chunk.size() == maxShardSize || !questions.hasNext()) {
+                    int index = write.shards.size();
+                    String hash = hash(chunk);
+                    Shard previous = current.get(hash);
+                    if (previous != null && previous.count() == chunk.size()) {
+                        write.shards.add(previous);
+                    } else {
+                        String file = String.format("%05d-%s%s", index, token, extension);
+                        Path shardFile = folder.resolve(file);
+                        FileUtils.writeQuestionsToFile(shardFile, questionBank, chunk.iterator());
+                        write.writtenFiles.add(file);
+                        write.shards.add(new Shard(file, chunk.size(), Files.size(shardFile), hash));
+                    }
+                    chunk.clear();
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            write.discard();
+            throw e;
+        }
+        return write;
+    }
+
+    /**
+     * Decides whether a shard ends after a question from the question alone, by
+     * its id or by its text if it has none
+     *
+     * @param question  the question
+     * @param shardSize the average number of questions per shard
+     * @return true for one question in shard size on average
+     */
+    static boolean endsShard(QuestionDto question, int shardSize) {
+        long key = question.getId() != null
+                ? question.getId().getMostSignificantBits() ^ question.getId().getLeastSignificantBits()
+                : Objects.hashCode(question.getQuestion());
+        // Finalizer of MurmurHash3, so that close keys end shards independently
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return Math.floorMod(key, shardSize) == 0;
+    }
+
+    private int shardOf(int position) {
+        int low = 0;
+        int high = shardStarts.length - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (shardStarts[middle] <= position) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    private Stream<QuestionDto> openShard(Shard shard) throws IOException {
+        Path shardFile = folder.resolve(shard.file());
+        if (BankFormat.of(shard.file()) == BankFormat.QBIN) {
+            return QbinBank.open(shardFile).stream();
+        }
+        return BankFormat.of(shard.file()).getCodec().open(shardFile).stream();
+    }
+
+    private List<QuestionDto> readShard(Shard shard) throws IOException {
+        try (Stream<QuestionDto> questions = openShard(shard)) {
+            return questions.toList();
+        } catch (NoSuchFileException e) {
+            throw new IOException("Missing shard " + shard.file() + " of sharded bank " + folder, e);
+        }
+    }
+
+    private List<QuestionDto> readShardUnchecked(Shard shard) {
+        try {
+            return readShard(shard);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * SHA-256 of the compact JSON of the questions, independent of the format the
+     * shard is written in
+     */
+    private static String hash(List<QuestionDto> questions) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance(HASH_ALGORITHM);
+            try (OutputStream output = new DigestOutputStream(OutputStream.nullOutputStream(), digest)) {
+                BankFormat.JSON_COMPACT.getCodec().writeAll(output, questions.iterator());
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(HASH_ALGORITHM + " is not available", e);
+        }
+    }
+
+    /**
+     * Shards written by {@link ShardedBank#prepare} that are not part of the bank
+     * yet
+     */
+    public static class PendingWrite {
+
+        private final Path folder;
+        private final int shardSize;
+        private final List<Shard> shards = new ArrayList<>();
+        private final List<String> writtenFiles = new ArrayList<>();
+
+        private PendingWrite(Path folder, int shardSize) {
+            this.folder = folder;
+            this.shardSize = shardSize;
+        }
+
+        /**
+         * @return the number of shards that were rewritten
+         */
+        public int getWrittenShardCount() {
+            return writtenFiles.size();
+        }
+
+        /**
+         * Replaces the manifest of the bank and deletes the shards it no longer
+         * lists
+         *
+         * @throws IOException if the manifest cannot be written
+         */
+        public void commit() throws IOException {
+            Set<String> previousFiles = new HashSet<>();
+            if (isShardedBank(folder)) {
+                open(folder).shards.forEach(shard -> previousFiles.add(shard.file()));
+            }
+
+            ManifestContent content = new ManifestContent(FORMAT_VERSION, shardSize, List.copyOf(shards));
+            ObjectWriter writer = HelperBeans.buildObjectMapper().writer()
+                    .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            FileUtils.writeFileAtomically(folder.resolve(MANIFEST_FILE), output -> writer.writeValue(output, content));
+
+            shards.forEach(shard -> previousFiles.remove(shard.file()));
+            for (String file : previousFiles) {
+                try {
+                    Files.deleteIfExists(folder.resolve(file));
+                } catch (IOException e) {
+                    // An unlisted shard is never read, it only wastes space
+                    log.debug("Error deleting replaced shard: {}", folder.resolve(file), e);
+                }
+            }
+        }
+
+        /**
+         * Deletes the shards written for this write
+         *
+         * @throws IOException if a shard cannot be deleted
+         */
+        public void discard() throws IOException {
+            for (String file : writtenFiles) {
+                Files.deleteIfExists(folder.resolve(file));
+            }
+        }
+    }
+
+    /**
+     * A shard as listed in the manifest
+     *
+     * @param file      the name of the shard file in the bank folder
+     * @param count     the number of questions in the shard
+     * @param sizeBytes the size of the shard file
+     * @param hash      the hash of the questions of the shard
+     */
+    private record Shard(String file, int count, long sizeBytes, String hash) {
+    }
+
+    private record ManifestContent(int version, int shardSize, List<Shard> shards) {
+    }
+}
@@ -2,7 +2,10 @@ package net.talaatharb.questionbank.ui.controllers;
 
 import java.io.IOException;
 import java.net.URL;
+import java.time.Duration;
 import java.util.ResourceBundle;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -15,26 +18,41 @@ import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import net.talaatharb.questionbank.config.HelperBeans;
-import net.talaatharb.questionbank.service.QuestionService;
+import net.talaatharb.questionbank.service.AsyncQuestionService;
+import net.talaatharb.questionbank.service.SaveScheduler;
+import net.talaatharb.questionbank.storage.BankDirectoryWatcher;
 import net.talaatharb.questionbank.utils.GUIUtils;
 
 @Slf4j
 public class MainUiController implements Initializable, SceneManager {
 
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(10);
+    private static final String QUESTION_BANK_LIST_FXML = "/net/talaatharb/questionbank/ui/QuestionBankList.fxml";
+    private static final String QUESTION_VIEWER_FXML = "/net/talaatharb/questionbank/ui/QuestionViewer.fxml";
+    private static final String QUESTION_EDITOR_FXML = "/net/talaatharb/questionbank/ui/QuestionEditor.fxml";
+
     @Getter(value = AccessLevel.PACKAGE)
     @Setter(value = AccessLevel.PACKAGE)
     @FXML
     private AnchorPane mainContainer;
     
     private Stage primaryStage;
-    private QuestionService questionService;
+    private AsyncQuestionService questionService;
+    private SaveScheduler saveScheduler;
+    private BankDirectoryWatcher bankDirectoryWatcher;
+    private Runnable currentSceneDisposer;
+    private CachedScene<QuestionBankListController> bankListScene;
+    private CachedScene<QuestionViewerController> viewerScene;
+    private CachedScene<QuestionEditorController> editorScene;
     
     @Override
     public void initialize(URL location, ResourceBundle resources) {
         log.debug("Initializing UI application Main window controller...");
         
         // Initialize services
-        questionService = HelperBeans.buildQuestionService();
+        questionService = HelperBeans.buildAsyncQuestionService();
+        saveScheduler = HelperBeans.buildSaveScheduler();
+        bankDirectoryWatcher = HelperBeans.buildBankDirectoryWatcher();
     }
 
     public void setPrimaryStage(Stage primaryStage) {
@@ -47,75 +65,147 @@ public class MainUiController implements Initializable, SceneManager {
 
     @Override
     public void switchToQuestionBankList() {
+        long start = System.nanoTime();
+        boolean cached = bankListScene != null;
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/net/talaatharb/questionbank/ui/QuestionBankList.fxml"));
-            Parent root = loader.load();
-            QuestionBankListController controller = loader.getController();
-            controller.setQuestionService(questionService);
-            controller.setSceneManager(this);
-            
-            // Clear the main container and add the new content
-            mainContainer.getChildren().clear();
-            mainContainer.getChildren().add(root);
-            GUIUtils.setAnchorZero(root);
-            
-            if (primaryStage != null) {
-                primaryStage.setTitle("Question Bank Manager - Question Banks");
-            }
-            
-            log.debug("Switched to question bank list scene");
+            bankListScene = loadScene(bankListScene, QUESTION_BANK_LIST_FXML, controller -> {
+                controller.setBankDirectoryWatcher(bankDirectoryWatcher);
+                controller.setQuestionService(questionService);
+                controller.setSceneManager(this);
+            });
         } catch (IOException e) {
             log.debug("Error switching to question bank list scene", e);
+            return;
+        }
+
+        QuestionBankListController controller = bankListScene.controller();
+        replaceCurrentScene(controller::dispose);
+        if (cached) {
+            controller.reset();
         }
+        showScene(bankListScene.root(), "Question Bank Manager - Question Banks");
+        log.debug("Switched to question bank list scene in {} µs, cached: {}", elapsedMicros(start), cached);
     }
 
     @Override
     public void switchToQuestionViewer(String questionBank) {
+        long start = System.nanoTime();
+        boolean cached = viewerScene != null;
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/net/talaatharb/questionbank/ui/QuestionViewer.fxml"));
-            Parent root = loader.load();
-            QuestionViewerController controller = loader.getController();
-            controller.setQuestionService(questionService);
-            controller.setSceneManager(this);
-            controller.loadQuestionBank(questionBank);
-            
-            // Clear the main container and add the new content
-            mainContainer.getChildren().clear();
-            mainContainer.getChildren().add(root);
-            GUIUtils.setAnchorZero(root);
-            
-            if (primaryStage != null) {
-                primaryStage.setTitle("Question Bank Manager - Viewer: " + questionBank);
-            }
-            
-            log.debug("Switched to question viewer scene for bank: {}", questionBank);
+            viewerScene = loadScene(viewerScene, QUESTION_VIEWER_FXML, controller -> {
+                controller.setQuestionService(questionService);
+                controller.setSceneManager(this);
+            });
         } catch (IOException e) {
             log.debug("Error switching to question viewer scene", e);
+            return;
         }
+
+        QuestionViewerController controller = viewerScene.controller();
+        replaceCurrentScene(controller::dispose);
+        controller.loadQuestionBank(questionBank);
+        showScene(viewerScene.root(), "Question Bank Manager - Viewer: " + questionBank);
+        log.debug("Switched to question viewer scene for bank: {} in {} µs, cached: {}", questionBank,
+                elapsedMicros(start), cached);
     }
 
     @Override
     public void switchToQuestionEditor(String questionBank) {
+        long start = System.nanoTime();
+        boolean cached = editorScene != null;
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/net/talaatharb/questionbank/ui/QuestionEditor.fxml"));
-            Parent root = loader.load();
-            QuestionEditorController controller = loader.getController();
-            controller.setQuestionService(questionService);
-            controller.setSceneManager(this);
-            controller.loadQuestionBank(questionBank);
-            
-            // Clear the main container and add the new content
-            mainContainer.getChildren().clear();
-            mainContainer.getChildren().add(root);
-            GUIUtils.setAnchorZero(root);
-            
-            if (primaryStage != null) {
-                primaryStage.setTitle("Question Bank Manager - Editor: " + questionBank);
-            }
-            
-            log.debug("Switched to question editor scene for bank: {}", questionBank);
+            editorScene = loadScene(editorScene, QUESTION_EDITOR_FXML, controller -> {
+                controller.setQuestionService(questionService);
+                controller.setSaveScheduler(saveScheduler);
+                controller.setHistoryPersisted(true);
+                controller.setSceneManager(this);
+            });
         } catch (IOException e) {
             log.debug("Error switching to question editor scene", e);
+            return;
+        }
+
+        QuestionEditorController controller = editorScene.controller();
+        replaceCurrentScene(controller::dispose);
+        controller.loadQuestionBank(questionBank);
+        showScene(editorScene.root(), "Question Bank Manager - Editor: " + questionBank);
+        log.debug("Switched to question editor scene for bank: {} in {} µs, cached: {}", questionBank,
+                elapsedMicros(start), cached);
+    }
+
+    /**
+     * Disposes the current scene and writes the saves still pending, called when
+     * the application stops
+     * 
+     * @return true if every save was written before the timeout
+     */
+    public boolean close() {
+        replaceCurrentScene(null);
+        if (saveScheduler == null || questionService == null) {
+            return true;
+        }
+
+        saveScheduler.close();
+        try {
+            boolean written = questionService.awaitWrites(SHUTDOWN_TIMEOUT);
+            if (!written) {
+                log.warn("Pending saves were not written within {} seconds", SHUTDOWN_TIMEOUT.toSeconds());
+            }
+            return written;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
         }
     }
+
+    /**
+     * Loads a scene the first time it is shown, later switches reuse its root
+     * node and controller and only reset the controller
+     * 
+     * @param cached the scene loaded before, null if not loaded yet
+     * @param fxml   the path of the FXML of the scene
+     * @param wiring sets the services of a newly loaded controller
+     * @return the cached or newly loaded scene
+     */
+    private <T> CachedScene<T> loadScene(CachedScene<T> cached, String fxml, Consumer<T> wiring) throws IOException {
+        if (cached != null) {
+            return cached;
+        }
+        FXMLLoader loader = new FXMLLoader(getClass().getResource(fxml));
+        Parent root = loader.load();
+        T controller = loader.getController();
+        wiring.accept(controller);
+        return new CachedScene<>(root, controller);
+    }
+
+    private void showScene(Parent root, String title) {
+        // Clear the main container and add the new content
+        mainContainer.getChildren().setAll(root);
+        GUIUtils.setAnchorZero(root);
+
+        if (primaryStage != null) {
+            primaryStage.setTitle(title);
+        }
+    }
+
+    private static long elapsedMicros(long start) {
+        return TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+    }
+
+    /**
+     * Disposes the controller of the scene being replaced, so that it stops
+     * listening for changes and cancels its pending loads
+     */
+    private void replaceCurrentScene(Runnable disposer) {
+        if (currentSceneDisposer != null) {
+            currentSceneDisposer.run();
+        }
+        currentSceneDisposer = disposer;
+    }
+
+    /**
+     * The root node and controller of a loaded FXML
+     */
+    private record CachedScene<T>(Parent root, T controller) {
+    }
 }
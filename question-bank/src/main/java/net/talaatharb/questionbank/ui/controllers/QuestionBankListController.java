@@ -1,5 +1,6 @@
 package net.talaatharb.questionbank.ui.controllers;
 
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -7,22 +8,40 @@ import javafx.fxml.Initializable;
 import javafx.scene.control.Button;
 import javafx.scene.control.ListView;
 import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
 import javafx.scene.control.TextInputDialog;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
+import net.talaatharb.questionbank.dto.QuestionBankSummaryDto;
 import net.talaatharb.questionbank.dto.QuestionDto;
-import net.talaatharb.questionbank.service.QuestionService;
+import net.talaatharb.questionbank.service.AsyncQuestionService;
+import net.talaatharb.questionbank.storage.BankDirectoryWatcher;
+import net.talaatharb.questionbank.storage.BankFormat;
 
 import java.net.URL;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 import java.util.ResourceBundle;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Slf4j
 public class QuestionBankListController implements Initializable {
 
+    private static final DateTimeFormatter LAST_MODIFIED_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")
+            .withZone(ZoneId.systemDefault());
+
     @Getter(value = AccessLevel.PACKAGE)
     @Setter(value = AccessLevel.PACKAGE)
     @FXML
@@ -53,8 +72,14 @@ public class QuestionBankListController implements Initializable {
     @FXML
     private Label statusLabel;
     
-    private QuestionService questionService;
+    private AsyncQuestionService questionService;
     private SceneManager sceneManager;
+    private BankDirectoryWatcher bankDirectoryWatcher;
+    private Map<String, QuestionBankSummaryDto> summaries = new HashMap<>();
+    private CompletableFuture<?> pendingRefresh;
+    private CompletableFuture<?> pendingSummaries;
+    private final Consumer<BankDirectoryWatcher.Change> bankChangeListener = change -> Platform
+            .runLater(() -> applyChange(change));
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
@@ -62,7 +87,7 @@ public class QuestionBankListController implements Initializable {
         setupEventHandlers();
     }
 
-    public void setQuestionService(QuestionService questionService) {
+    public void setQuestionService(AsyncQuestionService questionService) {
         this.questionService = questionService;
         refreshQuestionBanks();
     }
@@ -71,7 +96,56 @@ public class QuestionBankListController implements Initializable {
         this.sceneManager = sceneManager;
     }
 
+    /**
+     * Uses a directory watcher for the list of banks, refreshing then reads its
+     * in-memory snapshot and changes on disk are applied as they happen
+     * 
+     * @param bankDirectoryWatcher the started watcher of the data folder
+     */
+    public void setBankDirectoryWatcher(BankDirectoryWatcher bankDirectoryWatcher) {
+        dispose();
+        this.bankDirectoryWatcher = bankDirectoryWatcher;
+        if (bankDirectoryWatcher != null) {
+            bankDirectoryWatcher.addListener(bankChangeListener);
+        }
+    }
+
+    /**
+     * Shows the banks again when the scene is reused, listening for changes until
+     * disposed again
+     */
+    public void reset() {
+        setBankDirectoryWatcher(bankDirectoryWatcher);
+        questionBankListView.getSelectionModel().clearSelection();
+        refreshQuestionBanks();
+    }
+
+    /**
+     * Stops listening for changes and cancels pending loads, called when the scene
+     * is replaced
+     */
+    public void dispose() {
+        if (bankDirectoryWatcher != null) {
+            bankDirectoryWatcher.removeListener(bankChangeListener);
+        }
+        cancel(pendingRefresh);
+        cancel(pendingSummaries);
+    }
+
     private void setupEventHandlers() {
+        questionBankListView.setCellFactory(listView -> new ListCell<>() {
+            @Override
+            protected void updateItem(String questionBank, boolean empty) {
+                super.updateItem(questionBank, empty);
+                if (empty || questionBank == null) {
+                    setText(null);
+                } else {
+                    QuestionBankSummaryDto summary = summaries.get(questionBank);
+                    setText(summary == null ? questionBank : questionBank + "\n" + formatSummary(summary));
+                }
+            }
+        });
+
         openBankButton.setOnAction(event -> openSelectedBank());
         editBankButton.setOnAction(event -> editSelectedBank());
         refreshButton.setOnAction(event -> refreshQuestionBanks());
@@ -117,47 +191,156 @@ public class QuestionBankListController implements Initializable {
         if (result.isPresent() && !result.get().trim().isEmpty()) {
             String newBankName = result.get().trim();
             
-            // Ensure the filename ends with .json
-            if (!newBankName.toLowerCase().endsWith(".json")) {
-                newBankName += ".json";
+            // Ensure the filename has a bank extension, defaulting to .json
+            if (BankFormat.fromFileName(newBankName).isEmpty()) {
+                newBankName += BankFormat.JSON.getExtension();
             }
             
-            try {
-                // Create an empty question bank
-                List<QuestionDto> emptyQuestions = List.of();
-                questionService.saveQuestions(newBankName, emptyQuestions);
-                
-                log.debug("Created new question bank: {}", newBankName);
-                statusLabel.setText("Created new question bank: " + newBankName);
-                
+            // Create an empty question bank
+            String questionBank = newBankName;
+            statusLabel.setText("Creating question bank: " + questionBank);
+            questionService.saveQuestions(questionBank, List.<QuestionDto>of()).whenComplete((saved, error) -> {
+                if (error != null) {
+                    log.debug("Error creating new question bank: {}", questionBank, error);
+                    statusLabel.setText("Error creating question bank: " + error.getMessage());
+                    return;
+                }
+
+                log.debug("Created new question bank: {}", questionBank);
+                statusLabel.setText("Created new question bank: " + questionBank);
+
                 // Refresh the list to show the new bank
                 refreshQuestionBanks();
-                
+
                 // Optionally, open the editor for the new bank
                 if (sceneManager != null) {
-                    sceneManager.switchToQuestionEditor(newBankName);
+                    sceneManager.switchToQuestionEditor(questionBank);
                 }
-                
-            } catch (Exception e) {
-                log.debug("Error creating new question bank: {}", newBankName, e);
-                statusLabel.setText("Error creating question bank: " + e.getMessage());
-            }
+            });
         }
     }
 
     public void refreshQuestionBanks() {
-        if (questionService != null) {
-            try {
-                List<String> questionBanks = questionService.getQuestionBanks();
-                ObservableList<String> observableList = FXCollections.observableArrayList(questionBanks);
-                questionBankListView.setItems(observableList);
-                
-                statusLabel.setText(String.format("Found %d question banks", questionBanks.size()));
-                log.debug("Refreshed question banks, found {} banks", questionBanks.size());
-            } catch (Exception e) {
-                log.debug("Error refreshing question banks", e);
-                statusLabel.setText("Error loading question banks");
+        if (bankDirectoryWatcher != null) {
+            // The watcher keeps the list in memory, nothing to wait for
+            showQuestionBanks(bankDirectoryWatcher.getQuestionBanks());
+        } else if (questionService != null) {
+            cancel(pendingRefresh);
+            statusLabel.setText("Loading question banks...");
+            CompletableFuture<List<String>> refresh = questionService.getQuestionBanks();
+            pendingRefresh = refresh;
+            refresh.whenComplete((questionBanks, error) -> {
+                if (error instanceof CancellationException) {
+                    return;
+                }
+                if (error != null) {
+                    log.debug("Error refreshing question banks", error);
+                    statusLabel.setText("Error loading question banks");
+                    return;
+                }
+                showQuestionBanks(questionBanks);
+            });
+        }
+    }
+
+    private void showQuestionBanks(List<String> questionBanks) {
+        ObservableList<String> observableList = FXCollections.observableArrayList(questionBanks);
+        questionBankListView.setItems(observableList);
+        loadSummaries();
+
+        statusLabel.setText(String.format("Found %d question banks", questionBanks.size()));
+        log.debug("Refreshed question banks, found {} banks", questionBanks.size());
+    }
+
+    void applyChange(BankDirectoryWatcher.Change change) {
+        ObservableList<String> items = questionBankListView.getItems();
+        String questionBank = change.questionBank();
+        switch (change.kind()) {
+            case ADDED -> {
+                int position = Collections.binarySearch(items, questionBank);
+                if (position < 0) {
+                    items.add(-position - 1, questionBank);
+                }
+            }
+            case REMOVED -> {
+                items.remove(questionBank);
+                summaries.remove(questionBank);
             }
+            case MODIFIED -> log.trace("Question bank modified: {}", questionBank);
+        }
+        if (change.kind() != BankDirectoryWatcher.ChangeKind.REMOVED) {
+            loadSummary(questionBank);
+        }
+        statusLabel.setText(String.format("Found %d question banks", items.size()));
+    }
+
+    private void loadSummaries() {
+        if (questionService != null) {
+            // Summaries of changed banks are rebuilt by reading them, show the names
+            // first and fill the details in once they are ready
+            // The watcher knows the banks, only the folder is listed without one
+            cancel(pendingSummaries);
+            CompletableFuture<List<QuestionBankSummaryDto>> load = bankDirectoryWatcher != null
+                    ? questionService.getQuestionBankSummaries(bankDirectoryWatcher.getQuestionBanks())
+                    : questionService.getQuestionBankSummaries();
+            pendingSummaries = load;
+            load.whenComplete((result, error) -> {
+                if (error == null) {
+                    summaries = result.stream()
+                            .collect(Collectors.toMap(QuestionBankSummaryDto::getName, summary -> summary));
+                    questionBankListView.refresh();
+                } else if (!(error instanceof CancellationException)) {
+                    log.debug("Error loading question bank summaries", error);
+                }
+            });
+        }
+    }
+
+    /**
+     * Checks the summary of a single bank reported changed by the watcher
+     */
+    private void loadSummary(String questionBank) {
+        if (questionService != null) {
+            questionService.getQuestionBankSummary(questionBank).whenComplete((summary, error) -> {
+                if (error == null && summary.isPresent()
+                        && questionBankListView.getItems().contains(questionBank)) {
+                    summaries.put(questionBank, summary.get());
+                    questionBankListView.refresh();
+                } else if (error != null) {
+                    log.debug("Error loading summary of question bank: {}", questionBank, error);
+                }
+            });
+        }
+    }
+
+    private static void cancel(CompletableFuture<?> future) {
+        if (future != null) {
+            future.cancel(true);
+        }
+    }
+
+    static String formatSummary(QuestionBankSummaryDto summary) {
+        StringBuilder text = new StringBuilder();
+        text.append(summary.getQuestionCount()).append(summary.getQuestionCount() == 1 ? " question" : " questions");
+        text.append(" | ").append(formatSize(summary.getSizeBytes()));
+        if (summary.getCategories() != null && !summary.getCategories().isEmpty()) {
+            text.append(" | ").append(summary.getCategories().entrySet().stream()
+                    .map(category -> category.getKey() + " (" + category.getValue() + ")")
+                    .collect(Collectors.joining(", ")));
+        }
+        if (summary.getLanguages() != null && !summary.getLanguages().isEmpty()) {
+            text.append(" | ").append(String.join(", ", summary.getLanguages()));
+        }
+        text.append(" | ").append(LAST_MODIFIED_FORMAT.format(Instant.ofEpochMilli(summary.getLastModified())));
+        return text.toString();
+    }
+
+    private static String formatSize(long sizeBytes) {
+        if (sizeBytes < 1024) {
+            return sizeBytes + " B";
+        } else if (sizeBytes < 1024 * 1024) {
+            return String.format(Locale.ROOT, "%.1f KB", sizeBytes / 1024.0);
         }
+        return String.format(Locale.ROOT, "%.1f MB", sizeBytes / (1024.0 * 1024.0));
     }
-} 
\ No newline at end of file
+}
@@ -13,18 +13,39 @@ import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
+import net.talaatharb.questionbank.dto.QuestionChangeSetDto;
 import net.talaatharb.questionbank.dto.QuestionDto;
-import net.talaatharb.questionbank.service.QuestionService;
-
+import net.talaatharb.questionbank.dto.QuestionField;
+import net.talaatharb.questionbank.service.EditHistory;
+import net.talaatharb.questionbank.service.AsyncQuestionService;
+import net.talaatharb.questionbank.service.QuestionChangeTracker;
+import net.talaatharb.questionbank.service.QuestionConflictException;
+import net.talaatharb.questionbank.service.SaveScheduler;
+import net.talaatharb.questionbank.utils.FileUtils;
+import net.talaatharb.questionbank.utils.QuestionUtils;
+
+import java.io.IOException;
 import java.net.URL;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.ResourceBundle;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 @Slf4j
 public class QuestionEditorController implements Initializable {
 
+    private static final String HISTORY_SUFFIX = ".history";
+
     @Getter(value = AccessLevel.PACKAGE)
     @Setter(value = AccessLevel.PACKAGE)
     @FXML
@@ -70,6 +91,26 @@ public class QuestionEditorController implements Initializable {
     @FXML
     private Button deleteQuestionButton;
 
+    @Getter(value = AccessLevel.PACKAGE)
+    @Setter(value = AccessLevel.PACKAGE)
+    @FXML
+    private Button moveUpButton;
+
+    @Getter(value = AccessLevel.PACKAGE)
+    @Setter(value = AccessLevel.PACKAGE)
+    @FXML
+    private Button moveDownButton;
+
+    @Getter(value = AccessLevel.PACKAGE)
+    @Setter(value = AccessLevel.PACKAGE)
+    @FXML
+    private Button undoButton;
+
+    @Getter(value = AccessLevel.PACKAGE)
+    @Setter(value = AccessLevel.PACKAGE)
+    @FXML
+    private Button redoButton;
+
     @Getter(value = AccessLevel.PACKAGE)
     @Setter(value = AccessLevel.PACKAGE)
     @FXML
@@ -85,12 +126,17 @@ public class QuestionEditorController implements Initializable {
     @FXML
     private Label statusLabel;
 
-    private QuestionService questionService;
+    private AsyncQuestionService questionService;
+    private SaveScheduler saveScheduler;
     private SceneManager sceneManager;
     private List<QuestionDto> questions;
     private String currentQuestionBank;
     private int currentQuestionIndex = 0;
     private boolean hasUnsavedChanges = false;
+    private QuestionChangeTracker changeTracker = new QuestionChangeTracker();
+    private EditHistory history = new EditHistory();
+    private boolean historyPersisted = false;
+    private CompletableFuture<?> pendingLoad;
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
@@ -98,21 +144,61 @@ public class QuestionEditorController implements Initializable {
         setupEventHandlers();
     }
 
-    public void setQuestionService(QuestionService questionService) {
+    public void setQuestionService(AsyncQuestionService questionService) {
         this.questionService = questionService;
     }
 
+    public void setSaveScheduler(SaveScheduler saveScheduler) {
+        this.saveScheduler = saveScheduler;
+    }
+
+    /**
+     * @param historyPersisted true to keep the undo history of a bank in a sidecar
+     *                         file across restarts
+     */
+    public void setHistoryPersisted(boolean historyPersisted) {
+        this.historyPersisted = historyPersisted;
+    }
+
     public void setSceneManager(SceneManager sceneManager) {
         this.sceneManager = sceneManager;
     }
 
     public void loadQuestionBank(String questionBank) {
+        dispose();
         this.currentQuestionBank = questionBank;
         this.currentQuestionIndex = 0;
         this.hasUnsavedChanges = false;
+        this.changeTracker = new QuestionChangeTracker();
+        this.history = new EditHistory();
+        this.questions = new ArrayList<>();
+
+        // The scene is reused across banks, nothing of the previous bank is shown
+        clearQuestionDisplay();
+        updateHistoryButtons();
+        if (questionService == null) {
+            log.debug("No question service to load question bank: {}", questionBank);
+            statusLabel.setText("Error loading question bank");
+            return;
+        }
 
-        try {
-            questions = new ArrayList<>(questionService.getQuestions(questionBank));
+        statusLabel.setText("Loading questions from " + questionBank + "...");
+        CompletableFuture<List<QuestionDto>> load = questionService.getQuestions(questionBank);
+        pendingLoad = load;
+        load.whenComplete((loaded, error) -> {
+            if (error instanceof CancellationException) {
+                return;
+            }
+            if (error != null) {
+                log.debug("Error loading question bank for editing: {}", questionBank, error);
+                statusLabel.setText("Error loading question bank");
+                clearQuestionDisplay();
+                return;
+            }
+
+            questions = new ArrayList<>(loaded);
+            changeTracker.reset(questions);
+            restoreHistory(questionBank);
             if (questions.isEmpty()) {
                 statusLabel.setText("No questions found in this bank");
                 clearQuestionDisplay();
@@ -121,10 +207,48 @@ public class QuestionEditorController implements Initializable {
                 displayCurrentQuestion();
             }
             log.debug("Loaded question bank for editing: {} with {} questions", questionBank, questions.size());
-        } catch (Exception e) {
-            log.debug("Error loading question bank for editing: {}", questionBank, e);
-            statusLabel.setText("Error loading question bank");
-            clearQuestionDisplay();
+        });
+    }
+
+    /**
+     * Cancels a load that is still running and starts the pending save of the
+     * bank, called when the scene is replaced
+     */
+    public void dispose() {
+        if (pendingLoad != null) {
+            pendingLoad.cancel(true);
+        }
+        if (saveScheduler != null && currentQuestionBank != null) {
+            saveScheduler.flush(currentQuestionBank);
+        }
+        persistHistory();
+    }
+
+    private void restoreHistory(String questionBank) {
+        if (!historyPersisted) {
+            return;
+        }
+        try {
+            EditHistory restored = EditHistory.read(FileUtils.getSidecarFilePath(questionBank, HISTORY_SUFFIX),
+                    EditHistory.DEFAULT_CAPACITY, questions);
+            if (restored != null) {
+                history = restored;
+                log.debug("Restored {} edits of question bank: {}", history.getUndoCount(), questionBank);
+            }
+        } catch (IOException e) {
+            log.debug("Error restoring edit history of question bank: {}", questionBank, e);
+        }
+    }
+
+    private void persistHistory() {
+        if (!historyPersisted || currentQuestionBank == null || questions == null
+                || (!history.canUndo() && !history.canRedo())) {
+            return;
+        }
+        try {
+            history.write(FileUtils.getSidecarFilePath(currentQuestionBank, HISTORY_SUFFIX), questions);
+        } catch (IOException e) {
+            log.debug("Error persisting edit history of question bank: {}", currentQuestionBank, e);
         }
     }
 
@@ -134,6 +258,10 @@ public class QuestionEditorController implements Initializable {
         saveButton.setOnAction(event -> saveCurrentQuestion());
         addQuestionButton.setOnAction(event -> addNewQuestion());
         deleteQuestionButton.setOnAction(event -> deleteCurrentQuestion());
+        moveUpButton.setOnAction(event -> moveCurrentQuestion(-1));
+        moveDownButton.setOnAction(event -> moveCurrentQuestion(1));
+        undoButton.setOnAction(event -> undo());
+        redoButton.setOnAction(event -> redo());
         saveBankButton.setOnAction(event -> saveQuestionBank());
         backToListButton.setOnAction(event -> goBackToList());
 
@@ -170,10 +298,13 @@ public class QuestionEditorController implements Initializable {
             // Update button states
             previousButton.setDisable(currentQuestionIndex == 0);
             nextButton.setDisable(currentQuestionIndex == questions.size() - 1);
+            moveUpButton.setDisable(currentQuestionIndex == 0);
+            moveDownButton.setDisable(currentQuestionIndex == questions.size() - 1);
             deleteQuestionButton.setDisable(false);
 
             hasUnsavedChanges = false;
             updateSaveButtonState();
+            updateHistoryButtons();
 
             log.debug("Displaying question {} of {} for editing", currentQuestionIndex + 1, questions.size());
         }
@@ -186,43 +317,48 @@ public class QuestionEditorController implements Initializable {
         categoryTextField.setText("");
         previousButton.setDisable(true);
         nextButton.setDisable(true);
+        moveUpButton.setDisable(true);
+        moveDownButton.setDisable(true);
         deleteQuestionButton.setDisable(true);
+        hasUnsavedChanges = false;
         updateSaveButtonState();
+        updateHistoryButtons();
     }
 
     public void saveCurrentQuestion() {
         if (questions != null && currentQuestionIndex >= 0) {
-            QuestionDto question = null;
-            if(currentQuestionIndex < questions.size()) {
-                question = questions.get(currentQuestionIndex);
-            } else {
-                question = new QuestionDto();
+            Map<QuestionField, String> values = new EnumMap<>(QuestionField.class);
+            values.put(QuestionField.QUESTION, questionTextField.getText());
+            values.put(QuestionField.ANSWER, answerTextArea.getText());
+            values.put(QuestionField.CATEGORY, categoryTextField.getText());
+            if (currentQuestionIndex >= questions.size()) {
+                QuestionDto question = new QuestionDto();
+                question.setId(UUID.randomUUID());
                 questions.add(question);
                 currentQuestionIndex = questions.size() - 1;
+                history.recordInsert(currentQuestionIndex);
             }
-            question.setQuestion(questionTextField.getText());
-            question.setAnswer(answerTextArea.getText());
-            question.setCategory(categoryTextField.getText());
-
-            // Save the question bank to persist changes
-            saveQuestionBank();
+            // Only the fields that changed are kept for undo
+            history.editFields(questions, currentQuestionIndex, values);
+            changeTracker.markEdited(questions.get(currentQuestionIndex));
 
             hasUnsavedChanges = false;
             updateSaveButtonState();
-            statusLabel.setText("Question saved to file");
-
-            log.debug("Saved question {} of {} to file", currentQuestionIndex + 1, questions.size());
+            updateHistoryButtons();
+            saveChanges("Saving question...", "Question saved to file", "Error saving question");
         }
     }
 
     public void addNewQuestion() {
         QuestionDto newQuestion = new QuestionDto();
+        newQuestion.setId(UUID.randomUUID());
         newQuestion.setQuestion("New Question");
         newQuestion.setAnswer("New Answer");
         newQuestion.setCategory("General");
 
         questions.add(newQuestion);
         currentQuestionIndex = questions.size() - 1;
+        history.recordInsert(currentQuestionIndex);
 
         statusLabel.setText(String.format("Added new question. Total: %d", questions.size()));
         displayCurrentQuestion();
@@ -233,7 +369,7 @@ public class QuestionEditorController implements Initializable {
     public void deleteCurrentQuestion() {
         if (questions != null && !questions.isEmpty() && currentQuestionIndex >= 0
                 && currentQuestionIndex < questions.size()) {
-            questions.remove(currentQuestionIndex);
+            history.recordDelete(currentQuestionIndex, questions.remove(currentQuestionIndex));
 
             if (questions.isEmpty()) {
                 clearQuestionDisplay();
@@ -253,6 +389,28 @@ public class QuestionEditorController implements Initializable {
         }
     }
 
+    /**
+     * Moves the current question up or down the bank
+     * 
+     * @param offset -1 to move it up, 1 to move it down
+     */
+    public void moveCurrentQuestion(int offset) {
+        if (questions == null || currentQuestionIndex < 0 || currentQuestionIndex >= questions.size()) {
+            return;
+        }
+        int target = currentQuestionIndex + offset;
+        if (target < 0 || target >= questions.size()) {
+            return;
+        }
+
+        Collections.swap(questions, currentQuestionIndex, target);
+        history.recordMove(currentQuestionIndex, target);
+        currentQuestionIndex = target;
+        displayCurrentQuestion();
+        statusLabel.setText(String.format("Question moved to position %d", target + 1));
+        log.debug("Moved question to position {} of bank: {}", target + 1, currentQuestionBank);
+    }
+
     private void markAsChanged() {
         hasUnsavedChanges = true;
         updateSaveButtonState();
@@ -262,23 +420,180 @@ public class QuestionEditorController implements Initializable {
         saveButton.setDisable(!hasUnsavedChanges);
     }
 
+    private void updateHistoryButtons() {
+        undoButton.setDisable(!history.canUndo());
+        redoButton.setDisable(!history.canRedo());
+    }
+
+    /**
+     * Reverts the last edit, insert, delete or move of a question. The reverted
+     * change is saved with the next save.
+     */
+    public void undo() {
+        showHistoryResult(questions == null ? null : history.undo(questions), "Undone", "Nothing to undo");
+    }
+
+    /**
+     * Applies the last undone change again
+     */
+    public void redo() {
+        showHistoryResult(questions == null ? null : history.redo(questions), "Redone", "Nothing to redo");
+    }
+
+    private void showHistoryResult(EditHistory.Result result, String action, String nothingMessage) {
+        if (result == null) {
+            statusLabel.setText(nothingMessage);
+            return;
+        }
+
+        if (result.edited() != null) {
+            changeTracker.markEdited(result.edited());
+        }
+        if (questions.isEmpty()) {
+            clearQuestionDisplay();
+        } else {
+            currentQuestionIndex = Math.max(0, result.position());
+            displayCurrentQuestion();
+        }
+        statusLabel.setText(String.format("%s: %s", action, result.description()));
+        log.debug("{} {} in question bank: {}", action, result.description(), currentQuestionBank);
+    }
+
     public void saveQuestionBank() {
         if (questionService != null && currentQuestionBank != null && questions != null) {
-            try {
-                questionService.saveQuestions(currentQuestionBank, questions);
-                hasUnsavedChanges = false;
-                updateSaveButtonState();
-                statusLabel.setText("Question bank saved successfully");
-                log.debug("Saved question bank: {} with {} questions", currentQuestionBank, questions.size());
-            } catch (Exception e) {
-                log.debug("Error saving question bank: {}", currentQuestionBank, e);
-                statusLabel.setText("Error saving question bank");
+            hasUnsavedChanges = false;
+            updateSaveButtonState();
+            saveChanges("Saving question bank...", "Question bank saved successfully", "Error saving question bank");
+        }
+    }
+
+    /**
+     * Schedules a save of the questions inserted, edited, deleted or moved since
+     * the last save, the rest of the bank is left untouched. Saves requested in
+     * quick succession are written once.
+     */
+    private void saveChanges(String savingMessage, String savedMessage, String errorMessage) {
+        String questionBank = currentQuestionBank;
+        QuestionChangeTracker tracker = changeTracker;
+        List<QuestionDto> bankQuestions = questions;
+        boolean savePending = saveScheduler != null && saveScheduler.hasPendingSave(questionBank);
+        if (!tracker.hasChanges(bankQuestions) && !savePending) {
+            statusLabel.setText("No changes to save");
+            return;
+        }
+
+        CompletableFuture<Duration> save = scheduleSave(questionBank,
+                () -> writeChanges(questionBank, tracker, bankQuestions));
+        if (!save.isDone()) {
+            statusLabel.setText(String.format("%s (%d queued)", savingMessage, getQueueDepth()));
+        }
+        save.whenComplete((latency, error) -> {
+            if (error instanceof QuestionConflictException conflict) {
+                log.debug("Changes to question bank {} conflict with changes made elsewhere", questionBank, error);
+                statusLabel.setText(String.format("Not saved, %d questions were changed elsewhere",
+                        conflict.getConflicts().size()));
+                markAsChanged();
+                return;
+            }
+            if (error != null) {
+                log.debug("Error saving changes to question bank: {}", questionBank, error);
+                statusLabel.setText(errorMessage);
+                markAsChanged();
+                return;
             }
+
+            statusLabel.setText(String.format("%s in %d ms (%d queued)", savedMessage, latency.toMillis(),
+                    getQueueDepth()));
+        });
+    }
+
+    /**
+     * Schedules the save through the save scheduler, or starts it at once when
+     * the editor has none
+     */
+    private CompletableFuture<Duration> scheduleSave(String questionBank,
+            Supplier<CompletableFuture<?>> save) {
+        if (saveScheduler != null) {
+            return saveScheduler.schedule(questionBank, save);
+        }
+        long started = System.nanoTime();
+        return save.get().thenApply(saved -> Duration.ofNanos(System.nanoTime() - started));
+    }
+
+    private int getQueueDepth() {
+        return saveScheduler != null ? saveScheduler.getQueueDepth() : 0;
+    }
+
+    /**
+     * Writes the changes of the questions at the time the scheduled save starts,
+     * so that a save covers every change requested before it
+     */
+    private CompletableFuture<Void> writeChanges(String questionBank, QuestionChangeTracker tracker,
+            List<QuestionDto> bankQuestions) {
+        QuestionChangeTracker.Changes changes = tracker.collect(bankQuestions);
+        CompletableFuture<List<QuestionDto>> save;
+        if (tracker.isFullSaveRequired()) {
+            // Questions loaded without ids cannot be matched by id, rewrite the bank
+            // once with the ids they were given so that later saves can be
+            List<QuestionDto> snapshot = bankQuestions.stream().map(QuestionUtils::copyOf).toList();
+            save = questionService.saveQuestions(questionBank, snapshot).thenApply(saved -> snapshot);
+        } else if (changes.changeSet().isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        } else {
+            // Only applied to questions nobody else changed since they were loaded
+            save = questionService.applyChanges(questionBank, changes.changeSet());
+        }
+
+        return save.thenAccept(written -> {
+            applyWritten(bankQuestions, changes.changeSet(), written);
+            tracker.saved(changes, written);
+            log.debug("Saved {} changed and {} deleted questions to question bank: {}",
+                    changes.changeSet().getUpserts().size(), changes.changeSet().getDeletions().size(), questionBank);
+        });
+    }
+
+    /**
+     * Takes the new versions of the written questions and the fields merged from
+     * changes made elsewhere, unless they were edited again since they were sent
+     */
+    private void applyWritten(List<QuestionDto> bankQuestions, QuestionChangeSetDto changeSet,
+            List<QuestionDto> written) {
+        if (written.isEmpty() || changeSet.getUpserts().isEmpty()) {
+            return;
+        }
+
+        Map<UUID, QuestionDto> sent = new HashMap<>();
+        changeSet.getUpserts().forEach(question -> sent.put(question.getId(), question));
+        Map<UUID, QuestionDto> current = new HashMap<>();
+        bankQuestions.forEach(question -> current.put(question.getId(), question));
+        QuestionDto shown = bankQuestions == questions && currentQuestionIndex >= 0
+                && currentQuestionIndex < questions.size() ? questions.get(currentQuestionIndex) : null;
+        boolean displayed = false;
+        for (QuestionDto saved : written) {
+            QuestionDto question = current.get(saved.getId());
+            QuestionDto before = sent.get(saved.getId());
+            if (question == null || before == null) {
+                continue;
+            }
+            for (QuestionField field : QuestionField.values()) {
+                String value = field.get(saved);
+                if (!Objects.equals(value, field.get(before)) && Objects.equals(field.get(question), field.get(before))) {
+                    field.set(question, value);
+                    displayed |= question == shown && field != QuestionField.VERSION
+                            && field != QuestionField.UPDATED_AT;
+                }
+            }
+        }
+        if (displayed) {
+            displayCurrentQuestion();
         }
     }
 
     public void goBackToList() {
-        if (hasUnsavedChanges) {
+        // A pending save writes every change made so far once the scene is left
+        boolean savePending = saveScheduler != null && currentQuestionBank != null
+                && saveScheduler.hasPendingSave(currentQuestionBank);
+        if (hasUnsavedChanges || (!savePending && questions != null && changeTracker.hasChanges(questions))) {
             Alert alert = new Alert(AlertType.CONFIRMATION);
             alert.setTitle("Unsaved Changes");
             alert.setHeaderText("You have unsaved changes");
@@ -301,4 +616,8 @@ public class QuestionEditorController implements Initializable {
     public List<QuestionDto> getQuestions() {
         return questions;
     }
+
+    int getCurrentQuestionIndex() {
+        return currentQuestionIndex;
+    }
 }
\ No newline at end of file
@@ -2,19 +2,25 @@ package net.talaatharb.questionbank.ui.controllers;
 
 import java.net.URL;
 import java.util.List;
+import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextArea;
+import javafx.scene.control.TextField;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import net.talaatharb.questionbank.dto.QuestionDto;
-import net.talaatharb.questionbank.service.QuestionService;
+import net.talaatharb.questionbank.dto.QuestionField;
+import net.talaatharb.questionbank.service.AsyncQuestionService;
 
 @Slf4j
 public class QuestionViewerController implements Initializable {
@@ -54,10 +60,37 @@ public class QuestionViewerController implements Initializable {
     @FXML
     private Label statusLabel;
     
-    private QuestionService questionService;
+    @Getter(value = AccessLevel.PACKAGE)
+    @Setter(value = AccessLevel.PACKAGE)
+    @FXML
+    private TextField searchField;
+    
+    @Getter(value = AccessLevel.PACKAGE)
+    @Setter(value = AccessLevel.PACKAGE)
+    @FXML
+    private Button searchButton;
+    
+    @Getter(value = AccessLevel.PACKAGE)
+    @Setter(value = AccessLevel.PACKAGE)
+    @FXML
+    private Label facetLabel;
+    
+    private static final int PAGE_SIZE = 50;
+    private static final int SEARCH_LIMIT = 100;
+    private static final int FACET_VALUES_SHOWN = 5;
+
+    private AsyncQuestionService questionService;
     private SceneManager sceneManager;
-    private List<QuestionDto> questions;
+    private String currentQuestionBank;
+    private int questionCount = 0;
+    private int pageOffset = 0;
+    private List<QuestionDto> page = List.of();
     private int currentQuestionIndex = 0;
+    /**
+     * The running service call itself, cancelling a stage depending on it would
+     * let the read run to its end
+     */
+    private CompletableFuture<?> pendingLoad;
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
@@ -65,7 +98,7 @@ public class QuestionViewerController implements Initializable {
         setupEventHandlers();
     }
 
-    public void setQuestionService(QuestionService questionService) {
+    public void setQuestionService(AsyncQuestionService questionService) {
         this.questionService = questionService;
     }
 
@@ -74,22 +107,77 @@ public class QuestionViewerController implements Initializable {
     }
 
     public void loadQuestionBank(String questionBank) {
+        this.currentQuestionBank = questionBank;
         this.currentQuestionIndex = 0;
-        
-        try {
-            questions = questionService.getQuestions(questionBank);
-            if (questions.isEmpty()) {
+        this.pageOffset = 0;
+        this.page = List.of();
+        this.questionCount = 0;
+
+        dispose();
+        clearQuestionDisplay();
+        facetLabel.setText("");
+        searchField.clear();
+        if (questionService == null) {
+            log.debug("No question service to load question bank: {}", questionBank);
+            statusLabel.setText("Error loading question bank");
+            return;
+        }
+
+        statusLabel.setText("Loading questions from " + questionBank + "...");
+        CompletableFuture<Integer> load = questionService.getQuestionCount(questionBank);
+        pendingLoad = load;
+        load.whenComplete((count, error) -> {
+            if (error instanceof CancellationException) {
+                return;
+            }
+            if (error != null) {
+                log.debug("Error loading question bank: {}", questionBank, error);
+                statusLabel.setText("Error loading question bank");
+                return;
+            }
+
+            questionCount = count;
+            if (questionCount == 0) {
                 statusLabel.setText("No questions found in this bank");
                 clearQuestionDisplay();
             } else {
-                statusLabel.setText(String.format("Loaded %d questions from %s", questions.size(), questionBank));
+                statusLabel.setText(String.format("Loaded %d questions from %s", questionCount, questionBank));
                 displayCurrentQuestion();
+                loadFacetCounts(questionBank);
             }
-            log.debug("Loaded question bank: {} with {} questions", questionBank, questions.size());
-        } catch (Exception e) {
-            log.debug("Error loading question bank: {}", questionBank, e);
-            statusLabel.setText("Error loading question bank");
-            clearQuestionDisplay();
+            log.debug("Loaded question bank: {} with {} questions", questionBank, questionCount);
+        });
+    }
+
+    /**
+     * Shows the most frequent categories, tags, languages and statuses of the bank
+     */
+    private void loadFacetCounts(String questionBank) {
+        questionService.getFacetCounts(questionBank).whenComplete((counts, error) -> {
+            if (error != null || !questionBank.equals(currentQuestionBank)) {
+                return;
+            }
+            facetLabel.setText(formatFacetCounts(counts));
+        });
+    }
+
+    static String formatFacetCounts(Map<QuestionField, Map<String, Integer>> counts) {
+        return counts.entrySet().stream()
+                .filter(facet -> !facet.getValue().isEmpty())
+                .map(facet -> facet.getKey().getPropertyName() + ": " + facet.getValue().entrySet().stream()
+                        .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                        .limit(FACET_VALUES_SHOWN)
+                        .map(value -> value.getKey() + " (" + value.getValue() + ")")
+                        .collect(Collectors.joining(", ")))
+                .collect(Collectors.joining(" | "));
+    }
+
+    /**
+     * Cancels a load that is still running, called when the scene is replaced
+     */
+    public void dispose() {
+        if (pendingLoad != null) {
+            pendingLoad.cancel(true);
         }
     }
 
@@ -97,36 +185,132 @@ public class QuestionViewerController implements Initializable {
         previousButton.setOnAction(event -> showPreviousQuestion());
         nextButton.setOnAction(event -> showNextQuestion());
         backToListButton.setOnAction(event -> goBackToList());
+        searchButton.setOnAction(event -> search(searchField.getText()));
+        searchField.setOnAction(event -> search(searchField.getText()));
+    }
+
+    /**
+     * Shows the questions of the bank best matching a query, browsed with the
+     * previous and next buttons. A query with field=value terms is a facet filter,
+     * e.g. category=Networking AND NOT status=draft. An empty query shows the
+     * whole bank again.
+     * 
+     * @param query the words to search for, or the facet filter
+     */
+    public void search(String query) {
+        if (currentQuestionBank == null || questionService == null) {
+            return;
+        }
+        if (query == null || query.isBlank()) {
+            loadQuestionBank(currentQuestionBank);
+            return;
+        }
+
+        dispose();
+        String questionBank = currentQuestionBank;
+        statusLabel.setText("Searching " + questionBank + "...");
+        CompletableFuture<List<QuestionDto>> matches = query.contains("=")
+                ? questionService.filterQuestions(questionBank, query.trim(), 0, SEARCH_LIMIT)
+                : questionService.search(questionBank, query.trim(), SEARCH_LIMIT);
+        pendingLoad = matches;
+        matches.whenComplete((results, error) -> {
+            if (error instanceof CancellationException) {
+                return;
+            }
+            if (error instanceof IllegalArgumentException) {
+                statusLabel.setText("Invalid filter: " + error.getMessage());
+                return;
+            }
+            if (error != null) {
+                log.debug("Error searching question bank: {}", questionBank, error);
+                statusLabel.setText("Error searching questions");
+                return;
+            }
+
+            // The results form a single page, so browsing them never loads
+            // a page from the bank
+            questionCount = results.size();
+            pageOffset = 0;
+            page = results;
+            currentQuestionIndex = 0;
+            if (questionCount == 0) {
+                statusLabel.setText(String.format("No questions match \"%s\"", query.trim()));
+                clearQuestionDisplay();
+            } else {
+                statusLabel.setText(String.format("Found %d questions matching \"%s\"", questionCount,
+                        query.trim()));
+                displayCurrentQuestion();
+            }
+        });
     }
 
     public void showPreviousQuestion() {
-        if (questions != null && !questions.isEmpty() && currentQuestionIndex > 0) {
+        if (questionCount > 0 && currentQuestionIndex > 0) {
             currentQuestionIndex--;
             displayCurrentQuestion();
         }
     }
 
     public void showNextQuestion() {
-        if (questions != null && !questions.isEmpty() && currentQuestionIndex < questions.size() - 1) {
+        if (questionCount > 0 && currentQuestionIndex < questionCount - 1) {
             currentQuestionIndex++;
             displayCurrentQuestion();
         }
     }
 
     private void displayCurrentQuestion() {
-        if (questions != null && !questions.isEmpty() && currentQuestionIndex >= 0 && currentQuestionIndex < questions.size()) {
-            QuestionDto question = questions.get(currentQuestionIndex);
-            
-            questionNumberLabel.setText(String.format("Question %d of %d", currentQuestionIndex + 1, questions.size()));
-            questionTextLabel.setText(question.getQuestion());
-            answerTextArea.setText(question.getAnswer());
-            
-            // Update button states
-            previousButton.setDisable(currentQuestionIndex == 0);
-            nextButton.setDisable(currentQuestionIndex == questions.size() - 1);
-            
-            log.debug("Displaying question {} of {}", currentQuestionIndex + 1, questions.size());
+        if (currentQuestionIndex < 0 || currentQuestionIndex >= questionCount) {
+            return;
         }
+
+        questionNumberLabel.setText(String.format("Question %d of %d", currentQuestionIndex + 1, questionCount));
+        previousButton.setDisable(currentQuestionIndex == 0);
+        nextButton.setDisable(currentQuestionIndex == questionCount - 1);
+
+        if (currentQuestionIndex >= pageOffset && currentQuestionIndex < pageOffset + page.size()) {
+            showQuestion(page.get(currentQuestionIndex - pageOffset));
+        } else {
+            loadPage();
+        }
+    }
+
+    /**
+     * Loads the page holding the current question, a page still loading for a
+     * question the user already moved away from is cancelled
+     */
+    private void loadPage() {
+        dispose();
+        int offset = (currentQuestionIndex / PAGE_SIZE) * PAGE_SIZE;
+        questionTextLabel.setText("Loading...");
+        answerTextArea.setText("");
+
+        CompletableFuture<List<QuestionDto>> load = questionService.getQuestions(currentQuestionBank, offset,
+                PAGE_SIZE);
+        pendingLoad = load;
+        load.whenComplete((loaded, error) -> {
+            if (error instanceof CancellationException) {
+                return;
+            }
+            if (error != null) {
+                log.debug("Error loading page of question bank: {}", currentQuestionBank, error);
+                statusLabel.setText("Error loading questions");
+                return;
+            }
+
+            pageOffset = offset;
+            page = loaded;
+            log.debug("Loaded page of {} questions at offset {}", page.size(), pageOffset);
+            int pageIndex = currentQuestionIndex - pageOffset;
+            if (pageIndex >= 0 && pageIndex < page.size()) {
+                showQuestion(page.get(pageIndex));
+            }
+        });
+    }
+
+    private void showQuestion(QuestionDto question) {
+        questionTextLabel.setText(question.getQuestion());
+        answerTextArea.setText(question.getAnswer());
+        log.debug("Displaying question {} of {}", currentQuestionIndex + 1, questionCount);
     }
 
     private void clearQuestionDisplay() {
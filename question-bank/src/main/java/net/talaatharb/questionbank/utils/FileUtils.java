@@ -1,24 +1,67 @@
 package net.talaatharb.questionbank.utils;
 
+import java.io.BufferedOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Properties;
+import java.util.UUID;
 
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 import net.talaatharb.questionbank.dto.QuestionDto;
+import net.talaatharb.questionbank.storage.BankCodec;
+import net.talaatharb.questionbank.storage.BankCompression;
+import net.talaatharb.questionbank.storage.BankFormat;
+import net.talaatharb.questionbank.storage.QbinBank;
+import net.talaatharb.questionbank.storage.QbinWriter;
+import net.talaatharb.questionbank.storage.QuestionJsonReader;
+import net.talaatharb.questionbank.storage.ShardedBank;
 
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public class FileUtils {
 
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private static final String SIDECAR_FOLDER = ".qbank";
+    private static final String MANIFEST_FILE = "manifest.json";
+    private static final String ID_INDEX_FILE = "ids.index";
+    private static final String SETTINGS_SUFFIX = ".settings";
+    private static final String COMPRESSION_LEVEL_SETTING = "compression.level";
+    private static final String SHARDING_SUFFIX = ".sharding";
+    private static final String SHARDING_BACKUP_SUFFIX = ".bak";
+    private static final long DEFAULT_SHARD_THRESHOLD_BYTES = 64L * 1024L * 1024L;
+
     private static String dataFolder = "./data";
+    private static long shardThresholdBytes = DEFAULT_SHARD_THRESHOLD_BYTES;
+    private static int shardSize = ShardedBank.DEFAULT_SHARD_SIZE;
+    private static volatile String recoveredDataFolder;
+
+    /**
+     * Writes the content of a file through a buffered stream
+     */
+    @FunctionalInterface
+    public interface ContentWriter {
+        void write(OutputStream output) throws IOException;
+    }
 
     /**
-     * Lists all JSON files in the ./data folder
+     * Lists all question bank files (JSON and binary, plain or compressed) and
+     * sharded bank folders in the ./data folder
      * 
-     * @return List of JSON file names (without path)
+     * @return List of question bank file names (without path)
      * @throws IOException if there's an error reading the directory
      */
     public static List<String> listJsonFilesInDataFolder() throws IOException {
@@ -27,12 +70,12 @@ public class FileUtils {
         if (!Files.exists(dataPath)) {
             return List.of(); // Return empty list if directory doesn't exist
         }
+        recoverInterruptedShardings();
 
         List<String> result = null;
 
         try (var list = Files.list(dataPath)) {
-            result = list.filter(Files::isRegularFile)
-                    .filter(path -> path.toString().toLowerCase().endsWith(".json"))
+            result = list.filter(FileUtils::isQuestionBankFile)
                     .map(Path::getFileName)
                     .map(Path::toString)
                     .toList();
@@ -43,9 +86,10 @@ public class FileUtils {
     }
 
     /**
-     * Lists all JSON files in the ./data folder with full paths
+     * Lists all question bank files (JSON and binary, plain or compressed) and
+     * sharded bank folders in the ./data folder with full paths
      * 
-     * @return List of JSON file paths
+     * @return List of question bank file paths
      * @throws IOException if there's an error reading the directory
      */
     public static List<Path> listJsonFilePathsInDataFolder() throws IOException {
@@ -54,12 +98,12 @@ public class FileUtils {
         if (!Files.exists(dataPath)) {
             return List.of(); // Return empty list if directory doesn't exist
         }
+        recoverInterruptedShardings();
 
         List<Path> result = null;
 
         try (var list = Files.list(dataPath)) {
-            result = list.filter(Files::isRegularFile)
-                    .filter(path -> path.toString().toLowerCase().endsWith(".json"))
+            result = list.filter(FileUtils::isQuestionBankFile)
                     .toList();
         }
 
@@ -77,6 +121,34 @@ public class FileUtils {
      * @throws IllegalArgumentException if the filename is null or empty
      */
     public static String loadJsonFileAsString(String filename) throws IOException {
+        return Files.readString(getExistingFilePath(filename));
+    }
+
+    /**
+     * Opens a streaming reader over a JSON, Smile or CBOR file from the ./data
+     * folder, decoded by the codec of its extension, the file is read straight
+     * from a file channel one question at a time
+     * 
+     * @param filename the name of the file to read (e.g., "empty.json")
+     * @return reader positioned before the first question, must be closed
+     * @throws IOException              if the file doesn't exist or is not an
+     *                                  array of questions
+     * @throws IllegalArgumentException if the filename is null or empty
+     */
+    public static QuestionJsonReader openQuestionReader(String filename) throws IOException {
+        return BankFormat.of(filename).getCodec().open(getExistingFilePath(filename));
+    }
+
+    /**
+     * Resolves an existing file or sharded bank folder in the ./data folder
+     * 
+     * @param filename the name of the file to resolve (e.g., "empty.json")
+     * @return the path of the file
+     * @throws IOException              if the file doesn't exist or is neither a
+     *                                  regular file nor a sharded bank
+     * @throws IllegalArgumentException if the filename is null or empty
+     */
+    public static Path getExistingFilePath(String filename) throws IOException {
         if (filename == null || filename.trim().isEmpty()) {
             throw new IllegalArgumentException("Filename cannot be null or empty");
         }
@@ -88,19 +160,24 @@ public class FileUtils {
             throw new IOException("Data directory ./data does not exist");
         }
 
+        if (!Files.exists(filePath)) {
+            recoverShardedBank(filename);
+        }
         if (!Files.exists(filePath)) {
             throw new IOException("File " + filename + " does not exist in ./data folder");
         }
 
-        if (!Files.isRegularFile(filePath)) {
+        if (!Files.isRegularFile(filePath) && !ShardedBank.isShardedBank(filePath)) {
             throw new IOException("Path " + filename + " is not a regular file");
         }
 
-        return Files.readString(filePath);
+        return filePath;
     }
 
     /**
-     * Saves a list of questions to a JSON file in the ./data folder
+     * Saves a list of questions to a JSON file in the ./data folder, files with a
+     * Smile, CBOR or compact JSON extension are written in that encoding and
+     * files with a compression extension are compressed at the level set for them
      * 
      * @param filename  the name of the JSON file to save (e.g., "questions.json")
      * @param questions the list of questions to save
@@ -124,12 +201,375 @@ public class FileUtils {
             Files.createDirectories(dataPath);
         }
 
-        // Convert questions to JSON string
-        String jsonContent = QuestionUtils.convertToJsonString(questions);
-
-        // Write to file
+        // Stream the questions into the file, replacing it only once fully written
         Path filePath = dataPath.resolve(filename);
-        Files.writeString(filePath, jsonContent);
+        BankCodec codec = BankFormat.of(filename).getCodec();
+        writeFileAtomically(filePath, BankCompression.of(filename), getCompressionLevel(filename),
+                output -> codec.writeAll(output, questions.iterator()));
+    }
+
+    /**
+     * Saves a list of questions to a binary question bank in the ./data folder
+     * 
+     * @param filename  the name of the binary file to save (e.g., "questions.qbin")
+     * @param questions the list of questions to save
+     * @throws IOException              if there's an error writing the file
+     * @throws IllegalArgumentException if the filename is null or empty, or if
+     *                                  questions is null
+     */
+    public static void saveQuestionsToQbinFile(String filename, List<QuestionDto> questions) throws IOException {
+        if (filename == null || filename.trim().isEmpty()) {
+            throw new IllegalArgumentException("Filename cannot be null or empty");
+        }
+
+        if (questions == null) {
+            throw new IllegalArgumentException("Questions list cannot be null");
+        }
+
+        QbinWriter.write(Paths.get(dataFolder).resolve(filename), questions.iterator(), BankCompression.of(filename),
+                getCompressionLevel(filename));
+    }
+
+    /**
+     * Saves a list of questions to a sharded bank in the ./data folder, only the
+     * shards whose questions changed are rewritten. A new bank or a bank stored in
+     * a single file is written to a staging folder that is then moved into place,
+     * the file is kept as a backup until the move so that a crash never loses the
+     * bank, see {@link #recoverShardedBank(String)}.
+     * 
+     * @param filename  the name of the bank (e.g., "questions.json")
+     * @param questions the list of questions to save
+     * @return the number of shards written
+     * @throws IOException              if there's an error writing the bank
+     * @throws IllegalArgumentException if the filename is null or empty, or if
+     *                                  questions is null
+     */
+    public static int saveQuestionsToShardedBank(String filename, List<QuestionDto> questions) throws IOException {
+        if (filename == null || filename.trim().isEmpty()) {
+            throw new IllegalArgumentException("Filename cannot be null or empty");
+        }
+
+        if (questions == null) {
+            throw new IllegalArgumentException("Questions list cannot be null");
+        }
+
+        Path bankPath = Paths.get(dataFolder).resolve(filename);
+        recoverShardedBank(filename);
+        if (ShardedBank.isShardedBank(bankPath)) {
+            return ShardedBank.write(bankPath, filename, questions.iterator(), shardSize);
+        }
+
+        Path stagingFolder = getSidecarFilePath(filename, SHARDING_SUFFIX);
+        Path backupFile = getSidecarFilePath(filename, SHARDING_BACKUP_SUFFIX);
+        deleteRecursively(stagingFolder);
+        int written = ShardedBank.write(stagingFolder, filename, questions.iterator(), shardSize);
+        if (Files.isRegularFile(bankPath)) {
+            Files.move(bankPath, backupFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            // Shards of a first write that was interrupted before its manifest
+            deleteRecursively(bankPath);
+        }
+        Files.move(stagingFolder, bankPath, StandardCopyOption.ATOMIC_MOVE);
+        Files.deleteIfExists(backupFile);
+        return written;
+    }
+
+    /**
+     * Finishes the conversion of a bank file into a sharded bank that was
+     * interrupted by a crash: the backup of the file is restored if the sharded
+     * bank was not moved into place yet and deleted if the bank exists
+     * 
+     * @param filename the name of the bank (e.g., "questions.json")
+     * @throws IOException if the backup cannot be restored or deleted
+     */
+    public static void recoverShardedBank(String filename) throws IOException {
+        Path backupFile = getSidecarFilePath(filename, SHARDING_BACKUP_SUFFIX);
+        if (!Files.exists(backupFile)) {
+            return;
+        }
+
+        Path bankPath = Paths.get(dataFolder).resolve(filename);
+        if (ShardedBank.isShardedBank(bankPath) || Files.isRegularFile(bankPath)) {
+            Files.delete(backupFile);
+        } else {
+            deleteRecursively(bankPath);
+            Files.move(backupFile, bankPath, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    /**
+     * Opens a sharded bank from the ./data folder, reading only its manifest
+     * 
+     * @param filename the name of the bank (e.g., "questions.json")
+     * @return the opened bank
+     * @throws IOException              if the bank doesn't exist or is not sharded
+     * @throws IllegalArgumentException if the filename is null or empty
+     */
+    public static ShardedBank openShardedBank(String filename) throws IOException {
+        return ShardedBank.open(getExistingFilePath(filename));
+    }
+
+    /**
+     * @param filename the name of the bank (e.g., "questions.json")
+     * @return true if the bank is stored as a folder of shards
+     */
+    public static boolean isShardedBank(String filename) {
+        return ShardedBank.isShardedBank(Paths.get(dataFolder).resolve(filename));
+    }
+
+    /**
+     * Checks whether saves of a bank should write shards, which is the case for
+     * sharded banks and for bank files that grew past the shard threshold
+     * 
+     * @param filename the name of the bank (e.g., "questions.json")
+     * @return true if the bank should be saved as a sharded bank
+     */
+    public static boolean shouldShard(String filename) {
+        Path bankPath = Paths.get(dataFolder).resolve(filename);
+        try {
+            // A folder without a manifest is a sharded bank whose first write was
+            // interrupted, only a sharded save replaces it
+            return Files.isDirectory(bankPath)
+                    || (Files.isRegularFile(bankPath) && Files.size(bankPath) > shardThresholdBytes);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Writes questions to a file in the format and compression of a bank, the
+     * file is replaced atomically once fully written. A sharded bank folder is
+     * written as shards instead.
+     * 
+     * @param target       the file to write
+     * @param questionBank the name of the bank whose format, compression and
+     *                     compression level are used
+     * @param questions    the questions to write
+     * @throws IOException if there's an error writing the file
+     */
+    public static void writeQuestionsToFile(Path target, String questionBank, Iterator<QuestionDto> questions)
+            throws IOException {
+        BankFormat format = BankFormat.of(questionBank);
+        BankCompression compression = BankCompression.of(questionBank);
+        int level = getCompressionLevel(questionBank);
+        if (ShardedBank.isShardedBank(target)) {
+            ShardedBank.write(target, questionBank, questions, shardSize);
+        } else if (format == BankFormat.QBIN) {
+            QbinWriter.write(target, questions, compression, level);
+        } else {
+            writeFileAtomically(target, compression, level, output -> format.getCodec().writeAll(output, questions));
+        }
+    }
+
+    /**
+     * Opens a binary question bank from the ./data folder by mapping it into
+     * memory
+     * 
+     * @param filename the name of the binary file (e.g., "questions.qbin")
+     * @return the opened bank
+     * @throws IOException              if the file doesn't exist or is not a
+     *                                  binary question bank
+     * @throws IllegalArgumentException if the filename is null or empty
+     */
+    public static QbinBank openQbinBank(String filename) throws IOException {
+        return QbinBank.open(getExistingFilePath(filename));
+    }
+
+    /**
+     * Checks whether a file is a question bank in one of the supported formats, or
+     * the folder of a sharded bank
+     * 
+     * @param path the file to check
+     * @return true if the file is a question bank
+     */
+    public static boolean isQuestionBankFile(Path path) {
+        return BankFormat.fromFileName(path.getFileName().toString()).isPresent()
+                && (Files.isRegularFile(path) || ShardedBank.isShardedBank(path));
+    }
+
+    /**
+     * Writes a file through a temporary file in the same folder, which is synced
+     * to disk and then moved over the target, so an interrupted write never
+     * leaves a truncated file behind. The written file keeps the permissions of
+     * the file it replaces, a new file gets the default permissions, and the
+     * folder is synced after the move so that the replacement survives a crash.
+     * 
+     * @param target the file to write
+     * @param writer writes the file content, must not close the stream
+     * @throws IOException if there's an error writing or moving the file
+     */
+    public static void writeFileAtomically(Path target, ContentWriter writer) throws IOException {
+        Path folder = target.toAbsolutePath().getParent();
+        Files.createDirectories(folder);
+        // Not Files.createTempFile, which restricts the file to its owner
+        Path tempFile = folder.resolve("." + target.getFileName() + "." + UUID.randomUUID() + ".tmp");
+
+        try {
+            try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.WRITE)) {
+                OutputStream output = new BufferedOutputStream(Channels.newOutputStream(channel), WRITE_BUFFER_SIZE);
+                writer.write(output);
+                output.flush();
+                channel.force(true);
+            }
+            copyPermissions(target, tempFile);
+            moveReplacing(tempFile, target);
+            syncFolder(folder);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+    }
+
+    /**
+     * Writes a file atomically through a compressing stream
+     * 
+     * @param target      the file to write
+     * @param compression the compression of the file content
+     * @param level       the compression level, -1 for the default
+     * @param writer      writes the uncompressed content, must not close the
+     *                    stream
+     * @throws IOException if there's an error writing or moving the file
+     */
+    public static void writeFileAtomically(Path target, BankCompression compression, int level,
+            ContentWriter writer) throws IOException {
+        if (compression == BankCompression.NONE) {
+            writeFileAtomically(target, writer);
+            return;
+        }
+        writeFileAtomically(target, output -> {
+            try (OutputStream compressed = compression.compress(output, level)) {
+                writer.write(compressed);
+            }
+        });
+    }
+
+    /**
+     * Reads the compression level set for a bank in the ./data folder
+     * 
+     * @param filename the name of the question bank
+     * @return the compression level, -1 for the default of the compressor
+     */
+    public static int getCompressionLevel(String filename) {
+        Path settingsFile = getSidecarFilePath(filename, SETTINGS_SUFFIX);
+        Properties settings = new Properties();
+        try (InputStream input = Files.newInputStream(settingsFile)) {
+            settings.load(input);
+            return Integer.parseInt(settings.getProperty(COMPRESSION_LEVEL_SETTING,
+                    String.valueOf(BankCompression.DEFAULT_LEVEL)));
+        } catch (IOException | NumberFormatException e) {
+            // no level set for the bank
+            return BankCompression.DEFAULT_LEVEL;
+        }
+    }
+
+    /**
+     * Sets the compression level used when a compressed bank in the ./data folder
+     * is written
+     * 
+     * @param filename the name of the question bank
+     * @param level    the compression level from 0 to 9, -1 for the default
+     * @throws IOException              if the setting cannot be saved
+     * @throws IllegalArgumentException if the level is out of range
+     */
+    public static void setCompressionLevel(String filename, int level) throws IOException {
+        if (filename == null || filename.trim().isEmpty()) {
+            throw new IllegalArgumentException("Filename cannot be null or empty");
+        }
+        BankCompression.checkLevel(level);
+
+        Properties settings = new Properties();
+        settings.setProperty(COMPRESSION_LEVEL_SETTING, String.valueOf(level));
+        writeFileAtomically(getSidecarFilePath(filename, SETTINGS_SUFFIX), output -> settings.store(output, null));
+    }
+
+    /**
+     * Recovers the banks whose conversion into a sharded bank was interrupted,
+     * once per data folder since only a crash leaves backups behind
+     */
+    private static void recoverInterruptedShardings() throws IOException {
+        String folder = dataFolder;
+        if (folder.equals(recoveredDataFolder)) {
+            return;
+        }
+
+        Path sidecarFolder = Paths.get(folder).resolve(SIDECAR_FOLDER);
+        if (Files.isDirectory(sidecarFolder)) {
+            try (var list = Files.list(sidecarFolder)) {
+                for (Path path : list.toList()) {
+                    String name = path.getFileName().toString();
+                    if (name.endsWith(SHARDING_BACKUP_SUFFIX)) {
+                        recoverShardedBank(name.substring(0, name.length() - SHARDING_BACKUP_SUFFIX.length()));
+                    }
+                }
+            }
+        }
+        recoveredDataFolder = folder;
+    }
+
+    private static void deleteRecursively(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (var paths = Files.walk(path)) {
+            for (Path child : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(child);
+            }
+        }
+    }
+
+    private static void copyPermissions(Path source, Path target) throws IOException {
+        if (Files.exists(source) && Files.getFileStore(target).supportsFileAttributeView(PosixFileAttributeView.class)) {
+            Files.setPosixFilePermissions(target, Files.getPosixFilePermissions(source));
+        }
+    }
+
+    /**
+     * Syncs the entries of a folder to disk, where folders can be opened for it
+     */
+    private static void syncFolder(Path folder) {
+        try (FileChannel channel = FileChannel.open(folder, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Folders cannot be opened on every platform, e.g. Windows
+        }
+    }
+
+    private static void moveReplacing(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Resolves a sidecar file that holds derived data of a question bank (indexes,
+     * journals, ...), sidecars live in a hidden folder inside the ./data folder so
+     * they are never listed as banks
+     * 
+     * @param filename the name of the question bank (e.g., "questions.json")
+     * @param suffix   the suffix identifying the kind of sidecar (e.g., ".idx")
+     * @return the path of the sidecar file, which may not exist yet
+     */
+    public static Path getSidecarFilePath(String filename, String suffix) {
+        return Paths.get(dataFolder).resolve(SIDECAR_FOLDER).resolve(filename + suffix);
+    }
+
+    /**
+     * @return the path of the manifest holding the summaries of all question
+     *         banks in the ./data folder
+     */
+    public static Path getManifestFilePath() {
+        return Paths.get(dataFolder).resolve(SIDECAR_FOLDER).resolve(MANIFEST_FILE);
+    }
+
+    /**
+     * @return the path of the index of the questions of all question banks in the
+     *         ./data folder by id
+     */
+    public static Path getIdIndexFilePath() {
+        return Paths.get(dataFolder).resolve(SIDECAR_FOLDER).resolve(ID_INDEX_FILE);
     }
 
     public static final String getDataFolder() {
@@ -139,4 +579,32 @@ public class FileUtils {
     public static final void setDataFolder(String dataFolder) {
         FileUtils.dataFolder = dataFolder;
     }
+
+    /**
+     * @return size in bytes past which a bank file is sharded on its next save
+     */
+    public static final long getShardThresholdBytes() {
+        return shardThresholdBytes;
+    }
+
+    public static final void setShardThresholdBytes(long shardThresholdBytes) {
+        if (shardThresholdBytes < 0) {
+            throw new IllegalArgumentException("Shard threshold cannot be negative");
+        }
+        FileUtils.shardThresholdBytes = shardThresholdBytes;
+    }
+
+    /**
+     * @return number of questions per shard of newly written shards
+     */
+    public static final int getShardSize() {
+        return shardSize;
+    }
+
+    public static final void setShardSize(int shardSize) {
+        if (shardSize < 1) {
+            throw new IllegalArgumentException("Shard size must be positive");
+        }
+        FileUtils.shardSize = shardSize;
+    }
 }
@@ -1,23 +1,40 @@
 package net.talaatharb.questionbank.utils;
 
 import java.io.IOException;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 import net.talaatharb.questionbank.config.HelperBeans;
 import net.talaatharb.questionbank.dto.QuestionDto;
+import net.talaatharb.questionbank.dto.QuestionField;
 
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public class QuestionUtils {
 
+    private static final long QUESTION_OVERHEAD = 16L + 4L * (QuestionField.values().length + 1);
+    private static final long UUID_SIZE = 32L;
+    private static final long STRING_OVERHEAD = 40L;
+
+    // Built once, looking up the serializers of a type on every call is costly
+    private static final ObjectReader QUESTION_LIST_READER = HelperBeans.buildObjectMapper()
+            .readerFor(new TypeReference<List<QuestionDto>>() {});
+    private static final ObjectWriter QUESTION_LIST_WRITER = HelperBeans.buildObjectMapper()
+            .writerFor(new TypeReference<List<QuestionDto>>() {});
+
     public static List<QuestionDto> convertToQuestionDtoList(String json) throws IOException {
-        var objectMapper = HelperBeans.buildObjectMapper();
-        
-        return objectMapper.readValue(json, new TypeReference<List<QuestionDto>>() {});
+        return QUESTION_LIST_READER.readValue(json);
     }
     
     /**
@@ -28,8 +45,117 @@ public class QuestionUtils {
      * @throws JsonProcessingException if there's an error during JSON serialization
      */
     public static String convertToJsonString(List<QuestionDto> questions) throws JsonProcessingException {
-        var objectMapper = HelperBeans.buildObjectMapper();
-        
-        return objectMapper.writeValueAsString(questions);
+        return QUESTION_LIST_WRITER.writeValueAsString(questions);
+    }
+
+    /**
+     * Creates a copy of a question, the field values are immutable and shared
+     * 
+     * @param question the question to copy
+     * @return a new question with the same values
+     */
+    public static QuestionDto copyOf(QuestionDto question) {
+        QuestionDto copy = new QuestionDto();
+        copy.setId(question.getId());
+        for (QuestionField field : QuestionField.values()) {
+            field.set(copy, field.get(question));
+        }
+        return copy;
+    }
+
+    /**
+     * Estimates the heap retained by a question, counting object headers and two
+     * bytes per character so that the estimate holds for any string encoding
+     * 
+     * @param question the question to measure
+     * @return estimated retained size in bytes
+     */
+    public static long estimateRetainedBytes(QuestionDto question) {
+        long size = QUESTION_OVERHEAD;
+        if (question.getId() != null) {
+            size += UUID_SIZE;
+        }
+        for (QuestionField field : QuestionField.values()) {
+            String value = field.get(question);
+            if (value != null) {
+                size += STRING_OVERHEAD + 2L * value.length();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Estimates the heap retained by a list of questions, a String instance shared
+     * by several questions is only counted once
+     * 
+     * @param questions the questions to measure
+     * @return estimated retained size in bytes
+     */
+    public static long estimateRetainedBytes(Collection<QuestionDto> questions) {
+        Set<String> counted = Collections.newSetFromMap(new IdentityHashMap<>());
+        long size = 0;
+        for (QuestionDto question : questions) {
+            size += QUESTION_OVERHEAD;
+            if (question.getId() != null) {
+                size += UUID_SIZE;
+            }
+            for (QuestionField field : QuestionField.values()) {
+                String value = field.get(question);
+                if (value != null && counted.add(value)) {
+                    size += STRING_OVERHEAD + 2L * value.length();
+                }
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Marks a question as changed, increasing its version and setting its update
+     * time. Versions are whole numbers, a missing or other version becomes 1.
+     * 
+     * @param question       the changed question
+     * @param currentVersion the version saved before the change
+     */
+    public static void bumpVersion(QuestionDto question, String currentVersion) {
+        long version = 0;
+        if (currentVersion != null) {
+            try {
+                version = Math.max(0, Long.parseLong(currentVersion.trim()));
+            } catch (NumberFormatException e) {
+                // restarts at 1
+            }
+        }
+        question.setVersion(Long.toString(version + 1));
+        question.setUpdatedAt(Instant.now().toString());
+    }
+
+    /**
+     * Merges two changes of the same question field by field, each field takes the
+     * value of the change that changed it. The version and update time are left
+     * to {@link #bumpVersion(QuestionDto, String)}.
+     * 
+     * @param base   the question both changes started from
+     * @param ours   the question with one change
+     * @param theirs the question with the other change
+     * @return the merged question, or null if both changed a field differently
+     */
+    public static QuestionDto merge(QuestionDto base, QuestionDto ours, QuestionDto theirs) {
+        QuestionDto merged = copyOf(theirs);
+        for (QuestionField field : QuestionField.values()) {
+            if (field == QuestionField.VERSION || field == QuestionField.UPDATED_AT) {
+                continue;
+            }
+            String baseValue = field.get(base);
+            String ourValue = field.get(ours);
+            String theirValue = field.get(theirs);
+            if (Objects.equals(ourValue, baseValue) || Objects.equals(ourValue, theirValue)) {
+                continue;
+            }
+            if (!Objects.equals(theirValue, baseValue)) {
+                return null;
+            }
+            field.set(merged, ourValue);
+        }
+        return merged;
     }
 }
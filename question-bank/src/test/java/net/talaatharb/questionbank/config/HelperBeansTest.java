@@ -1,6 +1,7 @@
 package net.talaatharb.questionbank.config;
 
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 import org.junit.jupiter.api.Test;
 
@@ -10,4 +11,11 @@ class HelperBeansTest {
     void testObjectMapperCreation() {
         assertNotNull(HelperBeans.buildObjectMapper());
     }
+
+    @Test
+    void testBinaryMappersAreSingletons() {
+        assertNotNull(HelperBeans.buildSmileMapper());
+        assertSame(HelperBeans.buildSmileMapper(), HelperBeans.buildSmileMapper());
+        assertSame(HelperBeans.buildCborMapper(), HelperBeans.buildCborMapper());
+    }
 }
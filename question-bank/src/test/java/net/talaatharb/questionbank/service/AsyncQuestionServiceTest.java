@@ -0,0 +1,199 @@
+package net.talaatharb.questionbank.service;
+
+import net.talaatharb.questionbank.dto.QuestionChangeSetDto;
+import net.talaatharb.questionbank.dto.QuestionDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AsyncQuestionServiceTest {
+
+    @Mock
+    private QuestionService questionService;
+
+    private Queue<Runnable> queuedCalls;
+    private List<String> callbackThreads;
+    private AsyncQuestionService asyncQuestionService;
+
+    @BeforeEach
+    void setUp() {
+        queuedCalls = new ArrayDeque<>();
+        callbackThreads = new ArrayList<>();
+        asyncQuestionService = new AsyncQuestionService(questionService, queuedCalls::add, callback -> {
+            callbackThreads.add(Thread.currentThread().getName());
+            callback.run();
+        });
+    }
+
+    @Test
+    void testGetQuestions_CompletesThroughCallbackExecutor() throws Exception {
+        // Given
+        QuestionDto question = new QuestionDto();
+        when(questionService.getQuestions("bank.json")).thenReturn(List.of(question));
+
+        // When
+        CompletableFuture<List<QuestionDto>> future = asyncQuestionService.getQuestions("bank.json");
+        assertFalse(future.isDone());
+        runQueuedCalls();
+
+        // Then
+        assertEquals(List.of(question), future.get());
+        assertEquals(1, callbackThreads.size());
+    }
+
+    @Test
+    void testSaveQuestions_FailureCompletesExceptionally() throws IOException {
+        // Given
+        doThrow(new IOException("disk full")).when(questionService).saveQuestions(eq("bank.json"), anyList());
+
+        // When
+        CompletableFuture<Void> future = asyncQuestionService.saveQuestions("bank.json", List.of());
+        runQueuedCalls();
+
+        // Then
+        ExecutionException error = assertThrows(ExecutionException.class, future::get);
+        assertInstanceOf(IOException.class, error.getCause());
+    }
+
+    @Test
+    void testCancel_SkipsReadNotStartedYet() {
+        // When
+        asyncQuestionService.getQuestionCount("bank.json").cancel(true);
+        runQueuedCalls();
+
+        // Then
+        verify(questionService, never()).getQuestionCount("bank.json");
+    }
+
+    @Test
+    void testCancel_StillRunsWrite() throws IOException {
+        // Given
+        QuestionDto question = new QuestionDto();
+        List<QuestionDto> questions = new ArrayList<>(List.of(question));
+
+        // When
+        asyncQuestionService.saveQuestions("bank.json", questions).cancel(true);
+        questions.clear();
+        question.setQuestion("Edited after the save was requested");
+        runQueuedCalls();
+
+        // Then
+        verify(questionService).saveQuestions("bank.json", List.of(new QuestionDto()));
+    }
+
+    @Test
+    void testSaveQuestion_AssignsIdToCallerQuestion() throws IOException {
+        // Given
+        QuestionDto question = new QuestionDto();
+
+        // When
+        asyncQuestionService.saveQuestion("bank.json", question);
+        runQueuedCalls();
+
+        // Then
+        assertNotNull(question.getId());
+        verify(questionService).saveQuestion("bank.json", question);
+    }
+
+    @Test
+    void testApplyChanges_SavesSnapshotOfChanges() throws IOException {
+        // Given
+        QuestionDto question = new QuestionDto();
+        question.setQuestion("Saved text");
+        QuestionChangeSetDto changeSet = new QuestionChangeSetDto();
+        changeSet.getUpserts().add(question);
+
+        // When
+        asyncQuestionService.applyChanges("bank.json", changeSet);
+        question.setQuestion("Edited after the save was requested");
+        changeSet.getUpserts().clear();
+        runQueuedCalls();
+
+        // Then
+        QuestionDto saved = new QuestionDto();
+        saved.setQuestion("Saved text");
+        QuestionChangeSetDto expected = new QuestionChangeSetDto();
+        expected.setUpserts(List.of(saved));
+        expected.setDeletions(List.of());
+        verify(questionService).applyChanges("bank.json", expected);
+    }
+
+    @Test
+    void testWrites_OfOneBankRunInOrder() throws Exception {
+        // Given
+        QuestionDto first = new QuestionDto();
+        QuestionDto second = new QuestionDto();
+
+        // When
+        asyncQuestionService.saveQuestion("bank.json", first);
+        asyncQuestionService.saveQuestion("bank.json", second);
+        asyncQuestionService.saveQuestion("other.json", first);
+
+        // Then
+        assertEquals(2, queuedCalls.size());
+        assertFalse(asyncQuestionService.awaitWrites(Duration.ofMillis(10)));
+        runQueuedCalls();
+        InOrder inOrder = inOrder(questionService);
+        inOrder.verify(questionService).saveQuestion("bank.json", first);
+        inOrder.verify(questionService).saveQuestion("bank.json", second);
+        assertTrue(asyncQuestionService.awaitWrites(Duration.ZERO));
+    }
+
+    @Test
+    void testCancel_InterruptsRunningRead() throws InterruptedException {
+        // Given
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        when(questionService.getQuestions("slow.json")).thenAnswer(invocation -> {
+            started.countDown();
+            try {
+                Thread.sleep(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return List.of();
+        });
+        AsyncQuestionService virtualThreadService = new AsyncQuestionService(questionService,
+                Executors.newVirtualThreadPerTaskExecutor(), Runnable::run);
+
+        // When
+        CompletableFuture<List<QuestionDto>> future = virtualThreadService.getQuestions("slow.json");
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        future.cancel(true);
+
+        // Then
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        assertTrue(future.isCancelled());
+    }
+
+    private void runQueuedCalls() {
+        while (!queuedCalls.isEmpty()) {
+            queuedCalls.poll().run();
+        }
+    }
+}
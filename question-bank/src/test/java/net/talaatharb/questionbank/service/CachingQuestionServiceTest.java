@@ -0,0 +1,207 @@
+package net.talaatharb.questionbank.service;
+
+import net.talaatharb.questionbank.dto.BulkLoadReportDto;
+import net.talaatharb.questionbank.dto.QuestionChangeSetDto;
+import net.talaatharb.questionbank.dto.QuestionDto;
+import net.talaatharb.questionbank.utils.FileUtils;
+import net.talaatharb.questionbank.utils.QuestionUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachingQuestionServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private String originalDataFolder;
+    private CachingQuestionService questionService;
+    private List<QuestionDto> questions;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        originalDataFolder = FileUtils.getDataFolder();
+        FileUtils.setDataFolder(tempDir.toString());
+
+        questionService = new CachingQuestionService(new QuestionServiceImpl());
+        questions = createQuestions("Java", 3);
+        questionService.saveQuestions("java.json", questions);
+    }
+
+    @AfterEach
+    void tearDown() {
+        FileUtils.setDataFolder(originalDataFolder);
+    }
+
+    @Test
+    void testGetQuestions_SecondLoadIsServedFromCache() {
+        // When
+        List<QuestionDto> first = questionService.getQuestions("java.json");
+        List<QuestionDto> second = questionService.getQuestions("java.json");
+
+        // Then
+        assertEquals(questions, first);
+        assertEquals(questions, second);
+        assertEquals(1, questionService.getMissCount());
+        assertEquals(1, questionService.getHitCount());
+        assertTrue(questionService.getCachedBytes() > 0);
+    }
+
+    @Test
+    void testGetQuestions_ReturnsImmutableSnapshots() {
+        // Given
+        List<QuestionDto> loaded = questionService.getQuestions("java.json");
+
+        // When
+        loaded.get(0).setQuestion("Changed by the caller");
+
+        // Then
+        assertThrows(UnsupportedOperationException.class, () -> loaded.add(new QuestionDto()));
+        assertEquals(questions, questionService.getQuestions("java.json"));
+    }
+
+    @Test
+    void testGetQuestions_ReloadsChangedFile() throws IOException {
+        // Given
+        questionService.getQuestions("java.json");
+        List<QuestionDto> changed = createQuestions("Spring", 2);
+        new QuestionServiceImpl().saveQuestions("java.json", changed);
+        Path bankFile = tempDir.resolve("java.json");
+        Files.setLastModifiedTime(bankFile, FileTime.fromMillis(System.currentTimeMillis() + 10_000));
+
+        // When
+        List<QuestionDto> loaded = questionService.getQuestions("java.json");
+
+        // Then
+        assertEquals(changed, loaded);
+        assertEquals(2, questionService.getMissCount());
+    }
+
+    @Test
+    void testGetQuestions_ReloadsAfterJournaledSaveOfOtherService() throws IOException {
+        // Given
+        questionService.getQuestions("java.json");
+        QuestionDto edited = QuestionUtils.copyOf(questions.get(0));
+        edited.setAnswer("Edited elsewhere");
+
+        // When
+        new QuestionServiceImpl().saveQuestion("java.json", edited);
+        List<QuestionDto> loaded = questionService.getQuestions("java.json");
+
+        // Then
+        assertEquals(edited, loaded.get(0));
+        assertEquals(2, questionService.getMissCount());
+    }
+
+    @Test
+    void testSaveQuestion_InvalidatesCachedBank() throws IOException {
+        // Given
+        questionService.getQuestions("java.json");
+        QuestionDto edited = QuestionUtils.copyOf(questions.get(0));
+        edited.setAnswer("Edited answer");
+
+        // When
+        questionService.saveQuestion("java.json", edited);
+
+        // Then
+        assertEquals(edited, questionService.getQuestions("java.json").get(0));
+        assertEquals(2, questionService.getMissCount());
+    }
+
+    @Test
+    void testApplyChanges_InvalidatesCachedBank() throws IOException {
+        // Given
+        questionService.getQuestions("java.json");
+        QuestionChangeSetDto changeSet = new QuestionChangeSetDto();
+        changeSet.getDeletions().add(questions.get(0).getId());
+
+        // When
+        questionService.applyChanges("java.json", changeSet);
+
+        // Then
+        assertEquals(questions.subList(1, 3), questionService.getQuestions("java.json"));
+        assertEquals(2, questionService.getMissCount());
+    }
+
+    @Test
+    void testCountAndPage_ServedFromCache() {
+        // Given
+        questionService.getQuestions("java.json");
+
+        // When
+        int count = questionService.getQuestionCount("java.json");
+        List<QuestionDto> page = questionService.getQuestions("java.json", 2, 10);
+
+        // Then
+        assertEquals(3, count);
+        assertEquals(questions.subList(2, 3), page);
+        assertEquals(2, questionService.getHitCount());
+        assertThrows(IllegalArgumentException.class, () -> questionService.getQuestions("java.json", -1, 1));
+    }
+
+    @Test
+    void testEviction_BoundedByRetainedBytes() throws IOException {
+        // Given
+        long bankSize = questions.stream().mapToLong(QuestionUtils::estimateRetainedBytes).sum();
+        CachingQuestionService smallCache = new CachingQuestionService(new QuestionServiceImpl(), bankSize + 1);
+        smallCache.saveQuestions("ruby.json", createQuestions("Ruby", 3));
+
+        // When
+        smallCache.getQuestions("java.json");
+        smallCache.getQuestions("ruby.json");
+        smallCache.getQuestions("java.json");
+
+        // Then
+        assertEquals(3, smallCache.getMissCount());
+        assertEquals(0, smallCache.getHitCount());
+        assertTrue(smallCache.getCachedBytes() <= bankSize + 1);
+    }
+
+    @Test
+    void testGetQuestions_MissingBankIsNotCached() {
+        // When
+        List<QuestionDto> first = questionService.getQuestions("missing.json");
+        List<QuestionDto> second = questionService.getQuestions("missing.json");
+
+        // Then
+        assertTrue(first.isEmpty());
+        assertTrue(second.isEmpty());
+        assertEquals(0, questionService.getHitCount());
+        assertEquals(0, questionService.getCachedBytes());
+    }
+
+    @Test
+    void testLoadAllQuestionBanks_BypassesCache() {
+        // When
+        BulkLoadReportDto report = questionService.loadAllQuestionBanks(1, 1, null);
+
+        // Then
+        assertEquals(1, report.getBankCount());
+        assertEquals(3, report.getQuestionCount());
+        assertEquals(0, questionService.getCachedBytes());
+    }
+
+    private List<QuestionDto> createQuestions(String topic, int count) {
+        List<QuestionDto> result = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            QuestionDto question = new QuestionDto();
+            question.setId(UUID.randomUUID());
+            question.setQuestion("What is " + topic + " " + i + "?");
+            question.setAnswer("Answer " + i);
+            question.setCategory(topic);
+            result.add(question);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,155 @@
+package net.talaatharb.questionbank.service;
+
+import net.talaatharb.questionbank.dto.QuestionDto;
+import net.talaatharb.questionbank.dto.QuestionField;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EditHistoryTest {
+
+    @TempDir
+    Path tempDir;
+
+    private EditHistory history;
+    private List<QuestionDto> questions;
+
+    @BeforeEach
+    void setUp() {
+        history = new EditHistory();
+        questions = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            questions.add(createQuestion("Question " + i));
+        }
+    }
+
+    @Test
+    void testEditFields_RecordsOnlyChangedFields() {
+        // When
+        boolean changed = history.editFields(questions, 1,
+                Map.of(QuestionField.QUESTION, "Question 1", QuestionField.ANSWER, "Edited answer"));
+        boolean unchanged = history.editFields(questions, 1, Map.of(QuestionField.ANSWER, "Edited answer"));
+
+        // Then
+        assertTrue(changed);
+        assertFalse(unchanged);
+        assertEquals(1, history.getUndoCount());
+        assertEquals("Edited answer", questions.get(1).getAnswer());
+
+        EditHistory.Result undone = history.undo(questions);
+        assertEquals(1, undone.position());
+        assertSame(questions.get(1), undone.edited());
+        assertEquals("Answer", questions.get(1).getAnswer());
+        assertEquals("Question 1", questions.get(1).getQuestion());
+
+        history.redo(questions);
+        assertEquals("Edited answer", questions.get(1).getAnswer());
+    }
+
+    @Test
+    void testUndoRedo_InsertDeleteAndMove() {
+        // Given
+        List<QuestionDto> original = new ArrayList<>(questions);
+        QuestionDto deleted = questions.remove(0);
+        history.recordDelete(0, deleted);
+        questions.add(createQuestion("Inserted"));
+        history.recordInsert(2);
+        questions.add(0, questions.remove(1));
+        history.recordMove(1, 0);
+        List<QuestionDto> edited = new ArrayList<>(questions);
+
+        // When
+        while (history.canUndo()) {
+            history.undo(questions);
+        }
+
+        // Then
+        assertEquals(original, questions);
+        assertEquals(3, history.getRedoCount());
+        while (history.canRedo()) {
+            history.redo(questions);
+        }
+        assertEquals(edited, questions);
+        assertNull(history.redo(questions));
+    }
+
+    @Test
+    void testRecord_AfterUndo_DropsRedo() {
+        // Given
+        history.recordMove(0, 1);
+        questions.add(1, questions.remove(0));
+        history.undo(questions);
+
+        // When
+        history.recordMove(1, 2);
+
+        // Then
+        assertFalse(history.canRedo());
+        assertEquals(1, history.getUndoCount());
+    }
+
+    @Test
+    void testRecord_BeyondCapacity_DropsOldestEdits() {
+        // Given
+        EditHistory small = new EditHistory(2);
+
+        // When
+        for (int i = 0; i < 3; i++) {
+            small.editFields(questions, i, Map.of(QuestionField.CATEGORY, "Edited"));
+        }
+
+        // Then
+        assertEquals(2, small.getUndoCount());
+        small.undo(questions);
+        small.undo(questions);
+        assertNull(small.undo(questions));
+        assertEquals("Edited", questions.get(0).getCategory());
+        assertEquals("Category", questions.get(1).getCategory());
+        assertThrows(IllegalArgumentException.class, () -> new EditHistory(0));
+    }
+
+    @Test
+    void testWriteAndRead_RestoresHistoryOfSameQuestions() throws IOException {
+        // Given
+        Path historyFile = tempDir.resolve("bank.json.history");
+        history.editFields(questions, 0, Map.of(QuestionField.QUESTION, "Edited"));
+        history.recordDelete(2, questions.remove(2));
+        history.undo(questions);
+
+        // When
+        history.write(historyFile, questions);
+        EditHistory restored = EditHistory.read(historyFile, EditHistory.DEFAULT_CAPACITY, questions);
+
+        // Then
+        assertEquals(1, restored.getUndoCount());
+        assertEquals(1, restored.getRedoCount());
+        restored.redo(questions);
+        assertEquals(2, questions.size());
+        restored.undo(questions);
+        restored.undo(questions);
+        assertEquals("Question 0", questions.get(0).getQuestion());
+        assertEquals(3, questions.size());
+
+        questions.get(1).setAnswer("Changed elsewhere");
+        assertNull(EditHistory.read(historyFile, EditHistory.DEFAULT_CAPACITY, questions));
+        assertNull(EditHistory.read(tempDir.resolve("missing.history"), EditHistory.DEFAULT_CAPACITY, questions));
+    }
+
+    private QuestionDto createQuestion(String text) {
+        QuestionDto question = new QuestionDto();
+        question.setId(UUID.randomUUID());
+        question.setQuestion(text);
+        question.setAnswer("Answer");
+        question.setCategory("Category");
+        return question;
+    }
+}
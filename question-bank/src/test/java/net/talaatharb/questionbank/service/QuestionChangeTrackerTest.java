@@ -0,0 +1,136 @@
+package net.talaatharb.questionbank.service;
+
+import net.talaatharb.questionbank.dto.QuestionChangeSetDto;
+import net.talaatharb.questionbank.dto.QuestionDto;
+import net.talaatharb.questionbank.utils.QuestionUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuestionChangeTrackerTest {
+
+    private QuestionChangeTracker tracker;
+    private List<QuestionDto> questions;
+
+    @BeforeEach
+    void setUp() {
+        tracker = new QuestionChangeTracker();
+        questions = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            QuestionDto question = new QuestionDto();
+            question.setId(UUID.randomUUID());
+            question.setQuestion("Question " + i);
+            questions.add(question);
+        }
+        tracker.reset(questions);
+    }
+
+    @Test
+    void testCollect_WithoutChanges_IsEmpty() {
+        // When
+        QuestionChangeSetDto changeSet = tracker.collect(questions).changeSet();
+
+        // Then
+        assertTrue(changeSet.isEmpty());
+        assertFalse(tracker.hasChanges(questions));
+        assertFalse(tracker.isFullSaveRequired());
+    }
+
+    @Test
+    void testCollect_EditsInsertsAndDeletions() {
+        // Given
+        QuestionDto inserted = new QuestionDto();
+        inserted.setQuestion("New question");
+        QuestionDto deleted = questions.remove(0);
+        tracker.markEdited(questions.get(1));
+        questions.add(inserted);
+
+        // When
+        QuestionChangeSetDto changeSet = tracker.collect(questions).changeSet();
+
+        // Then
+        assertNotNull(inserted.getId());
+        assertEquals(List.of(questions.get(1), inserted), changeSet.getUpserts());
+        assertEquals(List.of(deleted.getId()), changeSet.getDeletions());
+        assertNull(changeSet.getOrder());
+    }
+
+    @Test
+    void testCollect_Reorder_GivesNewOrder() {
+        // Given
+        Collections.swap(questions, 0, 2);
+
+        // When
+        QuestionChangeSetDto changeSet = tracker.collect(questions).changeSet();
+
+        // Then
+        assertTrue(changeSet.getUpserts().isEmpty());
+        assertEquals(questions.stream().map(QuestionDto::getId).toList(), changeSet.getOrder());
+    }
+
+    @Test
+    void testSaved_KeepsEditsMadeAfterCollect() {
+        // Given
+        tracker.markEdited(questions.get(0));
+        QuestionChangeTracker.Changes changes = tracker.collect(questions);
+        tracker.markEdited(questions.get(1));
+
+        // When
+        tracker.saved(changes);
+
+        // Then
+        assertEquals(List.of(questions.get(1)), tracker.collect(questions).changeSet().getUpserts());
+    }
+
+    @Test
+    void testReset_WithoutIds_RequiresFullSave() {
+        // Given
+        List<QuestionDto> withoutIds = new ArrayList<>(List.of(new QuestionDto(), new QuestionDto()));
+
+        // When
+        tracker.reset(withoutIds);
+
+        // Then
+        assertTrue(tracker.isFullSaveRequired());
+        assertTrue(tracker.hasChanges(withoutIds));
+        assertTrue(withoutIds.stream().allMatch(question -> question.getId() != null));
+        tracker.saved(tracker.collect(withoutIds));
+        assertFalse(tracker.hasChanges(withoutIds));
+    }
+
+    @Test
+    void testCollect_GivesBasesOfChangedQuestions() {
+        // Given
+        QuestionDto deleted = questions.remove(2);
+        questions.get(0).setQuestion("Edited");
+        tracker.markEdited(questions.get(0));
+        QuestionDto inserted = new QuestionDto();
+        questions.add(inserted);
+
+        // When
+        QuestionChangeTracker.Changes changes = tracker.collect(questions);
+
+        // Then
+        QuestionChangeSetDto changeSet = changes.changeSet();
+        assertTrue(changeSet.isMergeConflicts());
+        assertEquals(Set.of(questions.get(0).getId(), deleted.getId()), changeSet.getBases().keySet());
+        assertEquals("Question 0", changeSet.getBases().get(questions.get(0).getId()).getQuestion());
+        assertNotSame(questions.get(0), changeSet.getUpserts().get(0));
+
+        QuestionDto written = QuestionUtils.copyOf(changeSet.getUpserts().get(0));
+        written.setVersion("1");
+        tracker.saved(changes, List.of(written, inserted));
+        questions.get(0).setQuestion("Edited again");
+        tracker.markEdited(questions.get(0));
+        QuestionChangeSetDto next = tracker.collect(questions).changeSet();
+        assertEquals("1", next.getBases().get(questions.get(0).getId()).getVersion());
+        assertEquals("Edited", next.getBases().get(questions.get(0).getId()).getQuestion());
+    }
+}
@@ -1,7 +1,20 @@
 package net.talaatharb.questionbank.service;
 
 import net.talaatharb.questionbank.config.HelperBeans;
+import net.talaatharb.questionbank.dto.BankLoadResultDto;
+import net.talaatharb.questionbank.dto.BulkLoadReportDto;
+import net.talaatharb.questionbank.dto.DuplicateClusterDto;
+import net.talaatharb.questionbank.dto.DuplicateQuestionDto;
+import net.talaatharb.questionbank.dto.QuestionBankSummaryDto;
+import net.talaatharb.questionbank.dto.QuestionChangeSetDto;
 import net.talaatharb.questionbank.dto.QuestionDto;
+import net.talaatharb.questionbank.dto.QuestionField;
+import net.talaatharb.questionbank.dto.QuestionLocationDto;
+import net.talaatharb.questionbank.storage.QbinBank;
+import net.talaatharb.questionbank.storage.QuestionTable;
+import net.talaatharb.questionbank.utils.FileUtils;
+import net.talaatharb.questionbank.utils.QuestionUtils;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
@@ -11,8 +24,21 @@ import org.junit.jupiter.params.provider.CsvSource;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import static org.awaitility.Awaitility.await;
 import static org.junit.jupiter.api.Assertions.*;
 
 class QuestionServiceImplTest {
@@ -22,12 +48,16 @@ class QuestionServiceImplTest {
     
     private QuestionService questionService;
     private Path testDataPath;
+    private String originalDataFolder;
 
     @BeforeEach
     void setUp() throws IOException {
-        // Create test data directory
+        // Create test data directory, the banks and sidecars the tests write stay
+        // out of ./data
         testDataPath = tempDir.resolve("data");
         Files.createDirectories(testDataPath);
+        originalDataFolder = FileUtils.getDataFolder();
+        FileUtils.setDataFolder(testDataPath.toString());
         
         // Create QuestionService using HelperBeans
         questionService = HelperBeans.buildQuestionService();
@@ -38,6 +68,11 @@ class QuestionServiceImplTest {
         createTestQuestionBank("empty.json", "[]");
     }
 
+    @AfterEach
+    void tearDown() {
+        FileUtils.setDataFolder(originalDataFolder);
+    }
+
     @Test
     void testGetQuestionBanks_WithExistingFiles() {
         // When
@@ -68,7 +103,7 @@ class QuestionServiceImplTest {
     @Test
     void testGetQuestions_WithValidQuestionBank() throws IOException {
         // Given - create a test file in the actual ./data directory
-        Path actualDataPath = Path.of("./data");
+        Path actualDataPath = Path.of(FileUtils.getDataFolder());
         if (!Files.exists(actualDataPath)) {
             Files.createDirectories(actualDataPath);
         }
@@ -103,7 +138,7 @@ class QuestionServiceImplTest {
     @Test
     void testGetQuestions_WithEmptyQuestionBank() throws IOException {
         // Given - create an empty test file in the actual ./data directory
-        Path actualDataPath = Path.of("./data");
+        Path actualDataPath = Path.of(FileUtils.getDataFolder());
         if (!Files.exists(actualDataPath)) {
             Files.createDirectories(actualDataPath);
         }
@@ -125,6 +160,950 @@ class QuestionServiceImplTest {
         }
     }
     
+    @Test
+    void testStreamQuestions_WithValidQuestionBank() throws IOException {
+        // Given - create a test file in the actual ./data directory
+        Path actualDataPath = Path.of(FileUtils.getDataFolder());
+        if (!Files.exists(actualDataPath)) {
+            Files.createDirectories(actualDataPath);
+        }
+        
+        String testFileName = "test-stream-questions.json";
+        Path testFile = actualDataPath.resolve(testFileName);
+        Files.writeString(testFile, createJavaQuestions());
+        
+        try (Stream<QuestionDto> stream = questionService.streamQuestions(testFileName)) {
+            // When
+            List<String> questionTexts = stream.map(QuestionDto::getQuestion).toList();
+            
+            // Then
+            assertEquals(List.of("What is Java?", "What is JVM?"), questionTexts);
+        } finally {
+            // Clean up
+            Files.deleteIfExists(testFile);
+        }
+    }
+
+    @Test
+    void testStreamQuestions_WithInvalidQuestionBank() {
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> questionService.streamQuestions(" "));
+        assertThrows(IOException.class, () -> questionService.streamQuestions("nonexistent.json"));
+    }
+
+    @Test
+    void testGetQuestionCountAndPage() throws IOException {
+        // Given
+        String questionBankName = "paged-test.json";
+        List<QuestionDto> originalQuestions = createNewQuestions();
+        questionService.saveQuestions(questionBankName, originalQuestions);
+        
+        try {
+            // When
+            int count = questionService.getQuestionCount(questionBankName);
+            List<QuestionDto> page = questionService.getQuestions(questionBankName, 1, 10);
+            
+            // Then
+            assertEquals(2, count);
+            assertEquals(1, page.size());
+            assertEquals("What is Django?", page.get(0).getQuestion());
+            assertTrue(questionService.getQuestions(questionBankName, 2, 10).isEmpty());
+        } finally {
+            // Clean up
+            Files.deleteIfExists(Path.of(FileUtils.getDataFolder()).resolve(questionBankName));
+        }
+    }
+
+    @Test
+    void testGetQuestionCountAndPage_WithInvalidQuestionBank() {
+        // When & Then
+        assertEquals(0, questionService.getQuestionCount(null));
+        assertEquals(0, questionService.getQuestionCount("nonexistent.json"));
+        assertTrue(questionService.getQuestions("", 0, 10).isEmpty());
+        assertTrue(questionService.getQuestions("nonexistent.json", 0, 10).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> questionService.getQuestions("test.json", -1, 10));
+    }
+
+    @Test
+    void testBinaryQuestionBank_SaveConvertAndPage() throws IOException {
+        // Given
+        String binaryBank = "binary-test.qbin";
+        String jsonBank = "binary-test-copy.json";
+        List<QuestionDto> originalQuestions = createNewQuestions();
+        
+        try {
+            // When
+            questionService.saveQuestions(binaryBank, originalQuestions);
+            questionService.convertQuestionBank(binaryBank, jsonBank);
+            
+            // Then
+            assertEquals(2, questionService.getQuestionCount(binaryBank));
+            assertEquals(originalQuestions, questionService.getQuestions(binaryBank));
+            assertEquals(originalQuestions.subList(1, 2), questionService.getQuestions(binaryBank, 1, 5));
+            assertEquals(originalQuestions, questionService.getQuestions(jsonBank));
+            assertTrue(questionService.getQuestionBanks().contains(binaryBank));
+        } finally {
+            // Clean up
+            Files.deleteIfExists(Path.of(FileUtils.getDataFolder()).resolve(binaryBank));
+            Files.deleteIfExists(Path.of(FileUtils.getDataFolder()).resolve(jsonBank));
+        }
+    }
+
+    @Test
+    void testBinaryJsonEncodings_SaveConvertAndPage() throws IOException {
+        // Given
+        String originalDataFolder = FileUtils.getDataFolder();
+        FileUtils.setDataFolder(tempDir.resolve("encodings").toString());
+        List<QuestionDto> originalQuestions = createNewQuestions();
+        
+        try {
+            // When
+            questionService.saveQuestions("python.smile", originalQuestions);
+            questionService.convertQuestionBank("python.smile", "python.cbor");
+            questionService.convertQuestionBank("python.cbor", "python.min.json");
+            
+            // Then
+            assertEquals(List.of("python.cbor", "python.min.json", "python.smile"),
+                    questionService.getQuestionBanks().stream().sorted().toList());
+            assertEquals(2, questionService.getQuestionCount("python.smile"));
+            assertEquals(originalQuestions.subList(1, 2), questionService.getQuestions("python.cbor", 1, 5));
+            assertEquals(originalQuestions, questionService.getQuestions("python.min.json"));
+            assertFalse(Files.readString(Path.of(FileUtils.getDataFolder()).resolve("python.min.json")).contains("\n"));
+        } finally {
+            FileUtils.setDataFolder(originalDataFolder);
+        }
+    }
+
+    @Test
+    void testCompressedBanks_ReadWriteAndCompact() throws IOException {
+        // Given
+        String originalDataFolder = FileUtils.getDataFolder();
+        FileUtils.setDataFolder(tempDir.resolve("compressed").toString());
+        QuestionServiceImpl compressedService = new QuestionServiceImpl();
+        List<QuestionDto> originalQuestions = createNewQuestions();
+        originalQuestions.forEach(question -> question.setId(UUID.randomUUID()));
+        Path dataFolder = Path.of(FileUtils.getDataFolder());
+        
+        try {
+            // When
+            compressedService.setCompressionLevel("python.json.gz", 9);
+            compressedService.saveQuestions("python.json.gz", originalQuestions);
+            compressedService.convertQuestionBank("python.json.gz", "python.qbin.gz");
+            compressedService.convertQuestionBank("python.qbin.gz", "python.smile.deflate");
+            QuestionDto inserted = new QuestionDto();
+            inserted.setQuestion("What is a generator?");
+            compressedService.saveQuestion("python.json.gz", inserted);
+            compressedService.compactQuestionBank("python.json.gz");
+            
+            // Then
+            assertEquals(9, compressedService.getCompressionLevel("python.json.gz"));
+            assertEquals(List.of("python.json.gz", "python.qbin.gz", "python.smile.deflate"),
+                    compressedService.getQuestionBanks().stream().sorted().toList());
+            assertEquals(3, compressedService.getQuestionCount("python.json.gz"));
+            assertEquals(inserted, compressedService.getQuestions("python.json.gz", 2, 1).get(0));
+            assertEquals(originalQuestions.subList(1, 2), compressedService.getQuestions("python.qbin.gz", 1, 1));
+            assertEquals(originalQuestions, compressedService.getQuestions("python.smile.deflate"));
+            byte[] compacted = Files.readAllBytes(dataFolder.resolve("python.json.gz"));
+            assertEquals((byte) 0x1f, compacted[0]);
+            assertEquals((byte) 0x8b, compacted[1]);
+            assertThrows(IllegalArgumentException.class, () -> compressedService.setCompressionLevel("python.json.gz", 12));
+        } finally {
+            FileUtils.setDataFolder(originalDataFolder);
+        }
+    }
+
+    @Test
+    void testGetQuestionTable_HoldsQuestionsInColumns() throws IOException {
+        // Given
+        String bank = "table-test.json.gz";
+        List<QuestionDto> originalQuestions = createNewQuestions();
+        
+        try {
+            questionService.saveQuestions(bank, originalQuestions);
+            
+            // When
+            QuestionTable table = questionService.getQuestionTable(bank);
+            
+            // Then
+            assertEquals(originalQuestions, table.stream().toList());
+            assertArrayEquals(new int[] { 1 }, table.findRows(QuestionField.CATEGORY, "Framework"));
+            assertEquals(0, questionService.getQuestionTable("nonexistent.json").size());
+            assertEquals(0, questionService.getQuestionTable(" ").size());
+        } finally {
+            Files.deleteIfExists(Path.of(FileUtils.getDataFolder()).resolve(bank));
+        }
+    }
+
+    @Test
+    void testSearch_RanksMatchesAndFollowsSaves() throws IOException {
+        // Given
+        String originalDataFolder = FileUtils.getDataFolder();
+        FileUtils.setDataFolder(tempDir.resolve("search").toString());
+        QuestionServiceImpl searchService = new QuestionServiceImpl();
+        List<QuestionDto> questions = new ArrayList<>(createNewQuestions());
+        questions.forEach(question -> question.setId(UUID.randomUUID()));
+        questions.get(1).setExplanation("Django is a Python web framework");
+        
+        try {
+            searchService.saveQuestions("search.json", questions);
+            
+            // When
+            List<QuestionDto> pythonMatches = searchService.search("search.json", "PYTHON", 10);
+            
+            // Then
+            assertEquals(List.of(questions.get(0), questions.get(1)), pythonMatches);
+            assertEquals(List.of(questions.get(1)), searchService.search("search.json", "web", 10));
+            assertEquals(1, searchService.search("search.json", "python", 1).size());
+            assertTrue(searchService.search("search.json", "kotlin", 10).isEmpty());
+            assertTrue(searchService.search("search.json", " ", 10).isEmpty());
+            assertTrue(searchService.search("missing.json", "python", 10).isEmpty());
+            assertTrue(Files.exists(FileUtils.getSidecarFilePath("search.json", ".search")));
+            assertThrows(IllegalArgumentException.class, () -> searchService.search("search.json", "python", -1));
+            
+            // When
+            QuestionDto kotlin = new QuestionDto();
+            kotlin.setId(UUID.randomUUID());
+            kotlin.setQuestion("What is Kotlin?");
+            questions.set(0, kotlin);
+            searchService.saveQuestions("search.json", questions);
+            QuestionDto ktor = new QuestionDto();
+            ktor.setQuestion("What is Ktor for Kotlin?");
+            searchService.saveQuestion("search.json", ktor);
+            
+            // Then
+            assertEquals(List.of(kotlin, ktor), searchService.search("search.json", "kotlin", 10));
+            assertEquals(List.of(questions.get(1)), searchService.search("search.json", "python", 10));
+            assertEquals(List.of(kotlin, ktor),
+                    new QuestionServiceImpl().search("search.json", "kotlin", 10));
+        } finally {
+            FileUtils.setDataFolder(originalDataFolder);
+        }
+    }
+
+    @Test
+    void testFindDuplicates_ReportsClustersAcrossBanks() throws IOException {
+        // Given
+        String originalDataFolder = FileUtils.getDataFolder();
+        FileUtils.setDataFolder(tempDir.resolve("duplicates").toString());
+        QuestionServiceImpl duplicateService = new QuestionServiceImpl();
+        List<QuestionDto> questions = createNewQuestions();
+        QuestionDto reworded = new QuestionDto();
+        reworded.setQuestion("what is python");
+        reworded.setAnswer("A programming language!");
+        
+        try {
+            duplicateService.saveQuestions("python.json", questions);
+            duplicateService.saveQuestions("copies.qbin", List.of(createNewQuestions().get(1)));
+            duplicateService.saveQuestion("copies.qbin", reworded);
+            
+            // When
+            List<DuplicateClusterDto> clusters = duplicateService.findDuplicates(0.8);
+            
+            // Then
+            assertEquals(2, clusters.size());
+            assertEquals(Set.of("What is Python?", "what is python"), clusters.stream()
+                    .flatMap(cluster -> cluster.getQuestions().stream())
+                    .filter(duplicate -> duplicate.getQuestion().toLowerCase().contains("python"))
+                    .map(DuplicateQuestionDto::getQuestion)
+                    .collect(Collectors.toSet()));
+            DuplicateQuestionDto copy = clusters.stream()
+                    .flatMap(cluster -> cluster.getQuestions().stream())
+                    .filter(duplicate -> duplicate.getQuestionBank().equals("copies.qbin"))
+                    .filter(duplicate -> duplicate.getPosition() == 0)
+                    .findFirst().orElseThrow();
+            assertEquals("What is Django?", copy.getQuestion());
+            assertEquals(1.0, copy.getSimilarity());
+            assertTrue(Files.exists(FileUtils.getSidecarFilePath("python.json", ".minhash")));
+            assertEquals(2, new QuestionServiceImpl().findDuplicates(0.8).size());
+            assertThrows(IllegalArgumentException.class, () -> duplicateService.findDuplicates(0));
+        } finally {
+            FileUtils.setDataFolder(originalDataFolder);
+        }
+    }
+
+    @Test
+    void testFindById_FollowsSavesAcrossBanks() throws IOException {
+        // Given
+        String originalDataFolder = FileUtils.getDataFolder();
+        FileUtils.setDataFolder(tempDir.resolve("ids").toString());
+        QuestionServiceImpl idService = new QuestionServiceImpl();
+        List<QuestionDto> questions = createNewQuestions();
+        questions.forEach(question -> question.setId(UUID.randomUUID()));
+        QuestionDto other = new QuestionDto();
+        other.setId(UUID.randomUUID());
+        other.setQuestion("What is Flask?");
+        
+        try {
+            idService.saveQuestions("python.json", questions);
+            idService.saveQuestions("other.qbin", List.of(other));
+            
+            // When
+            QuestionLocationDto found = idService.findById(questions.get(1).getId()).orElseThrow();
+            
+            // Then
+            assertEquals("python.json", found.getQuestionBank());
+            assertEquals(1, found.getPosition());
+            assertEquals(questions.get(1), found.getQuestion());
+            assertEquals("other.qbin", idService.findById(other.getId()).orElseThrow().getQuestionBank());
+            assertTrue(idService.findById(UUID.randomUUID()).isEmpty());
+            assertTrue(idService.findById(null).isEmpty());
+            
+            // Journaled saves update the loaded index
+            QuestionDto inserted = new QuestionDto();
+            inserted.setId(UUID.randomUUID());
+            inserted.setQuestion("What is pip?");
+            idService.saveQuestion("python.json", inserted);
+            idService.deleteQuestion("python.json", questions.get(0).getId());
+            assertEquals(1, idService.findById(inserted.getId()).orElseThrow().getPosition());
+            assertEquals(0, idService.findById(questions.get(1).getId()).orElseThrow().getPosition());
+            assertTrue(idService.findById(questions.get(0).getId()).isEmpty());
+            
+            // The journal restores a deleted question in place
+            idService.saveQuestion("python.json", questions.get(0));
+            assertEquals(0, idService.findById(questions.get(0).getId()).orElseThrow().getPosition());
+            
+            // Banks changed behind the index are indexed again
+            new QuestionServiceImpl().saveQuestions("moved.json", List.of(other));
+            Files.delete(tempDir.resolve("ids").resolve("other.qbin"));
+            assertEquals("moved.json", idService.findById(other.getId()).orElseThrow().getQuestionBank());
+            await().atMost(Duration.ofSeconds(5)).until(() -> Files.exists(FileUtils.getIdIndexFilePath()));
+            assertEquals(2, new QuestionServiceImpl().findById(inserted.getId()).orElseThrow().getPosition());
+        } finally {
+            FileUtils.setDataFolder(originalDataFolder);
+        }
+    }
+
+    @Test
+    void testSaveQuestion_ConcurrentWritersAndReaders() throws Exception {
+        // Given
+        String originalDataFolder = FileUtils.getDataFolder();
+        FileUtils.setDataFolder(tempDir.resolve("locks").toString());
+        QuestionServiceImpl lockedService = new QuestionServiceImpl();
+        lockedService.saveQuestions("python.json", createNewQuestions());
+        
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            // When
+            List<Future<?>> calls = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                QuestionDto question = new QuestionDto();
+                question.setQuestion("Question " + i);
+                calls.add(executor.submit(() -> {
+                    lockedService.saveQuestion("python.json", question);
+                    return null;
+                }));
+                calls.add(executor.submit(() -> assertTrue(lockedService.getQuestions("python.json").size() >= 2)));
+            }
+            for (Future<?> call : calls) {
+                call.get();
+            }
+            
+            // Then
+            assertEquals(42, lockedService.getQuestionCount("python.json"));
+            assertTrue(Files.exists(FileUtils.getSidecarFilePath("python.json", ".lock")));
+            assertTrue(lockedService.getLockContention().acquisitions() >= 80);
+        } finally {
+            FileUtils.setDataFolder(originalDataFolder);
+        }
+    }
+
+    @Test
+    void testReadsOfIndexesAndSummaries_TakeReadLocks() throws IOException {
+        // Given
+        String originalDataFolder = FileUtils.getDataFolder();
+        FileUtils.setDataFolder(tempDir.resolve("read-locks").toString());
+        QuestionServiceImpl lockedService = new QuestionServiceImpl();
+        lockedService.saveQuestions("python.json", createNewQuestions());
+        lockedService.saveQuestions("removed.json", createNewQuestions());
+        
+        try {
+            long before = lockedService.getLockContention().acquisitions();
+            
+            // When
+            lockedService.getFacetCounts("python.json");
+            lockedService.countQuestions("python.json", "category=Programming");
+            lockedService.findDuplicates(0.9);
+            lockedService.getQuestionBankSummaries();
+            lockedService.convertQuestionBank("python.json", "python.json.gz");
+            
+            // Then
+            // Facets, count, two signatures and the source of the conversion, the
+            // saved summaries are current and read without locks
+            assertTrue(lockedService.getLockContention().acquisitions() - before >= 7);
+            Files.delete(Path.of(FileUtils.getDataFolder()).resolve("removed.json"));
+            assertTrue(Files.exists(FileUtils.getSidecarFilePath("removed.json", ".lock")));
+            lockedService.getQuestionBankSummaries();
+            assertFalse(Files.exists(FileUtils.getSidecarFilePath("removed.json", ".lock")));
+            assertTrue(Files.exists(FileUtils.getSidecarFilePath("python.json", ".lock")));
+        } finally {
+            FileUtils.setDataFolder(originalDataFolder);
+        }
+    }
+
+    @Test
+    void testStreamQuestions_HoldsReadLockUntilClosed() throws Exception {
+        // Given
+        String originalDataFolder = FileUtils.getDataFolder();
+        FileUtils.setDataFolder(tempDir.resolve("stream-lock").toString());
+        QuestionServiceImpl lockedService = new QuestionServiceImpl();
+        lockedService.saveQuestions("python.json", createNewQuestions());
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        
+        try {
+            Future<?> save;
+            try (Stream<QuestionDto> stream = lockedService.streamQuestions("python.json")) {
+                // When
+                save = executor.submit(() -> {
+                    lockedService.saveQuestions("python.json", createNewQuestions().subList(0, 1));
+                    return null;
+                });
+                
+                // Then
+                await().during(Duration.ofMillis(200)).atMost(Duration.ofSeconds(1)).until(() -> !save.isDone());
+                assertEquals(2, stream.count());
+            }
+            save.get();
+            assertEquals(1, lockedService.getQuestionCount("python.json"));
+        } finally {
+            executor.shutdownNow();
+            FileUtils.setDataFolder(originalDataFolder);
+        }
+    }
+
+    @Test
+    void testFilterQuestions_UsesFacetsAndFollowsSaves() throws IOException {
+        // Given
+        String originalDataFolder = FileUtils.getDataFolder();
+        FileUtils.setDataFolder(tempDir.resolve("facets").toString());
+        QuestionServiceImpl facetService = new QuestionServiceImpl();
+        List<QuestionDto> questions = createNewQuestions();
+        questions.get(0).setCategory("Programming");
+        questions.get(0).setTags("python,language");
+        questions.get(1).setCategory("Frameworks");
+        questions.get(1).setTags("python,web");
+        questions.get(1).setStatus("draft");
+        
+        try {
+            facetService.saveQuestions("facets.json", questions);
+            
+            // When
+            Map<QuestionField, Map<String, Integer>> counts = facetService.getFacetCounts("facets.json");
+            List<QuestionDto> published = facetService.filterQuestions("facets.json",
+                    "tag=python AND NOT status=draft", 0, 10);
+            
+            // Then
+            assertEquals(Map.of("python", 2, "language", 1, "web", 1), counts.get(QuestionField.TAGS));
+            assertEquals(Map.of("draft", 1), counts.get(QuestionField.STATUS));
+            assertEquals(List.of(questions.get(0)), published);
+            assertEquals(2, facetService.countQuestions("facets.json", "tag=python"));
+            assertEquals(List.of(questions.get(1)), facetService.filterQuestions("facets.json", "tag=python", 1, 10));
+            assertTrue(facetService.filterQuestions("facets.json", "tag=python", 2, 10).isEmpty());
+            assertTrue(Files.exists(FileUtils.getSidecarFilePath("facets.json", ".facets")));
+            assertTrue(facetService.getFacetCounts(" ").isEmpty());
+            assertEquals(0, facetService.countQuestions("missing.json", "tag=python"));
+            assertThrows(IllegalArgumentException.class, () -> facetService.countQuestions("facets.json", "tag"));
+            assertThrows(IllegalArgumentException.class,
+                    () -> facetService.filterQuestions("facets.json", "tag=python", 0, -1));
+            
+            // When
+            questions.get(1).setStatus("published");
+            facetService.saveQuestions("facets.json", questions);
+            
+            // Then
+            assertEquals(2, facetService.countQuestions("facets.json", "tag=python AND NOT status=draft"));
+            assertEquals(1, new QuestionServiceImpl().countQuestions("facets.json", "status=PUBLISHED"));
+        } finally {
+            FileUtils.setDataFolder(originalDataFolder);
+        }
+    }
+
+    @Test
+    void testShardedBank_ActsAsOneBank() throws IOException {
+        // Given
+        String originalDataFolder = FileUtils.getDataFolder();
+        long originalThreshold = FileUtils.getShardThresholdBytes();
+        int originalShardSize = FileUtils.getShardSize();
+        FileUtils.setDataFolder(tempDir.resolve("sharded").toString());
+        QuestionServiceImpl shardedService = new QuestionServiceImpl();
+        List<QuestionDto> questions = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            QuestionDto question = new QuestionDto();
+            question.setId(UUID.randomUUID());
+            question.setQuestion("Question " + i);
+            question.setTags(i % 2 == 0 ? "even" : "odd");
+            questions.add(question);
+        }
+        
+        try {
+            shardedService.saveQuestions("large.qbin", questions);
+            FileUtils.setShardThresholdBytes(0);
+            FileUtils.setShardSize(1);
+            
+            // When
+            shardedService.saveQuestions("large.qbin", questions);
+            
+            // Then
+            assertTrue(FileUtils.isShardedBank("large.qbin"));
+            assertEquals(List.of("large.qbin"), shardedService.getQuestionBanks());
+            assertEquals(5, shardedService.getQuestionCount("large.qbin"));
+            assertEquals(questions, shardedService.getQuestions("large.qbin"));
+            assertEquals(questions.subList(1, 4), shardedService.getQuestions("large.qbin", 1, 3));
+            assertEquals(List.of(questions.get(1), questions.get(3)),
+                    shardedService.filterQuestions("large.qbin", "tag=odd", 0, 10));
+            assertEquals(5, shardedService.getQuestionBankSummaries().get(0).getQuestionCount());
+            assertEquals(5, shardedService.loadAllQuestionBanks(1, 1, null).getQuestionCount());
+            
+            // When
+            QuestionDto added = new QuestionDto();
+            added.setQuestion("Question 5");
+            shardedService.saveQuestion("large.qbin", added);
+            shardedService.deleteQuestion("large.qbin", questions.get(0).getId());
+            
+            // Then
+            List<QuestionDto> expected = new ArrayList<>(questions.subList(1, 5));
+            expected.add(added);
+            assertEquals(expected, shardedService.getQuestions("large.qbin"));
+            assertEquals(expected.subList(3, 5), shardedService.getQuestions("large.qbin", 3, 2));
+            assertEquals(5, shardedService.loadAllQuestionBanks(1, 1, null).getQuestionCount());
+            
+            // When
+            shardedService.compactQuestionBank("large.qbin");
+            
+            // Then
+            assertEquals(expected, new QuestionServiceImpl().getQuestions("large.qbin"));
+            assertEquals(5, FileUtils.openShardedBank("large.qbin").getShardCount());
+            assertEquals(5, shardedService.getQuestionCount("large.qbin"));
+        } finally {
+            FileUtils.setDataFolder(originalDataFolder);
+            FileUtils.setShardThresholdBytes(originalThreshold);
+            FileUtils.setShardSize(originalShardSize);
+        }
+    }
+
+    @Test
+    void testGetQuestions_InternsRepetitiveFields() throws IOException {
+        // Given
+        String bank = "interned-test.json";
+        List<QuestionDto> originalQuestions = createNewQuestions();
+        originalQuestions.forEach(question -> {
+            question.setCategory("Programming");
+            question.setLanguage("en");
+        });
+        
+        try {
+            questionService.saveQuestions(bank, originalQuestions);
+            
+            // When
+            List<QuestionDto> questions = questionService.getQuestions(bank);
+            List<QuestionDto> page = questionService.getQuestions(bank, 1, 1);
+            
+            // Then
+            assertEquals(originalQuestions, questions);
+            assertSame(questions.get(0).getCategory(), questions.get(1).getCategory());
+            assertSame(questions.get(0).getLanguage(), page.get(0).getLanguage());
+            assertTrue(QuestionUtils.estimateRetainedBytes(questions) < QuestionUtils.estimateRetainedBytes(
+                    questions.get(0)) + QuestionUtils.estimateRetainedBytes(questions.get(1)));
+        } finally {
+            Files.deleteIfExists(Path.of(FileUtils.getDataFolder()).resolve(bank));
+        }
+    }
+
+    @Test
+    void testSaveAndDeleteQuestion_AreJournaled() throws IOException {
+        // Given
+        String questionBank = "journal-test.json";
+        List<QuestionDto> questions = createNewQuestions();
+        questions.forEach(question -> question.setId(UUID.randomUUID()));
+        questionService.saveQuestions(questionBank, questions);
+        Path bankFile = Path.of(FileUtils.getDataFolder()).resolve(questionBank);
+        String savedContent = Files.readString(bankFile);
+        
+        QuestionDto edited = createNewQuestions().get(0);
+        edited.setId(questions.get(0).getId());
+        edited.setAnswer("An edited answer");
+        QuestionDto inserted = new QuestionDto();
+        inserted.setQuestion("What is Flask?");
+        
+        try {
+            // When
+            questionService.saveQuestion(questionBank, edited);
+            questionService.saveQuestion(questionBank, inserted);
+            questionService.deleteQuestion(questionBank, questions.get(1).getId());
+            
+            // Then
+            assertNotNull(inserted.getId());
+            assertEquals(savedContent, Files.readString(bankFile));
+            assertEquals(List.of(edited, inserted), questionService.getQuestions(questionBank));
+            assertEquals(2, questionService.getQuestionCount(questionBank));
+            assertEquals(List.of(inserted), questionService.getQuestions(questionBank, 1, 5));
+            
+            // A full save replaces the journal
+            questionService.saveQuestions(questionBank, questions);
+            assertEquals(questions, questionService.getQuestions(questionBank));
+        } finally {
+            // Clean up
+            Files.deleteIfExists(bankFile);
+            Files.deleteIfExists(FileUtils.getSidecarFilePath(questionBank, ".idx"));
+        }
+    }
+
+    @Test
+    void testSaveQuestion_CompactsJournalInBackground() throws IOException {
+        // Given
+        QuestionServiceImpl compactingService = new QuestionServiceImpl(1);
+        String questionBank = "compaction-test.qbin";
+        List<QuestionDto> questions = createNewQuestions();
+        questions.forEach(question -> question.setId(UUID.randomUUID()));
+        compactingService.saveQuestions(questionBank, questions);
+        Path bankFile = Path.of(FileUtils.getDataFolder()).resolve(questionBank);
+        Path journalFile = FileUtils.getSidecarFilePath(questionBank, ".journal");
+        
+        QuestionDto edited = createNewQuestions().get(1);
+        edited.setId(questions.get(1).getId());
+        edited.setCategory("Web");
+        
+        try {
+            // When
+            compactingService.saveQuestion(questionBank, edited);
+            
+            // Then
+            await().atMost(Duration.ofSeconds(5)).until(() -> !Files.exists(journalFile)
+                    && !Files.exists(journalFile.resolveSibling(journalFile.getFileName() + ".compacting")));
+            try (QbinBank bank = QbinBank.open(bankFile)) {
+                assertEquals(List.of(questions.get(0), edited), bank.getQuestions(0, 5));
+            }
+            assertEquals(List.of(questions.get(0), edited), compactingService.getQuestions(questionBank));
+        } finally {
+            // Clean up
+            Files.deleteIfExists(bankFile);
+        }
+    }
+
+    @Test
+    void testSaveQuestion_CreatesMissingBank() throws IOException {
+        // Given
+        String questionBank = "single-question.json";
+        QuestionDto question = createNewQuestions().get(0);
+        
+        try {
+            // When
+            questionService.saveQuestion(questionBank, question);
+            
+            // Then
+            assertFalse(Files.exists(FileUtils.getSidecarFilePath(questionBank, ".journal")));
+            assertEquals(List.of(question), questionService.getQuestions(questionBank));
+        } finally {
+            // Clean up
+            Files.deleteIfExists(Path.of(FileUtils.getDataFolder()).resolve(questionBank));
+        }
+    }
+
+    @Test
+    void testSaveAndDeleteQuestion_WithInvalidArguments() {
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> questionService.saveQuestion("", new QuestionDto()));
+        assertThrows(IllegalArgumentException.class, () -> questionService.saveQuestion("test.json", null));
+        assertThrows(IllegalArgumentException.class, () -> questionService.deleteQuestion(null, UUID.randomUUID()));
+        assertThrows(IllegalArgumentException.class, () -> questionService.deleteQuestion("test.json", null));
+        assertThrows(IOException.class, () -> questionService.deleteQuestion("nonexistent.json", UUID.randomUUID()));
+    }
+
+    @Test
+    void testApplyChanges_JournalsEditsAndRewritesReorders() throws IOException {
+        // Given
+        String questionBank = "change-set-test.json";
+        List<QuestionDto> questions = createNewQuestions();
+        questions.forEach(question -> question.setId(UUID.randomUUID()));
+        questionService.saveQuestions(questionBank, questions);
+        Path bankFile = Path.of(FileUtils.getDataFolder()).resolve(questionBank);
+        Path journalFile = FileUtils.getSidecarFilePath(questionBank, ".journal");
+        String savedContent = Files.readString(bankFile);
+
+        QuestionDto edited = createNewQuestions().get(0);
+        edited.setId(questions.get(0).getId());
+        edited.setAnswer("An edited answer");
+        QuestionDto inserted = new QuestionDto();
+        inserted.setId(UUID.randomUUID());
+        inserted.setQuestion("What is Flask?");
+        QuestionChangeSetDto changeSet = new QuestionChangeSetDto();
+        changeSet.getUpserts().addAll(List.of(edited, inserted));
+        changeSet.getDeletions().add(questions.get(1).getId());
+
+        try {
+            // When
+            questionService.applyChanges(questionBank, changeSet);
+
+            // Then
+            assertEquals(savedContent, Files.readString(bankFile));
+            assertTrue(Files.exists(journalFile));
+            assertEquals(List.of(edited, inserted), questionService.getQuestions(questionBank));
+
+            // A new order rewrites the bank with the pending edits
+            QuestionChangeSetDto reorder = new QuestionChangeSetDto();
+            reorder.setOrder(List.of(inserted.getId(), edited.getId()));
+            questionService.applyChanges(questionBank, reorder);
+            assertFalse(Files.exists(journalFile));
+            assertEquals(List.of(inserted, edited), questionService.getQuestions(questionBank));
+
+            // An empty change set leaves the bank untouched
+            String reorderedContent = Files.readString(bankFile);
+            questionService.applyChanges(questionBank, new QuestionChangeSetDto());
+            assertEquals(reorderedContent, Files.readString(bankFile));
+        } finally {
+            // Clean up
+            Files.deleteIfExists(bankFile);
+            Files.deleteIfExists(journalFile);
+            Files.deleteIfExists(FileUtils.getSidecarFilePath(questionBank, ".idx"));
+        }
+    }
+
+    @Test
+    void testApplyChanges_WithBases_ChecksVersionsAndMerges() throws IOException {
+        // Given
+        String originalDataFolder = FileUtils.getDataFolder();
+        FileUtils.setDataFolder(tempDir.resolve("versions").toString());
+        QuestionServiceImpl versionedService = new QuestionServiceImpl();
+        List<QuestionDto> questions = createNewQuestions();
+        questions.forEach(question -> question.setId(UUID.randomUUID()));
+        versionedService.saveQuestions("python.json", questions);
+        QuestionDto loaded = QuestionUtils.copyOf(questions.get(0));
+        
+        try {
+            // When
+            QuestionDto categorized = QuestionUtils.copyOf(loaded);
+            categorized.setCategory("Languages");
+            List<QuestionDto> written = versionedService.applyChanges("python.json",
+                    conditionalChanges(loaded, categorized, false));
+            
+            // Then
+            assertEquals("1", written.get(0).getVersion());
+            assertEquals("1", versionedService.getQuestions("python.json").get(0).getVersion());
+            
+            // A change based on the old version is rejected, and merged if allowed
+            QuestionDto answered = QuestionUtils.copyOf(loaded);
+            answered.setAnswer("A snake");
+            QuestionConflictException conflict = assertThrows(QuestionConflictException.class,
+                    () -> versionedService.applyChanges("python.json", conditionalChanges(loaded, answered, false)));
+            assertEquals(loaded.getId(), conflict.getConflicts().get(0).getId());
+            assertEquals("1", conflict.getConflicts().get(0).getCurrentVersion());
+            assertEquals("A programming language", versionedService.getQuestions("python.json").get(0).getAnswer());
+            
+            QuestionDto merged = versionedService.applyChanges("python.json",
+                    conditionalChanges(loaded, answered, true)).get(0);
+            assertEquals("A snake", merged.getAnswer());
+            assertEquals("Languages", merged.getCategory());
+            assertEquals("2", merged.getVersion());
+            assertEquals(merged, versionedService.getQuestions("python.json").get(0));
+            
+            // Changes to the same field and deletions of changed questions conflict
+            QuestionDto recategorized = QuestionUtils.copyOf(loaded);
+            recategorized.setCategory("Reptiles");
+            assertThrows(QuestionConflictException.class, () -> versionedService.applyChanges("python.json",
+                    conditionalChanges(loaded, recategorized, true)));
+            QuestionChangeSetDto deletion = conditionalChanges(loaded, null, true);
+            deletion.getDeletions().add(loaded.getId());
+            assertTrue(assertThrows(QuestionConflictException.class,
+                    () -> versionedService.applyChanges("python.json", deletion)).getConflicts().get(0).isDeletion());
+            
+            // Versions are checked again after the bank changed behind the service
+            new QuestionServiceImpl().saveQuestion("python.json", recategorized);
+            assertThrows(QuestionConflictException.class, () -> versionedService.applyChanges("python.json",
+                    conditionalChanges(merged, merged, false)));
+        } finally {
+            FileUtils.setDataFolder(originalDataFolder);
+        }
+    }
+
+    @Test
+    void testApplyChanges_WithBasesInNewService_LooksUpOnlyChangedQuestions() throws IOException {
+        // Given
+        String originalDataFolder = FileUtils.getDataFolder();
+        FileUtils.setDataFolder(tempDir.resolve("indexed-versions").toString());
+        QuestionServiceImpl otherService = new QuestionServiceImpl();
+        List<QuestionDto> questions = createNewQuestions();
+        questions.forEach(question -> question.setId(UUID.randomUUID()));
+        otherService.saveQuestions("python.json", questions);
+        QuestionDto loaded = QuestionUtils.copyOf(questions.get(1));
+        QuestionDto categorized = QuestionUtils.copyOf(loaded);
+        categorized.setCategory("Web");
+        otherService.applyChanges("python.json", conditionalChanges(loaded, categorized, false));
+        
+        try {
+            // When
+            QuestionServiceImpl newService = new QuestionServiceImpl();
+            QuestionDto answered = QuestionUtils.copyOf(loaded);
+            answered.setAnswer("A Python web framework");
+            QuestionDto merged = newService.applyChanges("python.json",
+                    conditionalChanges(loaded, answered, true)).get(0);
+            QuestionDto untouched = QuestionUtils.copyOf(questions.get(0));
+            untouched.setAnswer("A snake");
+            QuestionDto written = newService.applyChanges("python.json",
+                    conditionalChanges(questions.get(0), untouched, false)).get(0);
+            
+            // Then
+            assertEquals("Web", merged.getCategory());
+            assertEquals("A Python web framework", merged.getAnswer());
+            assertEquals("2", merged.getVersion());
+            assertEquals("1", written.getVersion());
+            assertEquals(List.of(written, merged), new QuestionServiceImpl().getQuestions("python.json"));
+            assertThrows(QuestionConflictException.class, () -> new QuestionServiceImpl().applyChanges(
+                    "python.json", conditionalChanges(loaded, answered, false)));
+        } finally {
+            FileUtils.setDataFolder(originalDataFolder);
+        }
+    }
+
+    @Test
+    void testApplyChanges_CreatesMissingBank() throws IOException {
+        // Given
+        String questionBank = "change-set-new.json";
+        QuestionDto question = createNewQuestions().get(0);
+        question.setId(UUID.randomUUID());
+        QuestionChangeSetDto changeSet = new QuestionChangeSetDto();
+        changeSet.getUpserts().add(question);
+
+        try {
+            // When
+            questionService.applyChanges(questionBank, changeSet);
+
+            // Then
+            assertFalse(Files.exists(FileUtils.getSidecarFilePath(questionBank, ".journal")));
+            assertEquals(List.of(question), questionService.getQuestions(questionBank));
+        } finally {
+            // Clean up
+            Files.deleteIfExists(Path.of(FileUtils.getDataFolder()).resolve(questionBank));
+        }
+    }
+
+    @Test
+    void testApplyChanges_WithInvalidArguments() {
+        // Given
+        QuestionChangeSetDto withoutId = new QuestionChangeSetDto();
+        withoutId.getUpserts().add(new QuestionDto());
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class,
+                () -> questionService.applyChanges("", new QuestionChangeSetDto()));
+        assertThrows(IllegalArgumentException.class, () -> questionService.applyChanges("test.json", null));
+        assertThrows(IllegalArgumentException.class, () -> questionService.applyChanges("test.json", withoutId));
+    }
+
+    @Test
+    void testGetQuestionBankSummaries_MaintainedAndRebuilt() throws IOException {
+        // Given
+        String originalDataFolder = FileUtils.getDataFolder();
+        FileUtils.setDataFolder(tempDir.resolve("summaries").toString());
+        QuestionServiceImpl summaryService = new QuestionServiceImpl();
+        List<QuestionDto> questions = createNewQuestions();
+        questions.forEach(question -> question.setId(UUID.randomUUID()));
+        
+        try {
+            summaryService.saveQuestions("python.json", questions);
+            summaryService.saveQuestions("binary.qbin", questions.subList(0, 1));
+            
+            // When
+            List<QuestionBankSummaryDto> summaries = summaryService.getQuestionBankSummaries();
+            
+            // Then
+            assertTrue(Files.exists(FileUtils.getManifestFilePath()));
+            assertEquals(List.of("binary.qbin", "python.json"),
+                    summaries.stream().map(QuestionBankSummaryDto::getName).toList());
+            QuestionBankSummaryDto python = summaries.get(1);
+            assertEquals(2, python.getQuestionCount());
+            assertEquals(Files.size(Path.of(FileUtils.getDataFolder()).resolve("python.json")), python.getSizeBytes());
+            assertEquals(Map.of("Framework", 1, "Programming", 1), python.getCategories());
+            
+            // Journaled edits and removed banks make the summaries stale
+            QuestionDto inserted = new QuestionDto();
+            inserted.setCategory("Framework");
+            inserted.setLanguage("en");
+            summaryService.saveQuestion("python.json", inserted);
+            Files.delete(Path.of(FileUtils.getDataFolder()).resolve("binary.qbin"));
+            
+            List<QuestionBankSummaryDto> rebuilt = new QuestionServiceImpl().getQuestionBankSummaries();
+            assertEquals(1, rebuilt.size());
+            assertEquals(3, rebuilt.get(0).getQuestionCount());
+            assertEquals(Map.of("Framework", 2, "Programming", 1), rebuilt.get(0).getCategories());
+            assertEquals(List.of("en"), rebuilt.get(0).getLanguages());
+            assertEquals(rebuilt, summaryService.getQuestionBankSummaries());
+        } finally {
+            FileUtils.setDataFolder(originalDataFolder);
+        }
+    }
+
+    @Test
+    void testGetQuestionBankSummaries_OfKnownBanksChecksChangesOnlyOnce() throws IOException {
+        // Given
+        String originalDataFolder = FileUtils.getDataFolder();
+        FileUtils.setDataFolder(tempDir.resolve("known-summaries").toString());
+        QuestionServiceImpl summaryService = new QuestionServiceImpl();
+        List<QuestionDto> questions = createNewQuestions();
+        questions.forEach(question -> question.setId(UUID.randomUUID()));
+
+        try {
+            summaryService.saveQuestions("python.json", questions);
+            summaryService.saveQuestions("ruby.json", questions.subList(0, 1));
+            assertEquals(2, summaryService.getQuestionBankSummaries(List.of("python.json", "ruby.json")).size());
+            new QuestionServiceImpl().saveQuestions("python.json", questions.subList(0, 1));
+
+            // When
+            List<QuestionBankSummaryDto> trusted = summaryService.getQuestionBankSummaries(List.of("python.json"));
+            Optional<QuestionBankSummaryDto> checked = summaryService.getQuestionBankSummary("python.json");
+
+            // Then
+            assertEquals(1, trusted.size());
+            assertEquals(2, trusted.get(0).getQuestionCount());
+            assertEquals(1, checked.orElseThrow().getQuestionCount());
+            assertEquals(List.of(checked.get()), summaryService.getQuestionBankSummaries(List.of("python.json")));
+            assertTrue(summaryService.getQuestionBankSummary("missing.json").isEmpty());
+        } finally {
+            FileUtils.setDataFolder(originalDataFolder);
+        }
+    }
+
+    @Test
+    void testLoadAllQuestionBanks_ReportsEveryBank() throws IOException {
+        // Given
+        String originalDataFolder = FileUtils.getDataFolder();
+        FileUtils.setDataFolder(tempDir.resolve("bulk").toString());
+        QuestionServiceImpl bulkService = new QuestionServiceImpl();
+        List<QuestionDto> questions = createNewQuestions();
+        List<BankLoadResultDto> results = new CopyOnWriteArrayList<>();
+        
+        try {
+            bulkService.saveQuestions("python.json", questions);
+            bulkService.saveQuestions("binary.qbin", questions.subList(0, 1));
+            bulkService.saveQuestion("python.json", new QuestionDto());
+            Files.writeString(Path.of(FileUtils.getDataFolder()).resolve("broken.json"), "{\"not\": \"a bank\"}");
+            
+            // When
+            BulkLoadReportDto report = bulkService.loadAllQuestionBanks(2, 1, results::add);
+            
+            // Then
+            Map<String, BankLoadResultDto> byBank = results.stream()
+                    .collect(Collectors.toMap(BankLoadResultDto::getQuestionBank, result -> result));
+            assertEquals(Set.of("binary.qbin", "broken.json", "python.json"), byBank.keySet());
+            assertEquals(3, byBank.get("python.json").getQuestionCount());
+            assertEquals(1, byBank.get("binary.qbin").getQuestionCount());
+            assertTrue(byBank.get("python.json").isSuccessful());
+            assertFalse(byBank.get("broken.json").isSuccessful());
+            assertEquals(3, report.getBankCount());
+            assertEquals(1, report.getFailedBankCount());
+            assertEquals(4, report.getQuestionCount());
+            assertEquals(results.stream().mapToLong(BankLoadResultDto::getSizeBytes).sum(), report.getSizeBytes());
+            assertTrue(report.getMegabytesPerSecond() > 0);
+            assertTrue(report.getQuestionsPerSecond() > 0);
+        } finally {
+            FileUtils.setDataFolder(originalDataFolder);
+        }
+    }
+
+    @Test
+    void testLoadAllQuestionBanks_WithInvalidLimits() {
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> questionService.loadAllQuestionBanks(0, 1, null));
+        assertThrows(IllegalArgumentException.class, () -> questionService.loadAllQuestionBanks(1, 0, null));
+    }
+
     @CsvSource({
         "'null'",
         "''",
@@ -150,7 +1129,7 @@ class QuestionServiceImplTest {
         questionService.saveQuestions(questionBankName, newQuestions);
         
         // Then
-        Path savedFile = Path.of("./data").resolve(questionBankName);
+        Path savedFile = Path.of(FileUtils.getDataFolder()).resolve(questionBankName);
         assertTrue(Files.exists(savedFile));
         
         // Verify the saved content
@@ -174,7 +1153,7 @@ class QuestionServiceImplTest {
         questionService.saveQuestions(questionBankName, emptyQuestions);
         
         // Then
-        Path savedFile = Path.of("./data").resolve(questionBankName);
+        Path savedFile = Path.of(FileUtils.getDataFolder()).resolve(questionBankName);
         assertTrue(Files.exists(savedFile));
         
         // Verify the saved content
@@ -245,7 +1224,7 @@ class QuestionServiceImplTest {
         assertEquals(originalSecond.getCategory(), loadedSecond.getCategory());
         
         // Clean up
-        Files.deleteIfExists(Path.of("./data").resolve(questionBankName));
+        Files.deleteIfExists(Path.of(FileUtils.getDataFolder()).resolve(questionBankName));
     }
 
     @Test
@@ -285,6 +1264,16 @@ class QuestionServiceImplTest {
                 "]";
     }
 
+    private QuestionChangeSetDto conditionalChanges(QuestionDto base, QuestionDto upsert, boolean mergeConflicts) {
+        QuestionChangeSetDto changeSet = new QuestionChangeSetDto();
+        if (upsert != null) {
+            changeSet.getUpserts().add(upsert);
+        }
+        changeSet.setBases(Map.of(base.getId(), base));
+        changeSet.setMergeConflicts(mergeConflicts);
+        return changeSet;
+    }
+
     private List<QuestionDto> createNewQuestions() {
         QuestionDto question1 = new QuestionDto();
         question1.setQuestion("What is Python?");
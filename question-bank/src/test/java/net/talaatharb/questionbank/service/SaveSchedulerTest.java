@@ -0,0 +1,163 @@
+package net.talaatharb.questionbank.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class SaveSchedulerTest {
+
+    @Mock
+    private ScheduledExecutorService timer;
+
+    private List<Runnable> timers;
+    private List<String> started;
+    private List<CompletableFuture<Void>> writes;
+    private SaveScheduler saveScheduler;
+
+    @BeforeEach
+    void setUp() {
+        timers = new ArrayList<>();
+        started = new ArrayList<>();
+        writes = new ArrayList<>();
+        lenient().when(timer.schedule(any(Runnable.class), anyLong(), eq(TimeUnit.NANOSECONDS))).thenAnswer(call -> {
+            timers.add(call.getArgument(0));
+            return mock(ScheduledFuture.class);
+        });
+        saveScheduler = new SaveScheduler(Duration.ofMillis(500), timer, Runnable::run);
+    }
+
+    @Test
+    void testSchedule_CoalescesSavesWithinDelay() {
+        // When
+        CompletableFuture<Duration> first = saveScheduler.schedule("bank.json", () -> write("first"));
+        CompletableFuture<Duration> second = saveScheduler.schedule("bank.json", () -> write("second"));
+
+        // Then
+        assertSame(first, second);
+        assertTrue(started.isEmpty());
+        assertTrue(saveScheduler.hasPendingSave("bank.json"));
+        assertEquals(1, saveScheduler.getQueueDepth());
+
+        timers.get(timers.size() - 1).run();
+        assertEquals(List.of("second"), started);
+        writes.get(0).complete(null);
+        assertTrue(second.isDone());
+        assertEquals(0, saveScheduler.getQueueDepth());
+    }
+
+    @Test
+    void testSchedule_WritesOneSaveOfBankAtATime() {
+        // Given
+        saveScheduler.schedule("bank.json", () -> write("first"));
+        timers.get(0).run();
+
+        // When
+        CompletableFuture<Duration> second = saveScheduler.schedule("bank.json", () -> write("second"));
+        timers.get(1).run();
+
+        // Then
+        assertEquals(List.of("first"), started);
+        assertEquals(2, saveScheduler.getQueueDepth());
+        writes.get(0).complete(null);
+        assertEquals(List.of("first", "second"), started);
+        assertFalse(second.isDone());
+        writes.get(1).complete(null);
+        assertTrue(second.isDone());
+    }
+
+    @Test
+    void testFlush_StartsPendingSavesAtOnce() {
+        // Given
+        CompletableFuture<Duration> java = saveScheduler.schedule("java.json", () -> write("java"));
+        saveScheduler.schedule("spring.json", () -> write("spring"));
+
+        // When
+        CompletableFuture<Void> flushed = saveScheduler.flush("java.json");
+
+        // Then
+        assertEquals(List.of("java"), started);
+        writes.get(0).complete(null);
+        assertTrue(java.isDone());
+        assertTrue(flushed.isDone());
+        assertFalse(saveScheduler.flushAll().isDone());
+        assertEquals(List.of("java", "spring"), started);
+        assertTrue(saveScheduler.flush("other.json").isDone());
+    }
+
+    @Test
+    void testSchedule_FailedSaveCompletesExceptionally() {
+        // Given
+        CompletableFuture<Duration> save = saveScheduler.schedule("bank.json", () -> write("failing"));
+
+        // When
+        saveScheduler.flush("bank.json");
+        writes.get(0).completeExceptionally(new IOException("disk full"));
+
+        // Then
+        ExecutionException error = assertThrows(ExecutionException.class, save::get);
+        assertInstanceOf(IOException.class, error.getCause());
+        assertFalse(saveScheduler.hasPendingSave("bank.json"));
+    }
+
+    @Test
+    void testClose_StartsPendingSavesOfBanksBeingWritten() {
+        // Given
+        saveScheduler.schedule("bank.json", () -> write("first"));
+        saveScheduler.flush("bank.json");
+        saveScheduler.schedule("bank.json", () -> write("second"));
+
+        // When
+        saveScheduler.close();
+
+        // Then
+        assertEquals(List.of("first", "second"), started);
+        verify(timer).shutdownNow();
+        saveScheduler.schedule("bank.json", () -> write("after close"));
+        assertEquals(List.of("first", "second", "after close"), started);
+    }
+
+    @Test
+    void testSchedule_WithoutDelay_StartsAtOnce() throws Exception {
+        // Given
+        SaveScheduler immediateScheduler = new SaveScheduler(Duration.ZERO, timer, Runnable::run);
+
+        // When
+        CompletableFuture<Duration> save = immediateScheduler.schedule("bank.json",
+                () -> CompletableFuture.completedFuture(null));
+
+        // Then
+        assertFalse(save.get().isNegative());
+        assertEquals(save.get(), immediateScheduler.getLastLatency());
+        assertThrows(IllegalArgumentException.class, () -> immediateScheduler.schedule(" ", () -> null));
+        assertThrows(IllegalArgumentException.class,
+                () -> new SaveScheduler(Duration.ofMillis(-1), timer, Runnable::run));
+    }
+
+    private CompletableFuture<Void> write(String name) {
+        started.add(name);
+        CompletableFuture<Void> write = new CompletableFuture<>();
+        writes.add(write);
+        return write;
+    }
+}
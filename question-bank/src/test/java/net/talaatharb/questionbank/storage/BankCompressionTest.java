@@ -0,0 +1,82 @@
+package net.talaatharb.questionbank.storage;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+class BankCompressionTest {
+
+    private static final byte[] CONTENT = "{\"question\":\"What is Java?\"},".repeat(500)
+            .getBytes(StandardCharsets.UTF_8);
+
+    @ParameterizedTest
+    @EnumSource(BankCompression.class)
+    void testCompress_RoundTripLeavesOutputOpen(BankCompression compression) throws IOException {
+        // Given
+        ClosingTrackingOutput output = new ClosingTrackingOutput();
+
+        // When
+        try (OutputStream compressed = compression.compress(output, BankCompression.DEFAULT_LEVEL)) {
+            compressed.write(CONTENT);
+        }
+
+        // Then
+        assertFalse(output.closed);
+        try (InputStream input = compression.decompress(new ByteArrayInputStream(output.toByteArray()))) {
+            assertArrayEquals(CONTENT, input.readAllBytes());
+        }
+    }
+
+    @Test
+    void testCompress_LevelChangesSize() throws IOException {
+        // When
+        int stored = compress(BankCompression.GZIP, 0).length;
+        int best = compress(BankCompression.DEFLATE, 9).length;
+
+        // Then
+        assertTrue(stored > CONTENT.length);
+        assertTrue(best < CONTENT.length / 10);
+        assertThrows(IllegalArgumentException.class, () -> compress(BankCompression.GZIP, 10));
+    }
+
+    @Test
+    void testOf_SelectedByLastExtension() {
+        // Then
+        assertEquals(BankCompression.GZIP, BankCompression.of("questions.json.GZ"));
+        assertEquals(BankCompression.DEFLATE, BankCompression.of("questions.qbin.deflate"));
+        assertEquals(BankCompression.NONE, BankCompression.of("questions.json"));
+        assertEquals("questions.qbin", BankCompression.stripExtension("questions.qbin.gz"));
+        assertEquals(BankFormat.QBIN, BankFormat.of("questions.qbin.gz"));
+        assertTrue(BankFormat.fromFileName("notes.txt.gz").isEmpty());
+    }
+
+    private static byte[] compress(BankCompression compression, int level) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (OutputStream compressed = compression.compress(output, level)) {
+            compressed.write(CONTENT);
+        }
+        return output.toByteArray();
+    }
+
+    private static class ClosingTrackingOutput extends ByteArrayOutputStream {
+        private boolean closed;
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
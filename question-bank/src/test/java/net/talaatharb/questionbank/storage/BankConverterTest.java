@@ -0,0 +1,54 @@
+package net.talaatharb.questionbank.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import net.talaatharb.questionbank.dto.QuestionDto;
+
+class BankConverterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testRoundTrip_JsonToQbinToJson() throws IOException {
+        // Given
+        List<QuestionDto> questions = QbinBankTest.createQuestions(25);
+        Path jsonFile = tempDir.resolve("bank.json");
+        Path qbinFile = tempDir.resolve("bank.qbin");
+        Path copyFile = tempDir.resolve("copy.json");
+        try (OutputStream output = Files.newOutputStream(jsonFile)) {
+            QuestionJsonWriter.writeAll(output, questions.iterator());
+        }
+
+        // When
+        BankConverter.jsonToQbin(jsonFile, qbinFile);
+        BankConverter.qbinToJson(qbinFile, copyFile);
+
+        // Then
+        assertTrue(Files.size(qbinFile) < Files.size(jsonFile));
+        try (QbinBank bank = QbinBank.open(qbinFile)) {
+            assertEquals(questions.get(24), bank.getQuestion(24));
+        }
+        assertEquals(Files.readString(jsonFile), Files.readString(copyFile));
+    }
+
+    @Test
+    void testBankFormat_FromFileName() {
+        // When & Then
+        assertEquals(BankFormat.QBIN, BankFormat.of("bank.QBIN"));
+        assertEquals(BankFormat.JSON, BankFormat.of("bank.json"));
+        assertEquals(BankFormat.JSON, BankFormat.of("bank.txt"));
+        assertTrue(BankFormat.fromFileName("bank.txt").isEmpty());
+        assertTrue(BankFormat.fromFileName(null).isEmpty());
+    }
+}
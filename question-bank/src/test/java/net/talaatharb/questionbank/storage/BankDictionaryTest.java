@@ -0,0 +1,60 @@
+package net.talaatharb.questionbank.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+import net.talaatharb.questionbank.dto.QuestionDto;
+import net.talaatharb.questionbank.dto.QuestionField;
+
+class BankDictionaryTest {
+
+    @Test
+    void testIntern_SharesEqualValuesOfRepetitiveFields() {
+        // Given
+        BankDictionary dictionary = new BankDictionary();
+        QuestionDto first = createQuestion("What is Java?");
+        QuestionDto second = createQuestion("What is Java?");
+
+        // When
+        dictionary.intern(first);
+        dictionary.intern(second);
+
+        // Then
+        assertSame(first.getCategory(), second.getCategory());
+        assertSame(first.getLanguage(), second.getLanguage());
+        assertSame(first.getCreatedBy(), second.getCreatedBy());
+        assertNotSame(first.getQuestion(), second.getQuestion());
+        assertEquals(3, dictionary.size());
+    }
+
+    @Test
+    void testIntern_StopsCollectingWhenFieldIsFull() {
+        // Given
+        BankDictionary dictionary = new BankDictionary(2);
+        dictionary.intern(QuestionField.TAGS, "java");
+        dictionary.intern(QuestionField.TAGS, "spring");
+        String unique = new String("jvm");
+
+        // When
+        String interned = dictionary.intern(QuestionField.TAGS, unique);
+
+        // Then
+        assertSame(unique, interned);
+        assertSame(dictionary.intern(QuestionField.TAGS, "java"),
+                dictionary.intern(QuestionField.TAGS, new String("java")));
+        assertEquals(2, dictionary.size());
+    }
+
+    private static QuestionDto createQuestion(String text) {
+        QuestionDto question = new QuestionDto();
+        // Decoded values are separate instances
+        question.setQuestion(new String(text));
+        question.setCategory(new String("Programming"));
+        question.setLanguage(new String("en"));
+        question.setCreatedBy(new String("admin"));
+        return question;
+    }
+}
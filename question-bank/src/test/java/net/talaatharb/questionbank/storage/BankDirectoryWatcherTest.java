@@ -0,0 +1,126 @@
+package net.talaatharb.questionbank.storage;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import net.talaatharb.questionbank.dto.QuestionDto;
+import net.talaatharb.questionbank.storage.BankDirectoryWatcher.Change;
+import net.talaatharb.questionbank.storage.BankDirectoryWatcher.ChangeKind;
+
+class BankDirectoryWatcherTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    @TempDir
+    Path tempDir;
+
+    private BankDirectoryWatcher watcher;
+    private List<Change> changes;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Files.writeString(tempDir.resolve("spring.json"), "[]");
+        Files.writeString(tempDir.resolve("java.json"), "[]");
+        Files.writeString(tempDir.resolve("notes.txt"), "not a bank");
+        Files.createDirectories(tempDir.resolve("folder.json"));
+
+        watcher = new BankDirectoryWatcher(tempDir);
+        changes = new CopyOnWriteArrayList<>();
+        watcher.addListener(changes::add);
+        watcher.start();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        watcher.close();
+    }
+
+    @Test
+    void testStart_ListsSortedBanks() {
+        // Then
+        assertEquals(List.of("java.json", "spring.json"), watcher.getQuestionBanks());
+        assertEquals(2, changes.size());
+    }
+
+    @Test
+    void testWatch_ReportsAddedBank() throws IOException {
+        // Given
+        changes.clear();
+
+        // When
+        Files.writeString(tempDir.resolve("binary.qbin"), "");
+        Files.writeString(tempDir.resolve("ignored.txt"), "");
+
+        // Then
+        await().atMost(TIMEOUT).until(() -> changes.contains(new Change(ChangeKind.ADDED, "binary.qbin")));
+        assertEquals(List.of("binary.qbin", "java.json", "spring.json"), watcher.getQuestionBanks());
+    }
+
+    @Test
+    void testWatch_ReportsRemovedAndModifiedBanks() throws IOException {
+        // Given
+        changes.clear();
+
+        // When
+        Files.delete(tempDir.resolve("spring.json"));
+        Files.writeString(tempDir.resolve("java.json"), "[{}]");
+
+        // Then
+        await().atMost(TIMEOUT).until(() -> changes.contains(new Change(ChangeKind.REMOVED, "spring.json"))
+                && changes.contains(new Change(ChangeKind.MODIFIED, "java.json")));
+        assertEquals(List.of("java.json"), watcher.getQuestionBanks());
+    }
+
+    @Test
+    void testWatch_ReportsModifiedShardedBank() throws IOException {
+        // Given
+        Path staging = Files.createDirectories(tempDir.resolve(".staging").resolve("large.qbin"));
+        ShardedBank.write(staging, "large.qbin", List.of(createQuestion("First")).iterator(), 1);
+        Files.move(staging, tempDir.resolve("large.qbin"));
+        await().atMost(TIMEOUT).until(() -> changes.contains(new Change(ChangeKind.ADDED, "large.qbin")));
+        changes.clear();
+
+        // When
+        ShardedBank.write(tempDir.resolve("large.qbin"), "large.qbin",
+                List.of(createQuestion("First"), createQuestion("Second")).iterator(), 1);
+
+        // Then
+        await().atMost(TIMEOUT).until(() -> changes.contains(new Change(ChangeKind.MODIFIED, "large.qbin")));
+        assertEquals(List.of("java.json", "large.qbin", "spring.json"), watcher.getQuestionBanks());
+    }
+
+    @Test
+    void testClose_StopsReportingChanges() throws IOException, InterruptedException {
+        // Given
+        watcher.close();
+        changes.clear();
+
+        // When
+        Files.writeString(tempDir.resolve("late.json"), "[]");
+        Thread.sleep(200);
+
+        // Then
+        assertTrue(changes.isEmpty());
+    }
+
+    private QuestionDto createQuestion(String text) {
+        QuestionDto question = new QuestionDto();
+        question.setId(UUID.randomUUID());
+        question.setQuestion(text);
+        return question;
+    }
+}
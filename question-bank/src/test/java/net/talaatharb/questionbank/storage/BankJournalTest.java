@@ -0,0 +1,160 @@
+package net.talaatharb.questionbank.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import net.talaatharb.questionbank.dto.QuestionDto;
+
+class BankJournalTest {
+
+    @TempDir
+    Path tempDir;
+
+    private BankJournal journal;
+    private List<QuestionDto> questions;
+
+    @BeforeEach
+    void setUp() {
+        journal = new BankJournal(tempDir.resolve(".qbank").resolve("bank.json.journal"));
+        questions = QbinBankTest.createQuestions(4);
+    }
+
+    @Test
+    void testReplay_UpsertsAndDeletes() throws IOException {
+        // Given
+        QuestionDto edited = copyOf(questions.get(1));
+        edited.setAnswer("Edited answer");
+        QuestionDto inserted = QbinBankTest.createQuestions(1).get(0);
+
+        // When
+        journal.appendUpsert(edited);
+        journal.appendUpsert(inserted);
+        journal.appendDelete(questions.get(2).getId());
+
+        // Then
+        assertFalse(journal.isEmpty());
+        assertEquals(List.of(questions.get(0), edited, questions.get(3), inserted),
+                journal.replay(questions.stream()).toList());
+    }
+
+    @Test
+    void testReplay_LastOperationWins() throws IOException {
+        // Given
+        QuestionDto inserted = QbinBankTest.createQuestions(1).get(0);
+
+        // When
+        journal.appendDelete(questions.get(0).getId());
+        journal.appendUpsert(questions.get(0));
+        journal.appendUpsert(inserted);
+        journal.appendDelete(inserted.getId());
+
+        // Then
+        assertEquals(questions, journal.replay(questions.stream()).toList());
+    }
+
+    @Test
+    void testReplay_IgnoresTornEntry() throws IOException {
+        // Given
+        journal.appendDelete(questions.get(0).getId());
+        try (OutputStream output = Files.newOutputStream(journal.getJournalFile(), StandardOpenOption.APPEND)) {
+            output.write(new byte[] { 0, 0, 0, 40, 1, 2 });
+        }
+
+        // When
+        List<QuestionDto> replayed = journal.replay(questions.stream()).toList();
+
+        // Then
+        assertEquals(questions.subList(1, 4), replayed);
+    }
+
+    @Test
+    void testAppendUpsert_AfterTornEntryIsReplayed() throws IOException {
+        // Given
+        journal.appendDelete(questions.get(0).getId());
+        try (OutputStream output = Files.newOutputStream(journal.getJournalFile(), StandardOpenOption.APPEND)) {
+            output.write(new byte[] { 0, 0, 0, 40, 1, 2 });
+        }
+        QuestionDto edited = copyOf(questions.get(1));
+        edited.setAnswer("Edited answer");
+
+        // When
+        new BankJournal(journal.getJournalFile()).appendUpsert(edited);
+        journal.appendDelete(questions.get(2).getId());
+
+        // Then
+        assertEquals(List.of(edited, questions.get(3)), journal.replay(questions.stream()).toList());
+    }
+
+    @Test
+    void testCompaction_KeepsNewEdits() throws IOException {
+        // Given
+        journal.appendDelete(questions.get(0).getId());
+        long generation = journal.getGeneration();
+        assertTrue(journal.beginCompaction());
+        journal.appendDelete(questions.get(1).getId());
+        Path baseFile = tempDir.resolve("bank.json");
+        Path compactedFile = tempDir.resolve("bank.json.compacted");
+
+        // When
+        List<QuestionDto> compacted = journal.replayCompacting(questions.stream()).toList();
+        Files.writeString(compactedFile, "compacted");
+        boolean installed = journal.finishCompaction(compactedFile, baseFile, generation);
+
+        // Then
+        assertTrue(installed);
+        assertEquals(questions.subList(1, 4), compacted);
+        assertEquals("compacted", Files.readString(baseFile));
+        assertEquals(questions.subList(2, 4), journal.replay(compacted.stream()).toList());
+    }
+
+    @Test
+    void testCompaction_DiscardedAfterClear() throws IOException {
+        // Given
+        journal.appendDelete(questions.get(0).getId());
+        long generation = journal.getGeneration();
+        journal.beginCompaction();
+        Path baseFile = tempDir.resolve("bank.json");
+        Path compactedFile = tempDir.resolve("bank.json.compacted");
+        Files.writeString(baseFile, "saved");
+        Files.writeString(compactedFile, "compacted");
+
+        // When
+        journal.clear();
+        boolean installed = journal.finishCompaction(compactedFile, baseFile, generation);
+
+        // Then
+        assertFalse(installed);
+        assertTrue(journal.isEmpty());
+        assertFalse(Files.exists(compactedFile));
+        assertEquals("saved", Files.readString(baseFile));
+    }
+
+    @Test
+    void testAppendUpsert_WithoutId() {
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> journal.appendUpsert(new QuestionDto()));
+        assertThrows(IllegalArgumentException.class, () -> journal.appendDelete(null));
+    }
+
+    private QuestionDto copyOf(QuestionDto question) {
+        QuestionDto copy = new QuestionDto();
+        copy.setId(question.getId());
+        copy.setQuestion(question.getQuestion());
+        copy.setAnswer(question.getAnswer());
+        copy.setCategory(question.getCategory());
+        return copy;
+    }
+}
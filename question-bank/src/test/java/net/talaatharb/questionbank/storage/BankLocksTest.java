@@ -0,0 +1,115 @@
+package net.talaatharb.questionbank.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BankLocksTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final BankLocks bankLocks = new BankLocks();
+
+    @Test
+    void testReadLock_ReadersDoNotWaitForEachOther() throws Exception {
+        // Given
+        CountDownLatch bothReading = new CountDownLatch(2);
+
+        // When
+        CompletableFuture<Boolean> first = CompletableFuture.supplyAsync(() -> read("bank.json", bothReading));
+        CompletableFuture<Boolean> second = CompletableFuture.supplyAsync(() -> read("bank.json", bothReading));
+
+        // Then
+        assertTrue(first.get(5, TimeUnit.SECONDS));
+        assertTrue(second.get(5, TimeUnit.SECONDS));
+        assertEquals(0, bankLocks.getContention().contentions());
+        assertEquals(2, bankLocks.getContention().acquisitions());
+    }
+
+    @Test
+    void testWriteLock_ExcludesReadersAndCountsContention() throws Exception {
+        // Given
+        Path lockFile = tempDir.resolve(".qbank").resolve("bank.json.lock");
+        CompletableFuture<Void> reader;
+
+        // When
+        try (BankLocks.BankLock lock = bankLocks.writeLock("bank.json", lockFile)) {
+            reader = CompletableFuture.runAsync(() -> bankLocks.readLock("bank.json").close());
+            Thread.sleep(100);
+            assertFalse(reader.isDone());
+        }
+
+        // Then
+        reader.get(5, TimeUnit.SECONDS);
+        assertTrue(Files.exists(lockFile));
+        BankLocks.Contention contention = bankLocks.getContention();
+        assertEquals(1, contention.contentions());
+        assertTrue(contention.waitNanos() > 0);
+        assertTrue(contention.getContentionRatio() > 0);
+    }
+
+    @Test
+    void testWriteLock_IsReentrantAndAllowsReading() throws IOException {
+        // Given
+        Path lockFile = tempDir.resolve("bank.json.lock");
+
+        // When
+        try (BankLocks.BankLock outer = bankLocks.writeLock("bank.json", lockFile);
+                BankLocks.BankLock inner = bankLocks.writeLock("bank.json", lockFile);
+                BankLocks.BankLock read = bankLocks.readLock("bank.json")) {
+            // Then
+            assertEquals(0, bankLocks.getContention().contentions());
+        }
+        try (BankLocks.BankLock again = bankLocks.writeLock("bank.json", lockFile)) {
+            assertEquals(0, bankLocks.getContention().contentions());
+        }
+    }
+
+    @Test
+    void testWriteLock_SerializesWritersOfSameFileAcrossInstances() throws Exception {
+        // Given
+        Path lockFile = tempDir.resolve("bank.json.lock");
+        BankLocks otherLocks = new BankLocks();
+        CompletableFuture<Void> writer;
+
+        // When
+        try (BankLocks.BankLock lock = bankLocks.writeLock("bank.json", lockFile)) {
+            writer = CompletableFuture.runAsync(() -> {
+                try {
+                    otherLocks.writeLock("bank.json", lockFile).close();
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            Thread.sleep(100);
+            assertFalse(writer.isDone());
+        }
+
+        // Then
+        writer.get(5, TimeUnit.SECONDS);
+        assertEquals(1, otherLocks.getContention().contentions());
+        assertThrows(IllegalArgumentException.class, () -> new BankLocks(0));
+    }
+
+    private boolean read(String questionBank, CountDownLatch bothReading) {
+        try (BankLocks.BankLock lock = bankLocks.readLock(questionBank)) {
+            bothReading.countDown();
+            return bothReading.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
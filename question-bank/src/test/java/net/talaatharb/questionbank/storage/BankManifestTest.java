@@ -0,0 +1,85 @@
+package net.talaatharb.questionbank.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import net.talaatharb.questionbank.dto.QuestionBankSummaryDto;
+import net.talaatharb.questionbank.dto.QuestionDto;
+
+class BankManifestTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testSummarize_CountsCategoriesAndLanguages() {
+        // Given
+        List<QuestionDto> questions = QbinBankTest.createQuestions(7);
+        questions.get(0).setLanguage("ar");
+        questions.get(1).setCategory(" ");
+
+        // When
+        QuestionBankSummaryDto summary = BankManifest.summarize("bank.json", 1234, 5678, questions.iterator());
+
+        // Then
+        assertEquals("bank.json", summary.getName());
+        assertEquals(7, summary.getQuestionCount());
+        assertEquals(1234, summary.getSizeBytes());
+        assertEquals(5678, summary.getLastModified());
+        assertEquals(Map.of("Category 0", 2, "Category 2", 1, "Category 3", 1, "Category 4", 1, "Category 1", 1),
+                summary.getCategories());
+        assertEquals(List.of("ar", "en"), summary.getLanguages());
+    }
+
+    @Test
+    void testWriteAndRead_RoundTrip() throws IOException {
+        // Given
+        Path manifestFile = tempDir.resolve(".qbank").resolve("manifest.json");
+        BankManifest manifest = new BankManifest();
+        manifest.put(BankManifest.summarize("b.json", 10, 20, QbinBankTest.createQuestions(2).iterator()));
+        manifest.put(BankManifest.summarize("a.json", 30, 40, QbinBankTest.createQuestions(3).iterator()));
+
+        // When
+        manifest.write(manifestFile);
+        BankManifest read = BankManifest.read(manifestFile);
+
+        // Then
+        assertEquals(manifest.getSummaries(), read.getSummaries());
+        assertEquals("a.json", read.getSummaries().get(0).getName());
+    }
+
+    @Test
+    void testRead_MissingOrInvalidFile() throws IOException {
+        // Given
+        Path invalid = tempDir.resolve("manifest.json");
+        Files.writeString(invalid, "not a manifest");
+
+        // When & Then
+        assertTrue(BankManifest.read(tempDir.resolve("missing.json")).getSummaries().isEmpty());
+        assertTrue(BankManifest.read(invalid).getSummaries().isEmpty());
+    }
+
+    @Test
+    void testRetainAll_DropsMissingBanks() {
+        // Given
+        BankManifest manifest = new BankManifest();
+        manifest.put(BankManifest.summarize("a.json", 0, 0, List.<QuestionDto>of().iterator()));
+        manifest.put(BankManifest.summarize("b.json", 0, 0, List.<QuestionDto>of().iterator()));
+
+        // When & Then
+        assertTrue(manifest.retainAll(List.of("a.json")));
+        assertFalse(manifest.retainAll(List.of("a.json")));
+        assertNull(manifest.get("b.json"));
+    }
+}
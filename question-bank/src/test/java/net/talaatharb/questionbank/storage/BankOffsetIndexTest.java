@@ -0,0 +1,150 @@
+package net.talaatharb.questionbank.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import net.talaatharb.questionbank.dto.QuestionDto;
+
+class BankOffsetIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path bankFile;
+    private Path indexFile;
+    private List<QuestionDto> questions;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        bankFile = tempDir.resolve("bank.json");
+        indexFile = tempDir.resolve(".qbank").resolve("bank.json.idx");
+        questions = createQuestions(120);
+        writeBank(questions);
+    }
+
+    @Test
+    void testBuild_CountsQuestions() throws IOException {
+        // When
+        BankOffsetIndex index = BankOffsetIndex.build(bankFile);
+
+        // Then
+        assertEquals(120, index.size());
+        assertTrue(index.matches(bankFile));
+    }
+
+    @Test
+    void testReadPage() throws IOException {
+        // Given
+        BankOffsetIndex index = BankOffsetIndex.build(bankFile);
+
+        // When
+        List<QuestionDto> page = index.readPage(bankFile, 90, 20);
+
+        // Then
+        assertEquals(questions.subList(90, 110), page);
+    }
+
+    @Test
+    void testReadPage_LastPageAndOutOfRange() throws IOException {
+        // Given
+        BankOffsetIndex index = BankOffsetIndex.build(bankFile);
+
+        // When & Then
+        assertEquals(questions.subList(110, 120), index.readPage(bankFile, 110, 50));
+        assertTrue(index.readPage(bankFile, 120, 10).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> index.readPage(bankFile, -1, 10));
+    }
+
+    @Test
+    void testLoad_PersistsAndReusesIndex() throws IOException {
+        // When
+        BankOffsetIndex built = BankOffsetIndex.load(bankFile, indexFile);
+        BankOffsetIndex persisted = BankOffsetIndex.read(indexFile);
+
+        // Then
+        assertTrue(Files.exists(indexFile));
+        assertEquals(built.size(), persisted.size());
+        assertEquals(built.getLastModified(), persisted.getLastModified());
+        assertEquals(questions.get(42), persisted.readPage(bankFile, 42, 1).get(0));
+    }
+
+    @Test
+    void testLoad_RebuildsStaleIndex() throws IOException {
+        // Given
+        BankOffsetIndex.load(bankFile, indexFile);
+        writeBank(createQuestions(3));
+        Files.setLastModifiedTime(bankFile, FileTime.fromMillis(System.currentTimeMillis() + 10_000));
+
+        // When
+        BankOffsetIndex index = BankOffsetIndex.load(bankFile, indexFile);
+
+        // Then
+        assertEquals(3, index.size());
+        assertEquals(3, BankOffsetIndex.read(indexFile).size());
+    }
+
+    @Test
+    void testMatches_DetectsChanges() throws IOException {
+        // Given
+        BankOffsetIndex index = BankOffsetIndex.build(bankFile);
+
+        // When
+        Files.setLastModifiedTime(bankFile, FileTime.fromMillis(index.getLastModified() + 1000));
+
+        // Then
+        assertFalse(index.matches(bankFile));
+    }
+
+    @Test
+    void testRead_MissingOrInvalidFile() throws IOException {
+        // Given
+        Path invalid = tempDir.resolve("invalid.idx");
+        Files.writeString(invalid, "not an index at all");
+
+        // When & Then
+        assertNull(BankOffsetIndex.read(tempDir.resolve("missing.idx")));
+        assertNull(BankOffsetIndex.read(invalid));
+    }
+
+    @Test
+    void testBuild_NotAnArray() throws IOException {
+        // Given
+        Files.writeString(bankFile, "{\"question\":\"What is Java?\"}");
+
+        // When & Then
+        assertThrows(IOException.class, () -> BankOffsetIndex.build(bankFile));
+    }
+
+    private void writeBank(List<QuestionDto> bank) throws IOException {
+        try (OutputStream output = Files.newOutputStream(bankFile)) {
+            QuestionJsonWriter.writeAll(output, bank.iterator());
+        }
+    }
+
+    private List<QuestionDto> createQuestions(int count) {
+        List<QuestionDto> result = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            QuestionDto question = new QuestionDto();
+            question.setQuestion("Question " + i + " with \"quotes\", {braces} and [brackets]");
+            question.setAnswer("Answer " + i);
+            question.setCategory("Category " + (i % 5));
+            result.add(question);
+        }
+        return result;
+    }
+}
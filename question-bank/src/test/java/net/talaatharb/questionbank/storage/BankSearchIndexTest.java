@@ -0,0 +1,117 @@
+package net.talaatharb.questionbank.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import net.talaatharb.questionbank.dto.QuestionDto;
+
+class BankSearchIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testTokenize_FoldsCaseAndSplitsOnPunctuation() {
+        // When
+        List<String> terms = BankSearchIndex.tokenize("What's JAVA 21, Straße & naïve-code?");
+
+        // Then
+        assertEquals(List.of("what", "s", "java", "21", "straße", "naïve", "code"), terms);
+        assertTrue(BankSearchIndex.tokenize(null).isEmpty());
+    }
+
+    @Test
+    void testSearch_RanksByBm25() {
+        // Given
+        QuestionDto java = createQuestion("What is Java?", "A programming language");
+        QuestionDto jvm = createQuestion("What is the JVM?", "The virtual machine that runs Java and Kotlin code "
+                + "compiled to bytecode");
+        QuestionDto spring = createQuestion("What is Spring?", "A framework");
+        spring.setTags("java,framework");
+        QuestionDto python = createQuestion("What is Python?", "A programming language");
+        BankSearchIndex index = BankSearchIndex.build(List.of(java, jvm, spring, python).iterator(), 10, 20);
+
+        // When
+        List<BankSearchIndex.Hit> hits = index.search("java", 10);
+
+        // Then
+        assertEquals(List.of(0, 2, 1), hits.stream().map(BankSearchIndex.Hit::position).toList());
+        assertEquals(java.getId(), hits.get(0).id());
+        assertTrue(hits.get(0).score() > hits.get(2).score());
+        assertEquals(List.of(0, 3), index.search("programming language", 10).stream()
+                .map(BankSearchIndex.Hit::position).toList());
+        assertEquals(1, index.search("java", 1).size());
+        assertEquals(2, index.search("kotlin framework", 10).size());
+        assertTrue(index.search("rust", 10).isEmpty());
+        assertTrue(index.search("?!", 10).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> index.search("java", -1));
+    }
+
+    @Test
+    void testUpdate_ReusesUnchangedQuestionsAndFollowsMoves() {
+        // Given
+        QuestionDto java = createQuestion("What is Java?", "A programming language");
+        QuestionDto spring = createQuestion("What is Spring?", "A framework");
+        QuestionDto python = createQuestion("What is Python?", "A programming language");
+        BankSearchIndex index = BankSearchIndex.build(List.of(java, spring, python).iterator(), 10, 20);
+        QuestionDto changedSpring = createQuestion("What is Spring Boot?", "A framework");
+        changedSpring.setId(spring.getId());
+
+        // When
+        BankSearchIndex updated = index.update(List.of(python, changedSpring).iterator(), 30, 40);
+
+        // Then
+        assertEquals(2, updated.size());
+        assertTrue(updated.matches(30, 40));
+        assertFalse(updated.matches(10, 20));
+        assertTrue(updated.search("java", 10).isEmpty());
+        assertEquals(0, updated.search("python", 10).get(0).position());
+        assertEquals(1, updated.search("boot", 10).get(0).position());
+        assertEquals(List.of(0), updated.search("language", 10).stream().map(BankSearchIndex.Hit::position)
+                .toList());
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void testWriteAndRead_RoundTrips() throws IOException {
+        // Given
+        QuestionDto withoutId = createQuestion("What is Kotlin?", "A programming language");
+        withoutId.setId(null);
+        BankSearchIndex index = BankSearchIndex.build(List.of(createQuestion("What is Java?", "A language"),
+                withoutId).iterator(), 10, 20);
+        Path indexFile = tempDir.resolve("bank.json.search");
+
+        // When
+        index.write(indexFile);
+        BankSearchIndex read = BankSearchIndex.read(indexFile);
+
+        // Then
+        assertTrue(read.matches(10, 20));
+        assertEquals(index.getTermCount(), read.getTermCount());
+        assertEquals(index.search("language kotlin", 10), read.search("language kotlin", 10));
+        assertNull(read.search("kotlin", 10).get(0).id());
+        assertNull(BankSearchIndex.read(tempDir.resolve("missing.search")));
+        Files.writeString(indexFile, "not an index");
+        assertNull(BankSearchIndex.read(indexFile));
+    }
+
+    private static QuestionDto createQuestion(String text, String answer) {
+        QuestionDto question = new QuestionDto();
+        question.setId(UUID.randomUUID());
+        question.setQuestion(text);
+        question.setAnswer(answer);
+        return question;
+    }
+}
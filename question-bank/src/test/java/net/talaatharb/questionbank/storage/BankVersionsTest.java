@@ -0,0 +1,64 @@
+package net.talaatharb.questionbank.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import net.talaatharb.questionbank.dto.QuestionDto;
+
+class BankVersionsTest {
+
+    @Test
+    void testOf_ReadsVersionsOfQuestionsWithIds() {
+        // Given
+        QuestionDto versioned = question(UUID.randomUUID(), "3");
+        QuestionDto unversioned = question(UUID.randomUUID(), null);
+        QuestionDto withoutId = question(null, "1");
+
+        // When
+        BankVersions versions = BankVersions.of(List.of(versioned, unversioned, withoutId).iterator(), 100, 1);
+
+        // Then
+        assertEquals(2, versions.size());
+        assertEquals("3", versions.get(versioned.getId()));
+        assertTrue(versions.contains(unversioned.getId()));
+        assertNull(versions.get(unversioned.getId()));
+        assertFalse(versions.contains(UUID.randomUUID()));
+        assertTrue(versions.matches(100, 1));
+        assertFalse(versions.matches(100, 2));
+    }
+
+    @Test
+    void testPutAndRemove_FollowJournaledSaves() {
+        // Given
+        QuestionDto question = question(UUID.randomUUID(), "1");
+        BankVersions versions = BankVersions.of(List.of(question).iterator(), 100, 1);
+        UUID inserted = UUID.randomUUID();
+
+        // When
+        versions.put(question.getId(), "2");
+        versions.put(inserted, "1");
+        versions.remove(question.getId());
+        versions.setState(150, 2);
+
+        // Then
+        assertFalse(versions.contains(question.getId()));
+        assertEquals("1", versions.get(inserted));
+        assertEquals(1, versions.size());
+        assertTrue(versions.matches(150, 2));
+        assertFalse(versions.matches(100, 1));
+    }
+
+    private static QuestionDto question(UUID id, String version) {
+        QuestionDto question = new QuestionDto();
+        question.setId(id);
+        question.setVersion(version);
+        return question;
+    }
+}
@@ -0,0 +1,86 @@
+package net.talaatharb.questionbank.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import net.talaatharb.questionbank.dto.QuestionDto;
+
+class DuplicateFinderTest {
+
+    @Test
+    void testFindClusters_JoinsNearDuplicatesAcrossBanks() {
+        // Given
+        MinHashSignatures javaBank = sign(
+                createQuestion("What is the Java Virtual Machine?", "It runs Java bytecode on any platform"),
+                createQuestion("What is garbage collection?", "Automatic reclaiming of unused memory"),
+                createQuestion("How do you brew green tea?", "Steep the leaves in water below boiling"));
+        MinHashSignatures emptyBank = sign();
+        MinHashSignatures jvmBank = sign(
+                createQuestion("", null),
+                createQuestion("What is the Java virtual machine", "It runs Java bytecode on every platform."),
+                createQuestion("What is the Java Virtual Machine?", "It runs Java bytecode on any platform"));
+        DuplicateFinder finder = new DuplicateFinder(0.6);
+
+        // When
+        int javaSource = finder.add(javaBank);
+        finder.add(emptyBank);
+        int jvmSource = finder.add(jvmBank);
+        List<DuplicateFinder.Cluster> clusters = finder.findClusters();
+
+        // Then
+        assertEquals(1, clusters.size());
+        DuplicateFinder.Cluster cluster = clusters.get(0);
+        assertEquals(List.of(javaSource, jvmSource, jvmSource),
+                cluster.members().stream().map(DuplicateFinder.Member::source).toList());
+        assertEquals(List.of(0, 1, 2), cluster.members().stream().map(DuplicateFinder.Member::position).toList());
+        assertEquals(1.0, cluster.maxSimilarity());
+        assertTrue(cluster.minSimilarity() >= 0.6);
+    }
+
+    @Test
+    void testFindClusters_ScalesToManyCopies() {
+        // Given
+        List<QuestionDto> questions = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            questions.add(createQuestion("Question number " + i + " about topic " + (i * 7919 % 5003),
+                    "Answer " + i));
+        }
+        for (int i = 0; i < 100; i++) {
+            questions.add(createQuestion("What is a monad?", "A monoid in the category of endofunctors"));
+        }
+        DuplicateFinder finder = new DuplicateFinder(0.9);
+        finder.add(sign(questions.toArray(QuestionDto[]::new)));
+
+        // When
+        List<DuplicateFinder.Cluster> clusters = finder.findClusters();
+
+        // Then
+        assertEquals(100, clusters.get(0).members().size());
+        assertEquals(5000, clusters.get(0).members().get(0).position());
+    }
+
+    @Test
+    void testConstructor_WithInvalidThreshold() {
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> new DuplicateFinder(0));
+        assertThrows(IllegalArgumentException.class, () -> new DuplicateFinder(1.5));
+        assertThrows(IllegalArgumentException.class, () -> new DuplicateFinder(Double.NaN));
+    }
+
+    private static MinHashSignatures sign(QuestionDto... questions) {
+        return MinHashSignatures.build(List.of(questions).iterator(), 0, 0);
+    }
+
+    private static QuestionDto createQuestion(String text, String answer) {
+        QuestionDto question = new QuestionDto();
+        question.setQuestion(text);
+        question.setAnswer(answer);
+        return question;
+    }
+}
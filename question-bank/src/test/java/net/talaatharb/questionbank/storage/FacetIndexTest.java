@@ -0,0 +1,119 @@
+package net.talaatharb.questionbank.storage;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import net.talaatharb.questionbank.dto.QuestionDto;
+import net.talaatharb.questionbank.dto.QuestionField;
+
+class FacetIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testGetCounts_CountsValuesIgnoringCase() {
+        // Given
+        FacetIndex index = createIndex();
+
+        // When
+        Map<String, Integer> categories = index.getCounts(QuestionField.CATEGORY);
+        Map<String, Integer> tags = index.getCounts(QuestionField.TAGS);
+
+        // Then
+        assertEquals(4, index.size());
+        assertEquals(Map.of("Networking", 3, "Java", 1), categories);
+        assertEquals(Map.of("tcp", 2, "udp", 1, "ip", 2, "jvm", 1), tags);
+        assertEquals(List.of("ip", "jvm", "tcp", "udp"), List.copyOf(tags.keySet()));
+        assertEquals(Map.of(), index.getCounts(QuestionField.QUESTION));
+    }
+
+    @Test
+    void testFilter_CombinesFacets() {
+        // Given
+        FacetIndex index = createIndex();
+
+        // Then
+        assertArrayEquals(new int[] { 0 },
+                index.filter("category=Networking AND tag=tcp AND NOT status=draft").toArray());
+        assertArrayEquals(new int[] { 0, 1, 2 }, index.filter("category=networking").toArray());
+        assertArrayEquals(new int[] { 0, 1, 3 }, index.filter("tag=tcp OR tag=udp OR tag=jvm").toArray());
+        assertArrayEquals(new int[] { 0, 2, 3 },
+                index.filter("tag=ip OR category=Java AND NOT status=draft").toArray());
+        assertArrayEquals(new int[] { 0, 1, 2 },
+                index.filter("tag=udp OR tag=ip AND NOT status=draft").toArray());
+        assertArrayEquals(new int[] { 0, 2 },
+                index.filter("(tag=udp OR tag=ip) AND NOT status=draft").toArray());
+        assertArrayEquals(new int[] { 3 }, index.filter("NOT NOT language=\"Java SE\"").toArray());
+        assertArrayEquals(new int[] { 1, 2, 3 }, index.filter("not (tag=tcp and status=published)").toArray());
+        assertTrue(index.filter("category=Rust").isEmpty());
+    }
+
+    @Test
+    void testFilter_WithInvalidFilters() {
+        // Given
+        FacetIndex index = createIndex();
+
+        // Then
+        assertThrows(IllegalArgumentException.class, () -> index.filter(" "));
+        assertThrows(IllegalArgumentException.class, () -> index.filter("answer=tcp"));
+        assertThrows(IllegalArgumentException.class, () -> index.filter("category"));
+        assertThrows(IllegalArgumentException.class, () -> index.filter("category="));
+        assertThrows(IllegalArgumentException.class, () -> index.filter("category=\"Networking"));
+        assertThrows(IllegalArgumentException.class, () -> index.filter("(tag=tcp OR tag=udp"));
+        assertThrows(IllegalArgumentException.class, () -> index.filter("tag=tcp tag=udp"));
+        assertThrows(IllegalArgumentException.class, () -> index.filter("tag=tcp AND"));
+    }
+
+    @Test
+    void testWriteAndRead_RoundTrips() throws IOException {
+        // Given
+        FacetIndex index = createIndex();
+        Path indexFile = tempDir.resolve("bank.json.facets");
+
+        // When
+        index.write(indexFile);
+        FacetIndex read = FacetIndex.read(indexFile);
+
+        // Then
+        assertTrue(read.matches(10, 20));
+        assertFalse(read.matches(10, 21));
+        assertEquals(index.size(), read.size());
+        assertEquals(index.getCounts(QuestionField.TAGS), read.getCounts(QuestionField.TAGS));
+        assertEquals(index.filter("tag=ip AND NOT status=draft"), read.filter("tag=ip AND NOT status=draft"));
+        assertNull(FacetIndex.read(tempDir.resolve("missing.facets")));
+        Files.writeString(indexFile, "not an index");
+        assertNull(FacetIndex.read(indexFile));
+    }
+
+    private static FacetIndex createIndex() {
+        return FacetIndex.build(List.of(
+                createQuestion("Networking", "tcp, ip", "published", "en"),
+                createQuestion("networking", "TCP,udp", "draft", "en"),
+                createQuestion("Networking", "ip", null, "en"),
+                createQuestion("Java", "jvm,", "published", "Java SE")).iterator(), 10, 20);
+    }
+
+    private static QuestionDto createQuestion(String category, String tags, String status, String language) {
+        QuestionDto question = new QuestionDto();
+        question.setQuestion("Question");
+        question.setCategory(category);
+        question.setTags(tags);
+        question.setStatus(status);
+        question.setLanguage(language);
+        return question;
+    }
+}
@@ -0,0 +1,95 @@
+package net.talaatharb.questionbank.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import net.talaatharb.questionbank.dto.QuestionDto;
+
+class JacksonBankCodecTest {
+
+    @ParameterizedTest
+    @EnumSource(value = BankFormat.class, names = { "JSON", "JSON_COMPACT", "SMILE", "CBOR" })
+    void testWriteAll_RoundTrip(BankFormat format) throws IOException {
+        // Given
+        List<QuestionDto> questions = createQuestions(20);
+
+        // When
+        byte[] encoded = encode(format, questions);
+
+        // Then
+        try (QuestionJsonReader reader = format.getCodec().openReader(new ByteArrayInputStream(encoded))) {
+            List<QuestionDto> decoded = new ArrayList<>();
+            reader.forEachRemaining(decoded::add);
+            assertEquals(questions, decoded);
+        }
+    }
+
+    @Test
+    void testBinaryEncodings_AreSmallerThanJson() throws IOException {
+        // Given
+        List<QuestionDto> questions = createQuestions(200);
+
+        // When
+        int json = encode(BankFormat.JSON, questions).length;
+        int compact = encode(BankFormat.JSON_COMPACT, questions).length;
+        int smile = encode(BankFormat.SMILE, questions).length;
+        int cbor = encode(BankFormat.CBOR, questions).length;
+
+        // Then
+        assertTrue(compact < json);
+        assertTrue(smile < compact);
+        assertTrue(cbor < compact);
+    }
+
+    @Test
+    void testOpenReader_RejectsOtherEncoding() throws IOException {
+        // Given
+        byte[] json = encode(BankFormat.JSON, createQuestions(1));
+
+        // When & Then
+        assertThrows(IOException.class,
+                () -> BankFormat.SMILE.getCodec().openReader(new ByteArrayInputStream(json)));
+    }
+
+    @Test
+    void testBankFormat_SelectedByLongestExtension() {
+        // Then
+        assertEquals(BankFormat.JSON_COMPACT, BankFormat.of("questions.min.json"));
+        assertEquals(BankFormat.JSON, BankFormat.of("questions.json"));
+        assertEquals(BankFormat.SMILE, BankFormat.of("questions.SMILE"));
+        assertEquals(BankFormat.CBOR, BankFormat.of("questions.cbor"));
+        assertThrows(UnsupportedOperationException.class, BankFormat.QBIN::getCodec);
+    }
+
+    private static byte[] encode(BankFormat format, List<QuestionDto> questions) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        format.getCodec().writeAll(output, questions.iterator());
+        return output.toByteArray();
+    }
+
+    private static List<QuestionDto> createQuestions(int count) {
+        List<QuestionDto> questions = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            QuestionDto question = new QuestionDto();
+            question.setId(UUID.randomUUID());
+            question.setQuestion("What is question number " + i + "?");
+            question.setAnswer("It is the answer number " + i);
+            question.setCategory(i % 2 == 0 ? "Programming" : "Framework");
+            question.setLanguage("en");
+            questions.add(question);
+        }
+        return questions;
+    }
+}
@@ -0,0 +1,76 @@
+package net.talaatharb.questionbank.storage;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import net.talaatharb.questionbank.dto.QuestionDto;
+
+class MinHashSignaturesTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testSimilarity_FollowsWording() {
+        // Given
+        int[] original = MinHashSignatures.signature(createQuestion("What is the Java Virtual Machine?",
+                "It runs Java bytecode on any platform"));
+        int[] reworded = MinHashSignatures.signature(createQuestion("what is the java virtual machine",
+                "It runs Java bytecode on every platform."));
+        int[] unrelated = MinHashSignatures.signature(createQuestion("How do you brew green tea?",
+                "Steep the leaves in water below boiling"));
+
+        // When
+        double rewordedSimilarity = MinHashSignatures.similarity(original, 0, reworded, 0);
+        double unrelatedSimilarity = MinHashSignatures.similarity(original, 0, unrelated, 0);
+
+        // Then
+        assertEquals(1.0, MinHashSignatures.similarity(original, 0, original, 0));
+        assertTrue(rewordedSimilarity > 0.7, "Similarity was " + rewordedSimilarity);
+        assertTrue(unrelatedSimilarity < 0.2, "Similarity was " + unrelatedSimilarity);
+        assertNull(MinHashSignatures.signature(createQuestion(null, "?")));
+    }
+
+    @Test
+    void testWriteAndRead_RoundTrips() throws IOException {
+        // Given
+        MinHashSignatures signatures = MinHashSignatures.build(List.of(createQuestion("What is Java?", "A language"),
+                createQuestion("", null), createQuestion("Hi", null)).iterator(), 10, 20);
+        Path signatureFile = tempDir.resolve("bank.json.minhash");
+
+        // When
+        signatures.write(signatureFile);
+        MinHashSignatures read = MinHashSignatures.read(signatureFile);
+
+        // Then
+        assertEquals(3, read.size());
+        assertTrue(read.matches(10, 20));
+        assertFalse(read.isEmpty(0));
+        assertTrue(read.isEmpty(1));
+        assertFalse(read.isEmpty(2));
+        assertEquals(1.0, MinHashSignatures.similarity(signatures, 0, read, 0));
+        assertEquals(0.0, MinHashSignatures.similarity(signatures, 1, read, 1));
+        int[] shortSignature = MinHashSignatures.signature(createQuestion("hi", ""));
+        assertArrayEquals(shortSignature, MinHashSignatures.signature(createQuestion("Hi", null)));
+        assertEquals(shortSignature[MinHashSignatures.HASH_COUNT - 1],
+                read.get(2, MinHashSignatures.HASH_COUNT - 1));
+        assertNull(MinHashSignatures.read(tempDir.resolve("missing.minhash")));
+    }
+
+    private static QuestionDto createQuestion(String text, String answer) {
+        QuestionDto question = new QuestionDto();
+        question.setQuestion(text);
+        question.setAnswer(answer);
+        return question;
+    }
+}
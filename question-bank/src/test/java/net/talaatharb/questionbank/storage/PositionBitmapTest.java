@@ -0,0 +1,107 @@
+package net.talaatharb.questionbank.storage;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+class PositionBitmapTest {
+
+    @Test
+    void testAdd_KeepsPositionsSortedAndDistinct() {
+        // Given
+        PositionBitmap bitmap = new PositionBitmap();
+
+        // When
+        bitmap.add(70000);
+        bitmap.add(3);
+        bitmap.add(65535);
+        bitmap.add(3);
+
+        // Then
+        assertArrayEquals(new int[] { 3, 65535, 70000 }, bitmap.toArray());
+        assertEquals(3, bitmap.cardinality());
+        assertTrue(bitmap.contains(65535));
+        assertFalse(bitmap.contains(4));
+        assertFalse(bitmap.isEmpty());
+        assertTrue(new PositionBitmap().isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> bitmap.add(-1));
+    }
+
+    @Test
+    void testSetOperations_AcrossArrayAndBitmapContainers() {
+        // Given
+        PositionBitmap even = new PositionBitmap();
+        IntStream.range(0, 20000).filter(position -> position % 2 == 0).forEach(even::add);
+        PositionBitmap sparse = new PositionBitmap();
+        IntStream.of(1, 2, 3, 4, 9998, 19999, 65536).forEach(sparse::add);
+
+        // When
+        PositionBitmap and = PositionBitmap.and(even, sparse);
+        PositionBitmap or = PositionBitmap.or(even, sparse);
+        PositionBitmap andNot = PositionBitmap.andNot(sparse, even);
+
+        // Then
+        assertEquals(10000, even.cardinality());
+        assertArrayEquals(new int[] { 2, 4, 9998 }, and.toArray());
+        assertEquals(10004, or.cardinality());
+        assertTrue(or.contains(19999) && or.contains(65536) && or.contains(10000));
+        assertArrayEquals(new int[] { 1, 3, 19999, 65536 }, andNot.toArray());
+        assertEquals(9997, PositionBitmap.andNot(even, sparse).cardinality());
+        assertTrue(PositionBitmap.and(even, new PositionBitmap()).isEmpty());
+    }
+
+    @Test
+    void testSetOperations_DoNotShareContainersWithTheirSources() {
+        // Given
+        PositionBitmap first = new PositionBitmap();
+        first.add(1);
+        PositionBitmap union = PositionBitmap.or(first, new PositionBitmap());
+
+        // When
+        union.add(2);
+
+        // Then
+        assertArrayEquals(new int[] { 1 }, first.toArray());
+        assertArrayEquals(new int[] { 1, 2 }, union.toArray());
+    }
+
+    @Test
+    void testRange_HoldsEveryPosition() {
+        // When
+        PositionBitmap range = PositionBitmap.range(70000);
+
+        // Then
+        assertEquals(70000, range.cardinality());
+        assertTrue(range.contains(0) && range.contains(69999));
+        assertFalse(range.contains(70000));
+        assertTrue(PositionBitmap.range(0).isEmpty());
+    }
+
+    @Test
+    void testWriteAndRead_RoundTrips() throws IOException {
+        // Given
+        PositionBitmap bitmap = PositionBitmap.range(5000);
+        IntStream.of(70000, 70002, 200000).forEach(bitmap::add);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        // When
+        bitmap.write(new DataOutputStream(bytes));
+        PositionBitmap read = PositionBitmap.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        // Then
+        assertEquals(bitmap, read);
+        assertEquals(bitmap.hashCode(), read.hashCode());
+        assertEquals(5003, read.cardinality());
+    }
+}
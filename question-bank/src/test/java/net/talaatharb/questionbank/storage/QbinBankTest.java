@@ -0,0 +1,184 @@
+package net.talaatharb.questionbank.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import net.talaatharb.questionbank.dto.QuestionDto;
+import net.talaatharb.questionbank.dto.QuestionField;
+
+class QbinBankTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path bankFile;
+    private List<QuestionDto> questions;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        bankFile = tempDir.resolve("bank.qbin");
+        questions = createQuestions(100);
+        QbinWriter.write(bankFile, questions.iterator());
+    }
+
+    @Test
+    void testOpen_ReadsAllQuestions() throws IOException {
+        // When
+        try (QbinBank bank = QbinBank.open(bankFile)) {
+            // Then
+            assertEquals(100, bank.size());
+            List<QuestionDto> loaded = new ArrayList<>();
+            bank.forEach(loaded::add);
+            assertEquals(questions, loaded);
+        }
+    }
+
+    @Test
+    void testRecord_DecodesSingleFields() throws IOException {
+        // When
+        try (QbinBank bank = QbinBank.open(bankFile)) {
+            QbinBank.Record record = bank.get(42);
+
+            // Then
+            assertEquals(questions.get(42).getId(), record.getId());
+            assertEquals("Answer 42 é中", record.get(QuestionField.ANSWER));
+            assertEquals("Category 2", record.get(QuestionField.CATEGORY));
+            assertNull(record.get(QuestionField.SOURCE));
+            assertEquals("en", record.get(QuestionField.LANGUAGE));
+        }
+    }
+
+    @Test
+    void testGetQuestions_Page() throws IOException {
+        // When
+        try (QbinBank bank = QbinBank.open(bankFile)) {
+            // Then
+            assertEquals(questions.subList(90, 100), bank.getQuestions(90, 20));
+            assertTrue(bank.getQuestions(100, 20).isEmpty());
+            assertThrows(IndexOutOfBoundsException.class, () -> bank.get(100));
+            assertThrows(IllegalArgumentException.class, () -> bank.getQuestions(-1, 1));
+        }
+    }
+
+    @Test
+    void testStream_ClosesBank() throws IOException {
+        // Given
+        QbinBank bank = QbinBank.open(bankFile);
+
+        // When
+        try (Stream<QuestionDto> stream = bank.stream()) {
+            assertEquals(100, stream.count());
+        }
+
+        // Then
+        assertThrows(IllegalStateException.class, () -> bank.get(0).getId());
+    }
+
+    @Test
+    void testQuestionWithoutId() throws IOException {
+        // Given
+        QuestionDto question = new QuestionDto();
+        question.setQuestion("No id");
+        QbinWriter.write(bankFile, List.of(question).iterator());
+
+        // When
+        try (QbinBank bank = QbinBank.open(bankFile)) {
+            // Then
+            assertNull(bank.get(0).getId());
+            assertEquals(question, bank.getQuestion(0));
+        }
+    }
+
+    @Test
+    void testWrap_InMemoryContent() throws IOException {
+        // When
+        try (QbinBank bank = QbinBank.wrap(ByteBuffer.wrap(Files.readAllBytes(bankFile)))) {
+            // Then
+            assertEquals(questions.get(7), bank.getQuestion(7));
+        }
+    }
+
+    @Test
+    void testOpen_InvalidFile() throws IOException {
+        // Given
+        Path invalid = tempDir.resolve("invalid.qbin");
+        Files.writeString(invalid, "[ { \"question\" : \"not binary\" } ]");
+
+        // When & Then
+        assertThrows(IOException.class, () -> QbinBank.open(invalid));
+    }
+
+    @Test
+    void testOpen_TruncatedFile() throws IOException {
+        // Given
+        byte[] content = Files.readAllBytes(bankFile);
+        Path truncated = tempDir.resolve("truncated.qbin");
+        Files.write(truncated, Arrays.copyOf(content, content.length - 10));
+
+        // When
+        IOException exception = assertThrows(IOException.class, () -> QbinBank.open(truncated));
+
+        // Then
+        assertTrue(exception.getMessage().contains(truncated.toString()));
+    }
+
+    @Test
+    void testGet_RecordOffsetOutsideFile() throws IOException {
+        // Given
+        ByteBuffer content = ByteBuffer.wrap(Files.readAllBytes(bankFile));
+        content.putLong(QbinBank.HEADER_SIZE + 5 * Long.BYTES, Long.MAX_VALUE);
+
+        try (QbinBank bank = QbinBank.wrap(content)) {
+            // When & Then
+            assertThrows(UncheckedIOException.class, () -> bank.getQuestion(5));
+            assertThrows(UncheckedIOException.class, () -> bank.getQuestion(4));
+            assertEquals(questions.get(6), bank.getQuestion(6));
+        }
+    }
+
+    @Test
+    void testGetQuestion_FieldPastEndOfRecord() throws IOException {
+        // Given
+        ByteBuffer content = ByteBuffer.wrap(Files.readAllBytes(bankFile));
+        int start = (int) content.getLong(QbinBank.HEADER_SIZE);
+        content.putInt(start + QbinBank.FIELDS_OFFSET, 1_000_000);
+
+        try (QbinBank bank = QbinBank.wrap(content)) {
+            // When & Then
+            assertThrows(UncheckedIOException.class, () -> bank.getQuestion(0));
+            assertThrows(UncheckedIOException.class, () -> bank.get(0).get(QuestionField.ANSWER));
+            assertEquals(questions.get(1), bank.getQuestion(1));
+        }
+    }
+
+    static List<QuestionDto> createQuestions(int count) {
+        List<QuestionDto> result = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            QuestionDto question = new QuestionDto();
+            question.setId(UUID.randomUUID());
+            question.setQuestion("Question " + i);
+            question.setAnswer("Answer " + i + " é中");
+            question.setCategory("Category " + (i % 5));
+            question.setLanguage("en");
+            result.add(question);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,193 @@
+package net.talaatharb.questionbank.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class QuestionIdIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testFind_LocatesIdsOfEveryBank() {
+        // Given
+        QuestionIdIndex index = new QuestionIdIndex();
+        List<UUID> java = ids(3);
+        List<UUID> spring = ids(2);
+
+        // When
+        index.replaceBank("java.json", java, 100, 1);
+        index.replaceBank("spring.json", Arrays.asList(spring.get(0), null, spring.get(1)), 200, 2);
+
+        // Then
+        assertEquals(5, index.size());
+        assertEquals(new QuestionIdIndex.Location("java.json", 2), index.find(java.get(2)));
+        assertEquals(new QuestionIdIndex.Location("spring.json", 2), index.find(spring.get(1)));
+        assertNull(index.find(UUID.randomUUID()));
+        assertTrue(index.matches("java.json", 100, 1));
+        assertFalse(index.matches("java.json", 100, 2));
+        assertFalse(index.matches("other.json", 100, 1));
+        assertEquals(Set.of("java.json", "spring.json"), index.getQuestionBanks());
+    }
+
+    @Test
+    void testUpsertAndDelete_FollowJournaledSaves() {
+        // Given
+        QuestionIdIndex index = new QuestionIdIndex();
+        List<UUID> java = ids(3);
+        index.replaceBank("java.json", java, 100, 1);
+        UUID inserted = UUID.randomUUID();
+
+        // When
+        index.upsert("java.json", java.get(1));
+        index.upsert("java.json", inserted);
+        index.delete("java.json", java.get(0));
+        index.delete("java.json", UUID.randomUUID());
+        index.setState("java.json", 150, 2);
+
+        // Then
+        assertNull(index.find(java.get(0)));
+        assertEquals(0, index.find(java.get(1)).position());
+        assertEquals(1, index.find(java.get(2)).position());
+        assertEquals(2, index.find(inserted).position());
+        assertTrue(index.matches("java.json", 150, 2));
+        index.invalidate("java.json");
+        assertFalse(index.matches("java.json", 150, 2));
+        assertThrows(IllegalArgumentException.class, () -> index.upsert("other.json", inserted));
+    }
+
+    @Test
+    void testDeleteAll_RenumbersOnlyTheBankOfTheDeletedQuestions() {
+        // Given
+        QuestionIdIndex index = new QuestionIdIndex();
+        List<UUID> java = ids(5);
+        List<UUID> spring = ids(3);
+        index.replaceBank("java.json", java, 100, 1);
+        index.replaceBank("spring.json", spring, 200, 2);
+
+        // When
+        index.deleteAll("java.json", List.of(java.get(3), java.get(0), spring.get(0)));
+
+        // Then
+        assertEquals(6, index.size());
+        assertEquals(new QuestionIdIndex.Location("java.json", 0), index.find(java.get(1)));
+        assertEquals(new QuestionIdIndex.Location("java.json", 1), index.find(java.get(2)));
+        assertEquals(new QuestionIdIndex.Location("java.json", 2), index.find(java.get(4)));
+        assertEquals(new QuestionIdIndex.Location("spring.json", 0), index.find(spring.get(0)));
+        index.upsert("java.json", spring.get(2));
+        assertEquals(new QuestionIdIndex.Location("java.json", 3), index.find(spring.get(2)));
+    }
+
+    @Test
+    void testUpsert_OfIdOfOtherBankKeepsThatBankConsistent() {
+        // Given
+        QuestionIdIndex index = new QuestionIdIndex();
+        List<UUID> java = ids(3);
+        UUID copied = java.get(1);
+        index.replaceBank("java.json", java, 100, 1);
+        index.replaceBank("spring.json", ids(2), 200, 2);
+
+        // When
+        index.upsert("spring.json", copied);
+        UUID appended = UUID.randomUUID();
+        index.upsert("java.json", appended);
+        index.delete("java.json", java.get(0));
+
+        // Then
+        assertEquals(new QuestionIdIndex.Location("spring.json", 2), index.find(copied));
+        assertEquals(new QuestionIdIndex.Location("java.json", 2), index.find(appended));
+        index.delete("spring.json", copied);
+        assertEquals(new QuestionIdIndex.Location("java.json", 0), index.find(copied));
+        index.replaceBank("java.json", List.of(java.get(2)), 300, 3);
+        assertNull(index.find(copied));
+        assertEquals(new QuestionIdIndex.Location("java.json", 0), index.find(java.get(2)));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void testReplaceBank_KeepsOtherBanksThroughResizesAndDeletes() {
+        // Given
+        QuestionIdIndex index = new QuestionIdIndex();
+        Random random = new Random(42);
+        Map<UUID, QuestionIdIndex.Location> expected = new HashMap<>();
+        List<UUID> large = ids(5000);
+        index.replaceBank("large.json", large, 1, 1);
+        for (int i = 0; i < large.size(); i++) {
+            expected.put(large.get(i), new QuestionIdIndex.Location("large.json", i));
+        }
+        List<UUID> small = ids(10);
+        index.replaceBank("small.json", small, 1, 1);
+
+        // When
+        List<UUID> remaining = new ArrayList<>(large);
+        for (int i = 0; i < 500; i++) {
+            UUID deleted = remaining.remove(random.nextInt(remaining.size()));
+            index.delete("large.json", deleted);
+            expected.remove(deleted);
+        }
+        index.replaceBank("small.json", small.subList(0, 5), 2, 2);
+        index.retainAll(List.of("large.json"));
+
+        // Then
+        assertEquals(remaining.size(), index.size());
+        for (int i = 0; i < remaining.size(); i++) {
+            assertEquals(new QuestionIdIndex.Location("large.json", i), index.find(remaining.get(i)));
+        }
+        small.forEach(id -> assertNull(index.find(id)));
+        assertEquals(Set.of("large.json"), index.getQuestionBanks());
+    }
+
+    @Test
+    void testWriteAndRead_RestoresIndex() throws IOException {
+        // Given
+        Path indexFile = tempDir.resolve("ids.index");
+        QuestionIdIndex index = new QuestionIdIndex();
+        List<UUID> java = ids(2000);
+        List<UUID> spring = ids(3);
+        index.replaceBank("java.json", java, 100, 1);
+        index.replaceBank("spring.json", spring, 200, 2);
+        index.retainAll(List.of("spring.json"));
+
+        // When
+        index.write(indexFile);
+        QuestionIdIndex read = QuestionIdIndex.read(indexFile);
+
+        // Then
+        assertEquals(3, read.size());
+        assertEquals(new QuestionIdIndex.Location("spring.json", 1), read.find(spring.get(1)));
+        assertNull(read.find(java.get(0)));
+        assertTrue(read.matches("spring.json", 200, 2));
+        read.upsert("spring.json", java.get(0));
+        assertEquals(3, read.find(java.get(0)).position());
+
+        Files.writeString(indexFile, "not an index");
+        assertNull(QuestionIdIndex.read(indexFile));
+        assertNull(QuestionIdIndex.read(tempDir.resolve("missing.index")));
+    }
+
+    private static List<UUID> ids(int count) {
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ids.add(UUID.randomUUID());
+        }
+        return ids;
+    }
+}
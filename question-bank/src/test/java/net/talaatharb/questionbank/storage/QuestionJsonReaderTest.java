@@ -0,0 +1,105 @@
+package net.talaatharb.questionbank.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import net.talaatharb.questionbank.dto.QuestionDto;
+
+class QuestionJsonReaderTest {
+
+    private static final String TWO_QUESTIONS = "[" +
+            "{\"question\":\"What is Java?\",\"answer\":\"A programming language\",\"category\":\"Programming\"}," +
+            "{\"question\":\"What is JVM?\",\"answer\":\"Java Virtual Machine\",\"category\":\"Programming\"}" +
+            "]";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testIterateQuestions() throws IOException {
+        // Given
+        try (QuestionJsonReader reader = readerOf(TWO_QUESTIONS)) {
+            // When & Then
+            assertTrue(reader.hasNext());
+            assertEquals("What is Java?", reader.next().getQuestion());
+            assertTrue(reader.hasNext());
+            assertEquals("Java Virtual Machine", reader.next().getAnswer());
+            assertFalse(reader.hasNext());
+            assertThrows(NoSuchElementException.class, reader::next);
+        }
+    }
+
+    @Test
+    void testStreamQuestionsFromFile() throws IOException {
+        // Given
+        Path file = tempDir.resolve("bank.json");
+        Files.writeString(file, TWO_QUESTIONS);
+
+        // When
+        List<QuestionDto> questions;
+        try (Stream<QuestionDto> stream = QuestionJsonReader.open(file).stream()) {
+            questions = stream.toList();
+        }
+
+        // Then
+        assertEquals(2, questions.size());
+        assertEquals("What is JVM?", questions.get(1).getQuestion());
+    }
+
+    @Test
+    void testEmptyArray() throws IOException {
+        // Given
+        try (QuestionJsonReader reader = readerOf("[ ]")) {
+            // When & Then
+            assertFalse(reader.hasNext());
+        }
+    }
+
+    @Test
+    void testNotAnArray() {
+        // When & Then
+        assertThrows(IOException.class, () -> readerOf("{\"question\":\"What is Java?\"}"));
+        assertThrows(IOException.class, () -> readerOf(""));
+    }
+
+    @Test
+    void testInvalidElement() throws IOException {
+        // Given
+        try (QuestionJsonReader reader = readerOf("[{\"question\":\"What is Java?\"}, 42]")) {
+            // When & Then
+            assertEquals("What is Java?", reader.next().getQuestion());
+            assertThrows(UncheckedIOException.class, reader::hasNext);
+        }
+    }
+
+    @Test
+    void testCloseStopsIteration() throws IOException {
+        // Given
+        QuestionJsonReader reader = readerOf(TWO_QUESTIONS);
+
+        // When
+        reader.close();
+
+        // Then
+        assertFalse(reader.hasNext());
+    }
+
+    private QuestionJsonReader readerOf(String json) throws IOException {
+        return new QuestionJsonReader(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,68 @@
+package net.talaatharb.questionbank.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import net.talaatharb.questionbank.dto.QuestionDto;
+import net.talaatharb.questionbank.utils.QuestionUtils;
+
+class QuestionJsonWriterTest {
+
+    @Test
+    void testWriteAll_RoundTrip() throws IOException {
+        // Given
+        List<QuestionDto> questions = List.of(
+                createQuestion("What is Java?", "A programming language"),
+                createQuestion("What is JVM?", "Java Virtual Machine"));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // When
+        QuestionJsonWriter.writeAll(output, questions.iterator());
+
+        // Then
+        try (QuestionJsonReader reader = new QuestionJsonReader(new ByteArrayInputStream(output.toByteArray()))) {
+            assertEquals(questions.get(0), reader.next());
+            assertEquals(questions.get(1), reader.next());
+        }
+    }
+
+    @Test
+    void testWriteAll_MatchesPrettyPrintedString() throws IOException {
+        // Given
+        List<QuestionDto> questions = List.of(createQuestion("What is Java?", "A programming language"));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // When
+        QuestionJsonWriter.writeAll(output, questions.iterator());
+
+        // Then
+        assertEquals(QuestionUtils.convertToJsonString(questions), output.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testWriteAll_EmptyBank() throws IOException {
+        // Given
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // When
+        QuestionJsonWriter.writeAll(output, List.<QuestionDto>of().iterator());
+
+        // Then
+        assertEquals("[]", output.toString(StandardCharsets.UTF_8).replaceAll("\\s+", ""));
+    }
+
+    private QuestionDto createQuestion(String question, String answer) {
+        QuestionDto dto = new QuestionDto();
+        dto.setQuestion(question);
+        dto.setAnswer(answer);
+        dto.setCategory("Programming");
+        return dto;
+    }
+}
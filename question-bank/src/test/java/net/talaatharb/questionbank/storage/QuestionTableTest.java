@@ -0,0 +1,109 @@
+package net.talaatharb.questionbank.storage;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import net.talaatharb.questionbank.dto.QuestionDto;
+import net.talaatharb.questionbank.dto.QuestionField;
+import net.talaatharb.questionbank.utils.QuestionUtils;
+
+class QuestionTableTest {
+
+    @Test
+    void testOf_RowsMatchQuestions() {
+        // Given
+        List<QuestionDto> questions = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            questions.add(createQuestion("Question " + i + " – ünïcödé", i % 2 == 0 ? "Java" : "Spring",
+                    null));
+        }
+        questions.get(3).setId(null);
+        questions.get(4).setExplanation("");
+
+        // When
+        QuestionTable table = QuestionTable.of(questions.iterator());
+
+        // Then
+        assertEquals(200, table.size());
+        assertEquals(questions, table.stream().toList());
+        List<QuestionDto> iterated = new ArrayList<>();
+        table.forEach(iterated::add);
+        assertEquals(questions, iterated);
+        assertNull(table.getRow(3).getId());
+        assertEquals("", table.getRow(4).get(QuestionField.EXPLANATION));
+        assertNull(table.getRow(5).get(QuestionField.EXPLANATION));
+        assertThrows(IndexOutOfBoundsException.class, () -> table.getRow(200));
+    }
+
+    @Test
+    void testFindRows_MatchesExactValue() {
+        // Given
+        QuestionTable table = QuestionTable.of(List.of(createQuestion("A", "Java", null),
+                createQuestion("B", "JavaScript", null), createQuestion("C", null, null),
+                createQuestion("D", "Java", null)).iterator());
+
+        // When
+        int[] java = table.findRows(QuestionField.CATEGORY, "Java");
+        int[] uncategorized = table.findRows(QuestionField.CATEGORY, null);
+
+        // Then
+        assertArrayEquals(new int[] { 0, 3 }, java);
+        assertArrayEquals(new int[] { 2 }, uncategorized);
+        assertArrayEquals(new int[0], table.findRows(QuestionField.CATEGORY, "Kotlin"));
+    }
+
+    @Test
+    void testSortByUpdatedAt_IsStableAndPutsMissingTimesFirst() {
+        // Given
+        QuestionTable table = QuestionTable.of(List.of(createQuestion("A", null, "2024-03-01T10:00:00Z"),
+                createQuestion("B", null, "2024-01-01"), createQuestion("C", null, null),
+                createQuestion("D", null, "2024-03-01T12:00:00+02:00"),
+                createQuestion("E", null, "2024-02-01T00:00:00"), createQuestion("F", null, "not a date"))
+                .iterator());
+
+        // When
+        int[] rows = table.sortByUpdatedAt();
+
+        // Then
+        assertArrayEquals(new int[] { 2, 5, 1, 4, 0, 3 }, rows);
+        assertEquals(QuestionTable.NO_TIMESTAMP, table.getRow(5).getUpdatedAtMillis());
+        assertEquals("not a date", table.getRow(5).get(QuestionField.UPDATED_AT));
+        assertEquals(table.getRow(0).getUpdatedAtMillis(), table.getRow(3).getUpdatedAtMillis());
+        assertArrayEquals(new int[] { 0, 1, 2, 3, 4, 5 }, table.sortByCreatedAt());
+    }
+
+    @Test
+    void testEstimateRetainedBytes_IsSmallerThanQuestions() {
+        // Given
+        List<QuestionDto> questions = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            questions.add(createQuestion("Question " + i, "Category " + (i % 10), "2024-01-01T00:00:00Z"));
+        }
+
+        // When
+        QuestionTable table = QuestionTable.of(questions.iterator());
+
+        // Then
+        assertTrue(table.estimateRetainedBytes() < QuestionUtils.estimateRetainedBytes(questions));
+    }
+
+    private static QuestionDto createQuestion(String text, String category, String updatedAt) {
+        QuestionDto question = new QuestionDto();
+        question.setId(UUID.randomUUID());
+        question.setQuestion(text);
+        question.setAnswer("Answer to " + text);
+        question.setCategory(category);
+        question.setUpdatedAt(updatedAt);
+        question.setLanguage("en");
+        return question;
+    }
+}
@@ -0,0 +1,201 @@
+package net.talaatharb.questionbank.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import net.talaatharb.questionbank.dto.QuestionDto;
+
+class ShardedBankTest {
+
+    @TempDir
+    Path tempDir;
+
+    @ParameterizedTest
+    @ValueSource(strings = { "bank.json", "bank.min.json.gz", "bank.smile", "bank.qbin", "bank.qbin.deflate" })
+    void testWriteAndOpen_RoundTripsEveryFormat(String questionBank) throws IOException {
+        // Given
+        List<QuestionDto> questions = createQuestions(7, 3);
+        Path folder = tempDir.resolve(questionBank);
+
+        // When
+        int written = ShardedBank.write(folder, questionBank, questions.iterator(), 3);
+        ShardedBank bank = ShardedBank.open(folder);
+
+        // Then
+        assertEquals(3, written);
+        assertTrue(ShardedBank.isShardedBank(folder));
+        assertEquals(7, bank.size());
+        assertEquals(3, bank.getShardCount());
+        assertEquals(3, bank.getShardSize());
+        assertTrue(bank.getSizeBytes() > 0);
+        assertEquals(questions, bank.readAll());
+        try (Stream<QuestionDto> stream = bank.stream()) {
+            assertEquals(questions, stream.toList());
+        }
+    }
+
+    @Test
+    void testGetQuestions_ReadsPagesAcrossShards() throws IOException {
+        // Given
+        List<QuestionDto> questions = createQuestions(10, 4);
+        Path folder = tempDir.resolve("bank.json");
+        ShardedBank.write(folder, "bank.json", questions.iterator(), 4);
+        ShardedBank bank = ShardedBank.open(folder);
+
+        // Then
+        assertEquals(questions.subList(2, 9), bank.getQuestions(2, 7));
+        assertEquals(questions.subList(4, 8), bank.getQuestions(4, 4));
+        assertEquals(questions.subList(8, 10), bank.getQuestions(8, 100));
+        assertTrue(bank.getQuestions(10, 5).isEmpty());
+        assertTrue(bank.getQuestions(3, 0).isEmpty());
+        assertEquals(List.of(9, 0, 5), List.copyOf(bank.getQuestionsAt(new int[] { 9, 0, 5, 42 }).keySet()));
+        assertEquals(questions.get(5), bank.getQuestionsAt(new int[] { 5 }).get(5));
+        assertThrows(IllegalArgumentException.class, () -> bank.getQuestions(-1, 2));
+    }
+
+    @Test
+    void testWrite_RewritesOnlyChangedShards() throws IOException {
+        // Given
+        List<QuestionDto> questions = new ArrayList<>(createQuestions(9, 3));
+        Path folder = tempDir.resolve("bank.json");
+        ShardedBank.write(folder, "bank.json", questions.iterator(), 3);
+        Set<String> before = listFiles(folder);
+
+        // When
+        questions.get(4).setAnswer("Changed");
+        int written = ShardedBank.write(folder, "bank.json", questions.iterator(), 3);
+        Set<String> after = listFiles(folder);
+
+        // Then
+        assertEquals(1, written);
+        assertEquals(3, after.size());
+        assertEquals(2, after.stream().filter(before::contains).count());
+        assertEquals(questions, ShardedBank.open(folder).readAll());
+
+        // When
+        written = ShardedBank.write(folder, "bank.json", questions.subList(0, 4).iterator(), 3);
+
+        // Then
+        assertEquals(1, written);
+        assertEquals(2, listFiles(folder).size());
+        assertEquals(questions.subList(0, 4), ShardedBank.open(folder).readAll());
+    }
+
+    @Test
+    void testWrite_InsertAtFrontRewritesOnlyItsShard() throws IOException {
+        // Given
+        List<QuestionDto> questions = new ArrayList<>(createQuestions(12, 3));
+        Path folder = tempDir.resolve("bank.json");
+        ShardedBank.write(folder, "bank.json", questions.iterator(), 3);
+        Set<String> before = listFiles(folder);
+        QuestionDto inserted = createQuestions(2, 3).get(0);
+
+        // When
+        questions.add(1, inserted);
+        questions.remove(7);
+        int written = ShardedBank.write(folder, "bank.json", questions.iterator(), 3);
+
+        // Then
+        assertEquals(2, written);
+        assertEquals(2, listFiles(folder).stream().filter(before::contains).count());
+        assertEquals(questions, ShardedBank.open(folder).readAll());
+    }
+
+    @Test
+    void testPrepare_KeepsCurrentBankUntilCommitted() throws IOException {
+        // Given
+        List<QuestionDto> questions = createQuestions(4, 2);
+        Path folder = tempDir.resolve("bank.qbin");
+        ShardedBank.write(folder, "bank.qbin", questions.iterator(), 2);
+        Set<String> before = listFiles(folder);
+
+        // When
+        ShardedBank.PendingWrite discarded = ShardedBank.prepare(folder, "bank.qbin",
+                createQuestions(3, 2).iterator(), 2);
+        discarded.discard();
+        ShardedBank.PendingWrite committed = ShardedBank.prepare(folder, "bank.qbin",
+                questions.subList(0, 3).iterator(), 2);
+
+        // Then
+        assertEquals(before, listFiles(folder).stream().filter(before::contains).collect(Collectors.toSet()));
+        assertEquals(questions, ShardedBank.open(folder).readAll());
+        committed.commit();
+        assertEquals(questions.subList(0, 3), ShardedBank.open(folder).readAll());
+        assertEquals(2, listFiles(folder).size());
+        assertThrows(IllegalArgumentException.class,
+                () -> ShardedBank.prepare(folder, "bank.qbin", questions.iterator(), 0));
+    }
+
+    @Test
+    void testOpen_WithMissingOrInvalidManifest() throws IOException {
+        // Given
+        Path folder = tempDir.resolve("bank.json");
+        Files.createDirectories(folder);
+
+        // Then
+        assertFalse(ShardedBank.isShardedBank(folder));
+        assertThrows(IOException.class, () -> ShardedBank.open(folder));
+        Files.writeString(folder.resolve(ShardedBank.MANIFEST_FILE), "{\"version\":99,\"shards\":[]}");
+        assertThrows(IOException.class, () -> ShardedBank.open(folder));
+    }
+
+    @Test
+    void testReadAll_WithMissingShard() throws IOException {
+        // Given
+        Path folder = tempDir.resolve("bank.json");
+        ShardedBank.write(folder, "bank.json", createQuestions(4, 2).iterator(), 2);
+        try (Stream<Path> files = Files.list(folder)) {
+            Files.delete(files.filter(file -> file.getFileName().toString().startsWith("00001-")).findFirst()
+                    .orElseThrow());
+        }
+        ShardedBank bank = ShardedBank.open(folder);
+
+        // Then
+        assertThrows(IOException.class, bank::readAll);
+        assertEquals(Map.of(0, bank.getQuestions(0, 1).get(0)), bank.getQuestionsAt(new int[] { 0 }));
+        assertThrows(IOException.class, () -> bank.getQuestions(1, 2));
+    }
+
+    private static Set<String> listFiles(Path folder) throws IOException {
+        try (Stream<Path> files = Files.list(folder)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> !name.equals(ShardedBank.MANIFEST_FILE))
+                    .collect(Collectors.toSet());
+        }
+    }
+
+    /**
+     * Creates questions whose ids end a shard after every shard size of questions
+     */
+    private static List<QuestionDto> createQuestions(int count, int shardSize) {
+        return IntStream.range(0, count).mapToObj(i -> {
+            QuestionDto question = new QuestionDto();
+            do {
+                question.setId(UUID.randomUUID());
+            } while (ShardedBank.endsShard(question, shardSize) != (i % shardSize == shardSize - 1));
+            question.setQuestion("Question " + i);
+            question.setAnswer("Answer " + i);
+            question.setCategory("Category " + (i % 3));
+            return question;
+        }).toList();
+    }
+}
@@ -1,7 +1,9 @@
 package net.talaatharb.questionbank.ui.controllers;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.reset;
@@ -14,6 +16,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.testfx.framework.junit5.ApplicationExtension;
 import org.testfx.framework.junit5.ApplicationTest;
 
+import javafx.scene.Node;
 import javafx.scene.layout.AnchorPane;
 import javafx.stage.Stage;
 import net.talaatharb.questionbank.service.QuestionService;
@@ -113,6 +116,35 @@ class MainUiControllerTest extends ApplicationTest {
         assertDoesNotThrow(() -> controller.switchToQuestionEditor(questionBank));
     }
 
+    @Test
+    void testSwitchScenes_ReusesLoadedScenes() {
+        // Given
+        controller.setPrimaryStage(null);
+        Node bankList = controller.getMainContainer().getChildren().get(0);
+        controller.switchToQuestionEditor("java.json");
+        Node editor = controller.getMainContainer().getChildren().get(0);
+
+        // When
+        controller.switchToQuestionViewer("java.json");
+        controller.switchToQuestionEditor("spring.json");
+        Node editorAgain = controller.getMainContainer().getChildren().get(0);
+        controller.switchToQuestionBankList();
+
+        // Then
+        assertSame(editor, editorAgain);
+        assertSame(bankList, controller.getMainContainer().getChildren().get(0));
+        assertEquals(1, controller.getMainContainer().getChildren().size());
+    }
+
+    @Test
+    void testClose_WithoutPendingSaves() {
+        // Given
+        controller.setPrimaryStage(null);
+
+        // When & Then
+        assertTrue(controller.close());
+    }
+
     @Test
     void testSceneManagerInterfaceImplementation() {
         // Given
@@ -1,13 +1,22 @@
 package net.talaatharb.questionbank.ui.controllers;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -17,11 +26,17 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.testfx.framework.junit5.ApplicationExtension;
 import org.testfx.framework.junit5.ApplicationTest;
 
+import javafx.collections.FXCollections;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.control.ListView;
 import javafx.stage.Stage;
+import net.talaatharb.questionbank.dto.QuestionBankSummaryDto;
+import net.talaatharb.questionbank.service.AsyncQuestionService;
 import net.talaatharb.questionbank.service.QuestionService;
+import net.talaatharb.questionbank.storage.BankDirectoryWatcher;
+import net.talaatharb.questionbank.storage.BankDirectoryWatcher.Change;
+import net.talaatharb.questionbank.storage.BankDirectoryWatcher.ChangeKind;
 
 @ExtendWith({MockitoExtension.class, ApplicationExtension.class})
 class QuestionBankListControllerTest extends ApplicationTest {
@@ -43,7 +58,7 @@ class QuestionBankListControllerTest extends ApplicationTest {
         controller.setOpenBankButton(new Button());
         controller.setQuestionBankListView(new ListView<>());
         controller.setRefreshButton(new Button());
-        controller.setQuestionService(questionService);
+        controller.setQuestionService(new AsyncQuestionService(questionService, Runnable::run, Runnable::run));
         controller.setSceneManager(sceneManager);
     }
 
@@ -60,7 +75,7 @@ class QuestionBankListControllerTest extends ApplicationTest {
         when(questionService.getQuestionBanks()).thenReturn(mockBanks);
 
         // When
-        controller.setQuestionService(questionService);
+        controller.setQuestionService(new AsyncQuestionService(questionService, Runnable::run, Runnable::run));
 
         // Then
         verify(questionService).getQuestionBanks();
@@ -106,6 +121,125 @@ class QuestionBankListControllerTest extends ApplicationTest {
         // Exception should be handled gracefully
     }
 
+    @Test
+    void testRefreshQuestionBanks_WithWatcher() {
+        // Given
+        BankDirectoryWatcher watcher = mock(BankDirectoryWatcher.class);
+        when(watcher.getQuestionBanks()).thenReturn(List.of("java.json", "spring.json"));
+        controller.setBankDirectoryWatcher(watcher);
+
+        // When
+        controller.refreshQuestionBanks();
+
+        // Then
+        verify(watcher).addListener(any());
+        verify(questionService, never()).getQuestionBanks();
+        assertEquals(List.of("java.json", "spring.json"), controller.getQuestionBankListView().getItems());
+    }
+
+    @Test
+    void testApplyChange_ChecksOnlyTheChangedBank() {
+        // Given
+        BankDirectoryWatcher watcher = mock(BankDirectoryWatcher.class);
+        when(watcher.getQuestionBanks()).thenReturn(List.of("java.json"));
+        controller.setBankDirectoryWatcher(watcher);
+        controller.refreshQuestionBanks();
+        QuestionBankSummaryDto summary = new QuestionBankSummaryDto();
+        summary.setName("spring.json");
+        summary.setQuestionCount(4);
+        when(questionService.getQuestionBankSummary("spring.json")).thenReturn(Optional.of(summary));
+
+        // When
+        controller.applyChange(new Change(ChangeKind.ADDED, "spring.json"));
+
+        // Then
+        verify(questionService).getQuestionBankSummaries(List.of("java.json"));
+        verify(questionService).getQuestionBankSummary("spring.json");
+        verify(questionService, never()).getQuestionBankSummaries();
+        assertEquals(List.of("java.json", "spring.json"), controller.getQuestionBankListView().getItems());
+    }
+
+    @Test
+    void testApplyChange_KeepsListSorted() {
+        // Given
+        controller.getQuestionBankListView().setItems(FXCollections.observableArrayList("a.json", "c.json"));
+
+        // When
+        controller.applyChange(new Change(ChangeKind.ADDED, "b.json"));
+        controller.applyChange(new Change(ChangeKind.ADDED, "c.json"));
+        controller.applyChange(new Change(ChangeKind.REMOVED, "a.json"));
+        controller.applyChange(new Change(ChangeKind.MODIFIED, "c.json"));
+
+        // Then
+        assertEquals(List.of("b.json", "c.json"), controller.getQuestionBankListView().getItems());
+        assertEquals("Found 2 question banks", controller.getStatusLabel().getText());
+    }
+
+    @Test
+    void testRefreshQuestionBanks_LoadsSummaries() {
+        // Given
+        QuestionBankSummaryDto summary = new QuestionBankSummaryDto();
+        summary.setName("java.json");
+        summary.setQuestionCount(2);
+        when(questionService.getQuestionBanks()).thenReturn(List.of("java.json"));
+        when(questionService.getQuestionBankSummaries()).thenReturn(List.of(summary));
+
+        // When
+        controller.refreshQuestionBanks();
+
+        // Then
+        verify(questionService).getQuestionBankSummaries();
+    }
+
+    @Test
+    void testFormatSummary() {
+        // Given
+        QuestionBankSummaryDto summary = new QuestionBankSummaryDto();
+        summary.setQuestionCount(3);
+        summary.setSizeBytes(2048);
+        summary.setCategories(new TreeMap<>(Map.of("Programming", 2, "Framework", 1)));
+        summary.setLanguages(List.of("ar", "en"));
+
+        // When
+        String text = QuestionBankListController.formatSummary(summary);
+
+        // Then
+        assertTrue(text.startsWith("3 questions | 2.0 KB | Framework (1), Programming (2) | ar, en | "));
+    }
+
+    @Test
+    void testDispose_RemovesWatcherListener() {
+        // Given
+        BankDirectoryWatcher watcher = mock(BankDirectoryWatcher.class);
+        controller.setBankDirectoryWatcher(watcher);
+
+        // When
+        controller.dispose();
+
+        // Then
+        verify(watcher).removeListener(any());
+    }
+
+    @Test
+    void testReset_ListensAgainAndShowsCurrentBanks() {
+        // Given
+        BankDirectoryWatcher watcher = mock(BankDirectoryWatcher.class);
+        when(watcher.getQuestionBanks()).thenReturn(List.of("java.json"));
+        controller.setBankDirectoryWatcher(watcher);
+        controller.refreshQuestionBanks();
+        controller.getQuestionBankListView().getSelectionModel().select("java.json");
+        controller.dispose();
+        when(watcher.getQuestionBanks()).thenReturn(List.of("java.json", "spring.json"));
+
+        // When
+        controller.reset();
+
+        // Then
+        verify(watcher, times(2)).addListener(any());
+        assertEquals(List.of("java.json", "spring.json"), controller.getQuestionBankListView().getItems());
+        assertNull(controller.getQuestionBankListView().getSelectionModel().getSelectedItem());
+    }
+
     @Test
     void testSetSceneManager() {
         // Given
@@ -2,22 +2,37 @@ package net.talaatharb.questionbank.ui.controllers;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.testfx.framework.junit5.ApplicationExtension;
@@ -28,8 +43,13 @@ import javafx.scene.control.Label;
 import javafx.scene.control.TextArea;
 import javafx.scene.control.TextField;
 import javafx.stage.Stage;
+import net.talaatharb.questionbank.dto.QuestionChangeSetDto;
 import net.talaatharb.questionbank.dto.QuestionDto;
+import net.talaatharb.questionbank.service.AsyncQuestionService;
 import net.talaatharb.questionbank.service.QuestionService;
+import net.talaatharb.questionbank.service.SaveScheduler;
+import net.talaatharb.questionbank.utils.FileUtils;
+import net.talaatharb.questionbank.utils.QuestionUtils;
 
 @ExtendWith({MockitoExtension.class, ApplicationExtension.class})
 class QuestionEditorControllerTest extends ApplicationTest {
@@ -44,23 +64,32 @@ class QuestionEditorControllerTest extends ApplicationTest {
 
     @Override
     public void start(Stage stage) {
-        controller = new QuestionEditorController();
-        controller.setQuestionService(questionService);
-        controller.setSceneManager(sceneManager);
-        controller.setStatusLabel(new Label());
-        controller.setQuestionNumberLabel(new Label());
-        controller.setPreviousButton(new Button());
-        controller.setNextButton(new Button());
-        controller.setQuestionTextField(new TextField());
-        controller.setAnswerTextArea(new TextArea());
-        controller.setCategoryTextField(new TextField());
-        controller.setDeleteQuestionButton(new Button());
-        controller.setDeleteQuestionButton(new Button());
-        controller.setAddQuestionButton(new Button());
-        controller.setBackToListButton(new Button());
-        controller.setSaveBankButton(new Button());
-        controller.setSaveButton(new Button());
-        
+        controller = createController();
+    }
+
+    private QuestionEditorController createController() {
+        QuestionEditorController editor = new QuestionEditorController();
+        editor.setQuestionService(new AsyncQuestionService(questionService, Runnable::run, Runnable::run));
+        editor.setSaveScheduler(new SaveScheduler(Duration.ZERO, mock(ScheduledExecutorService.class), Runnable::run));
+        editor.setSceneManager(sceneManager);
+        editor.setStatusLabel(new Label());
+        editor.setQuestionNumberLabel(new Label());
+        editor.setPreviousButton(new Button());
+        editor.setNextButton(new Button());
+        editor.setQuestionTextField(new TextField());
+        editor.setAnswerTextArea(new TextArea());
+        editor.setCategoryTextField(new TextField());
+        editor.setDeleteQuestionButton(new Button());
+        editor.setDeleteQuestionButton(new Button());
+        editor.setMoveUpButton(new Button());
+        editor.setMoveDownButton(new Button());
+        editor.setUndoButton(new Button());
+        editor.setRedoButton(new Button());
+        editor.setAddQuestionButton(new Button());
+        editor.setBackToListButton(new Button());
+        editor.setSaveBankButton(new Button());
+        editor.setSaveButton(new Button());
+        return editor;
     }
 
     @BeforeEach
@@ -155,6 +184,154 @@ class QuestionEditorControllerTest extends ApplicationTest {
         verify(questionService).saveQuestions(anyString(), anyList());
     }
 
+    @Test
+    void testSaveCurrentQuestion_WithId_SavesSingleQuestion() throws IOException {
+        // Given
+        List<QuestionDto> questions = createQuestionsWithIds();
+        when(questionService.getQuestions(anyString())).thenReturn(questions);
+        controller.loadQuestionBank("test-bank.json");
+        controller.getQuestionTextField().setText("Edited question");
+
+        // When
+        controller.saveCurrentQuestion();
+
+        // Then
+        QuestionChangeSetDto changeSet = captureChangeSet();
+        assertEquals(1, changeSet.getUpserts().size());
+        assertEquals(questions.get(0).getId(), changeSet.getUpserts().get(0).getId());
+        assertEquals("Edited question", changeSet.getUpserts().get(0).getQuestion());
+        assertTrue(changeSet.getDeletions().isEmpty());
+        assertNull(changeSet.getOrder());
+        verify(questionService, never()).saveQuestions(anyString(), anyList());
+    }
+
+    @Test
+    void testSaveQuestionBank_AfterDelete_SavesDeletion() throws IOException {
+        // Given
+        List<QuestionDto> questions = createQuestionsWithIds();
+        UUID deletedId = questions.get(0).getId();
+        when(questionService.getQuestions(anyString())).thenReturn(questions);
+        controller.loadQuestionBank("test-bank.json");
+        controller.deleteCurrentQuestion();
+
+        // When
+        controller.saveQuestionBank();
+
+        // Then
+        QuestionChangeSetDto changeSet = captureChangeSet();
+        assertTrue(changeSet.getUpserts().isEmpty());
+        assertEquals(List.of(deletedId), changeSet.getDeletions());
+        assertNull(changeSet.getOrder());
+        verify(questionService, never()).saveQuestions(anyString(), anyList());
+    }
+
+    @Test
+    void testSaveQuestionBank_AfterMove_SavesOrder() throws IOException {
+        // Given
+        List<QuestionDto> questions = createQuestionsWithIds();
+        List<UUID> expectedOrder = List.of(questions.get(1).getId(), questions.get(0).getId(),
+                questions.get(2).getId());
+        when(questionService.getQuestions(anyString())).thenReturn(questions);
+        controller.loadQuestionBank("test-bank.json");
+
+        // When
+        controller.moveCurrentQuestion(1);
+        controller.saveQuestionBank();
+
+        // Then
+        assertEquals(1, controller.getCurrentQuestionIndex());
+        QuestionChangeSetDto changeSet = captureChangeSet();
+        assertTrue(changeSet.getUpserts().isEmpty());
+        assertEquals(expectedOrder, changeSet.getOrder());
+    }
+
+    @Test
+    void testSaveQuestionBank_WithoutChanges_SavesNothing() throws IOException {
+        // Given
+        when(questionService.getQuestions(anyString())).thenReturn(createQuestionsWithIds());
+        controller.loadQuestionBank("test-bank.json");
+
+        // When
+        controller.saveQuestionBank();
+
+        // Then
+        verify(questionService, never()).applyChanges(anyString(), any());
+        verify(questionService, never()).saveQuestions(anyString(), anyList());
+        assertEquals("No changes to save", controller.getStatusLabel().getText());
+    }
+
+    @Test
+    void testSaveQuestionBank_AfterSave_OnlySavesNewChanges() throws IOException {
+        // Given
+        List<QuestionDto> questions = createQuestionsWithIds();
+        when(questionService.getQuestions(anyString())).thenReturn(questions);
+        controller.loadQuestionBank("test-bank.json");
+        controller.saveCurrentQuestion();
+        reset(questionService);
+
+        // When
+        controller.addNewQuestion();
+        controller.saveQuestionBank();
+
+        // Then
+        QuestionChangeSetDto changeSet = captureChangeSet();
+        assertEquals(1, changeSet.getUpserts().size());
+        assertEquals("New Question", changeSet.getUpserts().get(0).getQuestion());
+    }
+
+    @Test
+    void testSaveCurrentQuestion_WithoutSaveScheduler_SavesAtOnce() throws IOException {
+        // Given
+        controller.setSaveScheduler(null);
+        List<QuestionDto> questions = createQuestionsWithIds();
+        when(questionService.getQuestions(anyString())).thenReturn(questions);
+        controller.loadQuestionBank("test-bank.json");
+        controller.getQuestionTextField().setText("Edited question");
+
+        try {
+            // When
+            controller.saveCurrentQuestion();
+
+            // Then
+            QuestionChangeSetDto changeSet = captureChangeSet();
+            assertEquals(1, changeSet.getUpserts().size());
+            assertTrue(controller.getStatusLabel().getText().startsWith("Question saved to file in "));
+        } finally {
+            controller.setSaveScheduler(new SaveScheduler(Duration.ZERO, mock(ScheduledExecutorService.class),
+                    Runnable::run));
+        }
+    }
+
+    @Test
+    void testSaveCurrentQuestion_WhileDebouncing_CoalescesSaves() throws IOException {
+        // Given
+        SaveScheduler debouncingScheduler = new SaveScheduler(Duration.ofMinutes(1),
+                Executors.newSingleThreadScheduledExecutor(), Runnable::run);
+        controller.setSaveScheduler(debouncingScheduler);
+        List<QuestionDto> questions = createQuestionsWithIds();
+        when(questionService.getQuestions(anyString())).thenReturn(questions);
+        controller.loadQuestionBank("test-bank.json");
+
+        try {
+            // When
+            controller.saveCurrentQuestion();
+            controller.showNextQuestion();
+            controller.saveCurrentQuestion();
+
+            // Then
+            verify(questionService, never()).applyChanges(anyString(), any());
+            assertEquals("Saving question... (1 queued)", controller.getStatusLabel().getText());
+            controller.dispose();
+            QuestionChangeSetDto changeSet = captureChangeSet();
+            assertEquals(2, changeSet.getUpserts().size());
+            assertTrue(controller.getStatusLabel().getText().startsWith("Question saved to file in "));
+        } finally {
+            debouncingScheduler.close();
+            controller.setSaveScheduler(new SaveScheduler(Duration.ZERO, mock(ScheduledExecutorService.class),
+                    Runnable::run));
+        }
+    }
+
     @Test
     void testAddNewQuestion() {
         // Given
@@ -183,6 +360,51 @@ class QuestionEditorControllerTest extends ApplicationTest {
         assertEquals(initialSize - 1, controller.getQuestions().size());
     }
 
+    @Test
+    void testUndo_RestoresDeletedQuestion() {
+        // Given
+        List<QuestionDto> questions = createQuestionsWithIds();
+        QuestionDto deleted = questions.get(1);
+        when(questionService.getQuestions(anyString())).thenReturn(questions);
+        controller.loadQuestionBank("test-bank.json");
+        controller.showNextQuestion();
+        controller.deleteCurrentQuestion();
+
+        // When
+        controller.undo();
+
+        // Then
+        assertEquals(3, controller.getQuestions().size());
+        assertSame(deleted, controller.getQuestions().get(1));
+        assertEquals(1, controller.getCurrentQuestionIndex());
+        assertEquals("Undone: delete question 2", controller.getStatusLabel().getText());
+        assertFalse(controller.getRedoButton().isDisabled());
+        controller.redo();
+        assertEquals(2, controller.getQuestions().size());
+    }
+
+    @Test
+    void testUndo_RevertsSavedFieldEdit() throws IOException {
+        // Given
+        List<QuestionDto> questions = createQuestionsWithIds();
+        when(questionService.getQuestions(anyString())).thenReturn(questions);
+        controller.loadQuestionBank("test-bank.json");
+        controller.getAnswerTextArea().setText("Edited answer");
+        controller.saveCurrentQuestion();
+        reset(questionService);
+
+        // When
+        controller.undo();
+        controller.saveQuestionBank();
+
+        // Then
+        assertEquals("Answer 1", controller.getAnswerTextArea().getText());
+        QuestionChangeSetDto changeSet = captureChangeSet();
+        assertEquals("Answer 1", changeSet.getUpserts().get(0).getAnswer());
+        controller.undo();
+        assertEquals("Nothing to undo", controller.getStatusLabel().getText());
+    }
+
     @Test
     void testSaveQuestionBank_WithValidData() throws IOException {
         // Given
@@ -230,7 +452,7 @@ class QuestionEditorControllerTest extends ApplicationTest {
         QuestionService mockService = mock(QuestionService.class);
 
         // When & Then
-        assertDoesNotThrow(() -> controller.setQuestionService(mockService));
+        assertDoesNotThrow(() -> controller.setQuestionService(new AsyncQuestionService(mockService)));
     }
 
     @Test
@@ -251,6 +473,76 @@ class QuestionEditorControllerTest extends ApplicationTest {
     }
 
     // Helper methods
+    private QuestionChangeSetDto captureChangeSet() throws IOException {
+        ArgumentCaptor<QuestionChangeSetDto> captor = ArgumentCaptor.forClass(QuestionChangeSetDto.class);
+        verify(questionService).applyChanges(eq("test-bank.json"), captor.capture());
+        return captor.getValue();
+    }
+
+    @Test
+    void testDispose_BeforeSaveIsWritten_KeepsUndoHistory(@TempDir Path dataFolder) throws IOException {
+        // Given
+        String originalDataFolder = FileUtils.getDataFolder();
+        List<Runnable> callbacks = new ArrayList<>();
+        List<QuestionDto> stored = createQuestionsWithIds();
+        when(questionService.getQuestions(anyString()))
+                .thenAnswer(call -> stored.stream().map(QuestionUtils::copyOf).toList());
+        when(questionService.applyChanges(eq("test-bank.json"), any())).thenAnswer(call -> {
+            List<QuestionDto> written = new ArrayList<>();
+            for (QuestionDto upsert : call.<QuestionChangeSetDto>getArgument(1).getUpserts()) {
+                QuestionDto saved = QuestionUtils.copyOf(upsert);
+                QuestionUtils.bumpVersion(saved, upsert.getVersion());
+                stored.replaceAll(question -> question.getId().equals(saved.getId()) ? saved : question);
+                written.add(saved);
+            }
+            return written;
+        });
+
+        try {
+            FileUtils.setDataFolder(dataFolder.toString());
+            controller.setQuestionService(new AsyncQuestionService(questionService, Runnable::run, callbacks::add));
+            controller.setHistoryPersisted(true);
+            controller.loadQuestionBank("test-bank.json");
+            runAll(callbacks);
+            controller.getQuestionTextField().setText("Edited question");
+            controller.saveCurrentQuestion();
+
+            // When
+            controller.dispose();
+            runAll(callbacks);
+            QuestionEditorController reopened = createController();
+            reopened.setQuestionService(new AsyncQuestionService(questionService, Runnable::run, Runnable::run));
+            reopened.setHistoryPersisted(true);
+            reopened.loadQuestionBank("test-bank.json");
+            reopened.undo();
+
+            // Then
+            assertEquals("1", stored.get(0).getVersion());
+            assertEquals("Question 1", reopened.getQuestionTextField().getText());
+            assertTrue(reopened.getStatusLabel().getText().startsWith("Undone"));
+        } finally {
+            FileUtils.setDataFolder(originalDataFolder);
+            controller.setHistoryPersisted(false);
+            controller.setQuestionService(new AsyncQuestionService(questionService, Runnable::run, Runnable::run));
+        }
+    }
+
+    private static void runAll(List<Runnable> callbacks) {
+        while (!callbacks.isEmpty()) {
+            callbacks.remove(0).run();
+        }
+    }
+
+    private List<QuestionDto> createQuestionsWithIds() {
+        List<QuestionDto> questions = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            QuestionDto question = createMockQuestion("Question " + i, "Answer " + i, "Category " + i);
+            question.setId(UUID.randomUUID());
+            questions.add(question);
+        }
+        return questions;
+    }
+
     private QuestionDto createMockQuestion(String question, String answer, String category) {
         QuestionDto dto = new QuestionDto();
         dto.setQuestion(question);
@@ -1,14 +1,25 @@
 package net.talaatharb.questionbank.ui.controllers;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -21,8 +32,11 @@ import org.testfx.framework.junit5.ApplicationTest;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextArea;
+import javafx.scene.control.TextField;
 import javafx.stage.Stage;
 import net.talaatharb.questionbank.dto.QuestionDto;
+import net.talaatharb.questionbank.dto.QuestionField;
+import net.talaatharb.questionbank.service.AsyncQuestionService;
 import net.talaatharb.questionbank.service.QuestionService;
 
 @ExtendWith({MockitoExtension.class, ApplicationExtension.class})
@@ -39,7 +53,7 @@ class QuestionViewerControllerTest extends ApplicationTest {
     @Override
     public void start(Stage stage) {
         controller = new QuestionViewerController();
-        controller.setQuestionService(questionService);
+        controller.setQuestionService(new AsyncQuestionService(questionService, Runnable::run, Runnable::run));
         controller.setSceneManager(sceneManager);
         controller.setStatusLabel(new Label());
         controller.setQuestionNumberLabel(new Label());
@@ -48,6 +62,9 @@ class QuestionViewerControllerTest extends ApplicationTest {
         controller.setQuestionTextLabel(new Label());
         controller.setAnswerTextArea(new TextArea());
         controller.setBackToListButton(new Button());
+        controller.setSearchField(new TextField());
+        controller.setSearchButton(new Button());
+        controller.setFacetLabel(new Label());
     }
 
     @BeforeEach
@@ -63,42 +80,181 @@ class QuestionViewerControllerTest extends ApplicationTest {
             createMockQuestion("What is Java?", "A programming language", "Programming"),
             createMockQuestion("What is Spring?", "A framework", "Framework")
         );
-        when(questionService.getQuestions(questionBank)).thenReturn(mockQuestions);
+        when(questionService.getQuestionCount(questionBank)).thenReturn(mockQuestions.size());
+        when(questionService.getQuestions(eq(questionBank), eq(0), anyInt())).thenReturn(mockQuestions);
 
         // When
         controller.loadQuestionBank(questionBank);
 
         // Then
-        verify(questionService).getQuestions(questionBank);
+        verify(questionService).getQuestionCount(questionBank);
+        verify(questionService).getQuestions(eq(questionBank), eq(0), anyInt());
+        assertEquals("What is Java?", controller.getQuestionTextLabel().getText());
     }
 
     @Test
     void testLoadQuestionBank_WithEmptyQuestions() {
         // Given
         String questionBank = "empty-bank.json";
-        when(questionService.getQuestions(questionBank)).thenReturn(List.of());
+        when(questionService.getQuestionCount(questionBank)).thenReturn(0);
 
         // When
         controller.loadQuestionBank(questionBank);
 
         // Then
-        verify(questionService).getQuestions(questionBank);
+        verify(questionService).getQuestionCount(questionBank);
+        assertEquals("No questions", controller.getQuestionNumberLabel().getText());
     }
 
     @Test
     void testLoadQuestionBank_WithException() {
         // Given
         String questionBank = "invalid-bank.json";
-        when(questionService.getQuestions(questionBank)).thenThrow(new RuntimeException("Test exception"));
+        when(questionService.getQuestionCount(questionBank)).thenThrow(new RuntimeException("Test exception"));
 
         // When
         controller.loadQuestionBank(questionBank);
 
         // Then
-        verify(questionService).getQuestions(questionBank);
+        verify(questionService).getQuestionCount(questionBank);
         // Exception should be handled gracefully
     }
 
+    @Test
+    void testDispose_InterruptsTheRunningLoad() throws InterruptedException {
+        // Given
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        when(questionService.getQuestionCount("slow-bank.json")).thenAnswer(invocation -> {
+            started.countDown();
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return 0;
+        });
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        controller.setQuestionService(new AsyncQuestionService(questionService, executor, Runnable::run));
+
+        try {
+            controller.loadQuestionBank("slow-bank.json");
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            // When
+            controller.dispose();
+
+            // Then
+            assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testShowNextQuestion_LoadsNextPage() {
+        // Given
+        String questionBank = "large-bank.json";
+        when(questionService.getQuestionCount(questionBank)).thenReturn(51);
+        when(questionService.getQuestions(questionBank, 0, 50)).thenReturn(createQuestions(50));
+        when(questionService.getQuestions(questionBank, 50, 50)).thenReturn(createQuestions(1));
+        controller.loadQuestionBank(questionBank);
+
+        // When
+        for (int i = 0; i < 50; i++) {
+            controller.showNextQuestion();
+        }
+
+        // Then
+        verify(questionService).getQuestions(questionBank, 50, 50);
+        assertEquals("Question 51 of 51", controller.getQuestionNumberLabel().getText());
+        assertEquals("Question 1", controller.getQuestionTextLabel().getText());
+    }
+
+    @Test
+    void testSearch_BrowsesResultsAndClearsBackToBank() {
+        // Given
+        setupControllerWithQuestions();
+        controller.loadQuestionBank("test-bank.json");
+        when(questionService.search("test-bank.json", "spring", 100)).thenReturn(List.of(
+                createMockQuestion("What is Spring?", "A framework", "Framework"),
+                createMockQuestion("What is Spring Boot?", "Spring with defaults", "Framework")));
+
+        // When
+        controller.search(" spring ");
+        controller.showNextQuestion();
+
+        // Then
+        assertEquals("Question 2 of 2", controller.getQuestionNumberLabel().getText());
+        assertEquals("What is Spring Boot?", controller.getQuestionTextLabel().getText());
+        assertEquals("Found 2 questions matching \"spring\"", controller.getStatusLabel().getText());
+
+        // When
+        controller.search("");
+
+        // Then
+        assertEquals("Question 1 of 3", controller.getQuestionNumberLabel().getText());
+        assertEquals("Question 1", controller.getQuestionTextLabel().getText());
+    }
+
+    @Test
+    void testSearch_WithoutMatches() {
+        // Given
+        setupControllerWithQuestions();
+        controller.loadQuestionBank("test-bank.json");
+        when(questionService.search(anyString(), anyString(), anyInt())).thenReturn(List.of());
+
+        // When
+        controller.search("kotlin");
+
+        // Then
+        assertEquals("No questions", controller.getQuestionNumberLabel().getText());
+        assertEquals("No questions match \"kotlin\"", controller.getStatusLabel().getText());
+    }
+
+    @Test
+    void testLoadQuestionBank_ShowsFacetCounts() {
+        // Given
+        setupControllerWithQuestions();
+        Map<QuestionField, Map<String, Integer>> counts = new LinkedHashMap<>();
+        counts.put(QuestionField.CATEGORY, Map.of("Networking", 2));
+        counts.put(QuestionField.TAGS, Map.of());
+        counts.put(QuestionField.STATUS, new LinkedHashMap<>(Map.of("draft", 1)));
+        counts.get(QuestionField.STATUS).put("published", 3);
+        when(questionService.getFacetCounts("test-bank.json")).thenReturn(counts);
+
+        // When
+        controller.loadQuestionBank("test-bank.json");
+
+        // Then
+        assertEquals("category: Networking (2) | status: published (3), draft (1)",
+                controller.getFacetLabel().getText());
+    }
+
+    @Test
+    void testSearch_WithFilter() {
+        // Given
+        setupControllerWithQuestions();
+        controller.loadQuestionBank("test-bank.json");
+        when(questionService.filterQuestions("test-bank.json", "category=Framework AND NOT status=draft", 0, 100))
+                .thenReturn(List.of(createMockQuestion("What is Spring?", "A framework", "Framework")));
+        when(questionService.filterQuestions("test-bank.json", "category=", 0, 100))
+                .thenThrow(new IllegalArgumentException("Expected a value"));
+
+        // When
+        controller.search("category=Framework AND NOT status=draft");
+
+        // Then
+        assertEquals("Question 1 of 1", controller.getQuestionNumberLabel().getText());
+        assertEquals("What is Spring?", controller.getQuestionTextLabel().getText());
+
+        // When
+        controller.search("category=");
+
+        // Then
+        assertEquals("Invalid filter: Expected a value", controller.getStatusLabel().getText());
+    }
+
     @Test
     void testShowPreviousQuestion_WithValidIndex() {
         // Given
@@ -148,7 +304,7 @@ class QuestionViewerControllerTest extends ApplicationTest {
         QuestionService mockService = mock(QuestionService.class);
 
         // When & Then
-        assertDoesNotThrow(() -> controller.setQuestionService(mockService));
+        assertDoesNotThrow(() -> controller.setQuestionService(new AsyncQuestionService(mockService)));
     }
 
     @Test
@@ -177,12 +333,17 @@ class QuestionViewerControllerTest extends ApplicationTest {
         return dto;
     }
 
+    private List<QuestionDto> createQuestions(int count) {
+        List<QuestionDto> questions = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            questions.add(createMockQuestion("Question " + i, "Answer " + i, "Category " + i));
+        }
+        return questions;
+    }
+
     private void setupControllerWithQuestions() {
-        List<QuestionDto> mockQuestions = Arrays.asList(
-            createMockQuestion("Question 1", "Answer 1", "Category 1"),
-            createMockQuestion("Question 2", "Answer 2", "Category 2"),
-            createMockQuestion("Question 3", "Answer 3", "Category 3")
-        );
-        when(questionService.getQuestions(anyString())).thenReturn(mockQuestions);
+        List<QuestionDto> mockQuestions = createQuestions(3);
+        when(questionService.getQuestionCount(anyString())).thenReturn(mockQuestions.size());
+        when(questionService.getQuestions(anyString(), anyInt(), anyInt())).thenReturn(mockQuestions);
     }
 } 
\ No newline at end of file
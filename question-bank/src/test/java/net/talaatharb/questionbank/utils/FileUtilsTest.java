@@ -9,9 +9,17 @@ import org.junit.jupiter.params.provider.CsvSource;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.AbstractList;
 import java.util.List;
+import java.util.Set;
+
+import net.talaatharb.questionbank.dto.QuestionDto;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 class FileUtilsTest {
 
@@ -192,4 +200,166 @@ class FileUtilsTest {
             System.out.println("Skipping actual FileUtils test - ./data/empty.json not found: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    void testSaveQuestionsToJsonFile_RoundTrip() throws IOException {
+        // Given
+        List<QuestionDto> questions = List.of(createQuestion("What is Java?"), createQuestion("What is JVM?"));
+
+        // When
+        FileUtils.saveQuestionsToJsonFile("saved.json", questions);
+
+        // Then
+        List<QuestionDto> loaded = QuestionUtils.convertToQuestionDtoList(FileUtils.loadJsonFileAsString("saved.json"));
+        assertEquals(questions, loaded);
+        try (var files = Files.list(testDataPath)) {
+            assertTrue(files.noneMatch(path -> path.getFileName().toString().endsWith(".tmp")));
+        }
+    }
+
+    @Test
+    void testSaveQuestionsToJsonFile_InterruptedWriteKeepsOriginal() throws IOException {
+        // Given
+        FileUtils.saveQuestionsToJsonFile("saved.json", List.of(createQuestion("What is Java?")));
+        String original = FileUtils.loadJsonFileAsString("saved.json");
+        List<QuestionDto> failing = new AbstractList<>() {
+            @Override
+            public QuestionDto get(int index) {
+                if (index == 1) {
+                    throw new IllegalStateException("Simulated crash");
+                }
+                return createQuestion("Question " + index);
+            }
+
+            @Override
+            public int size() {
+                return 2;
+            }
+        };
+
+        // When
+        assertThrows(IllegalStateException.class, () -> FileUtils.saveQuestionsToJsonFile("saved.json", failing));
+
+        // Then
+        assertEquals(original, FileUtils.loadJsonFileAsString("saved.json"));
+        try (var files = Files.list(testDataPath)) {
+            assertTrue(files.noneMatch(path -> path.getFileName().toString().endsWith(".tmp")));
+        }
+    }
+
+    @Test
+    void testSaveQuestionsToJsonFile_KeepsPermissionsOfReplacedFile() throws IOException {
+        // Given
+        assumeTrue(Files.getFileStore(testDataPath).supportsFileAttributeView(PosixFileAttributeView.class));
+        FileUtils.saveQuestionsToJsonFile("shared.json", List.of(createQuestion("What is Java?")));
+        Set<PosixFilePermission> shared = PosixFilePermissions.fromString("rw-rw-r--");
+        Files.setPosixFilePermissions(testDataPath.resolve("shared.json"), shared);
+
+        // When
+        FileUtils.saveQuestionsToJsonFile("shared.json", List.of(createQuestion("What is JVM?")));
+
+        // Then
+        assertEquals(shared, Files.getPosixFilePermissions(testDataPath.resolve("shared.json")));
+    }
+
+    private QuestionDto createQuestion(String text) {
+        QuestionDto question = new QuestionDto();
+        question.setQuestion(text);
+        question.setAnswer("Answer to " + text);
+        question.setCategory("Programming");
+        return question;
+    }
+
+    @Test
+    void testListJsonFilesInDataFolder_IncludesBinaryBanks() throws IOException {
+        // Given
+        FileUtils.saveQuestionsToQbinFile("binary.qbin", List.of(createQuestion("What is Java?")));
+
+        // When
+        List<String> banks = FileUtils.listJsonFilesInDataFolder();
+
+        // Then
+        assertEquals(4, banks.size());
+        assertTrue(banks.contains("binary.qbin"));
+        try (var bank = FileUtils.openQbinBank("binary.qbin")) {
+            assertEquals("What is Java?", bank.getQuestion(0).getQuestion());
+        }
+    }
+
+    @Test
+    void testSaveQuestionsToShardedBank_ConvertsBankFilePastThreshold() throws IOException {
+        // Given
+        long originalThreshold = FileUtils.getShardThresholdBytes();
+        int originalShardSize = FileUtils.getShardSize();
+        List<QuestionDto> questions = List.of(createQuestion("What is Java?"), createQuestion("What is JVM?"),
+                createQuestion("What is JIT?"));
+        FileUtils.saveQuestionsToJsonFile("large.json.gz", questions);
+
+        try {
+            // Every question ends a shard of size 1
+            FileUtils.setShardSize(1);
+            FileUtils.setShardThresholdBytes(Files.size(testDataPath.resolve("large.json.gz")) + 1);
+            assertFalse(FileUtils.shouldShard("large.json.gz"));
+            FileUtils.setShardThresholdBytes(0);
+            assertTrue(FileUtils.shouldShard("large.json.gz"));
+
+            // When
+            int written = FileUtils.saveQuestionsToShardedBank("large.json.gz", questions);
+
+            // Then
+            assertEquals(3, written);
+            assertTrue(Files.isDirectory(testDataPath.resolve("large.json.gz")));
+            assertTrue(FileUtils.isShardedBank("large.json.gz"));
+            assertTrue(FileUtils.listJsonFilesInDataFolder().contains("large.json.gz"));
+            assertEquals(testDataPath.resolve("large.json.gz"), FileUtils.getExistingFilePath("large.json.gz"));
+            assertEquals(questions, FileUtils.openShardedBank("large.json.gz").readAll());
+            assertEquals(0, FileUtils.saveQuestionsToShardedBank("large.json.gz", questions));
+            assertFalse(Files.exists(FileUtils.getSidecarFilePath("large.json.gz", ".sharding")));
+            assertFalse(FileUtils.isShardedBank("empty.json"));
+            assertThrows(IllegalArgumentException.class, () -> FileUtils.setShardSize(0));
+            assertThrows(IllegalArgumentException.class, () -> FileUtils.setShardThresholdBytes(-1));
+        } finally {
+            FileUtils.setShardThresholdBytes(originalThreshold);
+            FileUtils.setShardSize(originalShardSize);
+        }
+    }
+
+    @Test
+    void testRecoverShardedBank_RestoresBackupOfInterruptedConversion() throws IOException {
+        // Given
+        List<QuestionDto> questions = List.of(createQuestion("What is Java?"));
+        FileUtils.saveQuestionsToJsonFile("converted.json", questions);
+        Path backupFile = FileUtils.getSidecarFilePath("converted.json", ".bak");
+        Files.createDirectories(backupFile.getParent());
+        Files.move(testDataPath.resolve("converted.json"), backupFile);
+
+        // When
+        List<String> banks = FileUtils.listJsonFilesInDataFolder();
+
+        // Then
+        assertTrue(banks.contains("converted.json"));
+        assertFalse(Files.exists(backupFile));
+        try (var reader = FileUtils.openQuestionReader("converted.json")) {
+            assertEquals("What is Java?", reader.next().getQuestion());
+        }
+    }
+
+    @Test
+    void testSaveQuestionsToShardedBank_ReplacesFolderOfInterruptedWrite() throws IOException {
+        // Given
+        List<QuestionDto> questions = List.of(createQuestion("What is Java?"), createQuestion("What is JVM?"));
+        Files.createDirectories(testDataPath.resolve("interrupted.json"));
+        Files.writeString(testDataPath.resolve("interrupted.json").resolve("00000-1.json"), "[");
+        Files.createDirectories(FileUtils.getSidecarFilePath("interrupted.json", ".sharding"));
+
+        // When
+        boolean shouldShard = FileUtils.shouldShard("interrupted.json");
+        FileUtils.saveQuestionsToShardedBank("interrupted.json", questions);
+
+        // Then
+        assertTrue(shouldShard);
+        assertEquals(questions, FileUtils.openShardedBank("interrupted.json").readAll());
+        assertFalse(Files.exists(testDataPath.resolve("interrupted.json").resolve("00000-1.json")));
+        assertFalse(Files.exists(FileUtils.getSidecarFilePath("interrupted.json", ".sharding")));
+    }
+}
@@ -6,6 +6,7 @@ import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -193,4 +194,101 @@ class QuestionUtilsTest {
         assertEquals(originalQuestions.get(1).getAnswer(), convertedQuestion2.getAnswer());
         assertEquals(originalQuestions.get(1).getCategory(), convertedQuestion2.getCategory());
     }
-} 
\ No newline at end of file
+
+    @Test
+    void testCopyOf_CopiesAllFields() {
+        // Given
+        QuestionDto question = new QuestionDto();
+        question.setId(UUID.randomUUID());
+        question.setQuestion("What is Java?");
+        question.setLanguage("en");
+        question.setAnswerAudioFileName("answer.mp3");
+
+        // When
+        QuestionDto copy = QuestionUtils.copyOf(question);
+
+        // Then
+        assertNotSame(question, copy);
+        assertEquals(question, copy);
+    }
+
+    @Test
+    void testEstimateRetainedBytes_GrowsWithContent() {
+        // Given
+        QuestionDto empty = new QuestionDto();
+        QuestionDto question = new QuestionDto();
+        question.setQuestion("What is Java?");
+        question.setAnswer("A programming language");
+
+        // When
+        long emptySize = QuestionUtils.estimateRetainedBytes(empty);
+        long questionSize = QuestionUtils.estimateRetainedBytes(question);
+
+        // Then
+        assertTrue(emptySize > 0);
+        assertTrue(questionSize >= emptySize + 2L * ("What is Java?".length() + "A programming language".length()));
+    }
+
+    @Test
+    void testEstimateRetainedBytes_CountsSharedStringsOnce() {
+        // Given
+        String category = "Programming";
+        QuestionDto first = new QuestionDto();
+        first.setCategory(category);
+        QuestionDto second = new QuestionDto();
+        second.setCategory(category);
+        QuestionDto third = new QuestionDto();
+        third.setCategory(new String(category));
+
+        // When
+        long shared = QuestionUtils.estimateRetainedBytes(List.of(first, second));
+        long separate = QuestionUtils.estimateRetainedBytes(List.of(first, third));
+
+        // Then
+        assertEquals(QuestionUtils.estimateRetainedBytes(first) + QuestionUtils.estimateRetainedBytes(third), separate);
+        assertTrue(shared < separate);
+    }
+
+    @Test
+    void testBumpVersion_IncreasesWholeNumbers() {
+        // Given
+        QuestionDto question = new QuestionDto();
+
+        // When
+        QuestionUtils.bumpVersion(question, "41");
+
+        // Then
+        assertEquals("42", question.getVersion());
+        assertNotNull(question.getUpdatedAt());
+        QuestionUtils.bumpVersion(question, null);
+        assertEquals("1", question.getVersion());
+        QuestionUtils.bumpVersion(question, "draft");
+        assertEquals("1", question.getVersion());
+    }
+
+    @Test
+    void testMerge_TakesFieldsOfEachChange() {
+        // Given
+        QuestionDto base = new QuestionDto();
+        base.setQuestion("What is Java?");
+        base.setAnswer("A language");
+        base.setVersion("1");
+        QuestionDto ours = QuestionUtils.copyOf(base);
+        ours.setAnswer("A programming language");
+        QuestionDto theirs = QuestionUtils.copyOf(base);
+        theirs.setCategory("Programming");
+        theirs.setVersion("2");
+
+        // When
+        QuestionDto merged = QuestionUtils.merge(base, ours, theirs);
+
+        // Then
+        assertEquals("A programming language", merged.getAnswer());
+        assertEquals("Programming", merged.getCategory());
+        assertEquals("2", merged.getVersion());
+        theirs.setAnswer("An island");
+        assertNull(QuestionUtils.merge(base, ours, theirs));
+        theirs.setAnswer("A programming language");
+        assertNotNull(QuestionUtils.merge(base, ours, theirs));
+    }
+}